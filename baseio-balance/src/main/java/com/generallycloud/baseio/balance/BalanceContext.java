@@ -21,19 +21,21 @@ import com.generallycloud.baseio.balance.facade.BalanceFacadeAcceptorSEListener;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseAcceptor;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseAcceptorHandler;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseAcceptorSEListener;
+import com.generallycloud.baseio.balance.reverse.BalanceReverseHealthChecker;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseLogger;
+import com.generallycloud.baseio.balance.reverse.BalanceReverseMachineResolver;
+import com.generallycloud.baseio.balance.reverse.DefaultBalanceReverseMachineResolver;
 import com.generallycloud.baseio.balance.router.BalanceRouter;
 import com.generallycloud.baseio.component.ExceptionCaughtHandle;
 import com.generallycloud.baseio.component.SilentExceptionCaughtHandle;
 
-//FIXME 增加熔断机制
 public class BalanceContext {
 
-    public static final String               BALANCE_CHANNEL_LOST         = "BALANCE_CHANNEL_LOST";
-    public static final String               BALANCE_RECEIVE_BROADCAST    = "BALANCE_RECEIVE_BROADCAST";
+    public static final String               BALANCE_CHANNEL_LOST          = "BALANCE_CHANNEL_LOST";
+    public static final String               BALANCE_RECEIVE_BROADCAST     = "BALANCE_RECEIVE_BROADCAST";
 
-    private BalanceFacadeAcceptor            balanceFacadeAcceptor        = new BalanceFacadeAcceptor();
-    private BalanceReverseAcceptor           balanceReverseAcceptor       = new BalanceReverseAcceptor();
+    private BalanceFacadeAcceptor            balanceFacadeAcceptor         = new BalanceFacadeAcceptor();
+    private BalanceReverseAcceptor           balanceReverseAcceptor        = new BalanceReverseAcceptor();
     private BalanceFacadeAcceptorSEListener  balanceFacadeAcceptorSEListener;
     private BalanceReverseAcceptorSEListener balanceReverseAcceptorSEListener;
     private BalanceRouter                    balanceRouter;
@@ -43,10 +45,13 @@ public class BalanceContext {
     private NoneLoadFutureAcceptor           noneLoadReadFutureAcceptor;
     private FacadeInterceptor                facadeInterceptor;
     private BalanceReverseLogger             balanceReverseLogger;
-    private ExceptionCaughtHandle            facadeExceptionCaughtHandle  = new SilentExceptionCaughtHandle();
-    private ExceptionCaughtHandle            reverseExceptionCaughtHandle = facadeExceptionCaughtHandle;
+    private BalanceReverseHealthChecker      balanceReverseHealthChecker   = new BalanceReverseHealthChecker();
+    private BalanceReverseMachineResolver    balanceReverseMachineResolver = new DefaultBalanceReverseMachineResolver();
+    private ExceptionCaughtHandle            facadeExceptionCaughtHandle   = new SilentExceptionCaughtHandle();
+    private ExceptionCaughtHandle            reverseExceptionCaughtHandle  = facadeExceptionCaughtHandle;
 
     public void initialize() {
+        this.balanceReverseHealthChecker.setBalanceRouter(balanceRouter);
         this.balanceFacadeAcceptorSEListener = new BalanceFacadeAcceptorSEListener(this);
         this.balanceReverseAcceptorSEListener = new BalanceReverseAcceptorSEListener(this);
         this.balanceReverseAcceptorHandler = new BalanceReverseAcceptorHandler(this);
@@ -129,6 +134,30 @@ public class BalanceContext {
         this.reverseExceptionCaughtHandle = reverseExceptionCaughtHandle;
     }
 
+    public BalanceReverseHealthChecker getBalanceReverseHealthChecker() {
+        return balanceReverseHealthChecker;
+    }
+
+    public void setBalanceReverseHealthChecker(
+            BalanceReverseHealthChecker balanceReverseHealthChecker) {
+        if (balanceReverseHealthChecker == null) {
+            throw new IllegalArgumentException("null balanceReverseHealthChecker");
+        }
+        this.balanceReverseHealthChecker = balanceReverseHealthChecker;
+    }
+
+    public BalanceReverseMachineResolver getBalanceReverseMachineResolver() {
+        return balanceReverseMachineResolver;
+    }
+
+    public void setBalanceReverseMachineResolver(
+            BalanceReverseMachineResolver balanceReverseMachineResolver) {
+        if (balanceReverseMachineResolver == null) {
+            throw new IllegalArgumentException("null balanceReverseMachineResolver");
+        }
+        this.balanceReverseMachineResolver = balanceReverseMachineResolver;
+    }
+
     public BalanceReverseLogger getBalanceReverseLogger() {
         return balanceReverseLogger;
     }
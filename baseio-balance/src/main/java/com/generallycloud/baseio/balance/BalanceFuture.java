@@ -15,16 +15,38 @@
  */
 package com.generallycloud.baseio.balance;
 
+import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.Future;
 
 public interface BalanceFuture extends Future {
 
     public abstract Object getSessionKey();
 
+    /**
+     * 后端回复时原样带回，与sessionKey一起匹配转发出去的请求
+     */
+    public abstract int getFutureId();
+
     public abstract boolean isBroadcast();
 
     public abstract void setBroadcast(boolean broadcast);
 
     public abstract BalanceFuture translate();
 
+    /**
+     * 透传模式下只解析了路由所需的报文头，报文体未解码
+     */
+    public abstract boolean isPassthrough();
+
+    /**
+     * 取出透传模式下保留的原始报文，返回的future可直接doFlush，
+     * 不再转发时需release该future
+     */
+    public abstract ChannelFuture passthrough();
+
+    /**
+     * 透传模式下原始报文是否仍未被{@link #passthrough()}取出
+     */
+    public abstract boolean hasPassthroughFrame();
+
 }
@@ -23,7 +23,9 @@ import com.generallycloud.baseio.balance.facade.BalanceFacadeAcceptor;
 import com.generallycloud.baseio.balance.facade.BalanceFacadeAcceptorHandler;
 import com.generallycloud.baseio.balance.facade.BalanceFacadeSocketSessionFactory;
 import com.generallycloud.baseio.balance.facade.SessionIdBalanceFacadeAcceptorHandler;
+import com.generallycloud.baseio.balance.reverse.BalanceReverseHealthChecker;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseLogger;
+import com.generallycloud.baseio.balance.reverse.BalanceReverseMachineResolver;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseSocketSessionFactory;
 import com.generallycloud.baseio.balance.router.BalanceRouter;
 import com.generallycloud.baseio.balance.router.SimpleNextRouter;
@@ -60,6 +62,8 @@ public class BalanceServerBootStrap {
     private BalanceFacadeAcceptor                balanceFacadeAcceptor;
     private BalanceReverseLogger                 balanceReverseLogger;
     private BalanceFacadeAcceptorHandler         balanceFacadeAcceptorHandler;
+    private BalanceReverseHealthChecker          balanceReverseHealthChecker;
+    private BalanceReverseMachineResolver        balanceReverseMachineResolver;
 
     public void startup() throws IOException {
 
@@ -103,6 +107,14 @@ public class BalanceServerBootStrap {
 
         balanceContext.setBalanceRouter(balanceRouter);
 
+        if (balanceReverseHealthChecker != null) {
+            balanceContext.setBalanceReverseHealthChecker(balanceReverseHealthChecker);
+        }
+
+        if (balanceReverseMachineResolver != null) {
+            balanceContext.setBalanceReverseMachineResolver(balanceReverseMachineResolver);
+        }
+
         if (balanceFacadeAcceptorHandler == null) {
             balanceFacadeAcceptorHandler = new SessionIdBalanceFacadeAcceptorHandler(
                     balanceContext);
@@ -179,6 +191,8 @@ public class BalanceServerBootStrap {
 
         context.addSessionEventListener(balanceContext.getBalanceReverseAcceptorSEListener());
 
+        context.addSessionIdleEventListener(balanceContext.getBalanceReverseHealthChecker());
+
         context.setProtocolFactory(protocolFactory);
 
         context.setBeatFutureFactory(balanceReverseBeatFutureFactory);
@@ -286,6 +300,24 @@ public class BalanceServerBootStrap {
         this.balanceReverseBeatFutureFactory = balanceReverseBeatFutureFactory;
     }
 
+    public BalanceReverseHealthChecker getBalanceReverseHealthChecker() {
+        return balanceReverseHealthChecker;
+    }
+
+    public void setBalanceReverseHealthChecker(
+            BalanceReverseHealthChecker balanceReverseHealthChecker) {
+        this.balanceReverseHealthChecker = balanceReverseHealthChecker;
+    }
+
+    public BalanceReverseMachineResolver getBalanceReverseMachineResolver() {
+        return balanceReverseMachineResolver;
+    }
+
+    public void setBalanceReverseMachineResolver(
+            BalanceReverseMachineResolver balanceReverseMachineResolver) {
+        this.balanceReverseMachineResolver = balanceReverseMachineResolver;
+    }
+
     public void setBalanceRouter(BalanceRouter balanceRouter) {
         this.balanceRouter = balanceRouter;
     }
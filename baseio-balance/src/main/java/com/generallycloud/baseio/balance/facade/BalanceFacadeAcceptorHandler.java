@@ -22,6 +22,7 @@ import com.generallycloud.baseio.balance.NoneLoadFutureAcceptor;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseLogger;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseSocketSession;
 import com.generallycloud.baseio.balance.router.BalanceRouter;
+import com.generallycloud.baseio.common.ReleaseUtil;
 import com.generallycloud.baseio.component.ExceptionCaughtHandle;
 import com.generallycloud.baseio.component.IoEventHandleAdaptor;
 import com.generallycloud.baseio.component.SocketSession;
@@ -53,24 +54,48 @@ public abstract class BalanceFacadeAcceptorHandler extends IoEventHandleAdaptor
 
         BalanceFuture f = (BalanceFuture) future;
 
-        if (facadeInterceptor.intercept(fs, f)) {
-            logger.info("msg intercepted [ {} ], msg: {}", fs.getRemoteSocketAddress(), f);
-            return;
-        }
+        // 任何一步抛出异常或子类没有调用flush(rs, f)时，透传报文都还未交出，在此释放
+        try {
+            if (facadeInterceptor.intercept(fs, f)) {
+                logger.info("msg intercepted [ {} ], msg: {}", fs.getRemoteSocketAddress(), f);
+                return;
+            }
 
-        BalanceReverseSocketSession rs = balanceRouter.getRouterSession(fs, f);
+            BalanceReverseSocketSession rs = balanceRouter.getRouterSession(fs, f);
 
-        if (rs == null || rs.isClosed()) {
-            noneLoadReadFutureAcceptor.accept(fs, f, balanceReverseLogger);
-            return;
-        }
+            if (rs == null || rs.isClosed()) {
+                noneLoadReadFutureAcceptor.accept(fs, f, balanceReverseLogger);
+                return;
+            }
 
-        doAccept(fs, rs, f);
+            rs.addInFlight(fs.getSessionKey(), f.getFutureId());
+
+            doAccept(fs, rs, f);
+        } finally {
+            releasePassthrough(f);
+        }
     }
 
     protected abstract void doAccept(BalanceFacadeSocketSession fs, BalanceReverseSocketSession rs,
             BalanceFuture future);
 
+    protected void flush(BalanceReverseSocketSession rs, BalanceFuture f) {
+        if (f.isPassthrough()) {
+            rs.doFlush(f.passthrough());
+            return;
+        }
+        rs.flush(f.translate());
+    }
+
+    /**
+     * 释放尚未交出的透传报文，已经flush或已释放时不做处理
+     */
+    protected void releasePassthrough(BalanceFuture f) {
+        if (f.isPassthrough() && f.hasPassthroughFrame()) {
+            ReleaseUtil.release(f.passthrough());
+        }
+    }
+
     protected void logDispatchMsg(BalanceFacadeSocketSession fs, BalanceReverseSocketSession rs,
             BalanceFuture f) {
 
@@ -34,7 +34,7 @@ public class SessionIdBalanceFacadeAcceptorHandler extends BalanceFacadeAcceptor
 
         f.setSessionId(fs.getSessionId());
 
-        rs.flush(f.translate());
+        flush(rs, f);
 
         logDispatchMsg(fs, rs, f);
     }
@@ -35,10 +35,11 @@ public abstract class TokenBalanceFacadeAcceptorHandler extends BalanceFacadeAcc
 
         if (f.getToken() == 0) {
             fs.flush(createTokenPacket(fs));
+            releasePassthrough(f);
             return;
         }
 
-        rs.flush(f.translate());
+        flush(rs, f);
 
         logDispatchMsg(fs, rs, f);
     }
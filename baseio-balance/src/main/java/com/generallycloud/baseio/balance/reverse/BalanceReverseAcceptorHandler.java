@@ -15,30 +15,37 @@
  */
 package com.generallycloud.baseio.balance.reverse;
 
+import java.io.IOException;
+
 import com.generallycloud.baseio.balance.BalanceContext;
 import com.generallycloud.baseio.balance.BalanceFuture;
 import com.generallycloud.baseio.balance.facade.BalanceFacadeAcceptor;
+import com.generallycloud.baseio.balance.facade.BalanceFacadeSocketSession;
 import com.generallycloud.baseio.balance.router.BalanceRouter;
+import com.generallycloud.baseio.common.ReleaseUtil;
 import com.generallycloud.baseio.component.ExceptionCaughtHandle;
 import com.generallycloud.baseio.component.IoEventHandleAdaptor;
 import com.generallycloud.baseio.component.SocketSession;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
+import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.Future;
 
 public class BalanceReverseAcceptorHandler extends IoEventHandleAdaptor {
 
-    private Logger                logger = LoggerFactory.getLogger(getClass());
-    private BalanceRouter         balanceRouter;
-    private BalanceFacadeAcceptor balanceFacadeAcceptor;
-    private ExceptionCaughtHandle exceptionCaughtHandle;
-    private BalanceReverseLogger  balanceReverseLogger;
+    private Logger                      logger = LoggerFactory.getLogger(getClass());
+    private BalanceRouter               balanceRouter;
+    private BalanceFacadeAcceptor       balanceFacadeAcceptor;
+    private ExceptionCaughtHandle       exceptionCaughtHandle;
+    private BalanceReverseLogger        balanceReverseLogger;
+    private BalanceReverseHealthChecker healthChecker;
 
     public BalanceReverseAcceptorHandler(BalanceContext context) {
         this.balanceRouter = context.getBalanceRouter();
         this.balanceReverseLogger = context.getBalanceReverseLogger();
         this.balanceFacadeAcceptor = context.getBalanceFacadeAcceptor();
         this.exceptionCaughtHandle = context.getReverseExceptionCaughtHandle();
+        this.healthChecker = context.getBalanceReverseHealthChecker();
     }
 
     @Override
@@ -48,29 +55,61 @@ public class BalanceReverseAcceptorHandler extends IoEventHandleAdaptor {
 
         if (f.isBroadcast()) {
 
-            balanceFacadeAcceptor.getAcceptor().broadcast(f.translate());
+            broadcast(f);
 
             balanceReverseLogger.logBroadcast(session, future, logger);
 
             return;
         }
 
-        SocketSession response = balanceRouter.getClientSession(f.getSessionKey());
+        BalanceReverseSocketSession rs = (BalanceReverseSocketSession) session;
+
+        // 只有已转发请求的回复才减少在途请求数并计为一次成功，后端推送的消息不计入
+        long dispatchTime = rs.removeInFlight(f.getSessionKey(), f.getFutureId());
+
+        if (dispatchTime != -1) {
+            healthChecker.onSuccess(rs, System.nanoTime() - dispatchTime);
+        }
+
+        BalanceFacadeSocketSession response = balanceRouter.getClientSession(f.getSessionKey());
 
         if (response == null || response.isClosed()) {
 
             balanceReverseLogger.logPushLost(session, future, logger);
 
+            if (f.isPassthrough()) {
+                ReleaseUtil.release(f.passthrough());
+            }
+
             return;
         }
 
-        response.flush(f.translate());
+        if (f.isPassthrough()) {
+            response.doFlush(f.passthrough());
+        } else {
+            response.flush(f.translate());
+        }
 
         balanceReverseLogger.logPush(session, response, future, logger);
     }
 
+    private void broadcast(BalanceFuture f) throws IOException {
+        if (!f.isPassthrough()) {
+            balanceFacadeAcceptor.getAcceptor().broadcast(f.translate());
+            return;
+        }
+        // 原始报文由各selector线程duplicate后写出，这里释放持有的一份
+        ChannelFuture frame = f.passthrough();
+        try {
+            balanceFacadeAcceptor.getAcceptor().broadcastChannelFuture(frame);
+        } finally {
+            ReleaseUtil.release(frame);
+        }
+    }
+
     @Override
     public void exceptionCaught(SocketSession session, Future future, Exception ex) {
+        healthChecker.onFailure((BalanceReverseSocketSession) session);
         exceptionCaughtHandle.exceptionCaught(session, future, ex);
     }
 
@@ -33,13 +33,21 @@ public class BalanceReverseAcceptorSEListener extends SocketSessionEventListener
 
     @Override
     public void sessionOpened(SocketSession session) {
-        logger.info("load node from [ {} ] connected.", session);
-        context.getBalanceRouter().addRouterSession((BalanceReverseSocketSession) session);
+        BalanceReverseSocketSession rs = (BalanceReverseSocketSession) session;
+        context.getBalanceReverseMachineResolver().resolve(rs);
+        logger.info("load node [ {} ] from [ {} ] connected.", rs.getMachineKey(), session);
+        context.getBalanceReverseHealthChecker().onOpened(rs);
+        context.getBalanceRouter().addRouterSession(rs);
     }
 
     @Override
     public void sessionClosed(SocketSession session) {
-        logger.info("load node from [ {} ] disconnected.", session);
-        context.getBalanceRouter().removeRouterSession((BalanceReverseSocketSession) session);
+        BalanceReverseSocketSession rs = (BalanceReverseSocketSession) session;
+        logger.info("load node [ {} ] from [ {} ] disconnected.", rs.getMachineKey(), session);
+        context.getBalanceReverseHealthChecker().onClosed(rs);
+        context.getBalanceRouter().removeRouterSession(rs);
+        // 未回复的请求不再计入router的在途请求总数
+        rs.expireInFlight(System.nanoTime());
+        context.getBalanceReverseMachineResolver().release(rs);
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.balance.reverse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后端节点的健康状态，由BalanceReverseHealthChecker维护
+ */
+public class BalanceReverseHealth {
+
+    private AtomicInteger    consecutiveFailures = new AtomicInteger();
+    private AtomicLong       failures            = new AtomicLong();
+    // 响应耗时的指数加权平均(纳秒)
+    private volatile long    latency;
+    private volatile boolean ejected;
+    private volatile long    ejectedUntil;
+    private volatile long    admittedTime        = System.currentTimeMillis();
+    private volatile long    lastProbeTime;
+    // 连续被剔除的次数，决定下一次剔除的时长，在checker的锁中访问
+    private int              ejectCount;
+
+    public void recordLatency(long nanos) {
+        long old = latency;
+        latency = old == 0 ? nanos : old + ((nanos - old) >> 3);
+    }
+
+    public long getLatency() {
+        return latency;
+    }
+
+    public void resetFailures() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public int incrementFailures() {
+        failures.incrementAndGet();
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    public long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+    public long getAdmittedTime() {
+        return admittedTime;
+    }
+
+    public long getLastProbeTime() {
+        return lastProbeTime;
+    }
+
+    public void setLastProbeTime(long lastProbeTime) {
+        this.lastProbeTime = lastProbeTime;
+    }
+
+    int getEjectCount() {
+        return ejectCount;
+    }
+
+    void eject(int ejectCount, long ejectedUntil) {
+        this.ejectCount = ejectCount;
+        this.ejectedUntil = ejectedUntil;
+        this.ejected = true;
+    }
+
+    void admit(long now) {
+        this.consecutiveFailures.set(0);
+        this.admittedTime = now;
+        this.ejected = false;
+    }
+
+    @Override
+    public String toString() {
+        return "ejected:" + ejected + ",failures:" + consecutiveFailures.get() + "/"
+                + failures.get() + ",latency:" + latency / 1000 + "us";
+    }
+
+}
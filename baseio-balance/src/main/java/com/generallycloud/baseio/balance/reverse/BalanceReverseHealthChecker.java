@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.balance.reverse;
+
+import com.generallycloud.baseio.balance.router.BalanceRouter;
+import com.generallycloud.baseio.component.BeatFutureFactory;
+import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.component.SocketSessionIdleEventListener;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
+import com.generallycloud.baseio.protocol.Future;
+
+/**
+ * 后端节点熔断：连续失败(异常、慢响应、心跳无回复)达到阈值后将节点从router中剔除，
+ * 剔除时长从baseEjectionTime开始每次翻倍，最长maxEjectionTime，到期后重新加入。
+ * 重新加入后持续正常超过maxEjectionTime才重置剔除次数。
+ * <p>
+ * 作为反向连接的idle listener，每个idle周期向后端发送一次PING，
+ * 并检查上一次PING之后是否收到过数据，同时处理到期节点的重新加入，
+ * 并清理超过requestTimeout仍未回复的在途请求，有超时的请求时计为一次失败。
+ */
+public class BalanceReverseHealthChecker implements SocketSessionIdleEventListener {
+
+    private Logger        logger           = LoggerFactory.getLogger(getClass());
+    private BalanceRouter balanceRouter;
+    private int           failureThreshold = 5;
+    // 响应耗时超过该值(毫秒)记为一次失败，0表示不检测
+    private long          slowThreshold;
+    private long          baseEjectionTime = 30 * 1000;
+    private long          maxEjectionTime  = 5 * 60 * 1000;
+    private boolean       enableProbe      = true;
+    // 转发后超过该时间(毫秒)未回复的请求不再计入在途请求数
+    private long          requestTimeout   = 30 * 1000;
+    // 未被剔除的节点数，不剔除最后一个可用节点
+    private int           admitted;
+
+    public void setBalanceRouter(BalanceRouter balanceRouter) {
+        this.balanceRouter = balanceRouter;
+    }
+
+    public synchronized void onOpened(BalanceReverseSocketSession session) {
+        admitted++;
+    }
+
+    public synchronized void onClosed(BalanceReverseSocketSession session) {
+        if (!session.getHealth().isEjected()) {
+            admitted--;
+        }
+    }
+
+    /**
+     * 收到已转发请求的回复时调用
+     * 
+     * @param latency 请求转发到收到回复的耗时(纳秒)
+     */
+    public void onSuccess(BalanceReverseSocketSession session, long latency) {
+        BalanceReverseHealth health = session.getHealth();
+        if (latency > 0) {
+            health.recordLatency(latency);
+            if (slowThreshold > 0 && latency > slowThreshold * 1000000) {
+                onFailure(session);
+                return;
+            }
+        }
+        health.resetFailures();
+    }
+
+    public void onFailure(BalanceReverseSocketSession session) {
+        if (session.isClosed()) {
+            return;
+        }
+        BalanceReverseHealth health = session.getHealth();
+        if (health.incrementFailures() >= failureThreshold && !health.isEjected()) {
+            eject(session);
+        }
+    }
+
+    private synchronized void eject(BalanceReverseSocketSession session) {
+        BalanceReverseHealth health = session.getHealth();
+        if (health.isEjected() || session.isClosed()) {
+            return;
+        }
+        if (admitted <= 1) {
+            logger.info("last available load node [ {} ] not ejected, {}", session, health);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int ejectCount = health.getEjectCount();
+        if (now - health.getAdmittedTime() > maxEjectionTime) {
+            ejectCount = 0;
+        }
+        long time = Math.min(maxEjectionTime, baseEjectionTime << Math.min(ejectCount, 20));
+        health.eject(ejectCount + 1, now + time);
+        admitted--;
+        balanceRouter.removeRouterSession(session);
+        logger.info("load node [ {} ] ejected for {}ms, {}", new Object[] { session, time, health });
+    }
+
+    private synchronized void admit(BalanceReverseSocketSession session, long now) {
+        BalanceReverseHealth health = session.getHealth();
+        if (!health.isEjected() || session.isClosed()) {
+            return;
+        }
+        health.admit(now);
+        admitted++;
+        balanceRouter.addRouterSession(session);
+        logger.info("load node [ {} ] admitted", session);
+    }
+
+    @Override
+    public void sessionIdled(SocketSession session, long lastIdleTime, long currentTime) {
+        if (session.isClosed()) {
+            return;
+        }
+        BalanceReverseSocketSession rs = (BalanceReverseSocketSession) session;
+        if (requestTimeout > 0
+                && rs.expireInFlight(System.nanoTime() - requestTimeout * 1000000) > 0) {
+            // 超时未回复的请求计为一次失败
+            onFailure(rs);
+        }
+        BalanceReverseHealth health = rs.getHealth();
+        boolean probeFailed = false;
+        if (enableProbe) {
+            long lastProbeTime = health.getLastProbeTime();
+            if (lastProbeTime > 0 && session.getLastAccessTime() < lastProbeTime) {
+                probeFailed = true;
+                onFailure(rs);
+            }
+            probe(rs, currentTime);
+        }
+        if (health.isEjected() && !probeFailed && currentTime >= health.getEjectedUntil()) {
+            admit(rs, currentTime);
+        }
+    }
+
+    private void probe(BalanceReverseSocketSession session, long now) {
+        BeatFutureFactory factory = session.getContext().getBeatFutureFactory();
+        if (factory == null) {
+            return;
+        }
+        Future future = factory.createPINGPacket(session);
+        if (future == null) {
+            return;
+        }
+        session.getHealth().setLastProbeTime(now);
+        session.flush(future);
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(long slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public long getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    public void setBaseEjectionTime(long baseEjectionTime) {
+        this.baseEjectionTime = baseEjectionTime;
+    }
+
+    public long getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    public void setMaxEjectionTime(long maxEjectionTime) {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public boolean isEnableProbe() {
+        return enableProbe;
+    }
+
+    public void setEnableProbe(boolean enableProbe) {
+        this.enableProbe = enableProbe;
+    }
+
+}
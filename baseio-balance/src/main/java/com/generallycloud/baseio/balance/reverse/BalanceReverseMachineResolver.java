@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.balance.reverse;
+
+/**
+ * 为后端连接确定在哈希环上的标识和权重。后端的连接使用临时端口，
+ * 标识需要与连接无关，重连后保持不变，否则该节点负责的key会整体迁移
+ */
+public interface BalanceReverseMachineResolver {
+
+    /**
+     * 连接建立后、加入router之前调用，设置session的machineKey和weight
+     */
+    public abstract void resolve(BalanceReverseSocketSession session);
+
+    /**
+     * 连接关闭后调用，释放该session占用的标识
+     */
+    public abstract void release(BalanceReverseSocketSession session);
+
+}
@@ -15,9 +15,44 @@
  */
 package com.generallycloud.baseio.balance.reverse;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.generallycloud.baseio.balance.router.VirtualMachine;
 import com.generallycloud.baseio.component.SocketSession;
 
 public interface BalanceReverseSocketSession extends SocketSession, VirtualMachine {
 
+    /**
+     * 由BalanceReverseMachineResolver在加入router之前设置，后端重连后保持不变
+     */
+    public abstract void setMachineKey(String machineKey);
+
+    public abstract void setWeight(int weight);
+
+    /**
+     * 记录一个转发到该节点的请求，sessionKey为facade连接的标识
+     */
+    public abstract void addInFlight(Object sessionKey, int futureId);
+
+    /**
+     * 收到后端回复时调用
+     * 
+     * @return 该请求转发时的System.nanoTime()，不是已转发请求的回复(如后端推送)时返回-1
+     */
+    public abstract long removeInFlight(Object sessionKey, int futureId);
+
+    /**
+     * 移除转发时间早于deadline(System.nanoTime())仍未回复的请求
+     * 
+     * @return 移除的请求数
+     */
+    public abstract int expireInFlight(long deadline);
+
+    /**
+     * router中所有节点共享的在途请求总数，本节点的在途请求数变化时同步修改
+     */
+    public abstract void setInFlightCounter(AtomicInteger inFlightCounter);
+
+    public abstract BalanceReverseHealth getHealth();
+
 }
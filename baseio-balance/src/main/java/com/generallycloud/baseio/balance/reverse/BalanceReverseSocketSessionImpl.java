@@ -15,14 +15,136 @@
  */
 package com.generallycloud.baseio.balance.reverse;
 
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.generallycloud.baseio.component.SocketChannel;
 import com.generallycloud.baseio.component.UnsafeSocketSessionImpl;
 
 public class BalanceReverseSocketSessionImpl extends UnsafeSocketSessionImpl
         implements BalanceReverseSocketSession {
 
+    private AtomicInteger                   inFlight        = new AtomicInteger();
+
+    private AtomicInteger                   inFlightCounter = new AtomicInteger();
+
+    // 已转发尚未回复的请求 -> 转发时的System.nanoTime()
+    private ConcurrentMap<RequestKey, Long> requests        = new ConcurrentHashMap<>();
+
+    private String                          machineKey;
+
+    private int                             weight          = 1;
+
+    private BalanceReverseHealth            health          = new BalanceReverseHealth();
+
     public BalanceReverseSocketSessionImpl(SocketChannel channel) {
         super(channel);
     }
 
+    @Override
+    public String getMachineKey() {
+        return machineKey;
+    }
+
+    @Override
+    public void setMachineKey(String machineKey) {
+        this.machineKey = machineKey;
+    }
+
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public void setWeight(int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight: " + weight);
+        }
+        this.weight = weight;
+    }
+
+    @Override
+    public BalanceReverseHealth getHealth() {
+        return health;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void setInFlightCounter(AtomicInteger inFlightCounter) {
+        this.inFlightCounter = inFlightCounter;
+    }
+
+    @Override
+    public void addInFlight(Object sessionKey, int futureId) {
+        // 同一个facade连接重复使用futureId时只计一次
+        if (requests.put(new RequestKey(sessionKey, futureId), System.nanoTime()) == null) {
+            inFlight.incrementAndGet();
+            inFlightCounter.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long removeInFlight(Object sessionKey, int futureId) {
+        Long time = requests.remove(new RequestKey(sessionKey, futureId));
+        if (time == null) {
+            return -1;
+        }
+        inFlight.decrementAndGet();
+        inFlightCounter.decrementAndGet();
+        return time;
+    }
+
+    @Override
+    public int expireInFlight(long deadline) {
+        int expired = 0;
+        Iterator<Entry<RequestKey, Long>> it = requests.entrySet().iterator();
+        for (; it.hasNext();) {
+            Entry<RequestKey, Long> entry = it.next();
+            long time = entry.getValue();
+            if (time - deadline > 0) {
+                continue;
+            }
+            if (requests.remove(entry.getKey(), time)) {
+                inFlight.decrementAndGet();
+                inFlightCounter.decrementAndGet();
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    static class RequestKey {
+
+        final Object sessionKey;
+
+        final int    futureId;
+
+        RequestKey(Object sessionKey, int futureId) {
+            this.sessionKey = sessionKey;
+            this.futureId = futureId;
+        }
+
+        @Override
+        public int hashCode() {
+            return sessionKey.hashCode() * 31 + futureId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) obj;
+            return futureId == other.futureId && sessionKey.equals(other.sessionKey);
+        }
+    }
+
 }
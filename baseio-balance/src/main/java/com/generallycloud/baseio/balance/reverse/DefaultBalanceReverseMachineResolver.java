@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.balance.reverse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按后端的主机地址分配标识。通过{@link #addMachine(String, String, int)}配置的节点
+ * 按配置顺序分配给来自该主机的连接，未配置的主机使用"host#n"，n为该主机上未被占用的最小序号。
+ * 同一主机上的实例数不变时，重连后的标识保持不变
+ */
+public class DefaultBalanceReverseMachineResolver implements BalanceReverseMachineResolver {
+
+    // host -> 该主机上配置的节点
+    private Map<String, List<Machine>> machines = new HashMap<>();
+
+    // 已分配给在线连接的标识
+    private Set<String>                usedKeys = new HashSet<>();
+
+    public synchronized void addMachine(String host, String machineKey, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight: " + weight);
+        }
+        List<Machine> list = machines.get(host);
+        if (list == null) {
+            list = new ArrayList<>();
+            machines.put(host, list);
+        }
+        list.add(new Machine(machineKey, weight));
+    }
+
+    @Override
+    public synchronized void resolve(BalanceReverseSocketSession session) {
+        String host = session.getRemoteAddr();
+        List<Machine> list = machines.get(host);
+        if (list != null) {
+            for (Machine m : list) {
+                if (usedKeys.add(m.machineKey)) {
+                    session.setMachineKey(m.machineKey);
+                    session.setWeight(m.weight);
+                    return;
+                }
+            }
+        }
+        for (int i = 0;; i++) {
+            String machineKey = host + "#" + i;
+            if (usedKeys.add(machineKey)) {
+                session.setMachineKey(machineKey);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void release(BalanceReverseSocketSession session) {
+        String machineKey = session.getMachineKey();
+        if (machineKey != null) {
+            usedKeys.remove(machineKey);
+        }
+    }
+
+    static class Machine {
+
+        final String machineKey;
+
+        final int    weight;
+
+        Machine(String machineKey, int weight) {
+            this.machineKey = machineKey;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.balance.router;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.generallycloud.baseio.common.Encoding;
+
+/**
+ * ketama一致性哈希环，每个节点按权重在环上放置replicas * weight个虚拟节点，
+ * 节点加入或离开时只有相邻区间的key会迁移。环在修改时整体重建(copy on write)，
+ * 查找不加锁。
+ * <p>
+ * loadFactor大于0时启用有界负载：节点的在途请求数超过
+ * (1 + loadFactor) * 平均值 * 权重占比 时顺时针选择下一个节点。节点的在途请求数变化时
+ * 需同步修改{@link #getInFlightCounter()}，查找时不再遍历所有节点求和。
+ */
+public class ConsistentHashRing<T extends VirtualMachine> {
+
+    private final int       replicas;
+
+    private volatile double loadFactor;
+
+    private volatile Ring   ring            = new Ring(new ArrayList<VirtualMachine>(0), 0);
+
+    private AtomicInteger   inFlightCounter = new AtomicInteger();
+
+    public ConsistentHashRing(int replicas) {
+        if (replicas < 1) {
+            throw new IllegalArgumentException("replicas: " + replicas);
+        }
+        this.replicas = replicas;
+    }
+
+    public synchronized void addMachine(T machine) {
+        List<VirtualMachine> machines = new ArrayList<>(ring.machines);
+        if (machines.contains(machine)) {
+            return;
+        }
+        machines.add(machine);
+        this.ring = new Ring(machines, replicas);
+    }
+
+    public synchronized void removeMachine(T machine) {
+        List<VirtualMachine> machines = new ArrayList<>(ring.machines);
+        if (!machines.remove(machine)) {
+            return;
+        }
+        this.ring = new Ring(machines, replicas);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getMachine(int hash) {
+        Ring ring = this.ring;
+        int len = ring.points.length;
+        if (len == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(ring.points, mix(hash) & 0xffffffffL);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == len) {
+                index = 0;
+            }
+        }
+        double loadFactor = this.loadFactor;
+        if (loadFactor <= 0 || ring.machines.size() == 1) {
+            return (T) ring.owners[index];
+        }
+        return (T) getBoundedMachine(ring, index, loadFactor);
+    }
+
+    private VirtualMachine getBoundedMachine(Ring ring, int index, double loadFactor) {
+        long total = inFlightCounter.get() + 1;
+        double limit = (1 + loadFactor) * total / ring.totalWeight;
+        VirtualMachine[] owners = ring.owners;
+        int len = owners.length;
+        for (int i = 0; i < len; i++) {
+            VirtualMachine m = owners[(index + i) % len];
+            if (m.getInFlight() < Math.ceil(limit * m.getWeight())) {
+                return m;
+            }
+        }
+        return owners[index];
+    }
+
+    public List<T> getMachines() {
+        @SuppressWarnings("unchecked")
+        List<T> machines = (List<T>) ring.machines;
+        return machines;
+    }
+
+    /**
+     * 环上所有节点的在途请求总数
+     */
+    public AtomicInteger getInFlightCounter() {
+        return inFlightCounter;
+    }
+
+    public double getLoadFactor() {
+        return loadFactor;
+    }
+
+    public void setLoadFactor(double loadFactor) {
+        this.loadFactor = loadFactor;
+    }
+
+    // murmur3 fmix32，避免连续的hash落在环上相邻的位置
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static class Ring {
+
+        final List<VirtualMachine> machines;
+
+        final long[]               points;
+
+        final VirtualMachine[]     owners;
+
+        final int                  totalWeight;
+
+        Ring(List<VirtualMachine> machines, int replicas) {
+            int totalWeight = 0;
+            int size = 0;
+            for (VirtualMachine m : machines) {
+                totalWeight += m.getWeight();
+                size += replicas * m.getWeight();
+            }
+            // 高32位为环上的位置(翻转符号位使有符号排序等于无符号顺序)，低32位为节点下标
+            long[] entries = new long[size];
+            int pos = 0;
+            for (int i = 0; i < machines.size(); i++) {
+                VirtualMachine m = machines.get(i);
+                int count = replicas * m.getWeight();
+                for (int n = 0; count > 0; n++) {
+                    byte[] digest = md5(m.getMachineKey() + "-" + n);
+                    for (int k = 0; k < 4 && count > 0; k++, count--) {
+                        long point = ((digest[k * 4 + 3] & 0xffL) << 24)
+                                | ((digest[k * 4 + 2] & 0xffL) << 16)
+                                | ((digest[k * 4 + 1] & 0xffL) << 8) | (digest[k * 4] & 0xffL);
+                        entries[pos++] = ((point << 32) ^ Long.MIN_VALUE) | i;
+                    }
+                }
+            }
+            Arrays.sort(entries);
+            this.machines = machines;
+            this.totalWeight = totalWeight;
+            this.points = new long[size];
+            this.owners = new VirtualMachine[size];
+            for (int i = 0; i < size; i++) {
+                points[i] = (entries[i] ^ Long.MIN_VALUE) >>> 32;
+                owners[i] = machines.get((int) (entries[i] & 0xffffffffL));
+            }
+        }
+
+        private static byte[] md5(String key) {
+            try {
+                MessageDigest md5 = MessageDigest.getInstance("MD5");
+                return md5.digest(key.getBytes(Encoding.UTF8));
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+    }
+
+}
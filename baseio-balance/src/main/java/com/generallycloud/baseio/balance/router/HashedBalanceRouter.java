@@ -22,20 +22,44 @@ import com.generallycloud.baseio.protocol.Future;
 
 public class HashedBalanceRouter extends AbstractBalanceRouter {
 
+    public static final int DEFAULT_REPLICAS = 160;
+
+    public HashedBalanceRouter() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxNode 最多允许加入的后端节点数
+     */
     public HashedBalanceRouter(int maxNode) {
-        this.virtualNodes = new VirtualNodes<>(maxNode);
+        this(maxNode, DEFAULT_REPLICAS);
+    }
+
+    /**
+     * @param maxNode 最多允许加入的后端节点数
+     * @param replicas 每个权重单位在哈希环上的虚拟节点数
+     */
+    public HashedBalanceRouter(int maxNode, int replicas) {
+        this.maxNode = maxNode;
+        this.hashRing = new ConsistentHashRing<>(replicas);
     }
 
-    private VirtualNodes<BalanceReverseSocketSession> virtualNodes;
+    private int                                             maxNode;
+
+    private ConsistentHashRing<BalanceReverseSocketSession> hashRing;
 
     @Override
-    public void addRouterSession(BalanceReverseSocketSession session) {
-        virtualNodes.addMachine(session);
+    public synchronized void addRouterSession(BalanceReverseSocketSession session) {
+        if (hashRing.getMachines().size() >= maxNode) {
+            throw new RuntimeException("max nodes " + maxNode);
+        }
+        session.setInFlightCounter(hashRing.getInFlightCounter());
+        hashRing.addMachine(session);
     }
 
     @Override
-    public void removeRouterSession(BalanceReverseSocketSession session) {
-        virtualNodes.removeMachine(session);
+    public synchronized void removeRouterSession(BalanceReverseSocketSession session) {
+        hashRing.removeMachine(session);
     }
 
     @Override
@@ -44,7 +68,7 @@ public class HashedBalanceRouter extends AbstractBalanceRouter {
 
         HashedBalanceFuture f = (HashedBalanceFuture) future;
 
-        return virtualNodes.getMachine(f.getHashCode());
+        return hashRing.getMachine(f.getHashCode());
     }
 
     @Override
@@ -52,4 +76,11 @@ public class HashedBalanceRouter extends AbstractBalanceRouter {
         return null;
     }
 
+    /**
+     * @param loadFactor 大于0时启用有界负载，节点的在途请求数不超过平均值的(1 + loadFactor)倍
+     */
+    public void setLoadFactor(double loadFactor) {
+        hashRing.setLoadFactor(loadFactor);
+    }
+
 }
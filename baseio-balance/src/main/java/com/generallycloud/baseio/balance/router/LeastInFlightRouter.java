@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.balance.router;
+
+import com.generallycloud.baseio.balance.facade.BalanceFacadeSocketSession;
+import com.generallycloud.baseio.balance.reverse.BalanceReverseSocketSession;
+import com.generallycloud.baseio.protocol.Future;
+
+/**
+ * 每个请求选择在途请求数与权重之比最小的节点
+ */
+public class LeastInFlightRouter extends AbstractBalanceRouter {
+
+    private volatile BalanceReverseSocketSession[] routers = new BalanceReverseSocketSession[0];
+
+    @Override
+    public synchronized void addRouterSession(BalanceReverseSocketSession session) {
+        BalanceReverseSocketSession[] old = this.routers;
+        BalanceReverseSocketSession[] routers = new BalanceReverseSocketSession[old.length + 1];
+        System.arraycopy(old, 0, routers, 0, old.length);
+        routers[old.length] = session;
+        this.routers = routers;
+    }
+
+    @Override
+    public synchronized void removeRouterSession(BalanceReverseSocketSession session) {
+        this.routers = SimpleNextRouter.remove(this.routers, session);
+    }
+
+    @Override
+    public BalanceReverseSocketSession getRouterSession(BalanceFacadeSocketSession session,
+            Future future) {
+        BalanceReverseSocketSession[] routers = this.routers;
+        BalanceReverseSocketSession best = null;
+        long bestInFlight = 0;
+        int bestWeight = 1;
+        for (BalanceReverseSocketSession rs : routers) {
+            if (rs.isClosed()) {
+                continue;
+            }
+            int inFlight = rs.getInFlight();
+            int weight = rs.getWeight();
+            // inFlight / weight < bestInFlight / bestWeight
+            if (best == null || (long) inFlight * bestWeight < bestInFlight * weight) {
+                best = rs;
+                bestInFlight = inFlight;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public BalanceReverseSocketSession getRouterSession(BalanceFacadeSocketSession session) {
+        return null;
+    }
+
+}
@@ -15,9 +15,7 @@
  */
 package com.generallycloud.baseio.balance.router;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.generallycloud.baseio.balance.facade.BalanceFacadeSocketSession;
 import com.generallycloud.baseio.balance.reverse.BalanceReverseSocketSession;
@@ -25,55 +23,55 @@ import com.generallycloud.baseio.protocol.Future;
 
 public class SimpleNextRouter extends AbstractBalanceRouter {
 
-    private int                               index      = 0;
-    private ReentrantLock                     lock       = new ReentrantLock();
-    private List<BalanceReverseSocketSession> routerList = new ArrayList<>();
+    private AtomicInteger                          index   = new AtomicInteger();
+    // 增删节点时整体替换(copy on write)，选择节点时不加锁
+    private volatile BalanceReverseSocketSession[] routers = new BalanceReverseSocketSession[0];
 
     private BalanceReverseSocketSession getNextRouterSession() {
 
-        List<BalanceReverseSocketSession> list = this.routerList;
+        BalanceReverseSocketSession[] routers = this.routers;
 
-        if (list.isEmpty()) {
+        if (routers.length == 0) {
             return null;
         }
 
-        BalanceReverseSocketSession session;
+        int i = index.getAndIncrement() & Integer.MAX_VALUE;
 
-        if (index < list.size()) {
-
-            session = list.get(index++);
-        } else {
-
-            index = 1;
-
-            session = list.get(0);
-        }
-
-        return session;
+        return routers[i % routers.length];
     }
 
     @Override
-    public void addRouterSession(BalanceReverseSocketSession session) {
+    public synchronized void addRouterSession(BalanceReverseSocketSession session) {
+
+        BalanceReverseSocketSession[] old = this.routers;
 
-        ReentrantLock lock = this.lock;
+        BalanceReverseSocketSession[] routers = new BalanceReverseSocketSession[old.length + 1];
 
-        lock.lock();
+        System.arraycopy(old, 0, routers, 0, old.length);
 
-        this.routerList.add(session);
+        routers[old.length] = session;
 
-        lock.unlock();
+        this.routers = routers;
     }
 
     @Override
-    public void removeRouterSession(BalanceReverseSocketSession session) {
-
-        ReentrantLock lock = this.lock;
+    public synchronized void removeRouterSession(BalanceReverseSocketSession session) {
 
-        lock.lock();
-
-        routerList.remove(session);
+        this.routers = remove(this.routers, session);
+    }
 
-        lock.unlock();
+    static BalanceReverseSocketSession[] remove(BalanceReverseSocketSession[] old,
+            BalanceReverseSocketSession session) {
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != session) {
+                continue;
+            }
+            BalanceReverseSocketSession[] routers = new BalanceReverseSocketSession[old.length - 1];
+            System.arraycopy(old, 0, routers, 0, i);
+            System.arraycopy(old, i + 1, routers, i, old.length - i - 1);
+            return routers;
+        }
+        return old;
     }
 
     @Override
@@ -82,46 +80,20 @@ public class SimpleNextRouter extends AbstractBalanceRouter {
 
         BalanceReverseSocketSession router_session = getRouterSession(session);
 
-        if (router_session == null) {
+        if (router_session == null || router_session.isClosed()
+                || router_session.getHealth().isEjected()) {
 
-            return getRouterSessionFresh(session);
-        }
+            // 并发时同一个facade session可能绑定到不同的节点，之后以最后一次为准
+            router_session = getNextRouterSession();
 
-        if (router_session.isClosed()) {
+            if (router_session == null) {
+                return null;
+            }
 
-            return getRouterSessionFresh(session);
+            session.setReverseSocketSession(router_session);
         }
 
         return router_session;
     }
 
-    private BalanceReverseSocketSession getRouterSessionFresh(BalanceFacadeSocketSession session) {
-
-        ReentrantLock lock = this.lock;
-
-        lock.lock();
-
-        try {
-
-            BalanceReverseSocketSession router_session = getRouterSession(session);
-
-            if (router_session == null || router_session.isClosed()) {
-
-                router_session = getNextRouterSession();
-
-                if (router_session == null) {
-                    return null;
-                }
-
-                session.setReverseSocketSession(router_session);
-            }
-
-            return router_session;
-
-        } finally {
-
-            lock.unlock();
-        }
-    }
-
 }
@@ -21,4 +21,19 @@ package com.generallycloud.baseio.balance.router;
  */
 public interface VirtualMachine {
 
+    /**
+     * @return 节点在哈希环上的标识，同一时刻不同节点的标识不能相同
+     */
+    public abstract String getMachineKey();
+
+    /**
+     * @return 节点权重，需在加入router之前设置
+     */
+    public abstract int getWeight();
+
+    /**
+     * @return 已转发到该节点但尚未收到回复的请求数
+     */
+    public abstract int getInFlight();
+
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark;
+
+import com.generallycloud.baseio.component.NioSocketChannelContext;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
+
+/**
+ * 不启动selector的context，只初始化编解码需要用到的字段
+ */
+public class BenchmarkChannelContext extends NioSocketChannelContext {
+
+    public BenchmarkChannelContext(ServerConfiguration configuration) {
+        super(configuration);
+        this.encoding = configuration.getSERVER_ENCODING();
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.ByteBufAllocator;
+import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.AbstractSocketChannel;
+import com.generallycloud.baseio.component.SocketChannelContext;
+import com.generallycloud.baseio.component.SocketChannelThreadContext;
+import com.generallycloud.baseio.component.SocketSessionManager;
+import com.generallycloud.baseio.component.ssl.SslHandler;
+import com.generallycloud.baseio.concurrent.ExecutorEventLoop;
+import com.generallycloud.baseio.protocol.ChannelFuture;
+import com.generallycloud.baseio.protocol.ProtocolDecoder;
+
+/**
+ * 不连接网络的SocketChannel，用于在benchmark线程中直接驱动ProtocolDecoder，
+ * 写出的future直接释放
+ */
+public class BenchmarkSocketChannel extends AbstractSocketChannel {
+
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 0);
+
+    public BenchmarkSocketChannel(SocketChannelContext context, ByteBufAllocator allocator) {
+        super(new BenchmarkThreadContext(context, allocator), 0);
+    }
+
+    /**
+     * 按TransparentByteBufReader的方式解码buffer中的一个报文
+     */
+    public ChannelFuture decode(ProtocolDecoder decoder, ByteBuf buffer) throws IOException {
+        ChannelFuture future = decoder.decode(this, buffer);
+        if (!future.read(this, buffer)) {
+            ReleaseUtil.release(future);
+            throw new IOException("incomplete message");
+        }
+        return future;
+    }
+
+    @Override
+    protected InetSocketAddress getRemoteSocketAddress0() throws IOException {
+        return ADDRESS;
+    }
+
+    @Override
+    protected InetSocketAddress getLocalSocketAddress0() throws IOException {
+        return ADDRESS;
+    }
+
+    @Override
+    protected void doFlush0(ChannelFuture future) {
+        ReleaseUtil.release(future);
+    }
+
+    @Override
+    protected SocketChannelThreadContext getSocketChannelThreadContext() {
+        return threadContext;
+    }
+
+    @Override
+    protected void physicalClose() {
+        opened = false;
+    }
+
+    @Override
+    protected String getMarkPrefix() {
+        return "Benchmark";
+    }
+
+    @Override
+    public SocketChannelContext getContext() {
+        return threadContext.getChannelContext();
+    }
+
+    @Override
+    public void write(ByteBuf buf) throws IOException {
+        buf.position(buf.limit());
+    }
+
+    @Override
+    public boolean inSelectorLoop() {
+        return true;
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return false;
+    }
+
+    @Override
+    public <T> T getOption(SocketOption<T> name) throws IOException {
+        return null;
+    }
+
+    @Override
+    public <T> void setOption(SocketOption<T> name, T value) throws IOException {}
+
+    @Override
+    public void close() throws IOException {
+        physicalClose();
+    }
+
+    static class BenchmarkThreadContext implements SocketChannelThreadContext {
+
+        private SocketChannelContext context;
+
+        private ByteBufAllocator     allocator;
+
+        BenchmarkThreadContext(SocketChannelContext context, ByteBufAllocator allocator) {
+            this.context = context;
+            this.allocator = allocator;
+        }
+
+        @Override
+        public SocketChannelContext getChannelContext() {
+            return context;
+        }
+
+        @Override
+        public ByteBufAllocator getByteBufAllocator() {
+            return allocator;
+        }
+
+        @Override
+        public ExecutorEventLoop getExecutorEventLoop() {
+            return null;
+        }
+
+        @Override
+        public SocketSessionManager getSocketSessionManager() {
+            return null;
+        }
+
+        @Override
+        public boolean inEventLoop() {
+            return true;
+        }
+
+        @Override
+        public SslHandler getSslHandler() {
+            return null;
+        }
+
+    }
+
+}
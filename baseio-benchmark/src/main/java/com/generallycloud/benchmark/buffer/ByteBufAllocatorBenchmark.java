@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.buffer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.LifeCycleUtil;
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.ByteBufAllocator;
+import com.generallycloud.baseio.buffer.SimpleByteBufAllocator;
+import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.common.ReleaseUtil;
+
+/**
+ * 池化allocator申请/释放的开销，shared系列多个线程共用一个allocator，
+ * 用于观察锁竞争，与selector线程各自持有allocator的用法对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ByteBufAllocatorBenchmark {
+
+    @Param({ "64", "1024", "8192" })
+    private int              size;
+
+    @Param({ "false", "true" })
+    private boolean          direct;
+
+    private ByteBufAllocator shared;
+
+    private ByteBufAllocator unpooledAllocator;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        shared = newAllocator(direct);
+        unpooledAllocator = new UnpooledByteBufAllocator(direct);
+        LifeCycleUtil.start(unpooledAllocator);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        LifeCycleUtil.stop(shared);
+        LifeCycleUtil.stop(unpooledAllocator);
+    }
+
+    static ByteBufAllocator newAllocator(boolean direct) throws Exception {
+        SimpleByteBufAllocator allocator = new SimpleByteBufAllocator(1024 * 64, 256, direct);
+        LifeCycleUtil.start(allocator);
+        return allocator;
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadAllocator {
+
+        private ByteBufAllocator allocator;
+
+        @Setup(Level.Trial)
+        public void setup(ByteBufAllocatorBenchmark benchmark) throws Exception {
+            allocator = newAllocator(benchmark.direct);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            LifeCycleUtil.stop(allocator);
+        }
+    }
+
+    private int allocateAndRelease(ByteBufAllocator allocator) {
+        ByteBuf buf = allocator.allocate(size);
+        buf.putByte((byte) 1);
+        int position = buf.position();
+        ReleaseUtil.release(buf);
+        return position;
+    }
+
+    @Benchmark
+    public int unpooled() {
+        return allocateAndRelease(unpooledAllocator);
+    }
+
+    @Benchmark
+    public int threadLocal(ThreadAllocator state) {
+        return allocateAndRelease(state.allocator);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int shared1() {
+        return allocateAndRelease(shared);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int shared4() {
+        return allocateAndRelease(shared);
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.codec;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.generallycloud.baseio.LifeCycleUtil;
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.SimpleByteBufAllocator;
+import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.SocketSessionFactory;
+import com.generallycloud.baseio.component.SocketSessionFactoryImpl;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
+import com.generallycloud.baseio.protocol.ChannelFuture;
+import com.generallycloud.baseio.protocol.ProtocolDecoder;
+import com.generallycloud.baseio.protocol.ProtocolEncoder;
+import com.generallycloud.benchmark.BenchmarkChannelContext;
+import com.generallycloud.benchmark.BenchmarkSocketChannel;
+
+/**
+ * 编解码benchmark的公共部分，每个benchmark线程持有独立的allocator和channel，
+ * 测量结果不包含网络与selector的开销
+ */
+public abstract class AbstractCodecBenchmark {
+
+    protected SimpleByteBufAllocator  allocator;
+
+    protected BenchmarkChannelContext context;
+
+    protected BenchmarkSocketChannel  channel;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        allocator = new SimpleByteBufAllocator(1024 * 16, 256, false);
+        LifeCycleUtil.start(allocator);
+        context = new BenchmarkChannelContext(new ServerConfiguration(0));
+        context.setSocketSessionFactory(newSocketSessionFactory());
+        channel = new BenchmarkSocketChannel(context, allocator);
+        init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        LifeCycleUtil.stop(allocator);
+    }
+
+    protected SocketSessionFactory newSocketSessionFactory() {
+        return new SocketSessionFactoryImpl();
+    }
+
+    protected abstract void init() throws Exception;
+
+    /**
+     * 编码一次并释放编码产生的ByteBuf，返回编码后的长度
+     */
+    protected int encode(ProtocolEncoder encoder, ChannelFuture future) throws IOException {
+        encoder.encode(allocator, future);
+        ByteBuf buf = future.getByteBuf();
+        int length = buf.limit();
+        ReleaseUtil.release(buf);
+        return length;
+    }
+
+    /**
+     * 编码一次并拷贝出报文，用于准备decode的输入
+     */
+    protected byte[] encodeToArray(ProtocolEncoder encoder, ChannelFuture future)
+            throws IOException {
+        encoder.encode(allocator, future);
+        ByteBuf buf = future.getByteBuf();
+        byte[] array = new byte[buf.remaining()];
+        buf.get(array);
+        ReleaseUtil.release(buf);
+        return array;
+    }
+
+    protected ByteBuf wrap(byte[] array) {
+        return UnpooledByteBufAllocator.getHeapInstance().wrap(array, 0, array.length);
+    }
+
+    /**
+     * 从头解码src中的一个报文并释放解码结果
+     */
+    protected ChannelFuture decode(ProtocolDecoder decoder, ByteBuf src) throws IOException {
+        src.position(0);
+        ChannelFuture future = channel.decode(decoder, src);
+        ReleaseUtil.release(future);
+        return future;
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.codec;
+
+import java.io.ByteArrayOutputStream;
+
+class BenchmarkData {
+
+    static final String HTTP_REQUEST = "GET /benchmark/plaintext?id=1 HTTP/1.1\r\n"
+            + "Host: 127.0.0.1:8080\r\n"
+            + "User-Agent: Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n"
+            + "Accept-Encoding: gzip, deflate\r\n"
+            + "Accept-Language: zh-CN,zh;q=0.9,en;q=0.8\r\n"
+            + "Cookie: JSESSIONID=3E1A3F2B9C0D4E5F; theme=dark\r\n"
+            + "Connection: keep-alive\r\n\r\n";
+
+    /**
+     * 可打印的ASCII报文，便于同时作为文本和二进制使用
+     */
+    static byte[] payload(int size) {
+        byte[] array = new byte[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = (byte) ('a' + i % 26);
+        }
+        return array;
+    }
+
+    /**
+     * 客户端发出的websocket text帧，按协议要求带mask
+     */
+    static byte[] maskedWebSocketFrame(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 14);
+        byte[] mask = { 0x11, 0x22, 0x33, 0x44 };
+        int length = payload.length;
+        out.write(0x81);
+        if (length < 126) {
+            out.write(0x80 | length);
+        } else if (length < 65536) {
+            out.write(0x80 | 126);
+            out.write(length >>> 8);
+            out.write(length);
+        } else {
+            out.write(0x80 | 127);
+            for (int i = 7; i >= 0; i--) {
+                out.write((int) ((long) length >>> (i * 8)));
+            }
+        }
+        out.write(mask, 0, 4);
+        for (int i = 0; i < length; i++) {
+            out.write(payload[i] ^ mask[i & 3]);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.fixedlength.FixedLengthProtocolDecoder;
+import com.generallycloud.baseio.codec.fixedlength.FixedLengthProtocolEncoder;
+import com.generallycloud.baseio.codec.fixedlength.future.FixedLengthFutureImpl;
+import com.generallycloud.baseio.protocol.ChannelFuture;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FixedLengthCodecBenchmark extends AbstractCodecBenchmark {
+
+    @Param({ "16", "256", "4096" })
+    private int                        size;
+
+    private byte[]                     payload;
+
+    private ByteBuf                    frame;
+
+    private FixedLengthProtocolEncoder encoder = new FixedLengthProtocolEncoder();
+
+    private FixedLengthProtocolDecoder decoder = new FixedLengthProtocolDecoder(1024 * 64);
+
+    @Override
+    protected void init() throws Exception {
+        payload = BenchmarkData.payload(size);
+        frame = wrap(encodeToArray(encoder, newFuture()));
+    }
+
+    private ChannelFuture newFuture() {
+        FixedLengthFutureImpl future = new FixedLengthFutureImpl(context);
+        future.write(payload);
+        return future;
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        return encode(encoder, newFuture());
+    }
+
+    @Benchmark
+    public ChannelFuture decode() throws Exception {
+        return decode(decoder, frame);
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http2.hpack.Decoder;
+import com.generallycloud.baseio.codec.http2.hpack.Encoder;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
+import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersEncoder;
+import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersImpl;
+import com.generallycloud.baseio.common.ReleaseUtil;
+
+/**
+ * 每个benchmark线程模拟一个HTTP/2连接，encoder和decoder的动态表在整个trial内保留，
+ * encode测的是动态表命中后的稳定状态，decode测的是首个请求的literal+huffman解码
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HpackBenchmark extends AbstractCodecBenchmark {
+
+    private Http2Headers headers;
+
+    private Encoder      encoder;
+
+    private Decoder      decoder;
+
+    private ByteBuf      block;
+
+    @Override
+    protected void init() throws Exception {
+        headers = newRequestHeaders();
+        encoder = new Encoder();
+        decoder = new Decoder();
+        ByteBuf out = allocator.allocate(1024);
+        try {
+            encoder.encodeHeaders(out, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+            out.flip();
+            byte[] array = new byte[out.remaining()];
+            out.get(array);
+            block = wrap(array);
+        } finally {
+            ReleaseUtil.release(out);
+        }
+    }
+
+    private Http2Headers newRequestHeaders() {
+        Http2Headers headers = new Http2HeadersImpl();
+        headers.method("GET");
+        headers.scheme("https");
+        headers.authority("www.generallycloud.com");
+        headers.path("/benchmark/plaintext?id=1");
+        headers.add("user-agent",
+                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
+        headers.add("accept", "text/html,application/xhtml+xml,application/xml;q=0.9");
+        headers.add("accept-encoding", "gzip, deflate, br");
+        headers.add("accept-language", "zh-CN,zh;q=0.9,en;q=0.8");
+        headers.add("cookie", "JSESSIONID=3E1A3F2B9C0D4E5F");
+        return headers;
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        ByteBuf out = allocator.allocate(1024);
+        try {
+            encoder.encodeHeaders(out, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+            return out.position();
+        } finally {
+            ReleaseUtil.release(out);
+        }
+    }
+
+    @Benchmark
+    public Http2Headers decode() throws Exception {
+        Http2Headers headers = new Http2HeadersImpl();
+        block.position(0);
+        decoder.decode(0, block, headers);
+        return headers;
+    }
+
+}
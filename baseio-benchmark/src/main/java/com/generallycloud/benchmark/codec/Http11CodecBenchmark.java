@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http11.ServerHTTPProtocolDecoder;
+import com.generallycloud.baseio.codec.http11.ServerHTTPProtocolEncoder;
+import com.generallycloud.baseio.codec.http11.future.ServerHttpFuture;
+import com.generallycloud.baseio.protocol.ChannelFuture;
+
+/**
+ * 解码一个典型的浏览器GET请求，编码一个plaintext响应
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class Http11CodecBenchmark extends AbstractCodecBenchmark {
+
+    private static final String       TEXT    = "Hello, World!";
+
+    private ByteBuf                   request;
+
+    private ServerHTTPProtocolEncoder encoder = new ServerHTTPProtocolEncoder();
+
+    private ServerHTTPProtocolDecoder decoder = new ServerHTTPProtocolDecoder(1024 * 8,
+            1024 * 64);
+
+    @Override
+    protected void init() throws Exception {
+        request = wrap(BenchmarkData.HTTP_REQUEST.getBytes("ISO-8859-1"));
+        channel.setProtocolDecoder(decoder);
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        ServerHttpFuture future = new ServerHttpFuture(context);
+        future.setResponseHeader("Content-Type", "text/plain");
+        future.write(TEXT);
+        return encode(encoder, future);
+    }
+
+    @Benchmark
+    public ChannelFuture decode() throws Exception {
+        // 第一次解码后channel持有独占的decoder，之后复用同一个header parser
+        return decode(channel.getProtocolDecoder(), request);
+    }
+
+}
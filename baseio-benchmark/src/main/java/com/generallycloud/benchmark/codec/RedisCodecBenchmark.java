@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.redis.RedisProtocolDecoder;
+import com.generallycloud.baseio.codec.redis.RedisProtocolEncoder;
+import com.generallycloud.baseio.codec.redis.future.RedisFutureImpl;
+import com.generallycloud.baseio.protocol.ChannelFuture;
+
+/**
+ * 编码SET命令，解码GET命令的bulk string回复
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RedisCodecBenchmark extends AbstractCodecBenchmark {
+
+    private static final byte[]  SET   = "SET".getBytes();
+
+    private static final byte[]  KEY   = "benchmark:key".getBytes();
+
+    private static final byte[]  VALUE = BenchmarkData.payload(64);
+
+    private ByteBuf              reply;
+
+    private RedisProtocolEncoder encoder = new RedisProtocolEncoder();
+
+    private RedisProtocolDecoder decoder = new RedisProtocolDecoder();
+
+    @Override
+    protected void init() throws Exception {
+        String value = new String(VALUE, "ISO-8859-1");
+        reply = wrap(("$" + VALUE.length + "\r\n" + value + "\r\n").getBytes("ISO-8859-1"));
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        RedisFutureImpl future = new RedisFutureImpl(context);
+        future.writeCommand(SET, KEY, VALUE);
+        return encode(encoder, future);
+    }
+
+    @Benchmark
+    public ChannelFuture decode() throws Exception {
+        return decode(decoder, reply);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http11.WebSocketProtocolDecoder;
+import com.generallycloud.baseio.codec.http11.WebSocketProtocolEncoder;
+import com.generallycloud.baseio.codec.http11.future.WebSocketFutureImpl;
+import com.generallycloud.baseio.protocol.ChannelFuture;
+
+/**
+ * 编码服务端发出的text帧，解码客户端发来的带mask的text帧
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WebSocketCodecBenchmark extends AbstractCodecBenchmark {
+
+    @Param({ "16", "256", "4096" })
+    private int                      size;
+
+    private String                   text;
+
+    private ByteBuf                  frame;
+
+    private WebSocketProtocolEncoder encoder = new WebSocketProtocolEncoder();
+
+    private WebSocketProtocolDecoder decoder = new WebSocketProtocolDecoder(1024 * 64);
+
+    @Override
+    protected void init() throws Exception {
+        byte[] payload = BenchmarkData.payload(size);
+        text = new String(payload, "UTF-8");
+        frame = wrap(BenchmarkData.maskedWebSocketFrame(payload));
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        WebSocketFutureImpl future = new WebSocketFutureImpl(context);
+        future.write(text);
+        return encode(encoder, future);
+    }
+
+    @Benchmark
+    public ChannelFuture decode() throws Exception {
+        return decode(decoder, frame);
+    }
+
+}
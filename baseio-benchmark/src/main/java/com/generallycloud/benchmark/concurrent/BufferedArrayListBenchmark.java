@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.concurrent;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.concurrent.BufferedArrayList;
+
+/**
+ * 多个线程offer，selector线程周期性的交换buffer批量取出，对应selector loop中的用法
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BufferedArrayListBenchmark {
+
+    private static final Object       VALUE = new Object();
+
+    private BufferedArrayList<Object> list;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        list = new BufferedArrayList<>();
+    }
+
+    @Benchmark
+    @Group("offer")
+    @GroupThreads(3)
+    public void offer() {
+        list.offer(VALUE);
+    }
+
+    @Benchmark
+    @Group("offer")
+    @GroupThreads(1)
+    public int drain() {
+        List<Object> buffer = list.getBuffer();
+        return buffer.size();
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.concurrent;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.component.AbstractLinkable;
+import com.generallycloud.baseio.concurrent.Linkable;
+import com.generallycloud.baseio.concurrent.ScmpLinkedQueue;
+import com.generallycloud.baseio.concurrent.ScspLinkedQueue;
+
+/**
+ * 生产者与消费者在同一个group内并发执行，生产者在队列积压超过BOUND时放弃本次offer，
+ * 避免消费者较慢时队列无限增长，ConcurrentLinkedQueue作为对照
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LinkedQueueBenchmark {
+
+    private static final int              BOUND = 1024 * 8;
+
+    private ScspLinkedQueue<Node>         scsp;
+
+    private ScmpLinkedQueue<Node>         scmp;
+
+    private ConcurrentLinkedQueue<Node>   clq;
+
+    // ConcurrentLinkedQueue.size()需要遍历，和baseio的队列一样用计数器记录长度
+    private AtomicInteger                 clqSize;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        scsp = new ScspLinkedQueue<>(new Node());
+        scmp = new ScmpLinkedQueue<>(new Node());
+        clq = new ConcurrentLinkedQueue<>();
+        clqSize = new AtomicInteger();
+    }
+
+    @Benchmark
+    @Group("scsp")
+    @GroupThreads(1)
+    public boolean scspOffer() {
+        if (scsp.size() > BOUND) {
+            return false;
+        }
+        scsp.offer(new Node());
+        return true;
+    }
+
+    @Benchmark
+    @Group("scsp")
+    @GroupThreads(1)
+    public Node scspPoll() {
+        return scsp.poll();
+    }
+
+    @Benchmark
+    @Group("scmp")
+    @GroupThreads(3)
+    public boolean scmpOffer() {
+        if (scmp.size() > BOUND) {
+            return false;
+        }
+        scmp.offer(new Node());
+        return true;
+    }
+
+    @Benchmark
+    @Group("scmp")
+    @GroupThreads(1)
+    public Node scmpPoll() {
+        return scmp.poll();
+    }
+
+    @Benchmark
+    @Group("clq")
+    @GroupThreads(3)
+    public boolean clqOffer() {
+        if (clqSize.get() > BOUND) {
+            return false;
+        }
+        clq.offer(new Node());
+        clqSize.incrementAndGet();
+        return true;
+    }
+
+    @Benchmark
+    @Group("clq")
+    @GroupThreads(1)
+    public Node clqPoll() {
+        Node node = clq.poll();
+        if (node != null) {
+            clqSize.decrementAndGet();
+        }
+        return node;
+    }
+
+    static class Node extends AbstractLinkable {
+
+        private Linkable next;
+
+        @Override
+        public Linkable getNext() {
+            return next;
+        }
+
+        @Override
+        public void setNext(Linkable next) {
+            this.next = next;
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.benchmark.loopback;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.generallycloud.baseio.acceptor.SocketChannelAcceptor;
+import com.generallycloud.baseio.codec.fixedlength.FixedLengthProtocolFactory;
+import com.generallycloud.baseio.codec.fixedlength.future.FixedLengthFuture;
+import com.generallycloud.baseio.codec.fixedlength.future.FixedLengthFutureImpl;
+import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.component.IoEventHandleAdaptor;
+import com.generallycloud.baseio.component.NioSocketChannelContext;
+import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
+import com.generallycloud.baseio.connector.SocketChannelConnector;
+import com.generallycloud.baseio.protocol.Future;
+
+/**
+ * 本机回环的echo，每次invocation连续写出BATCH个报文并等待全部回包，
+ * 结果包含编解码、selector调度与系统调用的完整开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoopbackEchoBenchmark {
+
+    private static final int        BATCH = 1000;
+
+    @Param({ "18300" })
+    private int                     port;
+
+    @Param({ "16", "1024" })
+    private int                     size;
+
+    private String                  text;
+
+    private SocketChannelAcceptor   acceptor;
+
+    private SocketChannelConnector  connector;
+
+    private SocketSession           session;
+
+    private volatile CountDownLatch latch;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        char[] cs = new char[size];
+        for (int i = 0; i < size; i++) {
+            cs[i] = (char) ('a' + i % 26);
+        }
+        text = new String(cs);
+
+        NioSocketChannelContext serverContext = new NioSocketChannelContext(
+                new ServerConfiguration(port));
+        serverContext.setProtocolFactory(new FixedLengthProtocolFactory());
+        serverContext.setIoEventHandleAdaptor(new IoEventHandleAdaptor() {
+
+            @Override
+            public void accept(SocketSession session, Future future) throws Exception {
+                future.write(future.getReadText());
+                session.flush(future);
+            }
+        });
+        acceptor = new SocketChannelAcceptor(serverContext);
+        acceptor.bind();
+
+        NioSocketChannelContext clientContext = new NioSocketChannelContext(
+                new ServerConfiguration("127.0.0.1", port));
+        clientContext.setProtocolFactory(new FixedLengthProtocolFactory());
+        clientContext.setIoEventHandleAdaptor(new IoEventHandleAdaptor() {
+
+            @Override
+            public void accept(SocketSession session, Future future) throws Exception {
+                latch.countDown();
+            }
+        });
+        connector = new SocketChannelConnector(clientContext);
+        session = connector.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CloseUtil.close(connector);
+        CloseUtil.unbind(acceptor);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void echo() throws Exception {
+        CountDownLatch latch = new CountDownLatch(BATCH);
+        this.latch = latch;
+        for (int i = 0; i < BATCH; i++) {
+            FixedLengthFuture future = new FixedLengthFutureImpl(session.getContext());
+            future.write(text);
+            session.flush(future);
+        }
+        if (!latch.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("echo timeout, remain: " + latch.getCount());
+        }
+    }
+
+}
@@ -15,12 +15,13 @@
  */
 package com.generallycloud.baseio.codec.http11;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.codec.http11.future.HttpFuture;
+import com.generallycloud.baseio.codec.http11.future.HttpHeader;
 import com.generallycloud.baseio.protocol.ProtocolEncoder;
 
 /**
@@ -29,20 +30,85 @@ import com.generallycloud.baseio.protocol.ProtocolEncoder;
  */
 public abstract class AbstractHttpProtocolEncoder implements ProtocolEncoder {
 
-    protected static final byte[] RN    = "\r\n".getBytes();
-    protected static final byte   COLON = ':';
-    protected static final byte   SPACE = ' ';
+    protected static final byte[]              RN           = "\r\n".getBytes();
+    protected static final byte                COLON        = ':';
+    protected static final byte                SPACE        = ' ';
 
-    protected void writeBuf(ByteBuf buf, byte[] array) {
-        writeBuf(buf, array, 0, array.length);
+    // 常见header名称预先编码为"Name:"
+    private static final Map<String, byte[]>   HEADER_NAMES = new HashMap<>();
+
+    static {
+        String[] names = new String[] { HttpHeader.CONTENT_TYPE, HttpHeader.CONTENT_LENGTH,
+                HttpHeader.CONNECTION, HttpHeader.LAST_MODIFIED, HttpHeader.ETAG,
+                HttpHeader.ACCEPT_RANGES, HttpHeader.CONTENT_RANGE, HttpHeader.DATE,
+                HttpHeader.SERVER, HttpHeader.SET_COOKIE, HttpHeader.UPGRADE, HttpHeader.HOST,
+                "Sec-WebSocket-Accept", "Cache-Control", "Location", "Expires",
+                "Content-Encoding", "Transfer-Encoding", "Keep-Alive", "Vary" };
+        for (String name : names) {
+            HEADER_NAMES.put(name, (name + ":").getBytes());
+        }
     }
 
-    protected void writeBuf(ByteBuf buf, byte[] array, int offset, int len) {
+    /**
+     * @return 字符串只包含ASCII字符时返回其长度，否则返回-1
+     */
+    protected static int asciiLength(String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) > 0x7f) {
+                return -1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return 写入该字符串需要的字节数
+     */
+    protected static int encodedLength(String s) {
+        int length = asciiLength(s);
+        if (length == -1) {
+            return s.getBytes().length;
+        }
+        return length;
+    }
+
+    protected static int stringSize(long value) {
+        int size = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * @return 写入所有response header需要的字节数
+     */
+    protected int headersLength(Map<String, String> headers) {
+        if (headers == null) {
+            return 0;
+        }
+        int length = 0;
+        for (Entry<String, String> header : headers.entrySet()) {
+            length += encodedLength(header.getKey()) + encodedLength(header.getValue()) + 3;
+        }
+        return length;
+    }
+
+    protected void ensureRemaining(ByteBuf buf, int len) {
         if (buf.remaining() < len) {
             buf.reallocate(buf.position() + len, true);
             buf.limit(buf.capacity());
         }
-        buf.put(array);
+    }
+
+    protected void writeBuf(ByteBuf buf, byte[] array) {
+        writeBuf(buf, array, 0, array.length);
+    }
+
+    protected void writeBuf(ByteBuf buf, byte[] array, int offset, int len) {
+        ensureRemaining(buf, len);
+        buf.put(array, offset, len);
     }
 
     protected void writeBuf(ByteBuf buf, byte b) {
@@ -53,6 +119,43 @@ public abstract class AbstractHttpProtocolEncoder implements ProtocolEncoder {
         buf.putByte(b);
     }
 
+    /**
+     * ASCII字符直接写入buf，避免创建byte[]
+     */
+    protected void writeString(ByteBuf buf, String s) {
+        int length = asciiLength(s);
+        if (length == -1) {
+            writeBuf(buf, s.getBytes());
+            return;
+        }
+        ensureRemaining(buf, length);
+        for (int i = 0; i < length; i++) {
+            buf.putByte((byte) s.charAt(i));
+        }
+    }
+
+    protected void writeLong(ByteBuf buf, long value) {
+        int size = stringSize(value);
+        ensureRemaining(buf, size);
+        int position = buf.position() + size;
+        for (int i = 1; i <= size; i++) {
+            buf.position(position - i);
+            buf.putByte((byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buf.position(position);
+    }
+
+    protected void writeHeaderName(ByteBuf buf, String name) {
+        byte[] array = HEADER_NAMES.get(name);
+        if (array == null) {
+            writeString(buf, name);
+            writeBuf(buf, COLON);
+            return;
+        }
+        writeBuf(buf, array);
+    }
+
     protected void writeHeaders(HttpFuture f, ByteBuf buf) {
 
         Map<String, String> headers = f.getResponseHeaders();
@@ -61,12 +164,9 @@ public abstract class AbstractHttpProtocolEncoder implements ProtocolEncoder {
             return;
         }
 
-        Set<Entry<String, String>> hs = headers.entrySet();
-
-        for (Entry<String, String> header : hs) {
-            writeBuf(buf, header.getKey().getBytes());
-            writeBuf(buf, COLON);
-            writeBuf(buf, header.getValue().getBytes());
+        for (Entry<String, String> header : headers.entrySet()) {
+            writeHeaderName(buf, header.getKey());
+            writeString(buf, header.getValue());
             writeBuf(buf, RN);
         }
     }
@@ -19,15 +19,19 @@ import java.io.IOException;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.codec.http11.future.ClientHttpFuture;
+import com.generallycloud.baseio.codec.http11.future.HttpHeaderParser;
 import com.generallycloud.baseio.component.SocketChannel;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.ProtocolDecoder;
 
 public class ClientHTTPProtocolDecoder implements ProtocolDecoder {
 
-    private int headerLimit;
+    private int              headerLimit;
 
-    private int bodyLimit;
+    private int              bodyLimit;
+
+    // 只有连接独占的decoder才持有parser
+    private HttpHeaderParser headerParser;
 
     public ClientHTTPProtocolDecoder(int headerLimit, int bodyLimit) {
         this.headerLimit = headerLimit;
@@ -36,8 +40,17 @@ public class ClientHTTPProtocolDecoder implements ProtocolDecoder {
 
     @Override
     public ChannelFuture decode(SocketChannel channel, ByteBuf buffer) throws IOException {
-
-        return new ClientHttpFuture(channel, buffer, headerLimit, bodyLimit);
+        HttpHeaderParser parser = headerParser;
+        if (parser == null) {
+            // context共享的decoder，为连接创建独占的decoder，之后的响应复用同一个parser
+            ClientHTTPProtocolDecoder decoder = new ClientHTTPProtocolDecoder(headerLimit,
+                    bodyLimit);
+            decoder.headerParser = new HttpHeaderParser(headerLimit);
+            channel.setProtocolDecoder(decoder);
+            return decoder.decode(channel, buffer);
+        }
+        parser.reset();
+        return new ClientHttpFuture(channel, buffer, parser, bodyLimit);
     }
 
 }
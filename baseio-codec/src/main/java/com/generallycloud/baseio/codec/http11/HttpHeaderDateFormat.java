@@ -35,6 +35,32 @@ public class HttpHeaderDateFormat {
 
     private TimeZone GTM = TimeZone.getTimeZone("GTM");
 
+    private volatile DateCache dateCache = new DateCache(-1, null);
+
+    /**
+     * 同一秒内返回同一个数组，每秒最多格式化一次，调用方不可修改返回的数组
+     */
+    public byte[] formatCached(long time) {
+        long second = time / 1000;
+        DateCache cache = dateCache;
+        if (cache.second != second) {
+            cache = new DateCache(second, format(second * 1000).getBytes());
+            dateCache = cache;
+        }
+        return cache.bytes;
+    }
+
+    static class DateCache {
+
+        final long   second;
+        final byte[] bytes;
+
+        DateCache(long second, byte[] bytes) {
+            this.second = second;
+            this.bytes = bytes;
+        }
+    }
+
     public Date parse(String source) {
         int day = Integer.parseInt(source.substring(5, 7));
         int year = Integer.parseInt(source.substring(12, 16));
@@ -18,25 +18,52 @@ package com.generallycloud.baseio.codec.http11;
 import java.io.IOException;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http11.future.HttpHeaderParser;
 import com.generallycloud.baseio.codec.http11.future.ServerHttpFuture;
 import com.generallycloud.baseio.component.SocketChannel;
 import com.generallycloud.baseio.protocol.ChannelFuture;
-import com.generallycloud.baseio.protocol.ProtocolDecoder;
+import com.generallycloud.baseio.protocol.PipelinedProtocolDecoder;
 
-public class ServerHTTPProtocolDecoder implements ProtocolDecoder {
+public class ServerHTTPProtocolDecoder implements PipelinedProtocolDecoder {
 
-    private int headerLimit;
+    private int     headerLimit;
 
-    private int bodyLimit;
+    private int     bodyLimit;
+
+    private boolean enablePipelining;
+
+    // 只有连接独占的decoder才持有parser
+    private HttpHeaderParser headerParser;
 
     public ServerHTTPProtocolDecoder(int headerLimit, int bodyLimit) {
         this.headerLimit = headerLimit;
         this.bodyLimit = bodyLimit;
     }
 
+    public ServerHTTPProtocolDecoder(int headerLimit, int bodyLimit, boolean enablePipelining) {
+        this.headerLimit = headerLimit;
+        this.bodyLimit = bodyLimit;
+        this.enablePipelining = enablePipelining;
+    }
+
+    @Override
+    public boolean isEnablePipelining() {
+        return enablePipelining;
+    }
+
     @Override
     public ChannelFuture decode(SocketChannel channel, ByteBuf buffer) throws IOException {
-        return new ServerHttpFuture(channel, buffer, headerLimit, bodyLimit);
+        HttpHeaderParser parser = headerParser;
+        if (parser == null) {
+            // context共享的decoder，为连接创建独占的decoder，之后的请求复用同一个parser
+            ServerHTTPProtocolDecoder decoder = new ServerHTTPProtocolDecoder(headerLimit,
+                    bodyLimit, enablePipelining);
+            decoder.headerParser = new HttpHeaderParser(headerLimit);
+            channel.setProtocolDecoder(decoder);
+            return decoder.decode(channel, buffer);
+        }
+        parser.reset();
+        return new ServerHttpFuture(channel, buffer, parser, bodyLimit);
     }
 
 }
@@ -17,68 +17,119 @@ package com.generallycloud.baseio.codec.http11;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.buffer.ByteBufAllocator;
 import com.generallycloud.baseio.codec.http11.future.Cookie;
+import com.generallycloud.baseio.codec.http11.future.HttpHeader;
+import com.generallycloud.baseio.codec.http11.future.HttpStatus;
 import com.generallycloud.baseio.codec.http11.future.ServerHttpFuture;
 import com.generallycloud.baseio.common.ReleaseUtil;
 import com.generallycloud.baseio.component.ByteArrayBuffer;
 import com.generallycloud.baseio.protocol.ChannelFuture;
+import com.generallycloud.baseio.protocol.FileRegion;
 
 public class ServerHTTPProtocolEncoder extends AbstractHttpProtocolEncoder {
 
-    private static final byte[] PROTOCOL   = "HTTP/1.1 ".getBytes();
-    private static final byte[] SERVER_CL  = "\r\nServer:baseio/0.0.1\r\nContent-Length:"
+    private static final byte[]   SERVER_CL    = "Server:baseio/0.0.1\r\nContent-Length:"
             .getBytes();
-    private static final byte[] SET_COOKIE = "Set-Cookie:".getBytes();
+    private static final byte[]   DATE         = "Date:".getBytes();
+    private static final byte[]   SET_COOKIE   = "Set-Cookie:".getBytes();
+    // "HTTP/1.1 200 OK\r\n"，按HttpStatus.ordinal()索引
+    private static final byte[][] STATUS_LINES = new byte[HttpStatus.values().length][];
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            STATUS_LINES[status.ordinal()] = ("HTTP/1.1 " + status.getHeaderText() + "\r\n")
+                    .getBytes();
+        }
+    }
 
     @Override
     public void encode(ByteBufAllocator allocator, ChannelFuture readFuture) throws IOException {
 
         ServerHttpFuture f = (ServerHttpFuture) readFuture;
 
-        f.setResponseHeader("Date",
-                HttpHeaderDateFormat.getFormat().format(System.currentTimeMillis()));
+        FileRegion region = f.getFileRegion();
+
+        if (region != null) {
+            // 文件内容在头部之后由FileRegion写出
+            encode(allocator, f, region.getCount(), 0, null);
+            return;
+        }
 
         ByteArrayBuffer os = f.getBinaryBuffer();
 
         if (os != null) {
-            encode(allocator, f, os.size(), os.array());
+            encode(allocator, f, os.size(), os.size(), os.array());
             return;
         }
 
         ByteArrayBuffer buffer = f.getWriteBuffer();
 
         if (buffer == null) {
-            encode(allocator, f, 0, null);
+            encode(allocator, f, 0, 0, null);
             return;
         }
 
-        encode(allocator, f, buffer.size(), buffer.array());
+        encode(allocator, f, buffer.size(), buffer.size(), buffer.array());
     }
 
-    private void encode(ByteBufAllocator allocator, ServerHttpFuture f, int length, byte[] array)
-            throws IOException {
+    private void encode(ByteBufAllocator allocator, ServerHttpFuture f, long contentLength,
+            int length, byte[] array) throws IOException {
+
+        byte[] statusLine = STATUS_LINES[f.getStatus().ordinal()];
+
+        Map<String, String> headers = f.getResponseHeaders();
+
+        byte[] date = null;
+
+        if (headers == null || !headers.containsKey(HttpHeader.DATE)) {
+            date = HttpHeaderDateFormat.getFormat().formatCached(System.currentTimeMillis());
+        }
+
+        List<Cookie> cookieList = f.getCookieList();
 
-        ByteBuf buf = allocator.allocate(256);
+        String[] cookies = null;
+
+        // 预先计算需要的长度，避免写入过程中扩容
+        int capacity = statusLine.length + SERVER_CL.length + stringSize(contentLength) + 2
+                + headersLength(headers) + 2 + length;
+
+        if (date != null) {
+            capacity += DATE.length + date.length + 2;
+        }
+
+        if (cookieList != null) {
+            cookies = new String[cookieList.size()];
+            for (int i = 0; i < cookies.length; i++) {
+                cookies[i] = cookieList.get(i).toString();
+                capacity += SET_COOKIE.length + encodedLength(cookies[i]) + 2;
+            }
+        }
+
+        ByteBuf buf = allocator.allocate(capacity);
 
         try {
 
-            buf.put(PROTOCOL);
-            buf.put(f.getStatus().getHeaderBinary());
+            buf.put(statusLine);
             buf.put(SERVER_CL);
-            buf.put(String.valueOf(length).getBytes());
-            buf.put(RN);
+            writeLong(buf, contentLength);
+            writeBuf(buf, RN);
 
-            writeHeaders(f, buf);
+            if (date != null) {
+                writeBuf(buf, DATE);
+                writeBuf(buf, date);
+                writeBuf(buf, RN);
+            }
 
-            List<Cookie> cookieList = f.getCookieList();
+            writeHeaders(f, buf);
 
-            if (cookieList != null) {
-                for (Cookie c : cookieList) {
+            if (cookies != null) {
+                for (String c : cookies) {
                     writeBuf(buf, SET_COOKIE);
-                    writeBuf(buf, c.toString().getBytes());
+                    writeString(buf, c);
                     writeBuf(buf, RN);
                 }
             }
@@ -22,11 +22,13 @@ import com.generallycloud.baseio.protocol.ProtocolFactory;
 
 public class ServerHTTPProtocolFactory implements ProtocolFactory {
 
-    private int bodyLimit      = 1024 * 512;
+    private int     bodyLimit      = 1024 * 512;
 
-    private int headerLimit    = 1024 * 8;
+    private int     headerLimit    = 1024 * 8;
 
-    private int websocketLimit = 1024 * 8;
+    private int     websocketLimit = 1024 * 8;
+
+    private boolean enablePipelining;
 
     public ServerHTTPProtocolFactory() {
     }
@@ -44,7 +46,7 @@ public class ServerHTTPProtocolFactory implements ProtocolFactory {
 
     @Override
     public ProtocolDecoder getProtocolDecoder(SocketChannelContext context) {
-        return new ServerHTTPProtocolDecoder(headerLimit, bodyLimit);
+        return new ServerHTTPProtocolDecoder(headerLimit, bodyLimit, enablePipelining);
     }
 
     @Override
@@ -52,6 +54,18 @@ public class ServerHTTPProtocolFactory implements ProtocolFactory {
         return new ServerHTTPProtocolEncoder();
     }
 
+    public boolean isEnablePipelining() {
+        return enablePipelining;
+    }
+
+    /**
+     * 启用后同一次读取中解码出的请求在同一个线程中依次处理，
+     * 响应按请求顺序合并为一次flush
+     */
+    public void setEnablePipelining(boolean enablePipelining) {
+        this.enablePipelining = enablePipelining;
+    }
+
     @Override
     public String getProtocolId() {
         return "HTTP1.1";
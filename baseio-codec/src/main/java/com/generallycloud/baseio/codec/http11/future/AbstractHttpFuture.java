@@ -37,7 +37,6 @@ import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.protocol.AbstractChannelFuture;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 
-//FIXME 改进header parser
 /**
  * 
  * Content-Type: application/x-www-form-urlencoded</BR> Content-Type:
@@ -59,12 +58,10 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
     protected String                                contentType;
     protected List<Cookie>                          cookieList;
     protected Map<String, String>                   cookies;
-    protected StringBuilder                         currentHeaderLine;
     protected boolean                               hasBodyContent;
     protected boolean                               header_complete;
-    protected int                                   headerLength;
     protected int                                   headerLimit;
-    protected List<String>                          headerLines;;
+    protected HttpHeaderParser                      headerParser;
     protected String                                host;
     protected String                                method;
     protected Map<String, String>                   params;
@@ -83,16 +80,16 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
         super(context);
     }
 
-    public AbstractHttpFuture(SocketChannel channel, ByteBuf readBuffer, int headerLimit,
-            int bodyLimit) {
+    /**
+     * @param headerParser 连接上复用的parser，已经reset
+     */
+    public AbstractHttpFuture(SocketChannel channel, ByteBuf readBuffer,
+            HttpHeaderParser headerParser, int bodyLimit) {
         super(channel.getContext());
         this.channel = channel;
-        this.headerLimit = headerLimit;
+        this.headerLimit = headerParser.getHeaderLimit();
         this.bodyLimit = bodyLimit;
-        this.cookies = new HashMap<>();
-        this.request_headers = new HashMap<>();
-        this.headerLines = new ArrayList<>();
-        this.currentHeaderLine = new StringBuilder();
+        this.headerParser = headerParser;
     }
 
     @Override
@@ -126,48 +123,17 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
         }
     }
 
-    public void doHeaderComplete(SocketChannel channel, List<String> headerLines) {
+    protected void doHeaderComplete(SocketChannel channel, HttpHeaderParser parser) {
 
-        parseFirstLine(headerLines.get(0));
+        parseFirstLine(parser.getFirstLine());
 
-        for (int i = 1; i < headerLines.size(); i++) {
+        int contentLength = parser.getIntValue(HttpHeader.CONTENT_LENGTH);
 
-            String l = headerLines.get(i);
-
-            int p = l.indexOf(":");
-
-            if (p == -1) {
-                setRequestHeader(l, null);
-                continue;
-            }
-
-            String name = l.substring(0, p).trim();
-
-            String value = l.substring(p + 1).trim();
-
-            setRequestHeader(name, value);
-        }
-
-        host = getRequestHeader("Host");
-
-        String _contentLength = getRequestHeader(HttpHeader.CONTENT_LENGTH);
-
-        int contentLength = 0;
-
-        if (!StringUtil.isNullOrBlank(_contentLength)) {
-            contentLength = Integer.parseInt(_contentLength);
+        if (contentLength != -1) {
             this.contentLength = contentLength;
         }
 
-        String contentType = getRequestHeader(HttpHeader.CONTENT_TYPE);
-
-        parseContentType(contentType);
-
-        String cookie = getRequestHeader("Cookie");
-
-        if (!StringUtil.isNullOrBlank(cookie)) {
-            parse_cookies(cookie, cookies);
-        }
+        parseContentType(parser.getValue(HttpHeader.CONTENT_TYPE));
 
         if (contentLength < 1) {
             body_complete = true;
@@ -222,6 +188,13 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
 
     @Override
     public String getCookie(String name) {
+        if (cookies == null) {
+            cookies = new HashMap<>();
+            String cookie = getRequestHeader(HttpHeader.COOKIE);
+            if (!StringUtil.isNullOrBlank(cookie)) {
+                parse_cookies(cookie, cookies);
+            }
+        }
         return cookies.get(name);
     }
 
@@ -237,6 +210,9 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
 
     @Override
     public String getHost() {
+        if (host == null) {
+            host = getRequestHeader(HttpHeader.HOST);
+        }
         return host;
     }
 
@@ -260,12 +236,27 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
             return null;
         }
 
-        //		return request_headers.get(name.toLowerCase());
-        return request_headers.get(name);
+        if (request_headers != null) {
+            String value = request_headers.get(name);
+            if (value != null || headerParser == null) {
+                return value;
+            }
+        }
+
+        if (headerParser == null) {
+            return null;
+        }
+
+        // 直接从header字节中查找，忽略大小写
+        return headerParser.getValue(name);
     }
 
     @Override
     public Map<String, String> getRequestHeaders() {
+        if (request_headers == null && headerParser != null) {
+            request_headers = new HashMap<>();
+            headerParser.copyTo(request_headers);
+        }
         return request_headers;
     }
 
@@ -359,50 +350,25 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
 
     protected void parseParamString(String paramString) {
 
-        String[] array = paramString.split("&");
-
-        for (String s : array) {
+        int length = paramString.length();
 
-            if (StringUtil.isNullOrBlank(s)) {
-                continue;
-            }
+        for (int start = 0; start < length;) {
 
-            String[] unitArray = s.split("=");
+            int end = paramString.indexOf('&', start);
 
-            if (unitArray.length != 2) {
-                continue;
+            if (end == -1) {
+                end = length;
             }
 
-            String key = unitArray[0];
-            String value = unitArray[1];
-            params.put(key, value);
-        }
-    }
-
-    private void readHeader(ByteBuf buffer) throws IOException {
-
-        for (; buffer.hasRemaining();) {
+            int index = paramString.indexOf('=', start);
 
-            if (++headerLength > headerLimit) {
-                throw new IOException("max http header length " + headerLimit);
+            // 只接受key=value的形式
+            if (index != -1 && index < end - 1 && paramString.lastIndexOf('=', end - 1) == index) {
+                params.put(paramString.substring(start, index),
+                        paramString.substring(index + 1, end));
             }
 
-            byte b = buffer.getByte();
-
-            if (b == '\n') {
-                if (currentHeaderLine.length() == 0) {
-                    header_complete = true;
-                    break;
-                } else {
-                    headerLines.add(currentHeaderLine.toString());
-                    currentHeaderLine.setLength(0);
-                }
-                continue;
-            } else if (b == '\r') {
-                continue;
-            } else {
-                currentHeaderLine.append((char) b);
-            }
+            start = end + 1;
         }
     }
 
@@ -411,13 +377,16 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
 
         if (!header_complete) {
 
-            readHeader(buffer);
-
-            if (!header_complete) {
+            if (!headerParser.parse(buffer)) {
                 return false;
             }
 
-            doHeaderComplete(channel, headerLines);
+            header_complete = true;
+
+            // 连接上的parser在下一个请求开始时会被reset，这里保留header的副本
+            headerParser = headerParser.copy();
+
+            doHeaderComplete(channel, headerParser);
         }
 
         if (!body_complete) {
@@ -439,7 +408,7 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
     @Override
     public void setRequestHeader(String name, String value) {
 
-        if (request_headers == null) {
+        if (getRequestHeaders() == null) {
             throw new RuntimeException("did you want to set response header ?");
         }
 
@@ -447,7 +416,6 @@ public abstract class AbstractHttpFuture extends AbstractChannelFuture implement
             return;
         }
 
-        //		request_headers.put(name.toLowerCase(), value);
         request_headers.put(name, value);
     }
 
@@ -31,8 +31,9 @@ public class ClientHttpFuture extends AbstractHttpFuture {
         this.setRequestURL(url);
     }
 
-    public ClientHttpFuture(SocketChannel channel, ByteBuf buffer, int headerLimit, int bodyLimit) {
-        super(channel, buffer, headerLimit, bodyLimit);
+    public ClientHttpFuture(SocketChannel channel, ByteBuf buffer, HttpHeaderParser headerParser,
+            int bodyLimit) {
+        super(channel, buffer, headerParser, bodyLimit);
     }
 
     @Override
@@ -22,6 +22,42 @@ public class HttpHeader {
     public static final String CONNECTION        = "Connection";
     public static final String LAST_MODIFIED     = "Last-Modified";
     public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    public static final String ETAG              = "ETag";
+    public static final String IF_NONE_MATCH     = "If-None-Match";
+    public static final String RANGE             = "Range";
+    public static final String CONTENT_RANGE     = "Content-Range";
+    public static final String ACCEPT_RANGES     = "Accept-Ranges";
+    public static final String HOST              = "Host";
+    public static final String COOKIE            = "Cookie";
+    public static final String UPGRADE           = "Upgrade";
+    public static final String DATE              = "Date";
+    public static final String SERVER            = "Server";
+    public static final String SET_COOKIE        = "Set-Cookie";
+
+    // 常见的header名称，解析时直接使用这些实例，避免为每个请求创建String
+    private static final String[][] KNOWN_NAMES  = new String[32][];
+
+    static {
+        String[] names = new String[] { HOST, CONNECTION, CONTENT_TYPE, CONTENT_LENGTH, COOKIE,
+                UPGRADE, DATE, IF_MODIFIED_SINCE, IF_NONE_MATCH, RANGE, LAST_MODIFIED, ETAG,
+                "Accept", "Accept-Encoding", "Accept-Language", "Accept-Charset", "User-Agent",
+                "Cache-Control", "Pragma", "Referer", "Origin", "Authorization",
+                "Transfer-Encoding", "Keep-Alive", "X-Requested-With", "X-Forwarded-For",
+                "DNT", "Upgrade-Insecure-Requests", "Sec-WebSocket-Key",
+                "Sec-WebSocket-Version", "Sec-WebSocket-Accept", "Sec-WebSocket-Extensions",
+                "Sec-WebSocket-Protocol", SERVER, SET_COOKIE, "Location", "Expires",
+                "Vary", "Content-Encoding" };
+        for (String name : names) {
+            int len = name.length();
+            String[] old = KNOWN_NAMES[len];
+            String[] group = old == null ? new String[1] : new String[old.length + 1];
+            if (old != null) {
+                System.arraycopy(old, 0, group, 0, old.length);
+            }
+            group[group.length - 1] = name;
+            KNOWN_NAMES[len] = group;
+        }
+    }
 
     private String             name;
 
@@ -47,4 +83,49 @@ public class HttpHeader {
         return key;
     }
 
+    /**
+     * 忽略大小写比较header名称，name只包含ASCII字符
+     */
+    public static boolean equalsIgnoreCase(String name, byte[] array, int off, int len) {
+        if (name.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            int c1 = name.charAt(i);
+            int c2 = array[off + i];
+            if (c1 == c2) {
+                continue;
+            }
+            if (c1 >= 'A' && c1 <= 'Z') {
+                c1 += 32;
+            }
+            if (c2 >= 'A' && c2 <= 'Z') {
+                c2 += 32;
+            }
+            if (c1 != c2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 常见header名称的共享实例，未知名称返回null
+     */
+    public static String getKnownName(byte[] array, int off, int len) {
+        if (len >= KNOWN_NAMES.length) {
+            return null;
+        }
+        String[] group = KNOWN_NAMES[len];
+        if (group == null) {
+            return null;
+        }
+        for (String name : group) {
+            if (equalsIgnoreCase(name, array, off, len)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
 }
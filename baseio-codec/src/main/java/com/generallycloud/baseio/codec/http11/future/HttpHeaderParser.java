@@ -0,0 +1,316 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.http11.future;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+
+/**
+ * 增量解析http header，header的字节复制到内部数组中，只记录各行及name/value的位置，
+ * name优先使用{@link HttpHeader}中的常量，value在被使用时才创建String。
+ * 同一连接上复用一个parser，每个请求开始前{@link #reset()}，解析完成后由请求持有
+ * {@link #copy()}出的副本。同名header以最后一个为准(与{@link #copyTo(Map)}一致)
+ */
+public class HttpHeaderParser {
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private byte[]               array;
+    private int                  size;
+    private int                  scanIndex;
+    private int                  lineStart;
+    private int                  colonIndex = -1;
+    private int                  firstLineStart;
+    private int                  firstLineEnd = -1;
+    // 每个header四个值：nameStart, nameEnd, valueStart, valueEnd
+    private int[]                offsets;
+    private String[]             names;
+    private String[]             values;
+    private int                  headerSize;
+    private int                  headerLimit;
+    private boolean              complete;
+
+    public HttpHeaderParser(int headerLimit) {
+        this.headerLimit = headerLimit;
+        this.array = new byte[256];
+        this.offsets = new int[4 * 16];
+        this.names = new String[16];
+        this.values = new String[16];
+    }
+
+    private HttpHeaderParser(HttpHeaderParser parser) {
+        int headerSize = parser.headerSize;
+        this.array = Arrays.copyOf(parser.array, parser.size);
+        this.size = parser.size;
+        this.scanIndex = parser.scanIndex;
+        this.lineStart = parser.lineStart;
+        this.firstLineStart = parser.firstLineStart;
+        this.firstLineEnd = parser.firstLineEnd;
+        this.offsets = Arrays.copyOf(parser.offsets, headerSize * 4);
+        this.names = Arrays.copyOf(parser.names, headerSize);
+        this.values = Arrays.copyOf(parser.values, headerSize);
+        this.headerSize = headerSize;
+        this.headerLimit = parser.headerLimit;
+        this.complete = parser.complete;
+    }
+
+    /**
+     * @return 只包含已解析内容的副本，之后本parser可以reset后解析下一个请求
+     */
+    public HttpHeaderParser copy() {
+        return new HttpHeaderParser(this);
+    }
+
+    /**
+     * 清空上一个请求的状态，保留已扩容的数组
+     */
+    public void reset() {
+        Arrays.fill(names, 0, headerSize, null);
+        Arrays.fill(values, 0, headerSize, null);
+        size = 0;
+        scanIndex = 0;
+        lineStart = 0;
+        colonIndex = -1;
+        firstLineStart = 0;
+        firstLineEnd = -1;
+        headerSize = 0;
+        complete = false;
+    }
+
+    /**
+     * @return header是否已经读取完整，多读的字节会退回到buffer中
+     */
+    public boolean parse(ByteBuf buffer) throws IOException {
+        if (complete) {
+            return true;
+        }
+        int length = Math.min(buffer.remaining(), headerLimit - size);
+        if (length == 0) {
+            if (buffer.hasRemaining()) {
+                throw new IOException("max http header length " + headerLimit);
+            }
+            return false;
+        }
+        ensureCapacity(size + length);
+        buffer.get(array, size, length);
+        size += length;
+        byte[] array = this.array;
+        for (; scanIndex < size; scanIndex++) {
+            byte b = array[scanIndex];
+            if (b == ':') {
+                if (colonIndex == -1) {
+                    colonIndex = scanIndex;
+                }
+                continue;
+            }
+            if (b != '\n') {
+                continue;
+            }
+            int end = scanIndex;
+            if (end > lineStart && array[end - 1] == '\r') {
+                end--;
+            }
+            if (end == lineStart) {
+                if (firstLineEnd != -1) {
+                    complete = true;
+                    int extra = size - scanIndex - 1;
+                    buffer.position(buffer.position() - extra);
+                    size = scanIndex + 1;
+                    return true;
+                }
+                // 忽略请求行之前的空行
+            } else {
+                onLine(lineStart, end);
+            }
+            lineStart = scanIndex + 1;
+            colonIndex = -1;
+        }
+        if (size == headerLimit) {
+            throw new IOException("max http header length " + headerLimit);
+        }
+        return false;
+    }
+
+    private void onLine(int start, int end) {
+        if (firstLineEnd == -1) {
+            firstLineStart = start;
+            firstLineEnd = end;
+            return;
+        }
+        if (headerSize == names.length) {
+            int capacity = headerSize * 2;
+            int[] offsets = new int[capacity * 4];
+            System.arraycopy(this.offsets, 0, offsets, 0, headerSize * 4);
+            this.offsets = offsets;
+            String[] names = new String[capacity];
+            System.arraycopy(this.names, 0, names, 0, headerSize);
+            this.names = names;
+            String[] values = new String[capacity];
+            System.arraycopy(this.values, 0, values, 0, headerSize);
+            this.values = values;
+        }
+        int i = headerSize * 4;
+        int nameEnd = colonIndex == -1 ? end : colonIndex;
+        int nameStart = trimStart(start, nameEnd);
+        nameEnd = trimEnd(nameStart, nameEnd);
+        offsets[i] = nameStart;
+        offsets[i + 1] = nameEnd;
+        if (colonIndex == -1) {
+            // 没有value的header
+            offsets[i + 2] = -1;
+            offsets[i + 3] = -1;
+        } else {
+            int valueStart = trimStart(colonIndex + 1, end);
+            offsets[i + 2] = valueStart;
+            offsets[i + 3] = trimEnd(valueStart, end);
+        }
+        names[headerSize] = HttpHeader.getKnownName(array, nameStart, nameEnd - nameStart);
+        headerSize++;
+    }
+
+    private int trimStart(int start, int end) {
+        while (start < end && array[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && array[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= array.length) {
+            return;
+        }
+        int newCapacity = Math.min(Math.max(array.length * 2, capacity), headerLimit);
+        byte[] array = new byte[newCapacity];
+        System.arraycopy(this.array, 0, array, 0, size);
+        this.array = array;
+    }
+
+    public String getFirstLine() {
+        return new String(array, firstLineStart, firstLineEnd - firstLineStart, ISO_8859_1);
+    }
+
+    public int getHeaderSize() {
+        return headerSize;
+    }
+
+    public String getName(int index) {
+        String name = names[index];
+        if (name == null) {
+            int i = index * 4;
+            name = new String(array, offsets[i], offsets[i + 1] - offsets[i], ISO_8859_1);
+            names[index] = name;
+        }
+        return name;
+    }
+
+    public String getValue(int index) {
+        String value = values[index];
+        if (value == null) {
+            int i = index * 4;
+            if (offsets[i + 2] == -1) {
+                return null;
+            }
+            value = new String(array, offsets[i + 2], offsets[i + 3] - offsets[i + 2],
+                    ISO_8859_1);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return 名称对应的header序号，忽略大小写，有多个时返回最后一个，不存在时返回-1
+     */
+    public int indexOf(String name) {
+        for (int i = headerSize - 1; i >= 0; i--) {
+            String n = names[i];
+            if (n != null) {
+                if (n == name || n.equalsIgnoreCase(name)) {
+                    return i;
+                }
+                continue;
+            }
+            int off = offsets[i * 4];
+            if (HttpHeader.equalsIgnoreCase(name, array, off, offsets[i * 4 + 1] - off)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String getValue(String name) {
+        int index = indexOf(name);
+        if (index == -1) {
+            return null;
+        }
+        return getValue(index);
+    }
+
+    /**
+     * 直接从字节中解析整数，用于Content-Length等
+     * 
+     * @return 不存在或为空时返回-1
+     */
+    public int getIntValue(String name) {
+        int index = indexOf(name);
+        if (index == -1) {
+            return -1;
+        }
+        int i = index * 4;
+        int start = offsets[i + 2];
+        int end = offsets[i + 3];
+        if (start == end) {
+            return -1;
+        }
+        if (end - start > 9) {
+            return Integer.parseInt(getValue(index));
+        }
+        int value = 0;
+        for (int j = start; j < end; j++) {
+            int c = array[j] - '0';
+            if (c < 0 || c > 9) {
+                throw new NumberFormatException("For input string: \"" + getValue(index) + "\"");
+            }
+            value = value * 10 + c;
+        }
+        return value;
+    }
+
+    public void copyTo(Map<String, String> headers) {
+        for (int i = 0; i < headerSize; i++) {
+            headers.put(getName(i), getValue(i));
+        }
+    }
+
+    public int getHeaderLimit() {
+        return headerLimit;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+}
@@ -26,8 +26,13 @@ import com.generallycloud.baseio.component.SocketChannelContext;
 
 public class ServerHttpFuture extends AbstractHttpFuture {
 
-    public ServerHttpFuture(SocketChannel channel, ByteBuf buffer, int headerLimit, int bodyLimit) {
-        super(channel, buffer, bodyLimit, bodyLimit);
+    private static final String   VERSION_HTTP11 = "HTTP/1.1";
+    private static final String[] METHODS        = new String[] { "GET", "POST", "PUT", "DELETE",
+            "HEAD", "OPTIONS", "PATCH" };
+
+    public ServerHttpFuture(SocketChannel channel, ByteBuf buffer, HttpHeaderParser headerParser,
+            int bodyLimit) {
+        super(channel, buffer, headerParser, bodyLimit);
         this.params = new HashMap<>();
     }
 
@@ -82,10 +87,24 @@ public class ServerHttpFuture extends AbstractHttpFuture {
     @Override
     protected void parseFirstLine(String line) {
         int index1 = line.indexOf(' ');
-        this.method = line.substring(0, index1);
+        this.method = getMethod(line, index1);
         int index2 = line.indexOf(' ', index1 + 1);
         this.setRequestURL(line.substring(index1 + 1, index2));
-        this.version = line.substring(index2 + 1);
+        if (line.startsWith(VERSION_HTTP11, index2 + 1)
+                && line.length() == index2 + 1 + VERSION_HTTP11.length()) {
+            this.version = VERSION_HTTP11;
+        } else {
+            this.version = line.substring(index2 + 1);
+        }
+    }
+
+    private String getMethod(String line, int length) {
+        for (String method : METHODS) {
+            if (method.length() == length && line.startsWith(method)) {
+                return method;
+            }
+        }
+        return line.substring(0, length);
     }
 
 }
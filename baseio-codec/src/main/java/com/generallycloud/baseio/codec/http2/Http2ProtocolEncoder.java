@@ -16,23 +16,28 @@
 package com.generallycloud.baseio.codec.http2;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map.Entry;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.buffer.ByteBufAllocator;
+import com.generallycloud.baseio.codec.http2.future.Http2DataFrameImpl;
 import com.generallycloud.baseio.codec.http2.future.Http2Frame;
 import com.generallycloud.baseio.codec.http2.future.Http2FrameType;
+import com.generallycloud.baseio.codec.http2.future.Http2GoAwayFrame;
+import com.generallycloud.baseio.codec.http2.future.Http2Header;
 import com.generallycloud.baseio.codec.http2.future.Http2HeadersFrame;
+import com.generallycloud.baseio.codec.http2.future.Http2HeadersFrameImpl;
+import com.generallycloud.baseio.codec.http2.future.Http2PingFrame;
+import com.generallycloud.baseio.codec.http2.future.Http2RstStreamFrame;
 import com.generallycloud.baseio.codec.http2.future.Http2SettingsFrame;
-import com.generallycloud.baseio.codec.http2.hpack.DefaultHttp2HeadersEncoder;
-import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersEncoder;
-import com.generallycloud.baseio.common.MathUtil;
+import com.generallycloud.baseio.codec.http2.future.Http2WindowUpdateFrame;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.ProtocolEncoder;
 
 public class Http2ProtocolEncoder implements ProtocolEncoder {
 
-    private Http2HeadersEncoder http2HeadersEncoder = new DefaultHttp2HeadersEncoder();
-
     @Override
     public void encode(ByteBufAllocator allocator, ChannelFuture future) throws IOException {
 
@@ -40,85 +45,205 @@ public class Http2ProtocolEncoder implements ProtocolEncoder {
 
         Http2FrameType frameType = frame.getHttp2FrameType();
 
-        byte[] payload = null;
+        ByteBuf buf;
 
         switch (frameType) {
-            case FRAME_TYPE_CONTINUATION:
-
-                break;
             case FRAME_TYPE_DATA:
 
-                break;
-            case FRAME_TYPE_FRAME_HEADER:
+                ByteBuffer data = ((Http2DataFrameImpl) frame).getData();
+
+                int length = data == null ? 0 : data.remaining();
+
+                buf = allocate(allocator, frame, length);
+
+                if (length > 0) {
+                    // data可能是只读或direct的buffer，不能直接访问array
+                    byte[] array = new byte[length];
+                    data.duplicate().get(array);
+                    buf.put(array, 0, length);
+                }
 
                 break;
             case FRAME_TYPE_GOAWAY:
 
-                break;
-            case FRAME_TYPE_HEADERS:
+                Http2GoAwayFrame gf = (Http2GoAwayFrame) frame;
 
-                Http2HeadersFrame hf = (Http2HeadersFrame) frame;
+                buf = allocate(allocator, frame, 8);
 
-                //			http2HeadersEncoder.encodeHeaders(headers, buffer);
+                buf.putInt(gf.getLastStreamIdentifier());
+                buf.putUnsignedInt(gf.getErrorCode());
 
                 break;
+            case FRAME_TYPE_HEADERS:
+
+                encodeHeaders(allocator, (Http2HeadersFrameImpl) frame);
+
+                return;
             case FRAME_TYPE_PING:
 
-                break;
-            case FRAME_TYPE_PREFACE:
-                break;
-            case FRAME_TYPE_PRIORITY:
+                buf = allocate(allocator, frame, 8);
 
-                break;
-            case FRAME_TYPE_PUSH_PROMISE:
+                buf.putLong(((Http2PingFrame) frame).getData());
 
                 break;
             case FRAME_TYPE_RST_STREAM:
 
+                buf = allocate(allocator, frame, 4);
+
+                buf.putUnsignedInt(((Http2RstStreamFrame) frame).getErrorCode());
+
                 break;
             case FRAME_TYPE_SETTINGS:
 
                 Http2SettingsFrame sf = (Http2SettingsFrame) frame;
 
+                if (sf.isAck()) {
+                    buf = allocate(allocator, frame, 0);
+                    break;
+                }
+
                 long[] settings = sf.getSettings();
 
-                payload = new byte[6 * 6];
+                int count = 0;
+                for (int i = 1; i < settings.length; i++) {
+                    if (settings[i] != 0) {
+                        count++;
+                    }
+                }
+
+                buf = allocate(allocator, frame, count * 6);
 
-                for (int i = 0; i < 6; i++) {
-                    int realI = i + 1;
-                    int offset = i * 6;
-                    MathUtil.unsignedShort2Byte(payload, realI, offset);
-                    MathUtil.unsignedInt2Byte(payload, settings[realI], offset + 2);
+                for (int i = 1; i < settings.length; i++) {
+                    if (settings[i] != 0) {
+                        buf.putUnsignedShort(i);
+                        buf.putUnsignedInt(settings[i]);
+                    }
                 }
 
                 break;
             case FRAME_TYPE_WINDOW_UPDATE:
 
+                buf = allocate(allocator, frame, 4);
+
+                buf.putInt(((Http2WindowUpdateFrame) frame).getUpdateValue());
+
                 break;
             default:
-                break;
+                throw new IOException("unsupported frame: " + frameType);
         }
 
-        int length = payload.length;
+        future.setByteBuf(buf.flip());
+    }
+
+    private ByteBuf allocate(ByteBufAllocator allocator, Http2Frame frame, int length) {
 
         ByteBuf buf = allocator.allocate(length + Http2ProtocolDecoder.PROTOCOL_HEADER);
 
-        byte b2 = (byte) ((length & 0xff));
-        byte b1 = (byte) ((length >> 8 * 1) & 0xff);
-        byte b0 = (byte) ((length >> 8 * 2) & 0xff);
-        byte b3 = frameType.getByteValue();
+        writeFrameHeader(buf, frame, length);
 
-        buf.putByte(b0);
-        buf.putByte(b1);
-        buf.putByte(b2);
-        buf.putByte(b3);
-        buf.putByte((byte) 0);
+        return buf;
+    }
+
+    private void writeFrameHeader(ByteBuf buf, Http2Frame frame, int length) {
 
+        buf.putByte((byte) ((length >> 8 * 2) & 0xff));
+        buf.putByte((byte) ((length >> 8 * 1) & 0xff));
+        buf.putByte((byte) ((length & 0xff)));
+        buf.putByte(frame.getHttp2FrameType().getByteValue());
+        buf.putByte(frame.getHeader().getFlags());
         buf.putInt(frame.getHeader().getStreamIdentifier());
+    }
 
-        buf.put(payload);
+    private void encodeHeaders(ByteBufAllocator allocator, Http2HeadersFrameImpl frame)
+            throws IOException {
 
-        future.setByteBuf(buf.flip());
+        Http2Headers headers = frame.getHeaders();
+
+        // 按未压缩的大小估算，HPACK编码后不会超过该长度
+        int capacity = Http2ProtocolDecoder.PROTOCOL_HEADER + 16;
+        for (Entry<String, String> header : headers) {
+            capacity += Http2Header.octetLength(header.getKey())
+                    + Http2Header.octetLength(header.getValue()) + 10;
+        }
+
+        ByteBuf buf = allocator.allocate(capacity);
+
+        buf.position(Http2ProtocolDecoder.PROTOCOL_HEADER);
+
+        Http2SocketSession session = frame.getSession();
+
+        session.encodeHeaders(buf, headers);
+
+        int length = buf.position() - Http2ProtocolDecoder.PROTOCOL_HEADER;
+
+        int maxFrameSize = (int) session.getSettings(Http2SettingsFrame.SETTINGS_MAX_FRAME_SIZE);
+
+        if (length > maxFrameSize) {
+            frame.setByteBuf(splitHeaders(allocator, frame, buf, length, maxFrameSize));
+            buf.release();
+            return;
+        }
+
+        buf.position(0);
+
+        writeFrameHeader(buf, frame, length);
+
+        buf.position(length + Http2ProtocolDecoder.PROTOCOL_HEADER);
+
+        frame.setByteBuf(buf.flip());
+    }
+
+    /**
+     * header块超过对端的帧大小上限时拆分为HEADERS和若干CONTINUATION帧，
+     * 这些帧在同一个buf中写出，中间不会插入其它帧
+     */
+    private ByteBuf splitHeaders(ByteBufAllocator allocator, Http2HeadersFrameImpl frame,
+            ByteBuf block, int length, int maxFrameSize) {
+
+        int frames = (length + maxFrameSize - 1) / maxFrameSize;
+
+        int streamIdentifier = frame.getHeader().getStreamIdentifier();
+
+        byte flags = frame.getHeader().getFlags();
+
+        ByteBuf buf = allocator.allocate(length + frames * Http2ProtocolDecoder.PROTOCOL_HEADER);
+
+        byte[] array = new byte[Math.min(length, maxFrameSize)];
+
+        block.position(Http2ProtocolDecoder.PROTOCOL_HEADER);
+
+        for (int i = 0; i < frames; i++) {
+
+            int size = Math.min(maxFrameSize, length - i * maxFrameSize);
+
+            boolean last = i == frames - 1;
+
+            byte type;
+            byte f;
+            if (i == 0) {
+                type = Http2FrameType.FRAME_TYPE_HEADERS.getByteValue();
+                // END_STREAM保留在HEADERS帧上，END_HEADERS移到最后一帧
+                f = (byte) (flags & ~Http2HeadersFrame.FLAG_END_HEADERS);
+            } else {
+                type = Http2FrameType.FRAME_TYPE_CONTINUATION.getByteValue();
+                f = 0;
+            }
+            if (last) {
+                f |= Http2HeadersFrame.FLAG_END_HEADERS;
+            }
+
+            buf.putByte((byte) ((size >> 8 * 2) & 0xff));
+            buf.putByte((byte) ((size >> 8 * 1) & 0xff));
+            buf.putByte((byte) ((size & 0xff)));
+            buf.putByte(type);
+            buf.putByte(f);
+            buf.putInt(streamIdentifier);
+
+            block.get(array, 0, size);
+            buf.put(array, 0, size);
+        }
+
+        return buf.flip();
     }
 
 }
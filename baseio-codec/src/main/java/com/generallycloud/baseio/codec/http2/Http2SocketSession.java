@@ -15,6 +15,12 @@
  */
 package com.generallycloud.baseio.codec.http2;
 
+import java.io.IOException;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http2.future.Http2FrameType;
+import com.generallycloud.baseio.codec.http2.hpack.Decoder;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
 import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
 import com.generallycloud.baseio.component.SocketSession;
 
@@ -24,12 +30,73 @@ public interface Http2SocketSession extends SocketSession {
 
     public abstract long[] getSettings();
 
-    public abstract void setSettings(int key, long value);
+    public abstract void setSettings(int key, long value) throws IOException;
 
     public abstract boolean isPrefaceRead();
 
-    public abstract Http2Headers getHttp2Headers();
+    /**
+     * 该连接的HPACK解码器，只在读线程中使用
+     */
+    public abstract Decoder getHpackDecoder();
+
+    /**
+     * 使用该连接的HPACK编码器编码header块，调用方需保证编码顺序与写出顺序一致
+     */
+    public abstract void encodeHeaders(ByteBuf out, Http2Headers headers) throws IOException;
 
     public abstract void setPrefaceRead(boolean prefaceRead);
 
+    public abstract Http2Stream getStream(int streamIdentifier);
+
+    /**
+     * 写出响应头，endStream为true时该流在本端关闭。
+     * 该流还有数据未写出时，header块作为trailers在数据之后写出，此时endStream必须为true
+     */
+    public abstract void writeHeaders(Http2Stream stream, Http2Headers headers, boolean endStream)
+            throws IOException;
+
+    public abstract void writeData(Http2Stream stream, byte[] data, boolean endStream)
+            throws IOException;
+
+    /**
+     * 写出响应体，超出流控窗口的部分在对端发送WINDOW_UPDATE后写出，
+     * 多个流的数据按帧轮流写出。写出完成前请勿修改data
+     */
+    public abstract void writeData(Http2Stream stream, byte[] data, int offset, int length,
+            boolean endStream) throws IOException;
+
+    public abstract void resetStream(int streamIdentifier, Http2Error error);
+
+    public abstract void goAway(Http2Error error);
+
+    // 以下方法由读线程在解码帧时调用
+
+    public abstract void checkFrame(Http2FrameType frameType, int streamIdentifier, int length)
+            throws IOException;
+
+    public abstract void onPrefaceRead();
+
+    public abstract void onSettingsRead() throws IOException;
+
+    public abstract Http2Stream onHeadersRead(int streamIdentifier, Http2Headers headers,
+            boolean endStream) throws IOException;
+
+    public abstract void onHeaderBlockFragment(int streamIdentifier, ByteBuf buf,
+            boolean endStream) throws IOException;
+
+    public abstract Http2Stream onContinuationRead(int streamIdentifier, ByteBuf buf,
+            boolean endHeaders) throws IOException;
+
+    public abstract Http2Stream onDataRead(int streamIdentifier, ByteBuf buf,
+            int flowControlledLength, boolean endStream) throws IOException;
+
+    public abstract void onRstStreamRead(int streamIdentifier, long errorCode) throws IOException;
+
+    public abstract void onGoAwayRead(int lastStreamIdentifier, long errorCode);
+
+    public abstract void onPingRead(long data, boolean ack);
+
+    public abstract void onWindowUpdateRead(int streamIdentifier, int increment)
+            throws IOException;
+
 }
@@ -15,41 +15,192 @@
  */
 package com.generallycloud.baseio.codec.http2;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.codec.http2.future.Http2DataFrameImpl;
+import com.generallycloud.baseio.codec.http2.future.Http2FrameType;
+import com.generallycloud.baseio.codec.http2.future.Http2GoAwayFrameImpl;
+import com.generallycloud.baseio.codec.http2.future.Http2HeadersFrame;
+import com.generallycloud.baseio.codec.http2.future.Http2HeadersFrameImpl;
+import com.generallycloud.baseio.codec.http2.future.Http2PingFrameImpl;
+import com.generallycloud.baseio.codec.http2.future.Http2RstStreamFrameImpl;
+import com.generallycloud.baseio.codec.http2.future.Http2SettingsFrame;
+import com.generallycloud.baseio.codec.http2.future.Http2SettingsFrameImpl;
+import com.generallycloud.baseio.codec.http2.future.Http2WindowUpdateFrameImpl;
+import com.generallycloud.baseio.codec.http2.hpack.Decoder;
+import com.generallycloud.baseio.codec.http2.hpack.Encoder;
+import com.generallycloud.baseio.codec.http2.hpack.Http2CodecUtil;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
 import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
+import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersEncoder;
 import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersImpl;
+import com.generallycloud.baseio.collection.IntObjectHashMap;
+import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.component.ByteArrayBuffer;
 import com.generallycloud.baseio.component.SocketChannel;
 import com.generallycloud.baseio.component.UnsafeSocketSessionImpl;
+import com.generallycloud.baseio.protocol.Future;
 
 public class Http2SocketSessionImpl extends UnsafeSocketSessionImpl implements Http2SocketSession {
 
+    // 本端同时处理的流的上限
+    public static final int                MAX_CONCURRENT_STREAMS = 128;
+
+    // 本端接收的帧和header块的上限
+    public static final int                MAX_FRAME_SIZE         = Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+
+    public static final int                MAX_HEADER_BLOCK_SIZE  = 1024 * 64;
+
+    // 单个流缓存的请求体上限，以及整个连接上未读完的请求体缓存上限，
+    // 超出时重置该流，避免提前归还窗口后对端无限制地写入
+    public static final int                MAX_STREAM_BODY_SIZE   = 1024 * 1024 * 4;
+
+    public static final int                MAX_BUFFERED_BODY_SIZE = 1024 * 1024 * 16;
+
+    // 本端通告给对端的设置，写出时只写出非0的项
+    private static final long[]            LOCAL_SETTINGS         = new long[] { 0, 4096, 0,
+            MAX_CONCURRENT_STREAMS, Http2CodecUtil.DEFAULT_WINDOW_SIZE, MAX_FRAME_SIZE, 0 };
+
     public Http2SocketSessionImpl(SocketChannel channel) {
         super(channel);
     }
 
-    private boolean      prefaceRead  = true;
-
-    private long[]       settings     = new long[] { 0, 4096, 1, 128, 65535, 16384, 0 };
-
-    private Http2Headers http2Headers = new Http2HeadersImpl();
+    private boolean                        prefaceRead            = true;
+    private Decoder                        decoder                = new Decoder();
+    private Encoder                        encoder                = new Encoder();
+    // 对端通知的header table大小，在下一个header块开始时通知对端
+    private long                           pendingHeaderTableSize = -1;
+    // 以下字段在streamLock中访问
+    private ReentrantLock                  streamLock             = new ReentrantLock();
+    private long[]                         settings               = new long[] { 0, 4096, 1,
+            128, 65535, 16384, 0 };
+    private IntObjectHashMap<Http2Stream> streams                = new IntObjectHashMap<>();
+    // 有数据待写出的流，每个流每轮写出一帧
+    private LinkedList<Http2Stream>        writeQueue             = new LinkedList<>();
+    private int                            lastStreamIdentifier;
+    private int                            connectionSendWindow   = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    private int                            connectionRecvWindow   = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    // 尚未收到END_STREAM的流已缓存的请求体字节数
+    private int                            bufferedBodyLength;
+    private boolean                        goAway;
+    // 以下字段只在读线程中访问
+    private int                            continuationStreamIdentifier;
+    private boolean                        continuationEndStream;
+    private ByteArrayBuffer                headerBlock;
 
     @Override
     public long getSettings(int i) {
-        return settings[i];
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            return settings[i];
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public void setSettings(int key, long value) {
-        settings[key] = value;
+    public void setSettings(int key, long value) throws IOException {
+        if (key < 1 || key > Http2SettingsFrame.SETTINGS_MAX_HEADER_LIST_SIZE) {
+            // 忽略未知的设置
+            return;
+        }
+        if (key == Http2SettingsFrame.SETTINGS_INITIAL_WINDOW_SIZE) {
+            if (value > Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE) {
+                throw Http2Exception.connectionError(Http2Error.FLOW_CONTROL_ERROR,
+                        "initial window size: %d", value);
+            }
+        } else if (key == Http2SettingsFrame.SETTINGS_MAX_FRAME_SIZE) {
+            if (!Http2CodecUtil.isMaxFrameSizeValid((int) value)) {
+                throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                        "max frame size: %d", value);
+            }
+        }
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            if (key == Http2SettingsFrame.SETTINGS_INITIAL_WINDOW_SIZE) {
+                updateInitialWindowSize((int) value);
+            }
+            settings[key] = value;
+        } finally {
+            lock.unlock();
+        }
+        if (key == Http2SettingsFrame.SETTINGS_HEADER_TABLE_SIZE) {
+            // 对端的header table大小只约束本端编码器，解码器使用本端通告的默认值
+            synchronized (encoder) {
+                pendingHeaderTableSize = Math.min(value, Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE);
+            }
+        }
+    }
+
+    /**
+     * 在streamLock中调用
+     */
+    private void updateInitialWindowSize(int value) {
+        int delta = value - (int) settings[Http2SettingsFrame.SETTINGS_INITIAL_WINDOW_SIZE];
+        // 初始窗口的变化作用于所有已打开的流，窗口可能因此变为负数
+        for (Http2Stream stream : streams.values()) {
+            stream.setSendWindow(stream.getSendWindow() + delta);
+            scheduleWrite(stream);
+        }
     }
 
+    /**
+     * @return 当前设置的副本
+     */
     @Override
     public long[] getSettings() {
-        return settings;
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            return settings.clone();
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public Http2Headers getHttp2Headers() {
-        return http2Headers;
+    public Decoder getHpackDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public void encodeHeaders(ByteBuf out, Http2Headers headers) throws IOException {
+        synchronized (encoder) {
+            if (pendingHeaderTableSize != -1) {
+                encoder.setMaxHeaderTableSize(out, pendingHeaderTableSize);
+                pendingHeaderTableSize = -1;
+            }
+            encoder.encodeHeaders(out, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+        }
+    }
+
+    @Override
+    public void flush(Future future) {
+        if (future instanceof Http2HeadersFrame) {
+            // HPACK编码会修改动态表，编码和入队需要在同一个锁内完成，
+            // 保证对端按编码的顺序解码，编码时会在streamLock中读取设置，
+            // 这里先获取streamLock，保持streamLock在encoder之前的加锁顺序
+            ReentrantLock lock = this.streamLock;
+            lock.lock();
+            try {
+                synchronized (encoder) {
+                    super.flush(future);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        super.flush(future);
     }
 
     @Override
@@ -62,4 +213,508 @@ public class Http2SocketSessionImpl extends UnsafeSocketSessionImpl implements H
         this.prefaceRead = prefaceRead;
     }
 
+    @Override
+    public Http2Stream getStream(int streamIdentifier) {
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            return streams.get(streamIdentifier);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeHeaders(Http2Stream stream, Http2Headers headers, boolean endStream)
+            throws IOException {
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            checkWritable(stream);
+            if (!stream.getPendingData().isEmpty()) {
+                // 还有数据未写出，header块只能作为trailers排在数据之后
+                if (!endStream) {
+                    throw Http2Exception.streamError(stream.getStreamIdentifier(),
+                            Http2Error.INTERNAL_ERROR, "HEADERS after DATA without END_STREAM");
+                }
+                stream.setPendingHeaders(headers);
+                stream.setPendingEndStream(true);
+                return;
+            }
+            if (endStream) {
+                localClose(stream);
+            }
+            // 在锁内写出，避免与之后写入的DATA帧乱序
+            flush(new Http2HeadersFrameImpl(this, stream.getStreamIdentifier(), headers,
+                    endStream));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeData(Http2Stream stream, byte[] data, boolean endStream) throws IOException {
+        writeData(stream, data, 0, data.length, endStream);
+    }
+
+    @Override
+    public void writeData(Http2Stream stream, byte[] data, int offset, int length,
+            boolean endStream) throws IOException {
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            checkWritable(stream);
+            if (length > 0) {
+                stream.getPendingData().offer(ByteBuffer.wrap(data, offset, length));
+            }
+            if (endStream) {
+                stream.setPendingEndStream(true);
+            }
+            scheduleWrite(stream);
+            flushStreams();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkWritable(Http2Stream stream) throws Http2Exception {
+        if (stream.isReset() || stream.isLocalClosed() || stream.isPendingEndStream()) {
+            throw Http2Exception.streamError(stream.getStreamIdentifier(),
+                    Http2Error.STREAM_CLOSED, "stream closed: %d", stream.getStreamIdentifier());
+        }
+    }
+
+    private void scheduleWrite(Http2Stream stream) {
+        if (stream.isWriteScheduled()) {
+            return;
+        }
+        if (stream.getPendingData().isEmpty() && !stream.isPendingEndStream()) {
+            return;
+        }
+        stream.setWriteScheduled(true);
+        writeQueue.offer(stream);
+    }
+
+    /**
+     * 在streamLock中调用，按流轮流写出DATA帧，直到窗口耗尽或没有待写出的数据，
+     * 单个流不会因为数据量大而阻塞其它流的写出
+     */
+    private void flushStreams() {
+        int maxFrameSize = (int) settings[Http2SettingsFrame.SETTINGS_MAX_FRAME_SIZE];
+        LinkedList<Http2Stream> writeQueue = this.writeQueue;
+        for (;;) {
+            Http2Stream stream = writeQueue.poll();
+            if (stream == null) {
+                return;
+            }
+            LinkedList<ByteBuffer> pendingData = stream.getPendingData();
+            ByteBuffer data = pendingData.peek();
+            if (data == null) {
+                stream.setWriteScheduled(false);
+                localClose(stream);
+                Http2Headers trailers = stream.getPendingHeaders();
+                if (trailers != null) {
+                    stream.setPendingHeaders(null);
+                    flush(new Http2HeadersFrameImpl(this, stream.getStreamIdentifier(),
+                            trailers, true));
+                    continue;
+                }
+                // 只剩END_STREAM，空的DATA帧不受流控限制
+                flush(new Http2DataFrameImpl(getContext(), stream.getStreamIdentifier(),
+                        null, true));
+                continue;
+            }
+            int length = Math.min(data.remaining(), maxFrameSize);
+            length = Math.min(length, connectionSendWindow);
+            length = Math.min(length, stream.getSendWindow());
+            if (length <= 0) {
+                if (connectionSendWindow <= 0) {
+                    // 等待连接级别的WINDOW_UPDATE
+                    writeQueue.addFirst(stream);
+                    return;
+                }
+                // 等待该流的WINDOW_UPDATE
+                stream.setWriteScheduled(false);
+                continue;
+            }
+            ByteBuffer slice = data.duplicate();
+            slice.limit(slice.position() + length);
+            data.position(data.position() + length);
+            if (!data.hasRemaining()) {
+                pendingData.poll();
+            }
+            connectionSendWindow -= length;
+            stream.setSendWindow(stream.getSendWindow() - length);
+            boolean endStream = pendingData.isEmpty() && stream.isPendingEndStream()
+                    && stream.getPendingHeaders() == null;
+            if (endStream) {
+                localClose(stream);
+            }
+            flush(new Http2DataFrameImpl(getContext(), stream.getStreamIdentifier(), slice,
+                    endStream));
+            if (pendingData.isEmpty() && stream.getPendingHeaders() == null) {
+                stream.setWriteScheduled(false);
+            } else {
+                writeQueue.offer(stream);
+            }
+        }
+    }
+
+    private void localClose(Http2Stream stream) {
+        stream.setLocalClosed(true);
+        if (stream.isRemoteClosed()) {
+            removeStream(stream);
+        }
+    }
+
+    private void removeStream(Http2Stream stream) {
+        streams.remove(stream.getStreamIdentifier());
+    }
+
+    @Override
+    public void resetStream(int streamIdentifier, Http2Error error) {
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            Http2Stream stream = streams.get(streamIdentifier);
+            if (stream != null) {
+                reset(stream);
+            }
+        } finally {
+            lock.unlock();
+        }
+        flush(new Http2RstStreamFrameImpl(getContext(), streamIdentifier, error.code()));
+    }
+
+    private void reset(Http2Stream stream) {
+        stream.setReset(true);
+        stream.getPendingData().clear();
+        stream.setPendingHeaders(null);
+        if (!stream.isRemoteClosed()) {
+            bufferedBodyLength -= stream.getDataLength();
+        }
+        stream.releaseData();
+        if (stream.isWriteScheduled()) {
+            stream.setWriteScheduled(false);
+            writeQueue.remove(stream);
+        }
+        removeStream(stream);
+    }
+
+    @Override
+    public void goAway(Http2Error error) {
+        int lastStreamIdentifier;
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            this.goAway = true;
+            lastStreamIdentifier = this.lastStreamIdentifier;
+        } finally {
+            lock.unlock();
+        }
+        flush(new Http2GoAwayFrameImpl(getContext(), lastStreamIdentifier, error.code()));
+    }
+
+    @Override
+    public void checkFrame(Http2FrameType frameType, int streamIdentifier, int length)
+            throws IOException {
+        if (length > MAX_FRAME_SIZE) {
+            throw Http2Exception.connectionError(Http2Error.FRAME_SIZE_ERROR,
+                    "frame size: %d", length);
+        }
+        if (continuationStreamIdentifier != 0
+                && (frameType != Http2FrameType.FRAME_TYPE_CONTINUATION
+                        || streamIdentifier != continuationStreamIdentifier)) {
+            throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                    "expected CONTINUATION of stream: %d", continuationStreamIdentifier);
+        }
+        if (frameType == null) {
+            return;
+        }
+        switch (frameType) {
+            case FRAME_TYPE_DATA:
+            case FRAME_TYPE_HEADERS:
+            case FRAME_TYPE_PRIORITY:
+            case FRAME_TYPE_RST_STREAM:
+            case FRAME_TYPE_CONTINUATION:
+                if (streamIdentifier == 0) {
+                    throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                            "%s on stream 0", frameType);
+                }
+                break;
+            case FRAME_TYPE_SETTINGS:
+            case FRAME_TYPE_PING:
+            case FRAME_TYPE_GOAWAY:
+                if (streamIdentifier != 0) {
+                    throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                            "%s on stream %d", frameType, streamIdentifier);
+                }
+                break;
+            case FRAME_TYPE_PUSH_PROMISE:
+                // 客户端不能推送
+                throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                        "PUSH_PROMISE from client");
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onPrefaceRead() {
+        // 服务端的preface是一个SETTINGS帧
+        flush(new Http2SettingsFrameImpl(getContext(), LOCAL_SETTINGS, false));
+    }
+
+    @Override
+    public void onSettingsRead() throws IOException {
+        flush(new Http2SettingsFrameImpl(getContext(), null, true));
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            flushStreams();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Http2Stream onHeadersRead(int streamIdentifier, Http2Headers headers,
+            boolean endStream) throws IOException {
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            Http2Stream stream = streams.get(streamIdentifier);
+            if (stream == null) {
+                if ((streamIdentifier & 1) == 0) {
+                    throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                            "illegal stream: %d", streamIdentifier);
+                }
+                if (streamIdentifier <= lastStreamIdentifier) {
+                    throw Http2Exception.connectionError(Http2Error.STREAM_CLOSED,
+                            "stream closed: %d", streamIdentifier);
+                }
+                lastStreamIdentifier = streamIdentifier;
+                if (goAway) {
+                    // GOAWAY之后不再接受新的流
+                    return null;
+                }
+                if (streams.size() >= MAX_CONCURRENT_STREAMS) {
+                    throw Http2Exception.streamError(streamIdentifier,
+                            Http2Error.REFUSED_STREAM, "too many streams");
+                }
+                int sendWindow = (int) settings[Http2SettingsFrame.SETTINGS_INITIAL_WINDOW_SIZE];
+                stream = new Http2Stream(streamIdentifier, sendWindow,
+                        Http2CodecUtil.DEFAULT_WINDOW_SIZE);
+                stream.setHeaders(headers);
+                streams.put(streamIdentifier, stream);
+            } else {
+                if (stream.isRemoteClosed()) {
+                    throw Http2Exception.streamError(streamIdentifier, Http2Error.STREAM_CLOSED,
+                            "stream closed: %d", streamIdentifier);
+                }
+                if (!endStream) {
+                    throw Http2Exception.streamError(streamIdentifier,
+                            Http2Error.PROTOCOL_ERROR, "trailers without END_STREAM");
+                }
+                // trailers
+                for (Entry<String, String> header : headers) {
+                    stream.getHeaders().add(header.getKey(), header.getValue());
+                }
+            }
+            if (endStream) {
+                stream.setRemoteClosed(true);
+                if (stream.isLocalClosed()) {
+                    removeStream(stream);
+                }
+            }
+            return stream;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onHeaderBlockFragment(int streamIdentifier, ByteBuf buf, boolean endStream)
+            throws IOException {
+        if (headerBlock == null) {
+            headerBlock = new ByteArrayBuffer(buf.remaining() * 2);
+        }
+        headerBlock.reset();
+        appendHeaderBlock(buf);
+        continuationStreamIdentifier = streamIdentifier;
+        continuationEndStream = endStream;
+    }
+
+    private void appendHeaderBlock(ByteBuf buf) throws IOException {
+        int length = buf.remaining();
+        if (headerBlock.size() + length > MAX_HEADER_BLOCK_SIZE) {
+            throw Http2Exception.connectionError(Http2Error.ENHANCE_YOUR_CALM,
+                    "header block too large");
+        }
+        byte[] array = new byte[length];
+        buf.get(array);
+        headerBlock.write(array, 0, length);
+    }
+
+    @Override
+    public Http2Stream onContinuationRead(int streamIdentifier, ByteBuf buf, boolean endHeaders)
+            throws IOException {
+        appendHeaderBlock(buf);
+        if (!endHeaders) {
+            return null;
+        }
+        continuationStreamIdentifier = 0;
+        ByteBuf block = UnpooledByteBufAllocator.getHeapInstance().wrap(headerBlock.array(), 0,
+                headerBlock.size());
+        Http2Headers headers = new Http2HeadersImpl();
+        decoder.decode(streamIdentifier, block, headers);
+        return onHeadersRead(streamIdentifier, headers, continuationEndStream);
+    }
+
+    @Override
+    public Http2Stream onDataRead(int streamIdentifier, ByteBuf buf, int flowControlledLength,
+            boolean endStream) throws IOException {
+        int connectionIncrement = 0;
+        int streamIncrement = 0;
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            connectionRecvWindow -= flowControlledLength;
+            if (connectionRecvWindow < 0) {
+                throw Http2Exception.connectionError(Http2Error.FLOW_CONTROL_ERROR,
+                        "connection window exceeded");
+            }
+            // 请求体读入内存后即归还窗口，缓存的总量由MAX_BUFFERED_BODY_SIZE限制
+            if (connectionRecvWindow <= Http2CodecUtil.DEFAULT_WINDOW_SIZE / 2) {
+                connectionIncrement = Http2CodecUtil.DEFAULT_WINDOW_SIZE - connectionRecvWindow;
+                connectionRecvWindow = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+            }
+            Http2Stream stream = streams.get(streamIdentifier);
+            if (stream == null || stream.isRemoteClosed()) {
+                if (streamIdentifier > lastStreamIdentifier) {
+                    throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                            "DATA on idle stream: %d", streamIdentifier);
+                }
+                throw Http2Exception.streamError(streamIdentifier, Http2Error.STREAM_CLOSED,
+                        "stream closed: %d", streamIdentifier);
+            }
+            int recvWindow = stream.getRecvWindow() - flowControlledLength;
+            if (recvWindow < 0) {
+                throw Http2Exception.streamError(streamIdentifier,
+                        Http2Error.FLOW_CONTROL_ERROR, "stream window exceeded");
+            }
+            if (buf.hasRemaining()) {
+                int length = buf.remaining();
+                if (stream.getDataLength() + length > MAX_STREAM_BODY_SIZE
+                        || bufferedBodyLength + length > MAX_BUFFERED_BODY_SIZE) {
+                    // 由读线程重置该流，重置时释放该流已缓存的数据
+                    throw Http2Exception.streamError(streamIdentifier,
+                            Http2Error.ENHANCE_YOUR_CALM, "request body too large");
+                }
+                byte[] array = new byte[length];
+                buf.get(array);
+                stream.appendData(array, 0, length);
+                bufferedBodyLength += length;
+            }
+            if (endStream) {
+                // 请求体完整后交给应用，不再计入连接的缓存
+                bufferedBodyLength -= stream.getDataLength();
+                stream.setRemoteClosed(true);
+                if (stream.isLocalClosed()) {
+                    removeStream(stream);
+                }
+            } else if (recvWindow <= Http2CodecUtil.DEFAULT_WINDOW_SIZE / 2) {
+                streamIncrement = Http2CodecUtil.DEFAULT_WINDOW_SIZE - recvWindow;
+                recvWindow = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+            }
+            stream.setRecvWindow(recvWindow);
+            return stream;
+        } finally {
+            lock.unlock();
+            if (connectionIncrement > 0) {
+                flush(new Http2WindowUpdateFrameImpl(getContext(), 0, connectionIncrement));
+            }
+            if (streamIncrement > 0) {
+                flush(new Http2WindowUpdateFrameImpl(getContext(), streamIdentifier,
+                        streamIncrement));
+            }
+        }
+    }
+
+    @Override
+    public void onRstStreamRead(int streamIdentifier, long errorCode) throws IOException {
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            if (streamIdentifier > lastStreamIdentifier) {
+                throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                        "RST_STREAM on idle stream: %d", streamIdentifier);
+            }
+            Http2Stream stream = streams.get(streamIdentifier);
+            if (stream != null) {
+                reset(stream);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onGoAwayRead(int lastStreamIdentifier, long errorCode) {
+        boolean idle;
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            // 已打开的流继续处理，由对端在流结束后关闭连接
+            this.goAway = true;
+            idle = streams.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+        if (idle) {
+            CloseUtil.close(this);
+        }
+    }
+
+    @Override
+    public void onPingRead(long data, boolean ack) {
+        if (!ack) {
+            flush(new Http2PingFrameImpl(getContext(), data, true));
+        }
+    }
+
+    @Override
+    public void onWindowUpdateRead(int streamIdentifier, int increment) throws IOException {
+        if (increment == 0) {
+            throw Http2Exception.streamError(streamIdentifier, Http2Error.PROTOCOL_ERROR,
+                    "window increment 0");
+        }
+        ReentrantLock lock = this.streamLock;
+        lock.lock();
+        try {
+            if (streamIdentifier == 0) {
+                if ((long) connectionSendWindow + increment > Integer.MAX_VALUE) {
+                    throw Http2Exception.connectionError(Http2Error.FLOW_CONTROL_ERROR,
+                            "connection window overflow");
+                }
+                connectionSendWindow += increment;
+            } else {
+                Http2Stream stream = streams.get(streamIdentifier);
+                if (stream == null) {
+                    // 已关闭的流可能仍会收到WINDOW_UPDATE
+                    return;
+                }
+                if ((long) stream.getSendWindow() + increment > Integer.MAX_VALUE) {
+                    throw Http2Exception.streamError(streamIdentifier,
+                            Http2Error.FLOW_CONTROL_ERROR, "stream window overflow");
+                }
+                stream.setSendWindow(stream.getSendWindow() + increment);
+                scheduleWrite(stream);
+            }
+            flushStreams();
+        } finally {
+            lock.unlock();
+        }
+    }
+
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.http2;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+
+import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
+import com.generallycloud.baseio.component.ByteArrayBuffer;
+
+/**
+ * 一个HTTP/2流的状态，由所属的{@link Http2SocketSession}维护，
+ * 除请求头和请求体外的字段都在session的流锁内访问
+ */
+public class Http2Stream {
+
+    private int                    streamIdentifier;
+
+    private Http2Headers           headers;
+
+    private ByteArrayBuffer        data;
+
+    // 对端已发送END_STREAM
+    private boolean                remoteClosed;
+
+    // 本端已发送END_STREAM
+    private boolean                localClosed;
+
+    private boolean                reset;
+
+    // 本端可以向对端发送的字节数
+    private int                    sendWindow;
+
+    // 对端还可以向本端发送的字节数
+    private int                    recvWindow;
+
+    // 受流控限制暂未写出的数据
+    private LinkedList<ByteBuffer> pendingData = new LinkedList<>();
+
+    private boolean                pendingEndStream;
+
+    // 排在待写出数据之后的header块(trailers)
+    private Http2Headers           pendingHeaders;
+
+    // 是否在session的待写队列中
+    private boolean                writeScheduled;
+
+    public Http2Stream(int streamIdentifier, int sendWindow, int recvWindow) {
+        this.streamIdentifier = streamIdentifier;
+        this.sendWindow = sendWindow;
+        this.recvWindow = recvWindow;
+    }
+
+    public int getStreamIdentifier() {
+        return streamIdentifier;
+    }
+
+    public Http2Headers getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Http2Headers headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * 请求体，没有请求体时返回null
+     */
+    public byte[] getData() {
+        if (data == null) {
+            return null;
+        }
+        byte[] array = new byte[data.size()];
+        System.arraycopy(data.array(), 0, array, 0, array.length);
+        return array;
+    }
+
+    public int getDataLength() {
+        return data == null ? 0 : data.size();
+    }
+
+    protected void appendData(byte[] bytes, int offset, int length) {
+        if (data == null) {
+            data = new ByteArrayBuffer(length);
+        }
+        data.write(bytes, offset, length);
+    }
+
+    protected void releaseData() {
+        data = null;
+    }
+
+    public boolean isRemoteClosed() {
+        return remoteClosed;
+    }
+
+    protected void setRemoteClosed(boolean remoteClosed) {
+        this.remoteClosed = remoteClosed;
+    }
+
+    public boolean isLocalClosed() {
+        return localClosed;
+    }
+
+    protected void setLocalClosed(boolean localClosed) {
+        this.localClosed = localClosed;
+    }
+
+    public boolean isClosed() {
+        return reset || (remoteClosed && localClosed);
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    protected void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+    protected int getSendWindow() {
+        return sendWindow;
+    }
+
+    protected void setSendWindow(int sendWindow) {
+        this.sendWindow = sendWindow;
+    }
+
+    protected int getRecvWindow() {
+        return recvWindow;
+    }
+
+    protected void setRecvWindow(int recvWindow) {
+        this.recvWindow = recvWindow;
+    }
+
+    protected LinkedList<ByteBuffer> getPendingData() {
+        return pendingData;
+    }
+
+    protected boolean isPendingEndStream() {
+        return pendingEndStream;
+    }
+
+    protected void setPendingEndStream(boolean pendingEndStream) {
+        this.pendingEndStream = pendingEndStream;
+    }
+
+    protected Http2Headers getPendingHeaders() {
+        return pendingHeaders;
+    }
+
+    protected void setPendingHeaders(Http2Headers pendingHeaders) {
+        this.pendingHeaders = pendingHeaders;
+    }
+
+    protected boolean isWriteScheduled() {
+        return writeScheduled;
+    }
+
+    protected void setWriteScheduled(boolean writeScheduled) {
+        this.writeScheduled = writeScheduled;
+    }
+
+    @Override
+    public String toString() {
+        return "Http2Stream(" + streamIdentifier + ")";
+    }
+
+}
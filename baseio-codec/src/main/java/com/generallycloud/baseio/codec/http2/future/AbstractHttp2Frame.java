@@ -16,6 +16,7 @@
 package com.generallycloud.baseio.codec.http2.future;
 
 import com.generallycloud.baseio.component.SocketChannel;
+import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.protocol.AbstractChannelFuture;
 
 public abstract class AbstractHttp2Frame extends AbstractChannelFuture implements SocketHttp2Frame {
@@ -27,6 +28,11 @@ public abstract class AbstractHttp2Frame extends AbstractChannelFuture implement
         this.header = header;
     }
 
+    protected AbstractHttp2Frame(SocketChannelContext context, Http2FrameHeader header) {
+        super(context);
+        this.header = header;
+    }
+
     @Override
     public Http2FrameHeader getHeader() {
         return header;
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.http2.future;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http2.Http2SocketSession;
+import com.generallycloud.baseio.codec.http2.Http2Stream;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
+import com.generallycloud.baseio.component.SocketChannel;
+import com.generallycloud.baseio.component.SocketChannelContext;
+
+public class Http2DataFrameImpl extends AbstractHttp2Frame implements Http2DataFrame {
+
+    private boolean     isComplete;
+
+    private byte        padLength;
+
+    private boolean     endStream;
+
+    private Http2Stream stream;
+
+    private ByteBuffer  data;
+
+    public Http2DataFrameImpl(SocketChannel channel, ByteBuf buf, Http2FrameHeader header) {
+        super(channel, header);
+        this.buf = buf;
+    }
+
+    /**
+     * 用于写出的DATA帧，data为null时写出空的DATA帧
+     */
+    public Http2DataFrameImpl(SocketChannelContext context, int streamIdentifier,
+            ByteBuffer data, boolean endStream) {
+        super(context, new Http2FrameHeaderImpl(context, streamIdentifier,
+                (byte) (endStream ? FLAG_END_STREAM : 0)));
+        this.data = data;
+        this.endStream = endStream;
+        this.isComplete = true;
+    }
+
+    private void doComplete(SocketChannel channel, ByteBuf buf) throws IOException {
+
+        Http2SocketSession session = (Http2SocketSession) channel.getSession();
+
+        byte flags = getHeader().getFlags();
+
+        int length = buf.limit();
+
+        this.endStream = (flags & FLAG_END_STREAM) > 0;
+
+        if ((flags & FLAG_PADDED) > 0) {
+            if (length == 0) {
+                throw Http2Exception.connectionError(Http2Error.FRAME_SIZE_ERROR,
+                        "padded DATA without pad length");
+            }
+            padLength = buf.getByte();
+            int padding = padLength & 0xff;
+            if (padding >= length) {
+                throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                        "pad length: %d", padding);
+            }
+            buf.limit(length - padding);
+        }
+
+        // 填充的字节同样计入流控窗口
+        this.stream = session.onDataRead(getHeader().getStreamIdentifier(), buf, length,
+                endStream);
+    }
+
+    @Override
+    public boolean read(SocketChannel channel, ByteBuf buffer) throws IOException {
+
+        if (!isComplete) {
+
+            ByteBuf buf = this.buf;
+
+            buf.read(buffer);
+
+            if (buf.hasRemaining()) {
+                return false;
+            }
+
+            isComplete = true;
+
+            doComplete(channel, buf.flip());
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isSilent() {
+        return !(endStream && stream != null);
+    }
+
+    @Override
+    public Http2FrameType getHttp2FrameType() {
+        return Http2FrameType.FRAME_TYPE_DATA;
+    }
+
+    @Override
+    public boolean isEndStream() {
+        return endStream;
+    }
+
+    @Override
+    public byte getPadLength() {
+        return padLength;
+    }
+
+    @Override
+    public Http2Stream getStream() {
+        return stream;
+    }
+
+    public ByteBuffer getData() {
+        return data;
+    }
+
+}
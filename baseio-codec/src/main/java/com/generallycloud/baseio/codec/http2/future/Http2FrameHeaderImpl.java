@@ -18,6 +18,9 @@ package com.generallycloud.baseio.codec.http2.future;
 import java.io.IOException;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.codec.http2.Http2SocketSession;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
 import com.generallycloud.baseio.common.MathUtil;
 import com.generallycloud.baseio.common.ReleaseUtil;
 import com.generallycloud.baseio.component.SocketChannel;
@@ -43,7 +46,16 @@ public class Http2FrameHeaderImpl extends AbstractChannelFuture implements Http2
         super(context);
     }
 
-    private void doHeaderComplete(SocketChannel channel, ByteBuf buf) {
+    /**
+     * 用于写出的帧
+     */
+    public Http2FrameHeaderImpl(SocketChannelContext context, int streamIdentifier, byte flags) {
+        super(context);
+        this.streamIdentifier = streamIdentifier;
+        this.flags = flags;
+    }
+
+    private void doHeaderComplete(SocketChannel channel, ByteBuf buf) throws IOException {
 
         byte b0 = buf.getByte();
         byte b1 = buf.getByte();
@@ -57,7 +69,13 @@ public class Http2FrameHeaderImpl extends AbstractChannelFuture implements Http2
 
         this.streamIdentifier = MathUtil.int2int31(buf.getInt());
 
-        this.frame = genFrame(channel, type, length);
+        Http2FrameType frameType = Http2FrameType.getValue(type);
+
+        Http2SocketSession session = (Http2SocketSession) channel.getSession();
+
+        session.checkFrame(frameType, streamIdentifier, length);
+
+        this.frame = genFrame(channel, frameType, length);
     }
 
     @Override
@@ -75,10 +93,32 @@ public class Http2FrameHeaderImpl extends AbstractChannelFuture implements Http2
 
             header_complete = true;
 
-            doHeaderComplete(channel, buf.flip());
+            try {
+                doHeaderComplete(channel, buf.flip());
+            } catch (Http2Exception e) {
+                goAway(channel, e);
+                throw e;
+            }
+        }
+
+        try {
+            return frame.read(channel, buffer);
+        } catch (Http2Exception e) {
+            if (Http2Exception.isStreamError(e)) {
+                // 流级别的错误只重置该流，帧的内容已读取完整，连接可以继续使用
+                Http2SocketSession session = (Http2SocketSession) channel.getSession();
+                session.resetStream(Http2Exception.streamId(e), e.error());
+                return true;
+            }
+            goAway(channel, e);
+            throw e;
         }
+    }
 
-        return frame.read(channel, buffer);
+    private void goAway(SocketChannel channel, Http2Exception e) {
+        // 读线程抛出异常后连接将被关闭，关闭前会尝试写出GOAWAY
+        Http2SocketSession session = (Http2SocketSession) channel.getSession();
+        session.goAway(e.error());
     }
 
     @Override
@@ -112,36 +152,40 @@ public class Http2FrameHeaderImpl extends AbstractChannelFuture implements Http2
         return frame;
     }
 
+    private ByteBuf allocatePayload(SocketChannel channel, int length) {
+        if (length == 0) {
+            // SETTINGS ACK、空的DATA帧等没有payload，不占用内存池
+            return UnpooledByteBufAllocator.getHeapInstance().allocate(0);
+        }
+        return allocate(channel, length);
+    }
+
     private SocketHttp2Frame genFrame(SocketChannel channel, Http2FrameType type, int length) {
 
+        if (type == null) {
+            // 未知类型的帧需要忽略
+            return new Http2SkipFrameImpl(channel, allocatePayload(channel, length), this, null);
+        }
+
         switch (type) {
             case FRAME_TYPE_CONTINUATION:
-
-                break;
+                return new Http2ContinuationFrameImpl(channel, allocatePayload(channel, length), this);
             case FRAME_TYPE_DATA:
-
-                break;
+                return new Http2DataFrameImpl(channel, allocatePayload(channel, length), this);
             case FRAME_TYPE_GOAWAY:
-
-                break;
+                return new Http2GoAwayFrameImpl(channel, allocatePayload(channel, length), this);
             case FRAME_TYPE_HEADERS:
-                return new Http2HeadersFrameImpl(channel, allocate(channel, length), this);
+                return new Http2HeadersFrameImpl(channel, allocatePayload(channel, length), this);
             case FRAME_TYPE_PING:
-
-                break;
+                return new Http2PingFrameImpl(channel, allocatePayload(channel, length), this);
             case FRAME_TYPE_PRIORITY:
-
-                break;
-            case FRAME_TYPE_PUSH_PROMISE:
-
-                break;
+                return new Http2SkipFrameImpl(channel, allocatePayload(channel, length), this, type);
             case FRAME_TYPE_RST_STREAM:
-
-                break;
+                return new Http2RstStreamFrameImpl(channel, allocatePayload(channel, length), this);
             case FRAME_TYPE_SETTINGS:
-                return new Http2SettingsFrameImpl(channel, allocate(channel, length), this);
+                return new Http2SettingsFrameImpl(channel, allocatePayload(channel, length), this);
             case FRAME_TYPE_WINDOW_UPDATE:
-                return new Http2WindowUpdateFrameImpl(channel, allocate(channel, length), this);
+                return new Http2WindowUpdateFrameImpl(channel, allocatePayload(channel, length), this);
             default:
 
                 break;
@@ -149,10 +193,6 @@ public class Http2FrameHeaderImpl extends AbstractChannelFuture implements Http2
         throw new IllegalArgumentException(type.toString());
     }
 
-    private SocketHttp2Frame genFrame(SocketChannel channel, int type, int length) {
-        return genFrame(channel, Http2FrameType.getValue(type), length);
-    }
-
     @Override
     public boolean isReleased() {
         return frame.isReleased() && buf.isReleased();
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.http2.future;
+
+import java.io.IOException;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http2.Http2SocketSession;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
+import com.generallycloud.baseio.common.MathUtil;
+import com.generallycloud.baseio.component.SocketChannel;
+import com.generallycloud.baseio.component.SocketChannelContext;
+
+public class Http2GoAwayFrameImpl extends AbstractHttp2Frame implements Http2GoAwayFrame {
+
+    private boolean isComplete;
+
+    private int     lastStreamIdentifier;
+
+    private long    errorCode;
+
+    public Http2GoAwayFrameImpl(SocketChannel channel, ByteBuf buf, Http2FrameHeader header) {
+        super(channel, header);
+        this.buf = buf;
+    }
+
+    public Http2GoAwayFrameImpl(SocketChannelContext context, int lastStreamIdentifier,
+            long errorCode) {
+        super(context, new Http2FrameHeaderImpl(context, 0, (byte) 0));
+        this.lastStreamIdentifier = lastStreamIdentifier;
+        this.errorCode = errorCode;
+        this.isComplete = true;
+    }
+
+    private void doComplete(SocketChannel channel, ByteBuf buf) throws IOException {
+
+        if (buf.limit() < 8) {
+            throw Http2Exception.connectionError(Http2Error.FRAME_SIZE_ERROR,
+                    "GOAWAY size: %d", buf.limit());
+        }
+
+        Http2SocketSession session = (Http2SocketSession) channel.getSession();
+
+        this.lastStreamIdentifier = MathUtil.int2int31(buf.getInt());
+
+        this.errorCode = buf.getUnsignedInt();
+
+        // 忽略附加的调试数据
+        session.onGoAwayRead(lastStreamIdentifier, errorCode);
+    }
+
+    @Override
+    public boolean read(SocketChannel channel, ByteBuf buffer) throws IOException {
+
+        if (!isComplete) {
+
+            ByteBuf buf = this.buf;
+
+            buf.read(buffer);
+
+            if (buf.hasRemaining()) {
+                return false;
+            }
+
+            isComplete = true;
+
+            doComplete(channel, buf.flip());
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isSilent() {
+        return true;
+    }
+
+    @Override
+    public Http2FrameType getHttp2FrameType() {
+        return Http2FrameType.FRAME_TYPE_GOAWAY;
+    }
+
+    @Override
+    public int getLastStreamIdentifier() {
+        return lastStreamIdentifier;
+    }
+
+    @Override
+    public long getErrorCode() {
+        return errorCode;
+    }
+
+}
@@ -17,6 +17,9 @@ package com.generallycloud.baseio.codec.http2.future;
 
 public class Http2Header {
 
+    // RFC 7541 4.1，每个表项额外计算32字节
+    public static final int HEADER_ENTRY_OVERHEAD = 32;
+
     public Http2Header(String name, String value) {
         this(0, name, value);
     }
@@ -50,6 +53,31 @@ public class Http2Header {
     }
 
     public static int sizeOf(String name, String value) {
-        return name.length() + value.length();
+        return octetLength(name) + octetLength(value) + HEADER_ENTRY_OVERHEAD;
+    }
+
+    /**
+     * header在HPACK中按UTF-8编码，表项大小以编码后的字节数计算(RFC 7541 4.1)
+     */
+    public static int octetLength(String s) {
+        int len = s.length();
+        int octets = len;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                octets += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                // 代理对共4字节，两个char各计2字节
+                octets += 2;
+                i++;
+            } else {
+                octets += 2;
+            }
+        }
+        return octets;
     }
 }
@@ -15,7 +15,9 @@
  */
 package com.generallycloud.baseio.codec.http2.future;
 
-public interface Http2HeadersFrame extends Http2Frame {
+import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
+
+public interface Http2HeadersFrame extends Http2StreamFrame {
 
     public static final int FLAG_END_STREAM  = 0x1;
     public static final int FLAG_END_HEADERS = 0x4;
@@ -29,4 +31,8 @@ public interface Http2HeadersFrame extends Http2Frame {
     public abstract short getWeight();
 
     public byte getPadLength();
+
+    public abstract boolean isEndStream();
+
+    public abstract Http2Headers getHeaders();
 }
@@ -19,40 +19,74 @@ import java.io.IOException;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.codec.http2.Http2SocketSession;
-import com.generallycloud.baseio.codec.http2.hpack.Decoder;
+import com.generallycloud.baseio.codec.http2.Http2Stream;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
+import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersImpl;
 import com.generallycloud.baseio.component.SocketChannel;
 
 public class Http2HeadersFrameImpl extends AbstractHttp2Frame implements Http2HeadersFrame {
 
-    private boolean        isComplete;
+    private boolean            isComplete;
 
-    private byte           padLength;
+    private byte               padLength;
 
-    private boolean        e;
+    private boolean            e;
 
-    private int            streamDependency;
+    private int                streamDependency;
 
-    private short          weight;
+    private short              weight;
 
-    private boolean        endStream;
+    private boolean            endStream;
 
-    private static Decoder decoder = new Decoder();
+    private Http2Headers       headers;
+
+    private Http2SocketSession session;
+
+    private Http2Stream        stream;
 
     public Http2HeadersFrameImpl(SocketChannel channel, ByteBuf buf, Http2FrameHeader header) {
         super(channel, header);
         this.buf = buf;
     }
 
+    /**
+     * 用于写出的HEADERS帧，header块由该连接的HPACK编码器在flush时编码
+     */
+    public Http2HeadersFrameImpl(Http2SocketSession session, int streamIdentifier,
+            Http2Headers headers, boolean endStream) {
+        super(session.getContext(), new Http2FrameHeaderImpl(session.getContext(),
+                streamIdentifier, (byte) (FLAG_END_HEADERS | (endStream ? FLAG_END_STREAM : 0))));
+        this.session = session;
+        this.headers = headers;
+        this.endStream = endStream;
+        this.isComplete = true;
+    }
+
     private void doComplete(SocketChannel channel, ByteBuf buf) throws IOException {
 
         Http2SocketSession session = (Http2SocketSession) channel.getSession();
         
         byte flags = getHeader().getFlags();
 
+        int length = buf.limit();
+
         this.endStream = (flags & FLAG_END_STREAM) > 0;
 
         if ((flags & FLAG_PADDED) > 0) {
+            if (length == 0) {
+                throw Http2Exception.connectionError(Http2Error.FRAME_SIZE_ERROR,
+                        "padded HEADERS without pad length");
+            }
             padLength = buf.getByte();
+            int padding = padLength & 0xff;
+            if (padding >= length) {
+                throw Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR,
+                        "pad length: %d", padding);
+            }
+            // 填充的字节不属于header块
+            buf.limit(length - padding);
         }
 
         if ((flags & FLAG_PRIORITY) > 0) {
@@ -68,7 +102,19 @@ public class Http2HeadersFrameImpl extends AbstractHttp2Frame implements Http2He
             weight = buf.getUnsignedByte();
         }
 
-        decoder.decode(streamDependency, buf, session.getHttp2Headers());
+        int streamIdentifier = getHeader().getStreamIdentifier();
+
+        if ((flags & FLAG_END_HEADERS) == 0) {
+            // 剩余的header块在CONTINUATION帧中
+            session.onHeaderBlockFragment(streamIdentifier, buf, endStream);
+            return;
+        }
+
+        this.headers = new Http2HeadersImpl();
+
+        session.getHpackDecoder().decode(streamIdentifier, buf, headers);
+
+        this.stream = session.onHeadersRead(streamIdentifier, headers, endStream);
     }
 
     @Override
@@ -94,7 +140,7 @@ public class Http2HeadersFrameImpl extends AbstractHttp2Frame implements Http2He
 
     @Override
     public boolean isSilent() {
-        return !endStream;
+        return !(endStream && stream != null);
     }
 
     @Override
@@ -122,4 +168,23 @@ public class Http2HeadersFrameImpl extends AbstractHttp2Frame implements Http2He
         return padLength;
     }
 
+    @Override
+    public boolean isEndStream() {
+        return endStream;
+    }
+
+    @Override
+    public Http2Headers getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public Http2Stream getStream() {
+        return stream;
+    }
+
+    public Http2SocketSession getSession() {
+        return session;
+    }
+
 }
@@ -31,6 +31,8 @@ MAX_HEADER_LIST_SIZE	0x6	(infinite)
  */
 public interface Http2SettingsFrame extends Http2Frame {
 
+    public static final int FLAG_ACK                        = 0x1;
+
     public static final int SETTINGS_HEADER_TABLE_SIZE      = 0x1;
     public static final int SETTINGS_ENABLE_PUSH            = 0x2;
     public static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
@@ -40,4 +42,6 @@ public interface Http2SettingsFrame extends Http2Frame {
 
     public abstract long[] getSettings();
 
+    public abstract boolean isAck();
+
 }
@@ -19,12 +19,17 @@ import java.io.IOException;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.codec.http2.Http2SocketSession;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
 import com.generallycloud.baseio.component.SocketChannel;
+import com.generallycloud.baseio.component.SocketChannelContext;
 
 public class Http2SettingsFrameImpl extends AbstractHttp2Frame implements Http2SettingsFrame {
 
     private boolean isComplete;
 
+    private boolean ack;
+
     private long[]  settings;  //FIXME delete
 
     public Http2SettingsFrameImpl(SocketChannel channel, ByteBuf buf,
@@ -33,23 +38,48 @@ public class Http2SettingsFrameImpl extends AbstractHttp2Frame implements Http2S
         this.buf = buf;
     }
 
+    /**
+     * 用于写出的SETTINGS帧，ack为true时不带设置项
+     */
+    public Http2SettingsFrameImpl(SocketChannelContext context, long[] settings, boolean ack) {
+        super(context, new Http2FrameHeaderImpl(context, 0, (byte) (ack ? FLAG_ACK : 0)));
+        this.settings = settings;
+        this.ack = ack;
+        this.isComplete = true;
+    }
+
     private void doComplete(SocketChannel channel, ByteBuf buf) throws IOException {
 
         Http2SocketSession session = (Http2SocketSession) channel.getSession();
+
+        this.ack = (getHeader().getFlags() & FLAG_ACK) > 0;
+
+        if (ack) {
+            if (buf.limit() != 0) {
+                throw Http2Exception.connectionError(Http2Error.FRAME_SIZE_ERROR,
+                        "SETTINGS ack with payload");
+            }
+            return;
+        }
+
+        if (buf.limit() % 6 != 0) {
+            throw Http2Exception.connectionError(Http2Error.FRAME_SIZE_ERROR,
+                    "SETTINGS size: %d", buf.limit());
+        }
         
         int settings = buf.limit() / 6;
 
         for (int i = 0; i < settings; i++) {
 
-            int key = buf.getShort();
-            int value = buf.getInt();
+            int key = buf.getUnsignedShort();
+            long value = buf.getUnsignedInt();
 
             session.setSettings(key, value);
         }
 
         this.settings = session.getSettings();
 
-        channel.flush(this);
+        session.onSettingsRead();
     }
 
     @Override
@@ -88,4 +118,9 @@ public class Http2SettingsFrameImpl extends AbstractHttp2Frame implements Http2S
         return settings;
     }
 
+    @Override
+    public boolean isAck() {
+        return ack;
+    }
+
 }
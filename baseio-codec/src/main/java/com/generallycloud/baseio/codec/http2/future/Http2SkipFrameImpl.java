@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.http2.future;
+
+import java.io.IOException;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
+import com.generallycloud.baseio.component.SocketChannel;
+
+/**
+ * 读取并丢弃的帧，用于PRIORITY(不支持优先级)和未知类型的帧
+ */
+public class Http2SkipFrameImpl extends AbstractHttp2Frame {
+
+    private boolean        isComplete;
+
+    private Http2FrameType frameType;
+
+    public Http2SkipFrameImpl(SocketChannel channel, ByteBuf buf, Http2FrameHeader header,
+            Http2FrameType frameType) {
+        super(channel, header);
+        this.buf = buf;
+        this.frameType = frameType;
+    }
+
+    private void doComplete(SocketChannel channel, ByteBuf buf) throws IOException {
+
+        if (frameType == Http2FrameType.FRAME_TYPE_PRIORITY && buf.limit() != 5) {
+            throw Http2Exception.streamError(getHeader().getStreamIdentifier(),
+                    Http2Error.FRAME_SIZE_ERROR, "PRIORITY size: %d", buf.limit());
+        }
+    }
+
+    @Override
+    public boolean read(SocketChannel channel, ByteBuf buffer) throws IOException {
+
+        if (!isComplete) {
+
+            ByteBuf buf = this.buf;
+
+            buf.read(buffer);
+
+            if (buf.hasRemaining()) {
+                return false;
+            }
+
+            isComplete = true;
+
+            doComplete(channel, buf.flip());
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isSilent() {
+        return true;
+    }
+
+    @Override
+    public Http2FrameType getHttp2FrameType() {
+        return frameType;
+    }
+
+}
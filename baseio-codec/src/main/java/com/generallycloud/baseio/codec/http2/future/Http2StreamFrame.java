@@ -0,0 +1,31 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.http2.future;
+
+import com.generallycloud.baseio.codec.http2.Http2Stream;
+
+/**
+ * 属于某个流的帧，当该帧结束了对端的请求时会被提交到应用，
+ * 通过{@link #getStream()}获取完整的请求头和请求体
+ */
+public interface Http2StreamFrame extends Http2Frame {
+
+    /**
+     * 该帧所属的流，header块未完整或者流已被重置时返回null
+     */
+    public abstract Http2Stream getStream();
+
+}
@@ -18,8 +18,12 @@ package com.generallycloud.baseio.codec.http2.future;
 import java.io.IOException;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.http2.Http2SocketSession;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Error;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Exception;
 import com.generallycloud.baseio.common.MathUtil;
 import com.generallycloud.baseio.component.SocketChannel;
+import com.generallycloud.baseio.component.SocketChannelContext;
 
 public class Http2WindowUpdateFrameImpl extends AbstractHttp2Frame
         implements Http2WindowUpdateFrame {
@@ -34,9 +38,25 @@ public class Http2WindowUpdateFrameImpl extends AbstractHttp2Frame
         this.buf = buf;
     }
 
+    public Http2WindowUpdateFrameImpl(SocketChannelContext context, int streamIdentifier,
+            int updateValue) {
+        super(context, new Http2FrameHeaderImpl(context, streamIdentifier, (byte) 0));
+        this.updateValue = updateValue;
+        this.isComplete = true;
+    }
+
     private void doComplete(SocketChannel channel, ByteBuf buf) throws IOException {
 
+        if (buf.limit() != 4) {
+            throw Http2Exception.connectionError(Http2Error.FRAME_SIZE_ERROR,
+                    "WINDOW_UPDATE size: %d", buf.limit());
+        }
+
+        Http2SocketSession session = (Http2SocketSession) channel.getSession();
+
         this.updateValue = MathUtil.int2int31(buf.getInt());
+
+        session.onWindowUpdateRead(getHeader().getStreamIdentifier(), updateValue);
     }
 
     @Override
@@ -67,7 +87,7 @@ public class Http2WindowUpdateFrameImpl extends AbstractHttp2Frame
 
     @Override
     public Http2FrameType getHttp2FrameType() {
-        return Http2FrameType.FRAME_TYPE_SETTINGS;
+        return Http2FrameType.FRAME_TYPE_WINDOW_UPDATE;
     }
 
     @Override
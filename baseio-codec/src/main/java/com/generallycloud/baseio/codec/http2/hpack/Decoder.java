@@ -30,6 +30,7 @@ import static com.generallycloud.baseio.common.ThrowableUtil.unknownStackTrace;
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.codec.http2.future.Http2Header;
 import com.generallycloud.baseio.codec.http2.hpack.HpackUtil.IndexType;
+import com.generallycloud.baseio.common.Encoding;
 
 public final class Decoder {
     private static final Http2Exception DECODE_DECOMPRESSION_EXCEPTION          = unknownStackTrace(
@@ -397,7 +398,7 @@ public final class Decoder {
 
     private long addHeader(int streamId, Http2Headers headers, String name, String value,
             long headersLength) throws Http2Exception {
-        headersLength += name.length() + value.length();
+        headersLength += Http2Header.sizeOf(name, value);
         if (headersLength > maxHeaderListSize) {
             headerListSizeExceeded(streamId, maxHeaderListSize);
         }
@@ -412,7 +413,7 @@ public final class Decoder {
         }
         byte[] buf = new byte[length];
         in.get(buf);
-        return new String(buf);
+        return new String(buf, Encoding.UTF8);
     }
 
     private static IllegalArgumentException notEnoughDataException(ByteBuf in) {
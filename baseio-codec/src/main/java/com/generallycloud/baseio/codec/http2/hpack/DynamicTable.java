@@ -18,19 +18,16 @@ package com.generallycloud.baseio.codec.http2.hpack;
 import static com.generallycloud.baseio.codec.http2.hpack.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
 import static com.generallycloud.baseio.codec.http2.hpack.Http2CodecUtil.MIN_HEADER_TABLE_SIZE;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.generallycloud.baseio.codec.http2.future.Http2Header;
 
 final class DynamicTable {
 
     // a circular queue of header fields
-    private List<Http2Header> headers  = new ArrayList<>();
-    int                       head;
-    int                       tail;
-    private long              size;
-    private long              capacity = -1;
+    private Http2Header[] headerFields;
+    private int           head;
+    private int           tail;
+    private long          size;
+    private long          capacity = -1;
 
     /**
      * Creates a new dynamic table with the specified initial capacity.
@@ -43,7 +40,10 @@ final class DynamicTable {
      * Return the number of header fields in the dynamic table.
      */
     public int length() {
-        return headers.size();
+        if (head < tail) {
+            return headerFields.length - tail + head;
+        }
+        return head - tail;
     }
 
     /**
@@ -71,9 +71,9 @@ final class DynamicTable {
         }
         int i = head - index;
         if (i < 0) {
-            return headers.get(i + headers.size());
+            return headerFields[i + headerFields.length];
         } else {
-            return headers.get(index);
+            return headerFields[i];
         }
     }
 
@@ -92,21 +92,39 @@ final class DynamicTable {
         while (capacity - size < headerSize) {
             remove();
         }
-        headers.add(header);
-        size += header.size();
+        headerFields[head++] = header;
+        size += headerSize;
+        if (head == headerFields.length) {
+            head = 0;
+        }
     }
 
     /**
      * Remove and return the oldest header field from the dynamic table.
      */
     public Http2Header remove() {
-        return null;
+        Http2Header removed = headerFields[tail];
+        if (removed == null) {
+            return null;
+        }
+        size -= removed.size();
+        headerFields[tail++] = null;
+        if (tail == headerFields.length) {
+            tail = 0;
+        }
+        return removed;
     }
 
     /**
      * Remove all entries from the dynamic table.
      */
     public void clear() {
+        while (tail != head) {
+            headerFields[tail++] = null;
+            if (tail == headerFields.length) {
+                tail = 0;
+            }
+        }
         head = 0;
         tail = 0;
         size = 0;
@@ -136,5 +154,26 @@ final class DynamicTable {
             }
         }
 
+        // 每个表项至少占HEADER_ENTRY_OVERHEAD，多留一个位置使head与tail重合时只表示空表
+        int maxEntries = (int) (capacity / Http2Header.HEADER_ENTRY_OVERHEAD) + 1;
+
+        if (headerFields != null && headerFields.length == maxEntries) {
+            return;
+        }
+
+        Http2Header[] tmp = new Http2Header[maxEntries];
+
+        int len = length();
+        int cursor = tail;
+        for (int i = 0; i < len; i++) {
+            tmp[i] = headerFields[cursor++];
+            if (cursor == headerFields.length) {
+                cursor = 0;
+            }
+        }
+
+        tail = 0;
+        head = len;
+        headerFields = tmp;
     }
 }
@@ -38,6 +38,7 @@ import java.util.Map;
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.codec.http2.future.Http2Header;
 import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersEncoder.SensitivityDetector;
+import com.generallycloud.baseio.common.Encoding;
 
 public final class Encoder {
     // a linked hash map of header fields
@@ -272,14 +273,15 @@ public final class Encoder {
      * Encode string literal according to Section 5.2.
      */
     private void encodeStringLiteral(ByteBuf out, String string) {
-        int huffmanLength = huffmanEncoder.getEncodedLength(string);
-        if (huffmanLength < string.length()) {
+        byte[] octets = string.getBytes(Encoding.UTF8);
+        int huffmanLength = huffmanEncoder.getEncodedLength(octets);
+        if (huffmanLength < octets.length) {
             encodeInteger(out, 0x80, 7, huffmanLength);
-            huffmanEncoder.encode(out, string);
+            huffmanEncoder.encode(out, octets);
         } else {
-            encodeInteger(out, 0x00, 7, string.length());
+            encodeInteger(out, 0x00, 7, octets.length);
 
-            out.put(string.getBytes());
+            out.put(octets);
 
             // if (string instanceof AsciiString) {
             // // Fast-path
@@ -149,4 +149,11 @@ public interface Http2Headers extends Iterable<Entry<String, String>> {
     String status();
 
     void add(String name, String value);
+
+    /**
+     * Gets the header value or {@code null} if there is no such header
+     */
+    String get(String name);
+
+    int size();
 }
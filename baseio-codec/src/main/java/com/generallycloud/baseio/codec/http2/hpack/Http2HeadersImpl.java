@@ -15,57 +15,84 @@
  */
 package com.generallycloud.baseio.codec.http2.hpack;
 
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
 public class Http2HeadersImpl implements Http2Headers {
 
-    private HashMap<String, String> headers = new HashMap<>();
+    // 伪header必须在普通header之前编码，分开保存
+    private LinkedHashMap<String, String> pseudoHeaders = new LinkedHashMap<>(8);
+    private LinkedHashMap<String, String> headers       = new LinkedHashMap<>();
 
-    private String                  method;
-    private String                  scheme;
-    private String                  authority;
-    private String                  path;
-    private String                  status;
+    private String                        method;
+    private String                        scheme;
+    private String                        authority;
+    private String                        path;
+    private String                        status;
 
     @Override
     public Iterator<Entry<String, String>> iterator() {
-        return headers.entrySet().iterator();
+        final Iterator<Entry<String, String>> first = pseudoHeaders.entrySet().iterator();
+        final Iterator<Entry<String, String>> second = headers.entrySet().iterator();
+        return new Iterator<Entry<String, String>>() {
+
+            @Override
+            public boolean hasNext() {
+                return first.hasNext() || second.hasNext();
+            }
+
+            @Override
+            public Entry<String, String> next() {
+                if (first.hasNext()) {
+                    return first.next();
+                }
+                if (second.hasNext()) {
+                    return second.next();
+                }
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 
     @Override
     public Http2Headers method(String value) {
         this.method = value;
-        this.headers.put(":method", value);
+        this.pseudoHeaders.put(":method", value);
         return this;
     }
 
     @Override
     public Http2Headers scheme(String value) {
         this.scheme = value;
-        this.headers.put(":scheme", value);
+        this.pseudoHeaders.put(":scheme", value);
         return this;
     }
 
     @Override
     public Http2Headers authority(String value) {
         this.authority = value;
-        this.headers.put(":authority", value);
+        this.pseudoHeaders.put(":authority", value);
         return this;
     }
 
     @Override
     public Http2Headers path(String value) {
         this.path = value;
-        this.headers.put(":path", value);
+        this.pseudoHeaders.put(":path", value);
         return this;
     }
 
     @Override
     public Http2Headers status(String value) {
         this.status = value;
-        this.headers.put(":status", value);
+        this.pseudoHeaders.put(":status", value);
         return this;
     }
 
@@ -96,7 +123,43 @@ public class Http2HeadersImpl implements Http2Headers {
 
     @Override
     public void add(String name, String value) {
+        if (name.length() > 0 && name.charAt(0) == ':') {
+            switch (name) {
+                case ":method":
+                    method(value);
+                    return;
+                case ":scheme":
+                    scheme(value);
+                    return;
+                case ":authority":
+                    authority(value);
+                    return;
+                case ":path":
+                    path(value);
+                    return;
+                case ":status":
+                    status(value);
+                    return;
+                default:
+                    pseudoHeaders.put(name, value);
+                    return;
+            }
+        }
         this.headers.put(name, value);
     }
 
+    @Override
+    public String get(String name) {
+        String value = headers.get(name);
+        if (value == null) {
+            return pseudoHeaders.get(name);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return pseudoHeaders.size() + headers.size();
+    }
+
 }
@@ -24,6 +24,7 @@ import java.io.IOException;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.buffer.ByteProcessor;
+import com.generallycloud.baseio.common.Encoding;
 import com.generallycloud.baseio.common.ThrowableUtil;
 
 final class HuffmanDecoder {
@@ -230,7 +231,7 @@ final class HuffmanDecoder {
                 throw INVALID_PADDING;
             }
 
-            return new String(bytes, 0, index);
+            return new String(bytes, 0, index, Encoding.UTF8);
         }
 
         private void append(int i) {
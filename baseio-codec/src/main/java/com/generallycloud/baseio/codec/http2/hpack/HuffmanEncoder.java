@@ -46,16 +46,16 @@ final class HuffmanEncoder {
      * @param out the output stream for the compressed data
      * @param data the string literal to be Huffman encoded
      */
-    public void encode(ByteBuf out, String data) {
+    public void encode(ByteBuf out, byte[] data) {
         encodeSlowPath(out, data);
     }
 
-    private void encodeSlowPath(ByteBuf out, String data) {
+    private void encodeSlowPath(ByteBuf out, byte[] data) {
         long current = 0;
         int n = 0;
 
-        for (int i = 0; i < data.length(); i++) {
-            int b = data.charAt(i) & 0xFF;
+        for (int i = 0; i < data.length; i++) {
+            int b = data[i] & 0xFF;
             int code = codes[b];
             int nbits = lengths[b];
 
@@ -82,14 +82,14 @@ final class HuffmanEncoder {
      * @param data the string literal to be Huffman encoded
      * @return the number of bytes required to Huffman encode <code>data</code>
      */
-    public int getEncodedLength(String data) {
+    public int getEncodedLength(byte[] data) {
         return getEncodedLengthSlowPath(data);
     }
 
-    private int getEncodedLengthSlowPath(String data) {
+    private int getEncodedLengthSlowPath(byte[] data) {
         long len = 0;
-        for (int i = 0; i < data.length(); i++) {
-            len += lengths[data.charAt(i) & 0xFF];
+        for (int i = 0; i < data.length; i++) {
+            len += lengths[data[i] & 0xFF];
         }
         return (int) ((len + 7) >> 3);
     }
@@ -94,11 +94,15 @@ final class StaticTable {
 
         for (Http2Header header : STATIC_HEADER_TABLE) {
 
-            STATIC_MAP.put(header.getName(), header);
+            // 同名的header只记录第一个，按value查找时从该位置向后匹配
+            if (!STATIC_MAP.containsKey(header.getName())) {
+                STATIC_MAP.put(header.getName(), header);
+            }
         }
     }
 
-    static final int length = STATIC_HEADER_TABLE.size();
+    // 下标0为占位，静态表实际有61个条目
+    static final int length = STATIC_HEADER_TABLE.size() - 1;
 
     static Http2Header getEntry(int index) {
         return STATIC_HEADER_TABLE.get(index);
@@ -108,7 +112,14 @@ final class StaticTable {
     private StaticTable() {}
 
     public static int getIndex(String name) {
-        return getIndex(name, "");
+
+        Http2Header header = STATIC_MAP.get(name);
+
+        if (header == null) {
+            return -1;
+        }
+
+        return header.getIndex();
     }
 
     public static int getIndex(String name, String value) {
@@ -119,10 +130,16 @@ final class StaticTable {
             return -1;
         }
 
-        if (header.getValue().equals(value)) {
-            return header.getIndex();
+        for (int i = header.getIndex(); i <= length; i++) {
+            Http2Header h = STATIC_HEADER_TABLE.get(i);
+            if (!h.getName().equals(name)) {
+                break;
+            }
+            if (h.getValue().equals(value)) {
+                return i;
+            }
         }
 
-        return 0;
+        return -1;
     }
 }
@@ -54,23 +54,33 @@ public class HashedProtobaseProtocolDecoder extends ProtobaseProtocolDecoder {
 
     public static final int PROTOCOL_HEADER_WITHBINARY = 20;
     public static final int PROTOCOL_HEADER_NO_BINARY  = 16;
+    public static final int PROTOCOL_HASH_CODE_INDEX   = 10;
 
     public HashedProtobaseProtocolDecoder(int limit) {
         super(limit);
     }
 
+    public HashedProtobaseProtocolDecoder(int limit, boolean passthrough) {
+        super(limit, passthrough);
+    }
+
     @Override
     protected ChannelFuture newChannelReadFutureNoBinary(SocketChannel channel,
             ByteBufAllocator allocator, byte b) throws IOException {
-        ByteBuf buf = allocator.allocate(PROTOCOL_HEADER_NO_BINARY - 1);
-        return new HashedProtobaseFutureImpl(channel, buf, isBroadcast(b));
+        ByteBuf buf = allocateHeader(allocator, b, PROTOCOL_HEADER_NO_BINARY);
+        HashedProtobaseFutureImpl f = new HashedProtobaseFutureImpl(channel, buf, isBroadcast(b));
+        f.setPassthrough(passthrough);
+        return f;
     }
 
     @Override
     protected ChannelFuture newChannelReadFutureWithBinary(SocketChannel channel,
             ByteBufAllocator allocator, byte b) throws IOException {
-        ByteBuf buf = allocator.allocate(PROTOCOL_HEADER_WITHBINARY - 1);
-        return new HashedProtobaseBinaryFutureImpl(channel, buf, limit, isBroadcast(b));
+        ByteBuf buf = allocateHeader(allocator, b, PROTOCOL_HEADER_WITHBINARY);
+        HashedProtobaseBinaryFutureImpl f = new HashedProtobaseBinaryFutureImpl(channel, buf,
+                limit, isBroadcast(b));
+        f.setPassthrough(passthrough);
+        return f;
     }
 
 }
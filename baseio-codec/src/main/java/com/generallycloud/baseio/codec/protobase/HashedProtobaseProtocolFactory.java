@@ -27,19 +27,29 @@ public class HashedProtobaseProtocolFactory implements ProtocolFactory {
         
     }
 
-    private int limit;
+    private int     limit;
+    private boolean passthrough;
 
     public HashedProtobaseProtocolFactory() {
         this(1024 * 8);
     }
 
     public HashedProtobaseProtocolFactory(int limit) {
+        this(limit, false);
+    }
+
+    /**
+     * @param passthrough 负载均衡时只解析路由所需的报文头，原始报文直接转发，
+     *            不做解码与重新编码，facade与reverse两端需使用相同的协议
+     */
+    public HashedProtobaseProtocolFactory(int limit, boolean passthrough) {
         this.limit = limit;
+        this.passthrough = passthrough;
     }
 
     @Override
     public ProtocolDecoder getProtocolDecoder(SocketChannelContext context) {
-        return new HashedProtobaseProtocolDecoder(limit);
+        return new HashedProtobaseProtocolDecoder(limit, passthrough);
     }
 
     @Override
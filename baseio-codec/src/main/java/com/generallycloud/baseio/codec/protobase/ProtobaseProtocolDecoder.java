@@ -61,9 +61,15 @@ public class ProtobaseProtocolDecoder implements ProtocolDecoder {
     public static final byte PROTOCOL_IS_BROADCAST       = (byte) 0b00010000;
 
     protected int            limit;
+    protected boolean        passthrough;
 
     public ProtobaseProtocolDecoder(int limit) {
+        this(limit, false);
+    }
+
+    public ProtobaseProtocolDecoder(int limit, boolean passthrough) {
         this.limit = limit;
+        this.passthrough = passthrough;
     }
 
     @Override
@@ -86,6 +92,18 @@ public class ProtobaseProtocolDecoder implements ProtocolDecoder {
         return newChannelReadFutureNoBinary(channel, allocator, byte0);
     }
 
+    /**
+     * 透传模式下B0也保留在buf中，以便读取完成后整个报文原样转发
+     */
+    protected ByteBuf allocateHeader(ByteBufAllocator allocator, byte b, int headerLength) {
+        if (!passthrough) {
+            return allocator.allocate(headerLength - 1);
+        }
+        ByteBuf buf = allocator.allocate(headerLength);
+        buf.putByte(b);
+        return buf;
+    }
+
     protected boolean isBroadcast(byte b) {
         return (b & PROTOCOL_IS_BROADCAST) > 0;
     }
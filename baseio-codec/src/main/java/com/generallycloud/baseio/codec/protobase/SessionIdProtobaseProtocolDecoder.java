@@ -53,23 +53,34 @@ public class SessionIdProtobaseProtocolDecoder extends ProtobaseProtocolDecoder
 
     public static final int PROTOCOL_HEADER_WITH_BINARY = 16;
     public static final int PROTOCOL_HEADER_NO_BINARY   = 12;
+    public static final int PROTOCOL_SESSION_ID_INDEX   = 6;
 
     public SessionIdProtobaseProtocolDecoder(int limit) {
         super(limit);
     }
 
+    public SessionIdProtobaseProtocolDecoder(int limit, boolean passthrough) {
+        super(limit, passthrough);
+    }
+
     @Override
     protected ChannelFuture newChannelReadFutureNoBinary(SocketChannel channel,
             ByteBufAllocator allocator, byte b) throws IOException {
-        ByteBuf buf = allocator.allocate(PROTOCOL_HEADER_NO_BINARY - 1);
-        return new SessionIdProtobaseFutureImpl(channel, buf, isBroadcast(b));
+        ByteBuf buf = allocateHeader(allocator, b, PROTOCOL_HEADER_NO_BINARY);
+        SessionIdProtobaseFutureImpl f = new SessionIdProtobaseFutureImpl(channel, buf,
+                isBroadcast(b));
+        f.setPassthrough(passthrough);
+        return f;
     }
 
     @Override
     protected ChannelFuture newChannelReadFutureWithBinary(SocketChannel channel,
             ByteBufAllocator allocator, byte b) throws IOException {
-        ByteBuf buf = allocator.allocate(PROTOCOL_HEADER_WITH_BINARY - 1);
-        return new SessionIdProtobaseBinaryFutureImpl(channel, buf, limit, isBroadcast(b));
+        ByteBuf buf = allocateHeader(allocator, b, PROTOCOL_HEADER_WITH_BINARY);
+        SessionIdProtobaseBinaryFutureImpl f = new SessionIdProtobaseBinaryFutureImpl(channel,
+                buf, limit, isBroadcast(b));
+        f.setPassthrough(passthrough);
+        return f;
     }
 
 }
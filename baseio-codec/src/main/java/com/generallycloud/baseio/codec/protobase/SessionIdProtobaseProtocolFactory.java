@@ -26,19 +26,25 @@ public class SessionIdProtobaseProtocolFactory implements ProtocolFactory {
     public void initialize(SocketChannelContext context) {
     }
     
-    private int limit;
+    private int     limit;
+    private boolean passthrough;
 
     public SessionIdProtobaseProtocolFactory() {
         this(1024 * 8);
     }
 
     public SessionIdProtobaseProtocolFactory(int limit) {
+        this(limit, false);
+    }
+
+    public SessionIdProtobaseProtocolFactory(int limit, boolean passthrough) {
         this.limit = limit;
+        this.passthrough = passthrough;
     }
 
     @Override
     public ProtocolDecoder getProtocolDecoder(SocketChannelContext context) {
-        return new SessionIdProtobaseProtocolDecoder(limit);
+        return new SessionIdProtobaseProtocolDecoder(limit, passthrough);
     }
 
     @Override
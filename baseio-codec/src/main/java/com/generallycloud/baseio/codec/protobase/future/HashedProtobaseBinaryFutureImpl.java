@@ -16,6 +16,7 @@
 package com.generallycloud.baseio.codec.protobase.future;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.protobase.HashedProtobaseProtocolDecoder;
 import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.component.SocketChannel;
 
@@ -39,6 +40,7 @@ public class HashedProtobaseBinaryFutureImpl extends SessionIdProtobaseBinaryFut
     @Override
     public void setHashCode(int hashCode) {
         this.hashCode = hashCode;
+        this.putFrameInt(HashedProtobaseProtocolDecoder.PROTOCOL_HASH_CODE_INDEX, hashCode);
     }
 
     @Override
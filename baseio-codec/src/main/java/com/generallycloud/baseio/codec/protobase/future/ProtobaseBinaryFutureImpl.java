@@ -47,6 +47,12 @@ public class ProtobaseBinaryFutureImpl extends ProtobaseFutureImpl {
 
         int all_length = future_name_length + textLength + binaryLength;
 
+        if (isPassthrough()) {
+            int header_length = buf.position();
+            buf.reallocate(header_length + all_length, header_length + binaryLimit, true);
+            return;
+        }
+
         buf.reallocate(all_length, binaryLimit);
     }
 
@@ -27,6 +27,7 @@ import com.generallycloud.baseio.component.Parameters;
 import com.generallycloud.baseio.component.SocketChannel;
 import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.protocol.AbstractChannelFuture;
+import com.generallycloud.baseio.protocol.ChannelFuture;
 
 /**
  *
@@ -39,9 +40,13 @@ public class ProtobaseFutureImpl extends AbstractChannelFuture implements Protob
     private boolean         header_complete;
     private Parameters      parameters;
     private ByteArrayBuffer writeBinaryBuffer;
+    private boolean         passthrough;
+    private int             frameHeaderLength;
 
     protected int           future_name_length;
     protected int           textLength;
+    // 透传模式下持有的原始报文(含B0)，转发时直接写出
+    protected ByteBuf       frame;
 
     // for ping & pong
     public ProtobaseFutureImpl(SocketChannelContext context) {
@@ -67,6 +72,11 @@ public class ProtobaseFutureImpl extends AbstractChannelFuture implements Protob
 
     private void doBodyComplete(SocketChannel channel, ByteBuf buf) {
 
+        if (passthrough) {
+            doPassthroughComplete(buf);
+            return;
+        }
+
         Charset charset = context.getEncoding();
 
         int offset = buf.offset();
@@ -84,8 +94,31 @@ public class ProtobaseFutureImpl extends AbstractChannelFuture implements Protob
         gainBinary(buf, offset);
     }
 
+    // 透传模式只解码future name(用于日志)，text与binary不做解码，
+    // 报文整体retain一份，read完成后释放buf时不会回收这段内存
+    private void doPassthroughComplete(ByteBuf buf) {
+
+        int offset = buf.offset() + frameHeaderLength;
+
+        int frameLength = buf.limit();
+
+        ByteBuffer memory = buf.nioBuffer();
+
+        memory.limit(offset + future_name_length).position(offset);
+
+        futureName = StringUtil.decode(context.getEncoding(), memory);
+
+        buf.position(0).limit(frameLength);
+
+        frame = buf.duplicate();
+    }
+
     private void doHeaderComplete(SocketChannel channel, ByteBuf buf) throws IOException {
 
+        if (passthrough) {
+            buf.skipBytes(1);
+        }
+
         this.future_name_length = buf.getUnsignedByte();
 
         this.futureId = buf.getInt();
@@ -96,6 +129,8 @@ public class ProtobaseFutureImpl extends AbstractChannelFuture implements Protob
 
         this.generateHeaderBinary(buf);
 
+        this.frameHeaderLength = buf.position();
+
         reallocateBuf(buf);
     }
 
@@ -108,6 +143,10 @@ public class ProtobaseFutureImpl extends AbstractChannelFuture implements Protob
     }
 
     protected void reallocateBuf(ByteBuf buf) {
+        if (passthrough) {
+            buf.reallocate(frameHeaderLength + future_name_length + textLength, true);
+            return;
+        }
         buf.reallocate(future_name_length + textLength);
     }
 
@@ -190,6 +229,41 @@ public class ProtobaseFutureImpl extends AbstractChannelFuture implements Protob
         return true;
     }
 
+    public boolean isPassthrough() {
+        return passthrough;
+    }
+
+    /**
+     * 透传模式下不解码报文体，读取完成后保留原始报文，
+     * 由{@link #passthrough()}取出原样转发，需在read之前设置
+     */
+    public void setPassthrough(boolean passthrough) {
+        this.passthrough = passthrough;
+    }
+
+    public ChannelFuture passthrough() {
+        ByteBuf frame = this.frame;
+        if (frame == null) {
+            throw new IllegalStateException("no passthrough frame");
+        }
+        this.frame = null;
+        setByteBuf(frame);
+        return flush();
+    }
+
+    public boolean hasPassthroughFrame() {
+        return frame != null;
+    }
+
+    // duplicate出来的buf不支持put，这里直接改写底层内存
+    protected void putFrameInt(int index, int value) {
+        ByteBuf frame = this.frame;
+        if (frame == null) {
+            return;
+        }
+        frame.nioBuffer().putInt(frame.offset() + index, value);
+    }
+
     @Override
     public void setFutureId(int futureId) {
         this.futureId = futureId;
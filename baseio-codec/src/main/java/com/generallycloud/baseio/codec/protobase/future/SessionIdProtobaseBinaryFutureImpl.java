@@ -17,6 +17,7 @@ package com.generallycloud.baseio.codec.protobase.future;
 
 import com.generallycloud.baseio.balance.BalanceFuture;
 import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.protobase.SessionIdProtobaseProtocolDecoder;
 import com.generallycloud.baseio.common.StringUtil;
 import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.component.SocketChannel;
@@ -78,6 +79,7 @@ public class SessionIdProtobaseBinaryFutureImpl extends ProtobaseBinaryFutureImp
     @Override
     public void setSessionId(int sessionId) {
         this.sessionId = sessionId;
+        this.putFrameInt(SessionIdProtobaseProtocolDecoder.PROTOCOL_SESSION_ID_INDEX, sessionId);
     }
 
     @Override
@@ -17,6 +17,7 @@ package com.generallycloud.baseio.codec.protobase.future;
 
 import com.generallycloud.baseio.balance.BalanceFuture;
 import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.codec.protobase.SessionIdProtobaseProtocolDecoder;
 import com.generallycloud.baseio.common.StringUtil;
 import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.component.SocketChannel;
@@ -82,6 +83,7 @@ public class SessionIdProtobaseFutureImpl extends ProtobaseFutureImpl
     @Override
     public void setSessionId(int sessionId) {
         this.sessionId = sessionId;
+        this.putFrameInt(SessionIdProtobaseProtocolDecoder.PROTOCOL_SESSION_ID_INDEX, sessionId);
     }
 
     @Override
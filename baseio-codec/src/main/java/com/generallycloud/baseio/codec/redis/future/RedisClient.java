@@ -15,24 +15,35 @@
  */
 package com.generallycloud.baseio.codec.redis.future;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import com.generallycloud.baseio.TimeoutException;
+import com.generallycloud.baseio.codec.redis.RedisProtocolFactory;
 import com.generallycloud.baseio.codec.redis.future.RedisFuture.RedisCommand;
+import com.generallycloud.baseio.common.CloseUtil;
 import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.component.SocketSession;
-import com.generallycloud.baseio.concurrent.Waiter;
-
-//FIXME check null
-public class RedisClient {
-
-    private SocketChannelContext context;
-
-    private SocketSession        session;
-
-    private RedisIOEventHandle   ioEventHandle;
+import com.generallycloud.baseio.connector.SocketChannelConnector;
+
+/**
+ * redis连接池，命令在各连接间轮询，每个连接上的命令不等待前一条回复即可发送。
+ * <p>
+ * 使用context创建时，由client为每个context设置协议、RedisIOEventHandle和RedisSEListener
+ * (context需未启动)，首次使用或连接关闭后在取用时重新连接，不会返回已关闭的连接。
+ * 使用已建立的session创建时无法重连，context需自行设置RedisIOEventHandle并添加RedisSEListener
+ */
+public class RedisClient implements Closeable {
 
-    private long                 timeout;
+    private SocketChannelConnector[]              connectors;
+    private AtomicReferenceArray<RedisConnection> connections;
+    private AtomicInteger                         index = new AtomicInteger();
+    private Charset                               charset;
+    private long                                  timeout;
+    private volatile boolean                      closed;
 
     public RedisClient(SocketSession session) {
         this(session, 3000);
@@ -40,50 +51,150 @@ public class RedisClient {
 
     public RedisClient(SocketSession session, long timeout) {
         this.timeout = timeout;
-        this.session = session;
-        this.context = session.getContext();
-        this.ioEventHandle = (RedisIOEventHandle) context.getIoEventHandleAdaptor();
+        this.charset = session.getContext().getEncoding();
+        this.connections = new AtomicReferenceArray<>(1);
+        this.connections.set(0, new RedisConnection(session));
     }
 
-    private synchronized RedisNode sendCommand(byte[] command, byte[]... args) throws IOException {
+    public RedisClient(SocketChannelContext context) {
+        this(new SocketChannelContext[] { context }, 3000);
+    }
 
-        RedisFuture future = new RedisCmdFuture(context);
+    /**
+     * 每个context对应池中的一个连接
+     */
+    public RedisClient(SocketChannelContext[] contexts, long timeout) {
+        if (contexts == null || contexts.length == 0) {
+            throw new IllegalArgumentException("empty contexts");
+        }
+        this.timeout = timeout;
+        // context启动前getEncoding()尚未初始化
+        this.charset = contexts[0].getServerConfiguration().getSERVER_ENCODING();
+        this.connectors = new SocketChannelConnector[contexts.length];
+        this.connections = new AtomicReferenceArray<>(contexts.length);
+        for (int i = 0; i < contexts.length; i++) {
+            SocketChannelContext context = contexts[i];
+            context.setIoEventHandleAdaptor(new RedisIOEventHandle());
+            context.setProtocolFactory(new RedisProtocolFactory());
+            context.addSessionEventListener(new RedisSEListener());
+            connectors[i] = new SocketChannelConnector(context);
+        }
+    }
+
+    /**
+     * 从轮询位置开始返回第一个可用的连接，已关闭的连接先重新建立，
+     * 全部不可用时抛出最后一次连接失败的异常
+     */
+    private RedisConnection nextConnection() throws IOException {
+        AtomicReferenceArray<RedisConnection> connections = this.connections;
+        int length = connections.length();
+        int start = (index.getAndIncrement() & Integer.MAX_VALUE) % length;
+        IOException exception = null;
+        for (int i = 0; i < length; i++) {
+            int slot = (start + i) % length;
+            RedisConnection c = connections.get(slot);
+            if (c != null && !c.isClosed()) {
+                return c;
+            }
+            if (connectors == null) {
+                continue;
+            }
+            try {
+                return reconnect(slot);
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        throw new ClosedChannelException();
+    }
 
-        future.writeCommand(command, args);
+    private RedisConnection reconnect(int slot) throws IOException {
+        SocketChannelConnector connector = connectors[slot];
+        synchronized (connector) {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+            RedisConnection c = connections.get(slot);
+            if (c != null && !c.isClosed()) {
+                return c;
+            }
+            c = new RedisConnection(connector.connect());
+            connections.set(slot, c);
+            return c;
+        }
+    }
 
-        Waiter<RedisNode> waiter = new Waiter<>();
+    public RedisResponse sendCommand(RedisCommand command, byte[]... args) {
+        RedisConnection connection;
+        try {
+            connection = nextConnection();
+        } catch (IOException e) {
+            RedisResponse response = new RedisResponse();
+            response.complete(null, e);
+            return response;
+        }
+        return connection.sendCommand(command.raw, args);
+    }
 
-        ioEventHandle.setWaiter(waiter);
+    private RedisNode sendCommandSync(RedisCommand command, byte[]... args) throws IOException {
+        return sendCommand(command, args).get(timeout);
+    }
 
-        session.flush(future);
+    public RedisPipeline pipeline() throws IOException {
+        return new RedisPipeline(nextConnection(), false);
+    }
 
-        if (waiter.await(timeout)) {
-            throw new TimeoutException("timeout");
-        }
+    /**
+     * MULTI ... EXEC，命令在execute时一次写出
+     */
+    public RedisPipeline multi() throws IOException {
+        return new RedisPipeline(nextConnection(), true);
+    }
 
-        return waiter.getPayload();
+    public RedisResponse setAsync(String key, String value) {
+        return sendCommand(RedisCommand.SET, key.getBytes(charset), value.getBytes(charset));
     }
 
-    private RedisNode sendCommand(RedisCommand command, byte[]... args) throws IOException {
-        return sendCommand(command.raw, args);
+    public RedisResponse getAsync(String key) {
+        return sendCommand(RedisCommand.GET, key.getBytes(charset));
     }
 
     public String set(String key, String value) throws IOException {
-        byte[] _key = key.getBytes(context.getEncoding());
-        byte[] _value = value.getBytes(context.getEncoding());
-        RedisNode node = sendCommand(RedisCommand.SET, _key, _value);
+        byte[] _key = key.getBytes(charset);
+        byte[] _value = value.getBytes(charset);
+        RedisNode node = sendCommandSync(RedisCommand.SET, _key, _value);
         return (String) node.getValue();
     }
 
     public String get(String key) throws IOException {
-        byte[] _key = key.getBytes(context.getEncoding());
-        RedisNode node = sendCommand(RedisCommand.GET, _key);
+        byte[] _key = key.getBytes(charset);
+        RedisNode node = sendCommandSync(RedisCommand.GET, _key);
         return (String) node.getValue();
     }
 
     public String ping() throws IOException {
-        RedisNode node = sendCommand(RedisCommand.PING);
+        RedisNode node = sendCommandSync(RedisCommand.PING);
         return (String) node.getValue();
     }
 
+    /**
+     * 关闭由client建立的连接，使用session创建时不做处理
+     */
+    @Override
+    public void close() {
+        SocketChannelConnector[] connectors = this.connectors;
+        if (connectors == null) {
+            return;
+        }
+        closed = true;
+        for (SocketChannelConnector connector : connectors) {
+            synchronized (connector) {
+                CloseUtil.close(connector);
+            }
+        }
+    }
+
 }
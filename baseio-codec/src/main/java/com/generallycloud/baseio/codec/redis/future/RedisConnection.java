@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.redis.future;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
+
+/**
+ * 单个redis连接，命令不等待回复即可继续写出，redis按发送顺序回复，
+ * 回复到达时按FIFO顺序交给等待中的RedisResponse
+ */
+public class RedisConnection {
+
+    private Logger                     logger  = LoggerFactory.getLogger(getClass());
+    private ArrayDeque<RedisResponse>  pending = new ArrayDeque<>();
+    private ReentrantLock              lock    = new ReentrantLock();
+    private boolean                    closed;
+    private SocketSession              session;
+
+    public RedisConnection(SocketSession session) {
+        this.session = session;
+        this.session.setAttachment(this);
+    }
+
+    public SocketSession getSession() {
+        return session;
+    }
+
+    public boolean isClosed() {
+        return session.isClosed();
+    }
+
+    public int getPendingSize() {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public RedisResponse sendCommand(byte[] command, byte[]... args) {
+        RedisCmdFuture future = new RedisCmdFuture(session.getContext());
+        future.writeCommand(command, args);
+        RedisResponse response = new RedisResponse();
+        flush(future, response);
+        return response;
+    }
+
+    // 入队与写出需在同一把锁内完成，否则多线程同时发送时回复顺序会对应错
+    protected void flush(RedisCmdFuture future, RedisResponse response) {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (closed) {
+                response.complete(null, new ClosedChannelException());
+                return;
+            }
+            pending.offer(response);
+            session.flush(future);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void flush(RedisCmdFuture future, List<RedisResponse> responses) {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (closed) {
+                IOException e = new ClosedChannelException();
+                for (RedisResponse response : responses) {
+                    response.complete(null, e);
+                }
+                return;
+            }
+            pending.addAll(responses);
+            session.flush(future);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void onResponse(RedisNode node) {
+        RedisResponse response;
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            response = pending.poll();
+        } finally {
+            lock.unlock();
+        }
+        if (response == null) {
+            logger.error("no pending command for response: " + node);
+            return;
+        }
+        response.complete(node, null);
+    }
+
+    protected void onClosed() {
+        RedisResponse[] responses;
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            closed = true;
+            responses = pending.toArray(new RedisResponse[pending.size()]);
+            pending.clear();
+        } finally {
+            lock.unlock();
+        }
+        IOException e = new ClosedChannelException();
+        for (RedisResponse response : responses) {
+            response.complete(null, e);
+        }
+    }
+
+}
@@ -62,10 +62,27 @@ public class RedisFutureImpl extends AbstractRedisFuture {
 
                         int size = Integer.parseInt(line.substring(1));
 
-                        currentNode.createChildren(size);
-
                         currentNode.setType(TYPE_ARRAYS);
 
+                        // 空数组或null数组(如WATCH失败时EXEC的回复)
+                        if (size < 1) {
+
+                            RedisNode n0 = currentNode.deepNext();
+
+                            if (n0 == null) {
+
+                                doComplete();
+
+                                return true;
+                            }
+
+                            currentNode = n0;
+
+                            break;
+                        }
+
+                        currentNode.createChildren(size);
+
                         currentNode = currentNode.getChildren()[0];
 
                         break;
@@ -96,9 +113,19 @@ public class RedisFutureImpl extends AbstractRedisFuture {
 
                         currentNode.setValue(line.substring(1));
 
-                        doComplete();
+                        // EXEC回复的数组中可能包含错误
+                        RedisNode n2 = currentNode.deepNext();
+
+                        if (n2 == null) {
+
+                            doComplete();
 
-                        return true;
+                            return true;
+                        }
+
+                        currentNode = n2;
+
+                        break;
                     case TYPE_INTEGERS:
 
                         int intValue = Integer.parseInt(line.substring(1));
@@ -15,33 +15,32 @@
  */
 package com.generallycloud.baseio.codec.redis.future;
 
+import com.generallycloud.baseio.common.CloseUtil;
 import com.generallycloud.baseio.component.IoEventHandleAdaptor;
 import com.generallycloud.baseio.component.SocketSession;
-import com.generallycloud.baseio.concurrent.Waiter;
 import com.generallycloud.baseio.protocol.Future;
 
 public class RedisIOEventHandle extends IoEventHandleAdaptor {
 
-    private Waiter<RedisNode> waiter;
-
     @Override
     public void accept(SocketSession session, Future future) throws Exception {
 
-        RedisFuture f = (RedisFuture) future;
-
-        Waiter<RedisNode> waiter = this.waiter;
-
-        if (waiter != null) {
+        RedisConnection connection = (RedisConnection) session.getAttachment();
 
-            this.waiter = null;
-
-            waiter.setPayload(f.getRedisNode());
+        if (connection == null) {
+            return;
         }
 
+        connection.onResponse(((RedisFuture) future).getRedisNode());
     }
 
-    public void setWaiter(Waiter<RedisNode> waiter) {
-        this.waiter = waiter;
+    @Override
+    public void exceptionCaught(SocketSession session, Future future, Exception ex) {
+        super.exceptionCaught(session, future, ex);
+        // 命令未能写出时后续回复已无法与命令对应，关闭连接让等待中的命令失败
+        if (future instanceof RedisCmdFuture) {
+            CloseUtil.close(session);
+        }
     }
 
 }
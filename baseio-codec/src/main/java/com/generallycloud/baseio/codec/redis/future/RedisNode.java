@@ -113,6 +113,10 @@ public class RedisNode {
 
         if (value == null) {
 
+            if (children == null) {
+                return null;
+            }
+
             StringBuilder b = new StringBuilder();
 
             for (int i = 0; i < children.length; i++) {
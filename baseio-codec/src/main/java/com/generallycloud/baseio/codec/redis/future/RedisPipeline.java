@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.redis.future;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.generallycloud.baseio.codec.redis.future.RedisFuture.RedisCommand;
+
+/**
+ * 批量发送命令，所有命令编码进同一个future一次写出；
+ * 事务模式下以MULTI开头、EXEC结尾，各命令的结果取自EXEC的回复
+ */
+public class RedisPipeline {
+
+    private RedisConnection     connection;
+    private RedisCmdFuture      future;
+    private boolean             transaction;
+    private boolean             executed;
+    private List<RedisResponse> responses = new ArrayList<>();
+
+    protected RedisPipeline(RedisConnection connection, boolean transaction) {
+        this.connection = connection;
+        this.transaction = transaction;
+        this.future = new RedisCmdFuture(connection.getSession().getContext());
+        if (transaction) {
+            future.writeCommand(RedisCommand.MULTI.raw);
+        }
+    }
+
+    public RedisResponse sendCommand(RedisCommand command, byte[]... args) {
+        if (executed) {
+            throw new IllegalStateException("pipeline executed");
+        }
+        future.writeCommand(command.raw, args);
+        RedisResponse response = new RedisResponse();
+        responses.add(response);
+        return response;
+    }
+
+    public List<RedisResponse> execute() {
+        if (executed) {
+            throw new IllegalStateException("pipeline executed");
+        }
+        executed = true;
+        if (responses.isEmpty()) {
+            return responses;
+        }
+        if (!transaction) {
+            connection.flush(future, responses);
+            return responses;
+        }
+        future.writeCommand(RedisCommand.EXEC.raw);
+        // MULTI与各命令的QUEUED回复仅用于占位
+        int size = responses.size();
+        List<RedisResponse> pending = new ArrayList<>(size + 2);
+        for (int i = 0; i < size + 1; i++) {
+            pending.add(new RedisResponse());
+        }
+        RedisResponse exec = new RedisResponse();
+        exec.setOnResponse(new OnRedisResponse() {
+
+            @Override
+            public void onResponse(RedisResponse response) {
+                dispatchExec(response);
+            }
+        });
+        pending.add(exec);
+        connection.flush(future, pending);
+        return responses;
+    }
+
+    /**
+     * 事务被放弃(EXECABORT或WATCH的key被修改)时，EXEC回复不是数组，
+     * 这时每条命令得到的都是EXEC的回复
+     */
+    private void dispatchExec(RedisResponse exec) {
+        IOException e = exec.getException();
+        RedisNode node = exec.getRedisNode();
+        RedisNode[] children = node == null ? null : node.getChildren();
+        for (int i = 0; i < responses.size(); i++) {
+            RedisResponse response = responses.get(i);
+            if (e != null) {
+                response.complete(null, e);
+            } else if (children != null && i < children.length) {
+                response.complete(children[i], null);
+            } else {
+                response.complete(node, null);
+            }
+        }
+    }
+
+}
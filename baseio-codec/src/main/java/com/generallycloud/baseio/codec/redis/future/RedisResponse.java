@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.redis.future;
+
+import java.io.IOException;
+
+import com.generallycloud.baseio.TimeoutException;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
+
+/**
+ * 一条redis命令的异步结果，收到回复或连接关闭时完成，
+ * 回调在IO线程中执行，请勿在回调中阻塞
+ */
+public class RedisResponse {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisResponse.class);
+
+    private boolean             done;
+    private IOException         exception;
+    private RedisNode           redisNode;
+    private OnRedisResponse     onResponse;
+
+    public RedisNode get(long timeout) throws IOException {
+        synchronized (this) {
+            long deadline = System.currentTimeMillis() + timeout;
+            while (!done) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new TimeoutException("timeout");
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return redisNode;
+    }
+
+    public synchronized IOException getException() {
+        return exception;
+    }
+
+    public synchronized RedisNode getRedisNode() {
+        return redisNode;
+    }
+
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * 已完成时在当前线程立即回调
+     */
+    public void setOnResponse(OnRedisResponse onResponse) {
+        synchronized (this) {
+            if (!done) {
+                this.onResponse = onResponse;
+                return;
+            }
+        }
+        callback(onResponse);
+    }
+
+    protected void complete(RedisNode redisNode, IOException exception) {
+        OnRedisResponse onResponse;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            this.done = true;
+            this.redisNode = redisNode;
+            this.exception = exception;
+            onResponse = this.onResponse;
+            notifyAll();
+        }
+        if (onResponse != null) {
+            callback(onResponse);
+        }
+    }
+
+    private void callback(OnRedisResponse onResponse) {
+        try {
+            onResponse.onResponse(this);
+        } catch (Throwable e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+}
@@ -16,8 +16,10 @@
 package com.generallycloud.baseio.container;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import com.generallycloud.baseio.codec.protobase.future.ProtobaseFuture;
 import com.generallycloud.baseio.common.CloseUtil;
@@ -32,9 +34,9 @@ public class FileReceiveUtil {
 
     public static final String IS_END      = "isEnd";
 
-    private Logger             logger      = LoggerFactory.getLogger(FileReceiveUtil.class);
+    public static final String POSITION    = "position";
 
-    private int                num;
+    private Logger             logger      = LoggerFactory.getLogger(FileReceiveUtil.class);
 
     private String             prefix;
 
@@ -44,37 +46,64 @@ public class FileReceiveUtil {
         this.prefix = prefix;
     }
 
+    /**
+     * 返回已接收的文件长度，发送方可以从该位置开始续传
+     */
+    public long getReceivedLength(String fileName) {
+        File file = new File(prefix + fileName);
+        if (!file.exists()) {
+            return 0;
+        }
+        return file.length();
+    }
+
     public void accept(SocketSession session, ProtobaseFuture future, boolean callback)
             throws Exception {
 
         Parameters parameters = future.getParameters();
 
-        OutputStream outputStream = (OutputStream) session.getAttribute(ACCEPT_FILE);
+        long position = parameters.getLongParameter(POSITION, -1);
 
-        if (outputStream == null) {
+        FileChannel fileChannel = (FileChannel) session.getAttribute(ACCEPT_FILE);
+
+        if (fileChannel == null) {
 
             String fileName = prefix + parameters.getParameter(FILE_NAME);
 
-            outputStream = new FileOutputStream(new File(fileName));
+            fileChannel = open(fileName, position);
 
-            session.setAttribute(ACCEPT_FILE, outputStream);
+            session.setAttribute(ACCEPT_FILE, fileChannel);
 
-            logger.info("accept...................open,file={}", fileName);
+            logger.info("accept...................open,file={},position={}", fileName, position);
         }
 
-        byte[] data = future.getBinary();
-
-        outputStream.write(data, 0, future.getBinaryLength());
+        int length = future.getBinaryLength();
+
+        if (length > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(future.getBinary(), 0, length);
+            try {
+                // 老版本的发送方不携带position，按顺序追加写入
+                if (position < 0) {
+                    write(fileChannel, buffer);
+                } else {
+                    write(fileChannel, buffer, position);
+                }
+            } catch (IOException e) {
+                CloseUtil.close(fileChannel);
+                session.removeAttribute(ACCEPT_FILE);
+                throw e;
+            }
+        }
 
-        logger.info("accept...................{},{}", future.getBinaryLength(), (num++));
+        logger.debug("accept...................{},{}", length, position);
 
         boolean isEnd = parameters.getBooleanParameter(IS_END);
 
         if (isEnd) {
 
-            logger.info("accept...................close,stream={}", outputStream);
+            logger.info("accept...................close,size={}", fileChannel.size());
 
-            CloseUtil.close(outputStream);
+            CloseUtil.close(fileChannel);
 
             session.removeAttribute(ACCEPT_FILE);
 
@@ -86,4 +115,35 @@ public class FileReceiveUtil {
             }
         }
     }
+
+    private FileChannel open(String fileName, long position) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+        FileChannel fileChannel = file.getChannel();
+        try {
+            // 从头开始传输时丢弃旧文件的内容，续传时保留position之前的数据
+            if (position <= 0) {
+                fileChannel.truncate(0);
+            } else {
+                fileChannel.truncate(position);
+            }
+            fileChannel.position(fileChannel.size());
+        } catch (IOException e) {
+            CloseUtil.close(file);
+            throw e;
+        }
+        return fileChannel;
+    }
+
+    private void write(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+        for (; buffer.hasRemaining();) {
+            fileChannel.write(buffer);
+        }
+    }
+
+    private void write(FileChannel fileChannel, ByteBuffer buffer, long position)
+            throws IOException {
+        for (; buffer.hasRemaining();) {
+            position += fileChannel.write(buffer, position);
+        }
+    }
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.container;
+
+import java.io.File;
+
+import com.generallycloud.baseio.component.SocketSession;
+
+/**
+ * {@link FileSendUtil}发送文件完成或失败时的通知，在执行发送的线程中调用
+ */
+public interface FileSendCallback {
+
+    public abstract void onSuccess(SocketSession session, File file);
+
+    public abstract void onException(SocketSession session, File file, Exception e);
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.container;
+
+import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.component.SocketSessionEventListenerAdapter;
+
+/**
+ * 使用{@link FileSendUtil}发送文件时需注册该listener，session可写时继续发送，
+ * 关闭时通知未完成的发送失败
+ */
+public class FileSendSEListener extends SocketSessionEventListenerAdapter {
+
+    @Override
+    public void sessionClosed(SocketSession session) {
+        FileSendUtil.close(session);
+    }
+
+    @Override
+    public void channelWritabilityChanged(SocketSession session) {
+        if (session.isWritable()) {
+            FileSendUtil.resume(session);
+        }
+    }
+
+}
@@ -15,60 +15,308 @@
  */
 package com.generallycloud.baseio.container;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alibaba.fastjson.JSONObject;
+import com.generallycloud.baseio.ClosedChannelException;
 import com.generallycloud.baseio.codec.protobase.future.ProtobaseFuture;
 import com.generallycloud.baseio.codec.protobase.future.ProtobaseFutureImpl;
 import com.generallycloud.baseio.common.CloseUtil;
-import com.generallycloud.baseio.common.FileUtil;
+import com.generallycloud.baseio.component.SocketChannel;
+import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.component.SocketSessionEventListenerWrapper;
+import com.generallycloud.baseio.component.UnsafeSocketSession;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
 
+/**
+ * 分段发送文件，写队列中待发送的字节数超过高水位时暂停，由{@link FileSendSEListener}
+ * 在session回落到低水位以下后于session的ExecutorEventLoop中继续发送，调用线程不会阻塞。
+ * 使用前需要在context启动前注册FileSendSEListener(未注册时sendFile直接抛出异常)，
+ * 同一session上的多个文件按调用顺序依次发送
+ */
 public class FileSendUtil {
 
+    private static final Logger                                   logger        = LoggerFactory
+            .getLogger(FileSendUtil.class);
+    // 每个session一个sender，session关闭时移除
+    private static final ConcurrentMap<SocketSession, FileSender> senders       = new ConcurrentHashMap<>();
+    // 写队列中待发送的字节数超过该值时暂停读取文件
+    private int                                                   highWaterMark = 1024 * 1024 * 8;
+    // 写队列中待发送的字节数回落到该值以下时继续读取文件
+    private int                                                   lowWaterMark  = 1024 * 1024 * 2;
+
     public void sendFile(SocketSession session, String serviceName, File file, int cacheSize)
-            throws Exception {
+            throws IOException {
+        sendFile(session, serviceName, file, cacheSize, 0, null);
+    }
 
-        FileInputStream inputStream = new FileInputStream(file);
+    public void sendFile(SocketSession session, String serviceName, File file, int cacheSize,
+            long position) throws IOException {
+        sendFile(session, serviceName, file, cacheSize, position, null);
+    }
 
-        int available = inputStream.available();
+    /**
+     * 从position处开始发送文件，用于断点续传。本方法只负责打开文件并开始发送，
+     * 发送完成或失败(包括连接关闭)时通知callback，callback为null时失败只记录日志。
+     * 发送期间session的写缓冲水位会被设置为本对象的水位
+     */
+    public void sendFile(SocketSession session, String serviceName, File file, int cacheSize,
+            long position, FileSendCallback callback) throws IOException {
+        // 没有listener时不会继续发送，sender也不会在session关闭时从senders中移除
+        if (!isListenerRegistered(session.getContext())) {
+            throw new IllegalStateException(
+                    "FileSendSEListener not registered in context: " + session.getContext());
+        }
+        FileSendTask task = new FileSendTask(session, serviceName, file, cacheSize, position,
+                callback);
+        SocketChannel channel = ((UnsafeSocketSession) session).getSocketChannel();
+        channel.setWriteBufferWaterMark(lowWaterMark, highWaterMark);
+        FileSender sender = senders.get(session);
+        if (sender == null) {
+            sender = new FileSender();
+            FileSender old = senders.putIfAbsent(session, sender);
+            if (old != null) {
+                sender = old;
+            } else if (!session.isOpened()) {
+                // sessionClosed可能已经触发过，不再等待它来移除
+                senders.remove(session, sender);
+            }
+        }
+        sender.offer(task);
+    }
 
-        int time = (available + cacheSize) / cacheSize - 1;
+    private static boolean isListenerRegistered(SocketChannelContext context) {
+        SocketSessionEventListenerWrapper link = context.getSessionEventListenerLink();
+        for (; link != null; link = link.getNext()) {
+            if (link.getValue() instanceof FileSendSEListener) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        byte[] cache = new byte[cacheSize];
+    // session回落到低水位以下，在session的ExecutorEventLoop中继续发送
+    static void resume(final SocketSession session) {
+        final FileSender sender = senders.get(session);
+        if (sender == null) {
+            return;
+        }
+        try {
+            session.getExecutorEventLoop().dispatch(new Runnable() {
 
-        JSONObject json = new JSONObject();
-        json.put(FileReceiveUtil.FILE_NAME, file.getName());
-        json.put(FileReceiveUtil.IS_END, false);
+                @Override
+                public void run() {
+                    sender.resume();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            senders.remove(session, sender);
+            sender.close(e);
+        }
+    }
 
-        String jsonString = json.toJSONString();
+    static void close(SocketSession session) {
+        FileSender sender = senders.remove(session);
+        if (sender != null) {
+            sender.close(new ClosedChannelException(session.toString()));
+        }
+    }
 
-        for (int i = 0; i < time; i++) {
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
 
-            FileUtil.readInputStream(inputStream, cache);
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
 
-            ProtobaseFuture f = new ProtobaseFutureImpl(session.getContext(), serviceName);
+    public void setHighWaterMark(int highWaterMark) {
+        this.highWaterMark = highWaterMark;
+    }
+
+    public void setLowWaterMark(int lowWaterMark) {
+        this.lowWaterMark = lowWaterMark;
+    }
 
-            f.write(jsonString);
+    /**
+     * 一个session上待发送的文件。同一时刻只有一个线程在发送，其它线程的调用
+     * (包括发送过程中由写出触发的重入)只增加wip，由正在发送的线程重新检查，
+     * 因此可以在持有channel锁的回调中直接调用而不会阻塞
+     */
+    private static class FileSender {
 
-            f.writeBinary(cache);
+        private Queue<FileSendTask> tasks = new ConcurrentLinkedQueue<>();
+        private AtomicInteger       wip   = new AtomicInteger();
+        private volatile Exception  closeCause;
 
-            session.flush(f);
+        void offer(FileSendTask task) {
+            tasks.offer(task);
+            resume();
         }
 
-        int r = FileUtil.readInputStream(inputStream, cache);
+        void resume() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                drain();
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
 
-        json.put(FileReceiveUtil.IS_END, true);
+        void close(Exception e) {
+            closeCause = e;
+            resume();
+        }
 
-        ProtobaseFuture f = new ProtobaseFutureImpl(session.getContext(), serviceName);
+        private void drain() {
+            for (;;) {
+                FileSendTask task = tasks.peek();
+                if (task == null) {
+                    return;
+                }
+                Exception cause = closeCause;
+                if (cause != null) {
+                    tasks.poll();
+                    task.onException(cause);
+                    continue;
+                }
+                try {
+                    if (!task.send()) {
+                        return;
+                    }
+                    tasks.poll();
+                    task.onSuccess();
+                } catch (Exception e) {
+                    tasks.poll();
+                    task.onException(e);
+                }
+            }
+        }
+    }
 
-        f.write(json.toJSONString());
+    private static class FileSendTask {
 
-        f.writeBinary(cache, 0, r);
+        private SocketSession    session;
+        private SocketChannel    channel;
+        private String           serviceName;
+        private File             file;
+        private FileInputStream  inputStream;
+        private FileChannel      fileChannel;
+        private long             position;
+        private long             size;
+        // 编码时binary会被拷贝到channel的内存池中，cache可以在每次发送之间复用
+        private byte[]           cache;
+        private ByteBuffer       buffer;
+        private JSONObject       json = new JSONObject();
+        private FileSendCallback callback;
 
-        session.flush(f);
+        FileSendTask(SocketSession session, String serviceName, File file, int cacheSize,
+                long position, FileSendCallback callback) throws IOException {
+            this.session = session;
+            this.channel = ((UnsafeSocketSession) session).getSocketChannel();
+            this.serviceName = serviceName;
+            this.file = file;
+            this.position = position;
+            this.callback = callback;
+            this.inputStream = new FileInputStream(file);
+            this.fileChannel = inputStream.getChannel();
+            try {
+                this.size = fileChannel.size();
+            } catch (IOException e) {
+                CloseUtil.close(inputStream);
+                throw e;
+            }
+            this.cache = new byte[cacheSize];
+            this.buffer = ByteBuffer.wrap(cache);
+            this.json.put(FileReceiveUtil.FILE_NAME, file.getName());
+        }
 
-        CloseUtil.close(inputStream);
+        /**
+         * @return 发送完成返回true，写队列越过高水位需等待时返回false
+         */
+        boolean send() throws IOException {
+            for (;;) {
+                if (!channel.isOpened()) {
+                    throw new ClosedChannelException(session.toString());
+                }
+                if (!channel.isWritable()) {
+                    return false;
+                }
+                buffer.clear();
+                int r = read(fileChannel, buffer, position);
+                if (r < cache.length && position + r < size) {
+                    // 发送期间文件被截断，继续发送会一直读不到数据
+                    throw new EOFException("file truncated: " + file.getName() + ", expected size: "
+                            + size + ", actual: " + (position + r));
+                }
+                boolean isEnd = position + r >= size;
+                json.put(FileReceiveUtil.POSITION, position);
+                json.put(FileReceiveUtil.IS_END, isEnd);
+                ProtobaseFuture f = new ProtobaseFutureImpl(session.getContext(), serviceName);
+                f.write(json.toJSONString());
+                f.writeBinary(cache, 0, r);
+                session.flush(f);
+                if (isEnd) {
+                    return true;
+                }
+                position += r;
+            }
+        }
+
+        private int read(FileChannel fileChannel, ByteBuffer buffer, long position)
+                throws IOException {
+            int r = 0;
+            for (; buffer.hasRemaining();) {
+                int n = fileChannel.read(buffer, position + r);
+                if (n == -1) {
+                    break;
+                }
+                r += n;
+            }
+            return r;
+        }
+
+        void onSuccess() {
+            CloseUtil.close(inputStream);
+            if (callback == null) {
+                return;
+            }
+            try {
+                callback.onSuccess(session, file);
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+
+        void onException(Exception e) {
+            CloseUtil.close(inputStream);
+            if (callback == null) {
+                logger.error("send file failed: " + file.getName() + ", " + e.getMessage(), e);
+                return;
+            }
+            try {
+                callback.onException(session, file, e);
+            } catch (Exception ex) {
+                logger.error(ex.getMessage(), ex);
+            }
+        }
     }
 }
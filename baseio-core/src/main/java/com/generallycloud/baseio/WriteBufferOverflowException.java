@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio;
+
+import java.io.IOException;
+
+/**
+ * 写队列中待发送的字节数超过上限时，拒绝写入的future以此异常结束
+ */
+@SuppressWarnings("serial")
+public class WriteBufferOverflowException extends IOException {
+
+    public WriteBufferOverflowException(String message) {
+        super(message);
+    }
+
+}
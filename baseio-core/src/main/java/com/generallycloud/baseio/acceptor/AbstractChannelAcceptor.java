@@ -56,7 +56,9 @@ public abstract class AbstractChannelAcceptor extends AbstractChannelService
 
     @Override
     protected void setServerCoreSize(ServerConfiguration configuration) {
-        if (this instanceof DatagramChannelAcceptor) {
+        // udp只有在SO_REUSEPORT时才会为每个selector线程绑定单独的socket
+        if (this instanceof DatagramChannelAcceptor
+                && !configuration.isSERVER_DATAGRAM_REUSE_PORT()) {
             configuration.setSERVER_CORE_SIZE(1);
         }
     }
@@ -72,7 +72,7 @@ public class AioSocketChannelAcceptor extends AbstractSocketChannelAcceptor {
 
                 channel.fireOpend();
 
-                aioThread.getReadCompletionHandler().completed(0, channel);
+                channel.read();
             }
 
             @Override
@@ -17,16 +17,19 @@ package com.generallycloud.baseio.acceptor;
 
 import java.io.IOException;
 import java.net.BindException;
-import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.channels.DatagramChannel;
-import java.nio.channels.SelectableChannel;
 
 import com.generallycloud.baseio.LifeCycleUtil;
 import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.common.LoggerUtil;
 import com.generallycloud.baseio.component.DatagramChannelContext;
 import com.generallycloud.baseio.component.DatagramSelectorEventLoopGroup;
 import com.generallycloud.baseio.configuration.ServerConfiguration;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.Future;
 
@@ -34,36 +37,92 @@ public final class DatagramChannelAcceptor extends AbstractChannelAcceptor {
 
     private DatagramChannelContext         context                = null;
 
-    private DatagramSocket                 datagramSocket         = null;
-
-    private SelectableChannel              selectableChannel      = null;
+    private DatagramChannel[]              channels               = null;
 
     private DatagramSelectorEventLoopGroup selectorEventLoopGroup = null;
 
+    private Logger                         logger                 = LoggerFactory
+            .getLogger(getClass());
+
     public DatagramChannelAcceptor(DatagramChannelContext context) {
         this.context = context;
     }
 
     @Override
     protected void bind(InetSocketAddress socketAddress) throws IOException {
-        initChannel();
+        ServerConfiguration configuration = getContext().getServerConfiguration();
+        int channelSize = 1;
+        SocketOption<Boolean> reusePort = null;
+        if (configuration.isSERVER_DATAGRAM_REUSE_PORT()) {
+            reusePort = getReusePortOption();
+            if (reusePort == null) {
+                logger.info("SO_REUSEPORT not supported, fall back to single datagram channel");
+            } else {
+                channelSize = configuration.getSERVER_CORE_SIZE();
+            }
+        }
+        DatagramChannel[] channels = new DatagramChannel[channelSize];
+        boolean bound = false;
         try {
-            datagramSocket.bind(socketAddress);
-        } catch (BindException e) {
-            throw new BindException(e.getMessage() + " at " + socketAddress.getPort());
+            for (int i = 0; i < channelSize; i++) {
+                DatagramChannel channel = DatagramChannel.open();
+                channels[i] = channel;
+                // 服务器配置为非阻塞
+                channel.configureBlocking(false);
+                if (reusePort != null) {
+                    channel.setOption(reusePort, true);
+                }
+                try {
+                    channel.bind(socketAddress);
+                } catch (BindException e) {
+                    throw new BindException(e.getMessage() + " at " + socketAddress.getPort());
+                }
+                // 端口为0时后续socket绑定到第一个socket实际分配的端口
+                if (i == 0) {
+                    socketAddress = (InetSocketAddress) channel.getLocalAddress();
+                }
+            }
+            bound = true;
+        } finally {
+            // 任一socket失败时关闭已经打开的socket，避免端口一直被占用
+            if (!bound) {
+                for (DatagramChannel channel : channels) {
+                    CloseUtil.close(channel);
+                }
+            }
+        }
+        this.channels = channels;
+        if (channelSize > 1) {
+            LoggerUtil.prettyLog(logger, "datagram reuse port channels:{ {} }", channelSize);
         }
         initSelectorLoops();
     }
 
     private void initSelectorLoops() {
-        //FIXME socket selector event loop ?
-        ServerConfiguration configuration = getContext().getServerConfiguration();
-        int core_size = configuration.getSERVER_CORE_SIZE();
-        this.selectorEventLoopGroup = new DatagramSelectorEventLoopGroup(getContext(), "io-process",
-                core_size, (java.nio.channels.DatagramChannel) selectableChannel);
+        // 每个socket一个selector线程，共享一个socket时多个线程同时receive并无意义
+        this.selectorEventLoopGroup = new DatagramSelectorEventLoopGroup(getContext(),
+                "io-process", channels.length, channels);
         LifeCycleUtil.start(selectorEventLoopGroup);
     }
 
+    // StandardSocketOptions.SO_REUSEPORT自jdk9起提供，且仅在系统支持时可用
+    @SuppressWarnings("unchecked")
+    private SocketOption<Boolean> getReusePortOption() throws IOException {
+        SocketOption<Boolean> option;
+        try {
+            option = (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT")
+                    .get(null);
+        } catch (Exception e) {
+            return null;
+        }
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            return channel.supportedOptions().contains(option) ? option : null;
+        } finally {
+            CloseUtil.close(channel);
+        }
+    }
+
     @Override
     public void broadcast(final Future future) {
         throw new UnsupportedOperationException();
@@ -81,17 +140,12 @@ public final class DatagramChannelAcceptor extends AbstractChannelAcceptor {
 
     @Override
     protected void destroyService() {
-        CloseUtil.close(datagramSocket);
-        CloseUtil.close(selectableChannel);
         LifeCycleUtil.stop(selectorEventLoopGroup);
-    }
-
-    private void initChannel() throws IOException {
-        // 打开服务器套接字通道
-        this.selectableChannel = DatagramChannel.open();
-        // 服务器配置为非阻塞
-        this.selectableChannel.configureBlocking(false);
-        this.datagramSocket = ((DatagramChannel) this.selectableChannel).socket();
+        if (channels != null) {
+            for (DatagramChannel channel : channels) {
+                CloseUtil.close(channel);
+            }
+        }
     }
 
     @Override
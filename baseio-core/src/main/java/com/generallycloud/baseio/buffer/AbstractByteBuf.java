@@ -24,6 +24,7 @@ public abstract class AbstractByteBuf implements ByteBuf {
     protected int              capacity;
     protected boolean          released;
     protected int              referenceCount = 0;
+    ByteBufLeakDetector.LeakTracker leakTracker;
 
     protected AbstractByteBuf(ByteBufAllocator allocator) {
         this.allocator = allocator;
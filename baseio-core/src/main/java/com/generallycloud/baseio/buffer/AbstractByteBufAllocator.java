@@ -20,10 +20,49 @@ import com.generallycloud.baseio.AbstractLifeCycle;
 public abstract class AbstractByteBufAllocator extends AbstractLifeCycle
         implements ByteBufAllocator {
 
-    protected boolean isDirect;
+    protected boolean                isDirect;
+
+    protected ByteBufAllocatorMetric metric;
+
+    protected ByteBufLeakDetector    leakDetector;
 
     public AbstractByteBufAllocator(boolean isDirect) {
         this.isDirect = isDirect;
+        this.metric = new ByteBufAllocatorMetric(this);
+    }
+
+    protected void onAllocate(PooledByteBuf buf) {
+        metric.onAllocate(buf.capacity());
+        if (leakDetector != null) {
+            leakDetector.track((AbstractByteBuf) buf);
+        }
+    }
+
+    protected void onRelease(ByteBuf buf) {
+        metric.onRelease(buf.capacity());
+        if (leakDetector != null) {
+            leakDetector.untrack((AbstractByteBuf) buf);
+        }
+    }
+
+    /**
+     * @return 空闲内存中不属于最大连续空闲块的比例，0表示没有碎片
+     */
+    public double getFragmentation() {
+        return 0;
+    }
+
+    @Override
+    public ByteBufAllocatorMetric getMetric() {
+        return metric;
+    }
+
+    public ByteBufLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    public void setLeakDetector(ByteBufLeakDetector leakDetector) {
+        this.leakDetector = leakDetector;
     }
 
     @Override
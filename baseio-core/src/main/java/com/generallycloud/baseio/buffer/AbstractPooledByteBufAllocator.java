@@ -39,6 +39,9 @@ public abstract class AbstractPooledByteBufAllocator extends AbstractByteBufAllo
 
     protected ReentrantLock     lock;
 
+    // 本次申请扫描过的单元数，持有lock时使用
+    protected int               scanLength;
+
     protected List<ByteBufUnit> busyUnit = new ArrayList<>();
 
     protected Logger            logger   = LoggerFactory
@@ -71,6 +74,8 @@ public abstract class AbstractPooledByteBufAllocator extends AbstractByteBufAllo
 
             int mask = this.mask;
 
+            scanLength = 0;
+
             PooledByteBuf buf = allocate(byteBufNew, limit, mask, this.capacity, size);
 
             if (buf == null) {
@@ -78,6 +83,15 @@ public abstract class AbstractPooledByteBufAllocator extends AbstractByteBufAllo
                 buf = allocate(byteBufNew, limit, 0, mask, size);
             }
 
+            metric.onScan(scanLength);
+
+            if (buf == null) {
+                metric.onAllocateFailure();
+                return null;
+            }
+
+            onAllocate(buf);
+
             return buf;
 
         } finally {
@@ -109,6 +123,9 @@ public abstract class AbstractPooledByteBufAllocator extends AbstractByteBufAllo
 
             ReleaseUtil.release(buf);
 
+            // newBuf的内存转移给了buf，newBuf对象本身不会再release
+            untrack(newBuf);
+
             return buf.newByteBuf(this).produce(newBuf);
         }
 
@@ -122,6 +139,51 @@ public abstract class AbstractPooledByteBufAllocator extends AbstractByteBufAllo
         return newBuf;
     }
 
+    private void untrack(PooledByteBuf buf) {
+        if (leakDetector != null) {
+            leakDetector.untrack((AbstractByteBuf) buf);
+        }
+    }
+
+    @Override
+    public double getFragmentation() {
+        ReentrantLock lock = this.lock;
+        if (lock == null) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return getFragmentation0();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double getFragmentation0() {
+        ByteBufUnit[] units = getUnits();
+        int free = 0;
+        int maxFreeRun = 0;
+        for (int i = 0; i < units.length;) {
+            ByteBufUnit unit = units[i];
+            if (!unit.free) {
+                i = unit.blockEnd;
+                continue;
+            }
+            int run = 0;
+            for (; i < units.length && units[i].free; i++) {
+                run++;
+            }
+            free += run;
+            if (run > maxFreeRun) {
+                maxFreeRun = run;
+            }
+        }
+        if (free == 0) {
+            return 0;
+        }
+        return 1 - (double) maxFreeRun / free;
+    }
+
     @Override
     public void freeMemory() {
         bufFactory.freeMemory();
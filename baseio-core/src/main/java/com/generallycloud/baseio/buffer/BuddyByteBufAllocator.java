@@ -0,0 +1,392 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.buffer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.generallycloud.baseio.common.ReleaseUtil;
+
+/**
+ * 基于伙伴算法的内存池，内存按 1 &lt;&lt; chunkOrder 个单元划分为若干chunk，
+ * 每个chunk使用二叉树索引空闲块，申请和释放均为O(log n)。
+ * <p>
+ * 较小的内存块(不超过 1 &lt;&lt; CACHE_MAX_ORDER 个单元)释放后优先放回
+ * 申请该内存块的线程的缓存，即使由其它线程释放，申请线程再次申请同样大小时
+ * 也无需加锁。当chunk中无可用内存时会回收所有线程缓存中的内存块后重试。
+ * <p>
+ * 每个chunk持有独立的锁，申请时先尝试未被占用的chunk，不同线程的缓存未命中
+ * 只在落到同一chunk时竞争；lock仅保护线程缓存列表和启停，回收线程缓存时
+ * 逐块获取对应chunk的锁，不会阻塞其它chunk上的申请和释放。
+ */
+public class BuddyByteBufAllocator extends AbstractByteBufAllocator {
+
+    private static final int                          MAX_CHUNK_ORDER = 13;
+    private static final int                          CACHE_MAX_ORDER = 3;
+    private static final int                          CACHE_SIZE      = 32;
+
+    protected int                                     capacity;
+    protected int                                     unitMemorySize;
+    protected int                                     chunkOrder;
+    protected ByteBufFactory                          bufFactory;
+    protected ReentrantLock                           lock;
+    private BuddyChunk[]                              chunks;
+    private ReentrantLock[]                           chunkLocks;
+    // 每个已分配块起始单元对应的order
+    private byte[]                                    blockOrders;
+    // 每个已分配的小内存块起始单元对应的申请线程的缓存
+    private ByteBufThreadCache[]                      blockCaches;
+    private int                                       mask;
+    private volatile int                              generation;
+    private List<ByteBufThreadCache>                  caches          = new ArrayList<>();
+    private java.lang.ThreadLocal<ByteBufThreadCache> threadCache     = new java.lang.ThreadLocal<>();
+
+    public BuddyByteBufAllocator(int capacity, int unitMemorySize, boolean isDirect) {
+        super(isDirect);
+        int chunkOrder = 31 - Integer.numberOfLeadingZeros(Math.max(capacity, 1));
+        this.chunkOrder = Math.min(chunkOrder, MAX_CHUNK_ORDER);
+        this.capacity = (capacity >> this.chunkOrder) << this.chunkOrder;
+        this.unitMemorySize = unitMemorySize;
+    }
+
+    @Override
+    public ByteBuf allocate(int limit) {
+        return allocate(bufFactory, limit);
+    }
+
+    private PooledByteBuf allocate(ByteBufNew byteBufNew, int limit) {
+        int size = (limit + unitMemorySize - 1) / unitMemorySize;
+        int order = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        if (order > chunkOrder) {
+            return null;
+        }
+        ByteBufThreadCache cache = null;
+        if (order <= CACHE_MAX_ORDER) {
+            cache = getThreadCache();
+            if (cache != null) {
+                int begin = cache.poll(order);
+                if (begin != -1) {
+                    blockCaches[begin] = cache;
+                    PooledByteBuf buf = byteBufNew.newByteBuf(this).produce(begin,
+                            begin + (1 << order), limit);
+                    onAllocate(buf);
+                    return buf;
+                }
+            }
+        }
+        if (!isRunning()) {
+            return null;
+        }
+        int begin = allocateBlock(order);
+        if (begin == -1) {
+            drainThreadCaches(false);
+            begin = allocateBlock(order);
+            if (begin == -1) {
+                if (isRunning()) {
+                    metric.onAllocateFailure();
+                }
+                return null;
+            }
+        }
+        blockCaches[begin] = cache;
+        PooledByteBuf buf = byteBufNew.newByteBuf(this).produce(begin, begin + (1 << order),
+                limit);
+        onAllocate(buf);
+        return buf;
+    }
+
+    // 先跳过正被其它线程占用的chunk，全部失败后再依次等待每个chunk的锁
+    private int allocateBlock(int order) {
+        int begin = allocateBlock(order, true);
+        if (begin == -1) {
+            begin = allocateBlock(order, false);
+        }
+        return begin;
+    }
+
+    private int allocateBlock(int order, boolean tryLock) {
+        BuddyChunk[] chunks = this.chunks;
+        ReentrantLock[] chunkLocks = this.chunkLocks;
+        int length = chunks.length;
+        // mask只是起始位置的提示，并发下读到旧值不影响正确性
+        int mask = this.mask;
+        for (int i = 0; i < length; i++) {
+            int index = mask + i;
+            if (index >= length) {
+                index -= length;
+            }
+            ReentrantLock chunkLock = chunkLocks[index];
+            if (tryLock) {
+                if (!chunkLock.tryLock()) {
+                    continue;
+                }
+            } else {
+                chunkLock.lock();
+            }
+            try {
+                if (!isRunning()) {
+                    return -1;
+                }
+                int begin = chunks[index].allocate(order);
+                if (begin != -1) {
+                    blockOrders[begin] = (byte) order;
+                    this.mask = index;
+                    return begin;
+                }
+            } finally {
+                chunkLock.unlock();
+            }
+        }
+        return -1;
+    }
+
+    void freeBlock(int begin, int order) {
+        int index = begin >> chunkOrder;
+        ReentrantLock chunkLock = chunkLocks[index];
+        chunkLock.lock();
+        try {
+            chunks[index].free(begin, order);
+        } finally {
+            chunkLock.unlock();
+        }
+    }
+
+    // 回收所有线程缓存或者仅回收已结束线程的缓存
+    private void drainThreadCaches(boolean deadOnly) {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Iterator<ByteBufThreadCache> it = caches.iterator();
+            for (; it.hasNext();) {
+                ByteBufThreadCache cache = it.next();
+                boolean alive = cache.isThreadAlive();
+                if (deadOnly && alive) {
+                    continue;
+                }
+                if (alive) {
+                    cache.drain(this);
+                } else {
+                    cache.close(this);
+                    it.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ByteBufThreadCache getThreadCache() {
+        ByteBufThreadCache cache = threadCache.get();
+        int generation = this.generation;
+        if (cache != null && cache.getGeneration() == generation) {
+            return cache;
+        }
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (!isRunning()) {
+                return null;
+            }
+            drainThreadCaches(true);
+            cache = new ByteBufThreadCache(Thread.currentThread(), generation, CACHE_MAX_ORDER,
+                    CACHE_SIZE);
+            caches.add(cache);
+        } finally {
+            lock.unlock();
+        }
+        threadCache.set(cache);
+        return cache;
+    }
+
+    @Override
+    public void release(ByteBuf buf) {
+        onRelease(buf);
+        int begin = ((PooledByteBuf) buf).getBeginUnit();
+        int order = blockOrders[begin];
+        if (order <= CACHE_MAX_ORDER) {
+            // 放回申请线程的缓存，避免由其它线程释放的内存块堆积在释放线程的缓存中
+            ByteBufThreadCache cache = blockCaches[begin];
+            if (cache != null && cache.offer(order, begin)) {
+                return;
+            }
+        }
+        freeBlock(begin, order);
+    }
+
+    @Override
+    public ByteBuf reallocate(ByteBuf buf, int limit, boolean copyOld) {
+
+        if (limit <= buf.capacity()) {
+
+            if (copyOld) {
+                return buf.limit(limit);
+            }
+
+            return buf.position(0).limit(limit);
+        }
+
+        if (copyOld) {
+
+            PooledByteBuf newBuf = allocate(bufFactory, limit);
+
+            if (newBuf == null) {
+                throw new BufferException("reallocate failed");
+            }
+
+            newBuf.read(buf.flip());
+
+            ReleaseUtil.release(buf);
+
+            // newBuf的内存转移给了buf，newBuf对象本身不会再release
+            if (leakDetector != null) {
+                leakDetector.untrack((AbstractByteBuf) newBuf);
+            }
+
+            return buf.newByteBuf(this).produce(newBuf);
+        }
+
+        ReleaseUtil.release(buf);
+
+        ByteBuf newBuf = allocate(buf, limit);
+
+        if (newBuf == null) {
+            throw new BufferException("reallocate failed");
+        }
+        return newBuf;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        lock = new ReentrantLock();
+        if (isDirect) {
+            if (!(bufFactory instanceof DirectByteBufFactory)) {
+                bufFactory = new DirectByteBufFactory();
+            }
+        } else {
+            if (!(bufFactory instanceof HeapByteBufFactory)) {
+                bufFactory = new HeapByteBufFactory();
+            }
+        }
+        bufFactory.initializeMemory(capacity * unitMemorySize);
+        int chunkUnits = 1 << chunkOrder;
+        this.chunks = new BuddyChunk[capacity >> chunkOrder];
+        this.chunkLocks = new ReentrantLock[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new BuddyChunk(i * chunkUnits, chunkOrder);
+            chunkLocks[i] = new ReentrantLock();
+        }
+        this.blockOrders = new byte[capacity];
+        this.blockCaches = new ByteBufThreadCache[capacity];
+        this.mask = 0;
+        this.caches.clear();
+        this.generation++;
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        ReentrantLock lock = this.lock;
+        ReentrantLock[] chunkLocks = this.chunkLocks;
+        lock.lock();
+        for (ReentrantLock chunkLock : chunkLocks) {
+            chunkLock.lock();
+        }
+        try {
+            caches.clear();
+            freeMemory();
+        } finally {
+            for (ReentrantLock chunkLock : chunkLocks) {
+                chunkLock.unlock();
+            }
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void freeMemory() {
+        bufFactory.freeMemory();
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getUnitMemorySize() {
+        return unitMemorySize;
+    }
+
+    @Override
+    public double getFragmentation() {
+        ReentrantLock[] chunkLocks = this.chunkLocks;
+        if (chunkLocks == null) {
+            return 0;
+        }
+        int free = 0;
+        int maxFreeBlock = 0;
+        for (int i = 0; i < chunkLocks.length; i++) {
+            ReentrantLock chunkLock = chunkLocks[i];
+            chunkLock.lock();
+            try {
+                BuddyChunk chunk = chunks[i];
+                free += chunk.getFreeUnits();
+                maxFreeBlock = Math.max(maxFreeBlock, chunk.getMaxFreeBlockUnits());
+            } finally {
+                chunkLock.unlock();
+            }
+        }
+        if (free == 0) {
+            return 0;
+        }
+        return 1 - (double) maxFreeBlock / free;
+    }
+
+    private int getFreeUnits() {
+        ReentrantLock[] chunkLocks = this.chunkLocks;
+        if (chunkLocks == null) {
+            return 0;
+        }
+        int free = 0;
+        for (int i = 0; i < chunkLocks.length; i++) {
+            ReentrantLock chunkLock = chunkLocks[i];
+            chunkLock.lock();
+            try {
+                free += chunks[i].getFreeUnits();
+            } finally {
+                chunkLock.unlock();
+            }
+        }
+        return free;
+    }
+
+    @Override
+    public String toString() {
+        int free = getFreeUnits();
+        StringBuilder b = new StringBuilder();
+        b.append(this.getClass().getSimpleName());
+        b.append("[free=");
+        b.append(free);
+        b.append(",memory=");
+        b.append(capacity);
+        b.append(",isDirect=");
+        b.append(isDirect);
+        b.append("]");
+        return b.toString();
+    }
+
+}
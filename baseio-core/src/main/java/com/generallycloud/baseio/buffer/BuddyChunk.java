@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.buffer;
+
+/**
+ * 一块大小为 1 &lt;&lt; maxOrder 个内存单元的伙伴算法内存区，使用完全二叉树
+ * 记录每个子树中可分配的最大块，申请和释放均为O(log n)，非线程安全
+ */
+final class BuddyChunk {
+
+    private final int    unitOffset;
+    private final int    maxOrder;
+    private final byte   unusable;
+    // memoryMap[id]表示该节点子树中可分配的最浅深度，等于节点深度时表示整块空闲
+    private final byte[] memoryMap;
+    private int          freeUnits;
+
+    BuddyChunk(int unitOffset, int maxOrder) {
+        this.unitOffset = unitOffset;
+        this.maxOrder = maxOrder;
+        this.unusable = (byte) (maxOrder + 1);
+        this.memoryMap = new byte[1 << (maxOrder + 1)];
+        this.freeUnits = 1 << maxOrder;
+        int id = 1;
+        for (int d = 0; d <= maxOrder; d++) {
+            int n = 1 << d;
+            for (int i = 0; i < n; i++) {
+                memoryMap[id++] = (byte) d;
+            }
+        }
+    }
+
+    /**
+     * @param order 申请 1 &lt;&lt; order 个内存单元
+     * @return 起始单元（全局），无可用内存时返回-1
+     */
+    int allocate(int order) {
+        int d = maxOrder - order;
+        byte[] memoryMap = this.memoryMap;
+        if (memoryMap[1] > d) {
+            return -1;
+        }
+        int id = 1;
+        int initial = -(1 << d);
+        byte val = memoryMap[id];
+        while (val < d || (id & initial) == 0) {
+            id <<= 1;
+            val = memoryMap[id];
+            if (val > d) {
+                id ^= 1;
+                val = memoryMap[id];
+            }
+        }
+        memoryMap[id] = unusable;
+        updateParentsAlloc(id);
+        freeUnits -= 1 << order;
+        return unitOffset + ((id ^ (1 << d)) << order);
+    }
+
+    void free(int begin, int order) {
+        int d = maxOrder - order;
+        int id = (1 << d) + ((begin - unitOffset) >> order);
+        memoryMap[id] = (byte) d;
+        updateParentsFree(id, d);
+        freeUnits += 1 << order;
+    }
+
+    boolean contains(int begin) {
+        return begin >= unitOffset && begin < unitOffset + (1 << maxOrder);
+    }
+
+    int getFreeUnits() {
+        return freeUnits;
+    }
+
+    int getMaxFreeBlockUnits() {
+        int d = memoryMap[1];
+        if (d > maxOrder) {
+            return 0;
+        }
+        return 1 << (maxOrder - d);
+    }
+
+    private void updateParentsAlloc(int id) {
+        byte[] memoryMap = this.memoryMap;
+        while (id > 1) {
+            int parent = id >>> 1;
+            byte val1 = memoryMap[id];
+            byte val2 = memoryMap[id ^ 1];
+            memoryMap[parent] = val1 < val2 ? val1 : val2;
+            id = parent;
+        }
+    }
+
+    private void updateParentsFree(int id, int depth) {
+        byte[] memoryMap = this.memoryMap;
+        int childDepth = depth;
+        while (id > 1) {
+            int parent = id >>> 1;
+            byte val1 = memoryMap[id];
+            byte val2 = memoryMap[id ^ 1];
+            if (val1 == childDepth && val2 == childDepth) {
+                memoryMap[parent] = (byte) (childDepth - 1);
+            } else {
+                memoryMap[parent] = val1 < val2 ? val1 : val2;
+            }
+            childDepth--;
+            id = parent;
+        }
+    }
+
+}
@@ -42,4 +42,6 @@ public interface ByteBufAllocator extends LifeCycle {
 
     public abstract boolean isDirect();
 
+    public abstract ByteBufAllocatorMetric getMetric();
+
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.buffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单个内存池的统计信息，scanLengthHistogram[i]为扫描长度在
+ * [2^(i-1), 2^i)之间的申请次数(i=0表示未扫描)
+ */
+public class ByteBufAllocatorMetric implements ByteBufAllocatorMetricMBean {
+
+    private AbstractByteBufAllocator allocator;
+    private AtomicLong               allocations      = new AtomicLong();
+    private AtomicLong               releases         = new AtomicLong();
+    private AtomicLong               allocateFailures = new AtomicLong();
+    private AtomicLong               heapFallbacks    = new AtomicLong();
+    private AtomicLong               bytesInUse       = new AtomicLong();
+    private AtomicLong               highWaterBytes   = new AtomicLong();
+    private AtomicLong               leaks            = new AtomicLong();
+    private AtomicLongArray          scanLengths      = new AtomicLongArray(32);
+
+    public ByteBufAllocatorMetric(AbstractByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    protected void onAllocate(int capacity) {
+        allocations.incrementAndGet();
+        long inUse = bytesInUse.addAndGet(capacity);
+        AtomicLong highWaterBytes = this.highWaterBytes;
+        for (;;) {
+            long high = highWaterBytes.get();
+            if (inUse <= high || highWaterBytes.compareAndSet(high, inUse)) {
+                return;
+            }
+        }
+    }
+
+    protected void onRelease(int capacity) {
+        releases.incrementAndGet();
+        bytesInUse.addAndGet(-capacity);
+    }
+
+    protected void onAllocateFailure() {
+        allocateFailures.incrementAndGet();
+    }
+
+    protected long onHeapFallback() {
+        return heapFallbacks.incrementAndGet();
+    }
+
+    protected void onLeak() {
+        leaks.incrementAndGet();
+    }
+
+    protected void onScan(int length) {
+        scanLengths.incrementAndGet(32 - Integer.numberOfLeadingZeros(length));
+    }
+
+    @Override
+    public long getAllocations() {
+        return allocations.get();
+    }
+
+    @Override
+    public long getReleases() {
+        return releases.get();
+    }
+
+    @Override
+    public long getAllocateFailures() {
+        return allocateFailures.get();
+    }
+
+    @Override
+    public long getHeapFallbacks() {
+        return heapFallbacks.get();
+    }
+
+    @Override
+    public long getBytesInUse() {
+        return bytesInUse.get();
+    }
+
+    @Override
+    public long getHighWaterBytes() {
+        return highWaterBytes.get();
+    }
+
+    @Override
+    public double getFragmentation() {
+        return allocator.getFragmentation();
+    }
+
+    @Override
+    public long[] getScanLengthHistogram() {
+        long[] histogram = new long[scanLengths.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = scanLengths.get(i);
+        }
+        return histogram;
+    }
+
+    @Override
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("[allocations=");
+        b.append(getAllocations());
+        b.append(",releases=");
+        b.append(getReleases());
+        b.append(",failures=");
+        b.append(getAllocateFailures());
+        b.append(",heapFallbacks=");
+        b.append(getHeapFallbacks());
+        b.append(",bytesInUse=");
+        b.append(getBytesInUse());
+        b.append(",highWater=");
+        b.append(getHighWaterBytes());
+        b.append(",leaks=");
+        b.append(getLeaks());
+        b.append("]");
+        return b.toString();
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.buffer;
+
+/**
+ * 内存池统计信息的JMX接口
+ */
+public interface ByteBufAllocatorMetricMBean {
+
+    long getAllocations();
+
+    long getReleases();
+
+    long getAllocateFailures();
+
+    long getHeapFallbacks();
+
+    long getBytesInUse();
+
+    long getHighWaterBytes();
+
+    double getFragmentation();
+
+    long[] getScanLengthHistogram();
+
+    long getLeaks();
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
+
+/**
+ * 按采样间隔记录内存池ByteBuf的申请堆栈，ByteBuf未release便被GC时输出
+ * 申请时的堆栈。检测在申请内存时进行，不会额外创建线程。
+ */
+public class ByteBufLeakDetector {
+
+    private static final Logger     logger   = LoggerFactory.getLogger(ByteBufLeakDetector.class);
+
+    private int                     sampleInterval;
+    private ByteBufAllocatorMetric  metric;
+    private ReferenceQueue<ByteBuf> queue    = new ReferenceQueue<>();
+    private Set<LeakTracker>        trackers = Collections
+            .newSetFromMap(new ConcurrentHashMap<LeakTracker, Boolean>());
+
+    /**
+     * @param sampleInterval 平均每sampleInterval次申请记录一次
+     */
+    public ByteBufLeakDetector(int sampleInterval, ByteBufAllocatorMetric metric) {
+        this.sampleInterval = sampleInterval;
+        this.metric = metric;
+    }
+
+    protected void track(AbstractByteBuf buf) {
+        reportLeaks();
+        if (ThreadLocalRandom.current().nextInt(sampleInterval) != 0) {
+            return;
+        }
+        LeakTracker tracker = new LeakTracker(buf, queue,
+                new Throwable("LEAK: ByteBuf.release() was not called before GC, allocated at:"));
+        trackers.add(tracker);
+        buf.leakTracker = tracker;
+    }
+
+    protected void untrack(AbstractByteBuf buf) {
+        LeakTracker tracker = buf.leakTracker;
+        if (tracker == null) {
+            return;
+        }
+        buf.leakTracker = null;
+        trackers.remove(tracker);
+        tracker.clear();
+    }
+
+    private void reportLeaks() {
+        for (;;) {
+            LeakTracker tracker = (LeakTracker) queue.poll();
+            if (tracker == null) {
+                return;
+            }
+            if (!trackers.remove(tracker)) {
+                continue;
+            }
+            metric.onLeak();
+            logger.error(tracker.stack.getMessage(), tracker.stack);
+        }
+    }
+
+    public int getTrackingSize() {
+        return trackers.size();
+    }
+
+    static class LeakTracker extends WeakReference<ByteBuf> {
+
+        private Throwable stack;
+
+        LeakTracker(ByteBuf referent, ReferenceQueue<ByteBuf> queue, Throwable stack) {
+            super(referent, queue);
+            this.stack = stack;
+        }
+    }
+
+}
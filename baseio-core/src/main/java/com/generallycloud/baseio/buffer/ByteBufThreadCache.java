@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.buffer;
+
+/**
+ * 单个线程申请的小内存块释放后的缓存，按块大小(1 &lt;&lt; order个单元)分类，
+ * 只有所属线程从中申请，其它线程释放该线程申请的内存块时也会放回这里
+ */
+final class ByteBufThreadCache {
+
+    private final Thread  thread;
+    private final int     generation;
+    private final int[][] stacks;
+    private final int[]   sizes;
+    // 所属线程结束后缓存被回收，之后释放的内存块直接归还给分配器
+    private boolean       closed;
+
+    ByteBufThreadCache(Thread thread, int generation, int maxOrder, int size) {
+        this.thread = thread;
+        this.generation = generation;
+        this.stacks = new int[maxOrder + 1][size];
+        this.sizes = new int[maxOrder + 1];
+    }
+
+    synchronized int poll(int order) {
+        int size = sizes[order];
+        if (size == 0) {
+            return -1;
+        }
+        sizes[order] = --size;
+        return stacks[order][size];
+    }
+
+    synchronized boolean offer(int order, int begin) {
+        if (closed || !thread.isAlive()) {
+            return false;
+        }
+        int[] stack = stacks[order];
+        int size = sizes[order];
+        if (size == stack.length) {
+            return false;
+        }
+        stack[size] = begin;
+        sizes[order] = size + 1;
+        return true;
+    }
+
+    /**
+     * 将缓存的内存块归还给分配器，调用时需持有分配器的lock
+     */
+    synchronized void drain(BuddyByteBufAllocator allocator) {
+        for (int order = 0; order < stacks.length; order++) {
+            int[] stack = stacks[order];
+            int size = sizes[order];
+            for (int i = 0; i < size; i++) {
+                allocator.freeBlock(stack[i], order);
+            }
+            sizes[order] = 0;
+        }
+    }
+
+    /**
+     * 所属线程结束后归还缓存的内存块，之后不再接受释放的内存块
+     */
+    synchronized void close(BuddyByteBufAllocator allocator) {
+        drain(allocator);
+        closed = true;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    boolean isThreadAlive() {
+        return thread.isAlive();
+    }
+
+}
@@ -18,6 +18,8 @@ package com.generallycloud.baseio.buffer;
 import com.generallycloud.baseio.AbstractLifeCycle;
 import com.generallycloud.baseio.LifeCycleUtil;
 import com.generallycloud.baseio.concurrent.Linkable;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
 
 public class LinkableByteBufAllocatorImpl extends AbstractLifeCycle
         implements LinkAbleByteBufAllocator {
@@ -30,6 +32,9 @@ public class LinkableByteBufAllocatorImpl extends AbstractLifeCycle
 
     private LinkAbleByteBufAllocator next;
 
+    private static final Logger      logger = LoggerFactory
+            .getLogger(LinkableByteBufAllocatorImpl.class);
+
     public LinkableByteBufAllocatorImpl(ByteBufAllocator allocator, int index) {
         this.index = index;
         this.allocator = allocator;
@@ -53,6 +58,12 @@ public class LinkableByteBufAllocatorImpl extends AbstractLifeCycle
     public ByteBuf allocate(int capacity, LinkAbleByteBufAllocator allocator) {
         if (allocator == this) {
             //FIXME 是否申请java内存
+            long fallbacks = getMetric().onHeapFallback();
+            // 按2的幂次打印，避免内存池耗尽时刷屏
+            if ((fallbacks & (fallbacks - 1)) == 0) {
+                logger.info("memory pool exhausted, allocate {} bytes from heap, fallbacks: {}",
+                        capacity, fallbacks);
+            }
             return UnpooledByteBufAllocator.getHeapInstance().allocate(capacity);
             //			return null;
         }
@@ -83,6 +94,11 @@ public class LinkableByteBufAllocatorImpl extends AbstractLifeCycle
         return unwrap().getCapacity();
     }
 
+    @Override
+    public ByteBufAllocatorMetric getMetric() {
+        return unwrap().getMetric();
+    }
+
     @Override
     public int getIndex() {
         return index;
@@ -15,10 +15,17 @@
  */
 package com.generallycloud.baseio.buffer;
 
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import com.generallycloud.baseio.AbstractLifeCycle;
 import com.generallycloud.baseio.LifeCycleUtil;
 import com.generallycloud.baseio.component.ChannelContext;
 import com.generallycloud.baseio.configuration.ServerConfiguration;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
 
 public class PooledByteBufAllocatorManager extends AbstractLifeCycle
         implements ByteBufAllocatorManager {
@@ -29,6 +36,11 @@ public class PooledByteBufAllocatorManager extends AbstractLifeCycle
 
     private ChannelContext             context    = null;
 
+    private ObjectName[]               mbeanNames = null;
+
+    private Logger                     logger     = LoggerFactory
+            .getLogger(PooledByteBufAllocatorManager.class);
+
     public PooledByteBufAllocatorManager(ChannelContext context) {
         this.context = context;
     }
@@ -49,14 +61,28 @@ public class PooledByteBufAllocatorManager extends AbstractLifeCycle
 
         boolean direct = c.isSERVER_ENABLE_MEMORY_POOL_DIRECT();
 
+        boolean buddy = "buddy".equalsIgnoreCase(c.getSERVER_MEMORY_POOL_ALLOCATOR());
+
+        int leakDetectInterval = c.getSERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL();
+
         this.allocators = new LinkAbleByteBufAllocator[core];
 
         for (int i = 0; i < allocators.length; i++) {
 
             //			ByteBufAllocator allocator = new SimplyByteBufAllocator(capacity, unitMemorySize, direct);
 
-            ByteBufAllocator allocator = new SimpleByteBufAllocator(capacity, unitMemorySize,
-                    direct);
+            AbstractByteBufAllocator allocator;
+
+            if (buddy) {
+                allocator = new BuddyByteBufAllocator(capacity, unitMemorySize, direct);
+            } else {
+                allocator = new SimpleByteBufAllocator(capacity, unitMemorySize, direct);
+            }
+
+            if (leakDetectInterval > 0) {
+                allocator.setLeakDetector(
+                        new ByteBufLeakDetector(leakDetectInterval, allocator.getMetric()));
+            }
 
             //			ByteBufAllocator allocator = new UnpooledByteBufAllocator();
 
@@ -92,11 +118,52 @@ public class PooledByteBufAllocatorManager extends AbstractLifeCycle
         last.setNext(first);
 
         this.allocator = first;
+
+        if (context.getServerConfiguration().isSERVER_ENABLE_MEMORY_POOL_JMX()) {
+            registerMBeans();
+        }
+    }
+
+    private void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        int port = context.getServerConfiguration().getSERVER_PORT();
+        String id = Integer.toHexString(System.identityHashCode(this));
+        mbeanNames = new ObjectName[allocators.length];
+        for (int i = 0; i < allocators.length; i++) {
+            try {
+                ObjectName name = new ObjectName("com.generallycloud.baseio:type=ByteBufAllocator"
+                        + ",port=" + port + ",id=" + id + ",index=" + i);
+                server.registerMBean(allocators[i].getMetric(), name);
+                mbeanNames[i] = name;
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    private void unregisterMBeans() {
+        if (mbeanNames == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : mbeanNames) {
+            if (name == null) {
+                continue;
+            }
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+        mbeanNames = null;
     }
 
     @Override
     protected void doStop() throws Exception {
 
+        unregisterMBeans();
+
         for (LinkAbleByteBufAllocator allocator : allocators) {
 
             if (allocator == null) {
@@ -121,9 +188,19 @@ public class PooledByteBufAllocatorManager extends AbstractLifeCycle
 
     public void printBusy() {
         for (LinkAbleByteBufAllocator allocator : allocators) {
-            SimpleByteBufAllocator a = (SimpleByteBufAllocator) allocator.unwrap();
-            a.printBusy();
+            ByteBufAllocator a = allocator.unwrap();
+            if (a instanceof AbstractPooledByteBufAllocator) {
+                ((AbstractPooledByteBufAllocator) a).printBusy();
+            }
+        }
+    }
+
+    public ByteBufAllocatorMetric[] getMetrics() {
+        ByteBufAllocatorMetric[] metrics = new ByteBufAllocatorMetric[allocators.length];
+        for (int i = 0; i < allocators.length; i++) {
+            metrics[i] = allocators[i].getMetric();
         }
+        return metrics;
     }
 
     public String toDebugString() {
@@ -131,6 +208,7 @@ public class PooledByteBufAllocatorManager extends AbstractLifeCycle
         for (ByteBufAllocator allocator : allocators) {
             builder.append("\n</BR>");
             builder.append(allocator.toString());
+            builder.append(allocator.getMetric());
         }
         return builder.toString();
     }
@@ -32,6 +32,7 @@ public class SimpleByteBufAllocator extends AbstractPooledByteBufAllocator {
         ByteBufUnit[] units = getUnits();
         int freeSize = 0;
         for (; start < end;) {
+            scanLength++;
             ByteBufUnit unit = units[start];
             if (!unit.free) {
                 start = unit.blockEnd;
@@ -70,6 +71,7 @@ public class SimpleByteBufAllocator extends AbstractPooledByteBufAllocator {
         ReentrantLock lock = this.lock;
         lock.lock();
         try {
+            onRelease(buf);
             ByteBufUnit[] units = getUnits();
             ByteBufUnit memoryStart = units[((PooledByteBuf) buf).getBeginUnit()];
             ByteBufUnit memoryEnd = units[memoryStart.blockEnd - 1];
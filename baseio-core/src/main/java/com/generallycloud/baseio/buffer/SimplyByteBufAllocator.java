@@ -44,6 +44,8 @@ public class SimplyByteBufAllocator extends AbstractPooledByteBufAllocator {
 
         for (; begin < end;) {
 
+            scanLength++;
+
             ByteBufUnit2 unitBegin = units[begin];
 
             if (!unitBegin.free) {
@@ -194,6 +196,8 @@ public class SimplyByteBufAllocator extends AbstractPooledByteBufAllocator {
 
         try {
 
+            onRelease(buf);
+
             doRelease(getUnits()[((PooledByteBuf) buf).getBeginUnit()]);
 
         } finally {
@@ -15,6 +15,8 @@
  */
 package com.generallycloud.baseio.component;
 
+import java.util.List;
+
 import com.generallycloud.baseio.common.CloseUtil;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
@@ -58,6 +60,46 @@ public abstract class AbstractFutureAcceptor implements ForeFutureAcceptor {
     protected abstract void accept(IoEventHandle eventHandle, SocketSession session,
             ChannelFuture future);
 
+    @Override
+    public void accept(SocketSession session, List<ChannelFuture> futures) throws Exception {
+
+        SocketChannelContext context = session.getContext();
+
+        IoEventHandle eventHandle = context.getIoEventHandleAdaptor();
+
+        accept(eventHandle, session, futures);
+    }
+
+    protected abstract void accept(IoEventHandle eventHandle, SocketSession session,
+            List<ChannelFuture> futures);
+
+    /**
+     * 在当前线程依次处理futures，期间flush的future只入队，全部处理完后再统一写出
+     */
+    protected void acceptAll(IoEventHandle eventHandle, SocketSession session,
+            List<ChannelFuture> futures) {
+        SocketChannel channel = ((UnsafeSocketSession) session).getSocketChannel();
+        channel.beginFlushBatch();
+        try {
+            for (ChannelFuture f : futures) {
+                if (f.isSilent()) {
+                    continue;
+                }
+                if (f.isHeartbeat()) {
+                    acceptHeartBeat(session, f);
+                    continue;
+                }
+                try {
+                    eventHandle.accept(session, f);
+                } catch (Exception e) {
+                    eventHandle.exceptionCaught(session, f, e);
+                }
+            }
+        } finally {
+            channel.endFlushBatch();
+        }
+    }
+
     private void acceptHeartBeat(final SocketSession session, final ChannelFuture future) {
 
         if (future.isPING()) {
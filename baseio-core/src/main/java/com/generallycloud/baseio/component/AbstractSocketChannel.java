@@ -17,6 +17,7 @@ package com.generallycloud.baseio.component;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -24,18 +25,25 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
 
 import com.generallycloud.baseio.ClosedChannelException;
+import com.generallycloud.baseio.WriteBufferOverflowException;
+import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.buffer.ByteBufAllocator;
 import com.generallycloud.baseio.buffer.EmptyByteBuf;
+import com.generallycloud.baseio.common.CloseUtil;
 import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.ssl.SslContext;
 import com.generallycloud.baseio.component.ssl.SslHandler;
+import com.generallycloud.baseio.component.ssl.SslHandshakeMetric;
 import com.generallycloud.baseio.concurrent.ExecutorEventLoop;
 import com.generallycloud.baseio.concurrent.LinkedQueue;
 import com.generallycloud.baseio.concurrent.ScspLinkedQueue;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
 import com.generallycloud.baseio.connector.AbstractSocketChannelConnector;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.DefaultChannelFuture;
+import com.generallycloud.baseio.protocol.FileRegion;
 import com.generallycloud.baseio.protocol.Future;
 import com.generallycloud.baseio.protocol.ProtocolDecoder;
 import com.generallycloud.baseio.protocol.ProtocolEncoder;
@@ -55,9 +63,25 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
     protected transient ChannelFuture    writeFuture;
     protected transient ChannelFuture    readFuture;
     protected transient SslFuture        sslReadFuture;
+    // 以下两个字段只在selector线程中访问
+    protected boolean                    sslTaskPending;
+    protected ByteBuf                    sslPendingBuf;
+    // 在sslEngine的锁中访问
+    protected ByteBuf                    sslWrapPendingBuf;
     protected LinkedQueue<ChannelFuture> writeFutures;
     protected boolean                    opened = true;
     protected SocketChannelThreadContext threadContext;
+    // 以下两个字段在closeLock中访问
+    private int                          flushBatch;
+    private ChannelFuture                flushPending;
+    // ssl握手开始的时间，握手结束后置为0
+    private long                         sslHandshakeStartTime;
+    private long                         sslHandshakeStartMillis;
+    private final AtomicBoolean          writable = new AtomicBoolean(true);
+    private volatile int                 writeBufferHighWaterMark;
+    private volatile int                 writeBufferLowWaterMark;
+    private volatile int                 writeBufferLimit;
+    private final boolean                closeOnWriteBufferOverflow;
 
     private static final Logger          logger = LoggerFactory
             .getLogger(AbstractSocketChannel.class);
@@ -77,6 +101,12 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
         this.writeFutures = new ScspLinkedQueue<>(f);
         this.writeFutureLength = new AtomicInteger();
         this.threadContext = context;
+        ServerConfiguration configuration = socketChannelContext.getServerConfiguration();
+        this.writeBufferHighWaterMark = configuration.getSERVER_WRITE_BUFFER_HIGH_WATER_MARK();
+        this.writeBufferLowWaterMark = configuration.getSERVER_WRITE_BUFFER_LOW_WATER_MARK();
+        this.writeBufferLimit = configuration.getSERVER_WRITE_BUFFER_LIMIT();
+        this.closeOnWriteBufferOverflow = "close"
+                .equals(configuration.getSERVER_WRITE_BUFFER_LIMIT_POLICY());
     }
 
     @Override
@@ -98,6 +128,7 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
 
     @Override
     public void finishHandshake(Exception e) {
+        recordHandshake(e);
         if (getContext().getSslContext().isClient()) {
             AbstractSocketChannelConnector connector = (AbstractSocketChannelConnector) getContext()
                     .getChannelService();
@@ -105,6 +136,22 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
         }
     }
 
+    private void recordHandshake(Exception e) {
+        if (sslHandshakeStartTime == 0) {
+            return;
+        }
+        long time = System.nanoTime() - sslHandshakeStartTime;
+        sslHandshakeStartTime = 0;
+        SslHandshakeMetric metric = getContext().getSslContext().getHandshakeMetric();
+        if (e != null) {
+            metric.onFailure();
+            return;
+        }
+        // 复用的session在本次握手开始之前就已经创建
+        boolean resumed = sslEngine.getSession().getCreationTime() < sslHandshakeStartMillis;
+        metric.onHandshake(time, resumed);
+    }
+
     @Override
     protected String getMarkPrefix() {
         return "Tcp";
@@ -219,16 +266,25 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
                 f.onException(session, new ClosedChannelException(session.toString()));
                 return;
             }
-            writeFutures.offer(f);
-            int length = writeFutureLength(f.getByteBufLimit());
-            if (length > 1024 * 1024 * 10) {
-                // FIXME 该连接写入过多啦
+            int limit = writeBufferLimit;
+            // 记下计入的长度，SSL下写出时buf已被替换为密文，不能再用getByteBufLimit()扣减
+            int length = f.getByteBufLimit();
+            if (limit > 0 && writeFutureLength.get() + length > limit) {
+                writeBufferOverflow(f);
+                return;
             }
+            f.setWriteLength(length);
+            writeFutures.offer(f);
+            writeFutureLength(length);
             // 如果write futures > 1 说明在offer之后至少有一个write future
             // event loop 在判断complete时返回false
             if (writeFutures.size() > 1) {
                 return;
             }
+            if (flushBatch > 0) {
+                flushPending = f;
+                return;
+            }
             doFlush0(f);
         } catch (Exception e) {
             f.onException(session, e);
@@ -238,7 +294,118 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
     }
 
     protected int writeFutureLength(int len) {
-        return writeFutureLength.addAndGet(len);
+        int length = writeFutureLength.addAndGet(len);
+        if (writeBufferHighWaterMark > 0) {
+            updateWritability();
+        }
+        return length;
+    }
+
+    /**
+     * 入队与写出可能在不同的线程，通过cas保证每次状态切换只通知一次。
+     * cas成功后重新读取待写出的字节数，另一个线程可能在此期间越过了相反的水位
+     * 而没有切换成功，此时由本线程切换回来，直到状态与字节数一致
+     */
+    private void updateWritability() {
+        for (;;) {
+            int high = writeBufferHighWaterMark;
+            if (high <= 0) {
+                return;
+            }
+            int length = writeFutureLength.get();
+            if (writable.get()) {
+                if (length <= high) {
+                    return;
+                }
+                if (writable.compareAndSet(true, false)) {
+                    fireWritabilityChanged();
+                }
+            } else {
+                if (length >= writeBufferLowWaterMark) {
+                    return;
+                }
+                if (writable.compareAndSet(false, true)) {
+                    fireWritabilityChanged();
+                }
+            }
+        }
+    }
+
+    private void writeBufferOverflow(ChannelFuture f) {
+        UnsafeSocketSession session = getSession();
+        f.onException(session, new WriteBufferOverflowException("write buffer overflow, pending: "
+                + writeFutureLength.get() + ", " + session.toString()));
+        if (closeOnWriteBufferOverflow) {
+            logger.error("write buffer overflow, close session: " + session);
+            CloseUtil.close(this);
+        }
+    }
+
+    private void fireWritabilityChanged() {
+        SocketSessionEventListenerWrapper linkable = getContext().getSessionEventListenerLink();
+        if (linkable != null) {
+            linkable.channelWritabilityChanged(getSession());
+        }
+    }
+
+    @Override
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    @Override
+    public void setWriteBufferWaterMark(int low, int high) {
+        if (low > high) {
+            throw new IllegalArgumentException("low: " + low + ", high: " + high);
+        }
+        this.writeBufferLowWaterMark = low;
+        this.writeBufferHighWaterMark = high;
+        if (high <= 0) {
+            if (writable.compareAndSet(false, true)) {
+                fireWritabilityChanged();
+            }
+            return;
+        }
+        updateWritability();
+    }
+
+    @Override
+    public void setWriteBufferLimit(int limit) {
+        this.writeBufferLimit = limit;
+    }
+
+    @Override
+    public void beginFlushBatch() {
+        ReentrantLock lock = getCloseLock();
+        lock.lock();
+        try {
+            flushBatch++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void endFlushBatch() {
+        ReentrantLock lock = getCloseLock();
+        lock.lock();
+        try {
+            if (--flushBatch > 0) {
+                return;
+            }
+            ChannelFuture f = flushPending;
+            if (f == null) {
+                return;
+            }
+            flushPending = null;
+            if (isOpened()) {
+                doFlush0(f);
+            }
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
     }
 
     protected abstract void doFlush0(ChannelFuture future);
@@ -246,6 +413,14 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
     protected void releaseFutures() {
         ReleaseUtil.release(readFuture);
         ReleaseUtil.release(sslReadFuture);
+        ReleaseUtil.release(sslPendingBuf);
+        sslPendingBuf = null;
+        if (sslWrapPendingBuf != null) {
+            synchronized (sslEngine) {
+                ReleaseUtil.release(sslWrapPendingBuf);
+                sslWrapPendingBuf = null;
+            }
+        }
         ClosedChannelException e = null;
         if (writeFuture != null && !writeFuture.isReleased()) {
             e = new ClosedChannelException(session.toString());
@@ -269,17 +444,35 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
 
     protected void closeSSL() {
         if (isEnableSSL()) {
+            // 握手完成前关闭
+            boolean handshaking = sslHandshakeStartTime != 0;
+            if (handshaking) {
+                recordHandshake(new SSLException("closed before handshake finished"));
+            }
             sslEngine.closeOutbound();
             if (getContext().getSslContext().isClient()) {
                 writeFutures.offer(new DefaultChannelFuture(getContext()
                         , EmptyByteBuf.getInstance()));
             }
-            try {
-                sslEngine.closeInbound();
-            } catch (SSLException e) {}
+            // 未收到close_notify时closeInbound会使session失效，无法再被复用
+            if (handshaking || sslEngine.isInboundDone()) {
+                try {
+                    sslEngine.closeInbound();
+                } catch (SSLException e) {}
+            }
         }
     }
 
+    @Override
+    public boolean isZeroCopySupported() {
+        return false;
+    }
+
+    @Override
+    public long write(FileRegion region) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SslHandler getSslHandler() {
         return sslHandler;
@@ -315,6 +508,36 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
         this.sslReadFuture = future;
     }
 
+    @Override
+    public ByteBuf getSslPendingBuf() {
+        return sslPendingBuf;
+    }
+
+    @Override
+    public void setSslPendingBuf(ByteBuf buf) {
+        this.sslPendingBuf = buf;
+    }
+
+    @Override
+    public ByteBuf getSslWrapPendingBuf() {
+        return sslWrapPendingBuf;
+    }
+
+    @Override
+    public void setSslWrapPendingBuf(ByteBuf buf) {
+        this.sslWrapPendingBuf = buf;
+    }
+
+    @Override
+    public boolean isSslTaskPending() {
+        return sslTaskPending;
+    }
+
+    @Override
+    public void setSslTaskPending(boolean pending) {
+        this.sslTaskPending = pending;
+    }
+
     @Override
     public ExecutorEventLoop getExecutorEventLoop() {
         return executorEventLoop;
@@ -326,8 +549,18 @@ public abstract class AbstractSocketChannel extends AbstractChannel implements S
     public void fireOpend() {
         SocketChannelContext context = getContext();
         if (context.isEnableSSL()) {
+            SslContext sslContext = context.getSslContext();
             this.sslHandler = getSocketChannelThreadContext().getSslHandler();
-            this.sslEngine = context.getSslContext().newEngine();
+            this.sslHandshakeStartMillis = System.currentTimeMillis();
+            this.sslHandshakeStartTime = System.nanoTime();
+            if (sslContext.isClient()) {
+                // jdk按host和port查找可复用的session，重连时可以省去完整握手
+                ServerConfiguration configuration = context.getServerConfiguration();
+                this.sslEngine = sslContext.newEngine(configuration.getSERVER_HOST(),
+                        configuration.getSERVER_PORT());
+            } else {
+                this.sslEngine = sslContext.newEngine();
+            }
         }
         if (isEnableSSL() && context.getSslContext().isClient()) {
             doFlush(new DefaultChannelFuture(getContext(), EmptyByteBuf.getInstance()));
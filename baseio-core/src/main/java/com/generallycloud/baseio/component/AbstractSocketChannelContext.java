@@ -17,6 +17,8 @@ package com.generallycloud.baseio.component;
 
 import java.math.BigDecimal;
 
+import javax.net.ssl.SSLSessionContext;
+
 import com.generallycloud.baseio.LifeCycleUtil;
 import com.generallycloud.baseio.common.LoggerUtil;
 import com.generallycloud.baseio.component.ssl.SslContext;
@@ -162,6 +164,10 @@ public abstract class AbstractSocketChannelContext extends AbstractChannelContex
         }
 
         
+        if (enableSSL) {
+            initSslSessionContext();
+        }
+
         if (protocolEncoder == null) {
             this.protocolFactory.initialize(this);
             this.protocolEncoder = protocolFactory.getProtocolEncoder(this);
@@ -202,6 +208,20 @@ public abstract class AbstractSocketChannelContext extends AbstractChannelContex
         doStartModule();
     }
     
+    private void initSslSessionContext() {
+        SSLSessionContext sessionContext = sslContext.sessionContext();
+        int cacheSize = serverConfiguration.getSERVER_SSL_SESSION_CACHE_SIZE();
+        int timeout = serverConfiguration.getSERVER_SSL_SESSION_TIMEOUT();
+        if (cacheSize > 0) {
+            sessionContext.setSessionCacheSize(cacheSize);
+        }
+        if (timeout > 0) {
+            sessionContext.setSessionTimeout(timeout);
+        }
+        LoggerUtil.prettyLog(logger, "ssl session cache     :{ {} , {}s }",
+                sessionContext.getSessionCacheSize(), sessionContext.getSessionTimeout());
+    }
+
     protected abstract ExecutorEventLoopGroup createExecutorEventLoopGroup();
 
     protected void doStartModule() throws Exception {
@@ -225,6 +245,11 @@ public abstract class AbstractSocketChannelContext extends AbstractChannelContex
 
         LifeCycleUtil.stop(byteBufAllocatorManager);
 
+        if (enableSSL) {
+            LoggerUtil.prettyLog(logger, "ssl handshake         :{ {} }",
+                    sslContext.getHandshakeMetric());
+        }
+
         clearContext();
 
         doStopModule();
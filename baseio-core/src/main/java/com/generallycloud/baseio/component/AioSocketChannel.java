@@ -18,27 +18,50 @@ package com.generallycloud.baseio.component;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketOption;
+import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import com.generallycloud.baseio.ClosedChannelException;
 import com.generallycloud.baseio.buffer.ByteBuf;
-import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
 import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 
 public class AioSocketChannel extends AbstractSocketChannel {
 
-    private AsynchronousSocketChannel channel;
-    private AioSocketChannelContext   context;
-    private ReadCompletionHandler     readCompletionHandler;
-    private WriteCompletionHandler    writeCompletionHandler;
-    private ByteBuf                   readCache;
-    private CachedAioThread           aioThread;
+    private AsynchronousSocketChannel              channel;
+    private AioSocketChannelContext                context;
+    private ReadCompletionHandler                  readCompletionHandler;
+    private WriteCompletionHandler                 writeCompletionHandler;
+    private GatheringWriteCompletionHandler        gatheringWriteCompletionHandler;
+    // 只在有read未完成时持有，read失败或连接关闭后释放
+    private ByteBuf                                readCache;
+    // 根据每次读取的长度调整，空闲连接只占用最小的readCache
+    private int                                    readCacheSize = READ_CACHE_INITIAL;
+    private int                                    readCacheSmallTimes;
+    private CachedAioThread                        aioThread;
+    private boolean                                gatheringWrite;
+    private int                                    gatheringWriteMaxIov;
+    private int                                    gatheringWriteMaxBytes;
+    // 正在聚集写的future，writeFuture为其中第一个未写完的
+    private ChannelFuture[]                        writeBatch;
+    private ByteBuffer[]                           writeBatchBuffers;
+    private int                                    writeBatchOffset;
+    private int                                    writeBatchSize;
+    // 聚集写时取出的带文件的future，下次单独写出
+    private ChannelFuture                          nextWriteFuture;
 
-    private static final Logger       logger = LoggerFactory.getLogger(AioSocketChannel.class);
+    private static final int                       READ_CACHE_MIN     = 512;
+    private static final int                       READ_CACHE_INITIAL = 1024 * 2;
+    private static final int                       READ_CACHE_MAX     = 1024 * 64;
+
+    private static final Logger                    logger             = LoggerFactory
+            .getLogger(AioSocketChannel.class);
 
     // FIXME 改进network wake 机制
     // FIXME network weak check
@@ -46,11 +69,17 @@ public class AioSocketChannel extends AbstractSocketChannel {
             int channelId) {
         super(aioThread, channelId);
         this.channel = channel;
-        this.readCache = UnpooledByteBufAllocator.getHeapInstance().allocate(4096);
         this.context = aioThread.getChannelContext();
         this.readCompletionHandler = aioThread.getReadCompletionHandler();
         this.writeCompletionHandler = aioThread.getWriteCompletionHandler();
+        this.gatheringWriteCompletionHandler = aioThread.getGatheringWriteCompletionHandler();
         this.aioThread = aioThread;
+        ServerConfiguration configuration = context.getServerConfiguration();
+        // ssl模式下future在write时才wrap，不能直接聚集写
+        this.gatheringWrite = configuration.isSERVER_ENABLE_GATHERING_WRITE()
+                && !context.isEnableSSL();
+        this.gatheringWriteMaxIov = configuration.getSERVER_GATHERING_WRITE_MAX_IOV();
+        this.gatheringWriteMaxBytes = configuration.getSERVER_GATHERING_WRITE_MAX_BYTES();
     }
 
     @Override
@@ -90,8 +119,13 @@ public class AioSocketChannel extends AbstractSocketChannel {
             if (!forceFlushing && flushing) {
                 return;
             }
+            if (writeBatchSize > 0) {
+                flushing = true;
+                writeBatch();
+                return;
+            }
             if (writeFuture == null) {
-                writeFuture = writeFutures.poll();
+                writeFuture = pollWriteFuture();
             }
             if (writeFuture == null) {
                 flushing = false;
@@ -102,12 +136,70 @@ public class AioSocketChannel extends AbstractSocketChannel {
                 return;
             }
             flushing = true;
+            if (gatheringWrite && prepareBatch()) {
+                writeBatch();
+                return;
+            }
             writeFuture.write(this);
         } catch (IOException e) {
             fireClosed(writeFuture, e);
         }
     }
 
+    private ChannelFuture pollWriteFuture() {
+        ChannelFuture f = nextWriteFuture;
+        if (f == null) {
+            return writeFutures.poll();
+        }
+        nextWriteFuture = null;
+        return f;
+    }
+
+    /**
+     * 将writeFuture及之后排队的future合并为一批，只有一个future时不合并
+     */
+    private boolean prepareBatch() {
+        ChannelFuture first = writeFuture;
+        if (first.getFileRegion() != null || writeFutures.size() == 0) {
+            return false;
+        }
+        int maxIov = gatheringWriteMaxIov;
+        ChannelFuture[] fs = new ChannelFuture[Math.min(maxIov, writeFutures.size() + 1)];
+        fs[0] = first;
+        long bytes = first.getByteBuf().remaining();
+        int count = 1;
+        for (; count < fs.length && bytes < gatheringWriteMaxBytes; count++) {
+            ChannelFuture f = writeFutures.poll();
+            if (f == null) {
+                break;
+            }
+            if (f.getFileRegion() != null) {
+                nextWriteFuture = f;
+                break;
+            }
+            fs[count] = f;
+            bytes += f.getByteBuf().remaining();
+        }
+        if (count == 1) {
+            return false;
+        }
+        ByteBuffer[] bs = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            bs[i] = fs[i].getByteBuf().getNioBuffer();
+        }
+        this.writeBatch = fs;
+        this.writeBatchBuffers = bs;
+        this.writeBatchOffset = 0;
+        this.writeBatchSize = count;
+        return true;
+    }
+
+    private void writeBatch() {
+        int offset = writeBatchOffset;
+        channel.write(writeBatchBuffers, offset, writeBatchSize - offset, 0,
+                TimeUnit.MILLISECONDS, this, gatheringWriteCompletionHandler);
+    }
+
     private void fireClosed(ChannelFuture future, IOException e) {
         if (future == null) {
             return;
@@ -137,10 +229,45 @@ public class AioSocketChannel extends AbstractSocketChannel {
         fireClosed();
     }
 
-    protected void read(ByteBuf cache) {
+    public void read() {
+        ByteBuf cache = readCache;
+        if (cache == null) {
+            cache = allocate(readCacheSize);
+            readCache = cache;
+        }
         channel.read(cache.clear().nioBuffer(), this, readCompletionHandler);
     }
 
+    /**
+     * 读满时下次使用更大的readCache，连续多次只用到1/4以下时缩小
+     */
+    protected void readCompleted(int length) {
+        int size = readCacheSize;
+        if (length == readCache.capacity()) {
+            readCacheSmallTimes = 0;
+            if (size < READ_CACHE_MAX) {
+                readCacheSize = size << 1;
+                releaseReadCache();
+            }
+            return;
+        }
+        if (size > READ_CACHE_MIN && length < (size >> 2)) {
+            if (++readCacheSmallTimes < 4) {
+                return;
+            }
+            readCacheSmallTimes = 0;
+            readCacheSize = size >> 1;
+            releaseReadCache();
+            return;
+        }
+        readCacheSmallTimes = 0;
+    }
+
+    protected void releaseReadCache() {
+        ReleaseUtil.release(readCache);
+        readCache = null;
+    }
+
     @Override
     public void write(ByteBuf buf) {
         channel.write(buf.getNioBuffer(), this, writeCompletionHandler);
@@ -161,7 +288,68 @@ public class AioSocketChannel extends AbstractSocketChannel {
         }
     }
 
-    // FIXME __hebing
+    protected void gatheringWriteCallback(long length) {
+        ReentrantLock lock = getCloseLock();
+        lock.lock();
+        try {
+            if (!isOpened()) {
+                return;
+            }
+            ChannelFuture[] fs = writeBatch;
+            int size = writeBatchSize;
+            int i = writeBatchOffset;
+            for (; i < size; i++) {
+                ChannelFuture f = fs[i];
+                f.getByteBuf().reverse();
+                if (!f.isWriteCompleted()) {
+                    break;
+                }
+                writeFutureLength(-f.getWriteLength());
+                f.onSuccess(session);
+                fs[i] = null;
+            }
+            if (i < size) {
+                writeBatchOffset = i;
+                writeFuture = fs[i];
+                flush(true);
+                return;
+            }
+            clearWriteBatch();
+            writeFuture = null;
+            flush(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void clearWriteBatch() {
+        writeBatch = null;
+        writeBatchBuffers = null;
+        writeBatchOffset = 0;
+        writeBatchSize = 0;
+    }
+
+    @Override
+    protected void releaseFutures() {
+        // writeBatch[writeBatchOffset]即writeFuture，由super处理
+        if (writeBatchSize > 0) {
+            ClosedChannelException e = new ClosedChannelException(session.toString());
+            for (int i = writeBatchOffset + 1; i < writeBatchSize; i++) {
+                ChannelFuture f = writeBatch[i];
+                f.onException(session, e);
+                ReleaseUtil.release(f);
+            }
+            clearWriteBatch();
+        }
+        if (nextWriteFuture != null) {
+            ChannelFuture f = nextWriteFuture;
+            nextWriteFuture = null;
+            f.onException(session, new ClosedChannelException(session.toString()));
+            ReleaseUtil.release(f);
+        }
+        super.releaseFutures();
+    }
+
     protected void writeCallback(int length) {
         ReentrantLock lock = getCloseLock();
         lock.lock();
@@ -175,7 +363,7 @@ public class AioSocketChannel extends AbstractSocketChannel {
                 flush(true);
                 return;
             }
-            writeFutureLength(-f.getByteBufLimit());
+            writeFutureLength(-f.getWriteLength());
             f.onSuccess(session);
             writeFuture = null;
             flush(true);
@@ -193,6 +381,10 @@ public class AioSocketChannel extends AbstractSocketChannel {
         return readCache;
     }
 
+    private ByteBuf allocate(int capacity) {
+        return getByteBufAllocator().allocate(capacity);
+    }
+
     @Override
     protected SocketChannelThreadContext getSocketChannelThreadContext() {
         return aioThread;
@@ -116,6 +116,9 @@ public class AioSocketSessionManager extends AbstractSessionManager
             return;
         }
         for (SocketSession s : sessions.values()) {
+            if (!s.isWritable()) {
+                continue;
+            }
             s.doFlush(future.duplicate());
         }
     }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.component;
+
+import java.io.IOException;
+
+import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.protocol.ChannelFuture;
+
+/**
+ * 在selector线程中将已encode的future写给该线程管理的所有session，
+ * 每个selector线程持有一份future的duplicate，执行或关闭后释放
+ */
+public class BroadcastSelectorLoopEvent extends SelectorLoopEventAdapter {
+
+    private boolean       fired;
+
+    private ChannelFuture future;
+
+    public BroadcastSelectorLoopEvent(ChannelFuture future) {
+        this.future = future;
+    }
+
+    @Override
+    public void fireEvent(SocketSelectorEventLoop selectorLoop) throws IOException {
+        if (fired) {
+            return;
+        }
+        fired = true;
+        try {
+            // close时selectorLoop为null
+            if (selectorLoop != null) {
+                selectorLoop.getSocketSessionManager().broadcastChannelFuture(future);
+            }
+        } finally {
+            ReleaseUtil.release(future);
+        }
+    }
+
+}
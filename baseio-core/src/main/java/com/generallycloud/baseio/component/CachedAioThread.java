@@ -13,6 +13,7 @@ public class CachedAioThread extends Thread implements SocketChannelThreadContex
 
         this.channelContext = context;
         this.writeCompletionHandler = new WriteCompletionHandler();
+        this.gatheringWriteCompletionHandler = new GatheringWriteCompletionHandler();
         this.executorEventLoop = channelContext.getExecutorEventLoopGroup().getNext();
         this.byteBufAllocator = channelContext.getByteBufAllocatorManager().getNextBufAllocator();
         this.readCompletionHandler = new ReadCompletionHandler(
@@ -22,17 +23,19 @@ public class CachedAioThread extends Thread implements SocketChannelThreadContex
         }
     }
 
-    private ExecutorEventLoop       executorEventLoop      = null;
+    private ExecutorEventLoop               executorEventLoop               = null;
 
-    private AioSocketChannelContext channelContext         = null;
+    private AioSocketChannelContext         channelContext                  = null;
 
-    private ByteBufAllocator        byteBufAllocator       = null;
+    private ByteBufAllocator                byteBufAllocator                = null;
 
-    private ReadCompletionHandler   readCompletionHandler  = null;
+    private ReadCompletionHandler           readCompletionHandler           = null;
 
-    private WriteCompletionHandler  writeCompletionHandler = null;
+    private WriteCompletionHandler          writeCompletionHandler          = null;
 
-    private SslHandler              sslHandler             = null;
+    private GatheringWriteCompletionHandler gatheringWriteCompletionHandler = null;
+
+    private SslHandler                      sslHandler                      = null;
 
     @Override
     public AioSocketChannelContext getChannelContext() {
@@ -62,6 +65,10 @@ public class CachedAioThread extends Thread implements SocketChannelThreadContex
         return writeCompletionHandler;
     }
 
+    public GatheringWriteCompletionHandler getGatheringWriteCompletionHandler() {
+        return gatheringWriteCompletionHandler;
+    }
+
     @Override
     public SslHandler getSslHandler() {
         return sslHandler;
@@ -16,16 +16,19 @@
 package com.generallycloud.baseio.component;
 
 import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.List;
 import java.util.Set;
 
-import com.generallycloud.baseio.buffer.ByteBuf;
-import com.generallycloud.baseio.buffer.ByteBufAllocator;
-import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.collection.LongObjectHashMap;
 import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.concurrent.BufferedArrayList;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
 import com.generallycloud.baseio.protocol.DatagramPacket;
@@ -36,13 +39,19 @@ import com.generallycloud.baseio.protocol.DatagramPacket;
  */
 public class DatagramSelectorEventLoop extends AbstractSelectorLoop {
 
-    private DatagramChannelContext         context;
-    private DatagramSelectorEventLoopGroup eventLoopGroup;
-    private DatagramChannel                channel;
-    private Selector                       selector;
-    private ByteBufAllocator               allocator;
-    private DatagramSessionManager         sessionManager;
-    private Logger                         logger = LoggerFactory.getLogger(getClass());
+    private DatagramChannelContext             context;
+    private DatagramSelectorEventLoopGroup     eventLoopGroup;
+    private DatagramChannel                    channel;
+    private Selector                           selector;
+    private DatagramSessionManager             sessionManager;
+    private ByteBuffer                         readBuffer;
+    private int                                readBatch;
+    // ipv4地址 + 端口 -> session，仅在当前线程中访问
+    private LongObjectHashMap<DatagramSession> sessionCache    = new LongObjectHashMap<>();
+    // 其它线程中移除的session，由selector线程从sessionCache中淘汰
+    private BufferedArrayList<DatagramSession> removedSessions = new BufferedArrayList<>();
+    private Logger                             logger          = LoggerFactory
+            .getLogger(getClass());
 
     public DatagramSelectorEventLoop(DatagramSelectorEventLoopGroup group, int coreIndex,
             DatagramChannel channel) {
@@ -51,29 +60,44 @@ public class DatagramSelectorEventLoop extends AbstractSelectorLoop {
         this.context = group.getChannelContext();
         this.channel = channel;
         this.sessionManager = context.getSessionManager();
-        this.allocator = UnpooledByteBufAllocator.getHeapInstance();
+        this.readBatch = context.getServerConfiguration().getSERVER_DATAGRAM_READ_BATCH();
+        this.readBuffer = ByteBuffer.allocateDirect(DatagramPacket.PACKET_MAX);
     }
 
     private void accept(SelectionKey selectionKey) {
 
         try {
 
-            DatagramChannelContext context = this.context;
+            DatagramChannel channel = (DatagramChannel) selectionKey.channel();
 
-            //FIXME 使用 ByteBuffer
-            ByteBuf buf = allocator.allocate(DatagramPacket.PACKET_MAX);
+            DatagramPacketAcceptor acceptor = context.getDatagramPacketAcceptor();
 
-            DatagramChannel channel = (DatagramChannel) selectionKey.channel();
+            ByteBuffer buffer = this.readBuffer;
 
-            InetSocketAddress remoteAddress = (InetSocketAddress) channel.receive(buf.nioBuffer());
+            // 一次唤醒后尽量读完所有已到达的报文，最多readBatch个
+            for (int i = 0; i < readBatch; i++) {
 
-            DatagramPacketAcceptor acceptor = context.getDatagramPacketAcceptor();
+                buffer.clear();
+
+                InetSocketAddress remoteAddress = (InetSocketAddress) channel.receive(buffer);
+
+                if (remoteAddress == null) {
+                    break;
+                }
 
-            DatagramPacket packet = DatagramPacket.createPacket(buf.reverse().flip());
+                buffer.flip();
 
-            DatagramSession session = sessionManager.getSession(channel, remoteAddress, this);
+                // 不足包头长度的报文直接丢弃
+                if (buffer.remaining() < DatagramPacket.PACKET_HEADER) {
+                    continue;
+                }
 
-            acceptor.accept(session, packet);
+                DatagramPacket packet = DatagramPacket.createPacket(buffer);
+
+                DatagramSession session = getSession(channel, remoteAddress);
+
+                acceptor.accept(session, packet);
+            }
 
         } catch (Throwable e) {
 
@@ -81,6 +105,67 @@ public class DatagramSelectorEventLoop extends AbstractSelectorLoop {
         }
     }
 
+    private DatagramSession getSession(DatagramChannel channel, InetSocketAddress remote)
+            throws IOException {
+
+        DatagramSessionManager sessionManager = this.sessionManager;
+
+        InetAddress address = remote.getAddress();
+
+        if (!(address instanceof Inet4Address)) {
+            return sessionManager.getSession(channel, remote, this);
+        }
+
+        long key = getCacheKey(address, remote.getPort());
+
+        DatagramSession session = sessionCache.get(key);
+
+        // 移除session时会通知selector线程淘汰该条目，淘汰之前仍可能读到已移除的session
+        if (session == null || session.isRemoved()) {
+
+            session = sessionManager.getSession(channel, remote, this);
+
+            sessionCache.put(key, session);
+        }
+
+        return session;
+    }
+
+    // Inet4Address.hashCode()即为ip地址的int值
+    private static long getCacheKey(InetAddress address, int port) {
+        return ((long) address.hashCode() << 16) | port;
+    }
+
+    /**
+     * session从manager中移除(包括关闭)后调用，从该线程的缓存中淘汰，可以在任意线程中调用
+     */
+    void evictSession(DatagramSession session) {
+        if (inEventLoop()) {
+            evictSession0(session);
+            return;
+        }
+        removedSessions.offer(session);
+    }
+
+    private void evictSession0(DatagramSession session) {
+        InetSocketAddress remote = session.getRemoteSocketAddress();
+        InetAddress address = remote.getAddress();
+        if (!(address instanceof Inet4Address)) {
+            return;
+        }
+        long key = getCacheKey(address, remote.getPort());
+        // 该地址可能已经缓存了新的session
+        if (sessionCache.get(key) == session) {
+            sessionCache.remove(key);
+        }
+    }
+
+    private void evictSessions(List<DatagramSession> sessions) {
+        for (DatagramSession session : sessions) {
+            evictSession0(session);
+        }
+    }
+
     private void cancelSelectionKey(SelectionKey selectionKey, Throwable e) {
 
         Object attachment = selectionKey.attachment();
@@ -96,6 +181,10 @@ public class DatagramSelectorEventLoop extends AbstractSelectorLoop {
     @Override
     protected void doLoop() throws IOException {
 
+        if (removedSessions.getBufferSize() > 0) {
+            evictSessions(removedSessions.getBuffer());
+        }
+
         Selector selector = this.selector;
 
         int selected = selector.select(16);
@@ -118,6 +207,11 @@ public class DatagramSelectorEventLoop extends AbstractSelectorLoop {
         sks.clear();
     }
 
+    @Override
+    protected void doStop() {
+        sessionCache.clear();
+    }
+
     @Override
     public DatagramChannelContext getChannelContext() {
         return context;
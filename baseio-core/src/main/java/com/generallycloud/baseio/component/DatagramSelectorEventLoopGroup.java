@@ -31,13 +31,21 @@ public class DatagramSelectorEventLoopGroup extends AbstractEventLoopGroup
 
     private DatagramChannelContext      channelContext;
 
-    private DatagramChannel             channel;
+    private DatagramChannel[]           channels;
 
     public DatagramSelectorEventLoopGroup(DatagramChannelContext context, String eventLoopName,
             int eventLoopSize, DatagramChannel channel) {
+        this(context, eventLoopName, eventLoopSize, new DatagramChannel[] { channel });
+    }
+
+    /**
+     * 第n个selector线程监听channels[n % channels.length]
+     */
+    public DatagramSelectorEventLoopGroup(DatagramChannelContext context, String eventLoopName,
+            int eventLoopSize, DatagramChannel[] channels) {
         super(eventLoopName, eventLoopSize);
         this.channelContext = context;
-        this.channel = channel;
+        this.channels = channels;
     }
 
     @Override
@@ -63,7 +71,8 @@ public class DatagramSelectorEventLoopGroup extends AbstractEventLoopGroup
 
     @Override
     protected DatagramSelectorEventLoop newEventLoop(int coreIndex) {
-        return new DatagramSelectorEventLoop(this, coreIndex, channel);
+        return new DatagramSelectorEventLoop(this, coreIndex,
+                channels[coreIndex % channels.length]);
     }
 
     @Override
@@ -26,6 +26,9 @@ public class DatagramSession extends AbstractSession {
 
     private SocketSession   socketSession;
 
+    // 从DatagramSessionManager中移除后置为true，selector线程淘汰缓存前据此跳过该session
+    private volatile boolean removed;
+
     public DatagramSession(DatagramChannel channel) {
         this.channel = channel;
     }
@@ -56,4 +59,12 @@ public class DatagramSession extends AbstractSession {
         this.socketSession = socketSession;
     }
 
+    boolean isRemoved() {
+        return removed;
+    }
+
+    void setRemoved() {
+        this.removed = true;
+    }
+
 }
@@ -96,7 +96,14 @@ public class DatagramSessionManager extends AbstractSessionManager {
     }
 
     public void removeSession(DatagramSession session) {
-        sessions.remove(session.getRemoteSocketAddress());
+        // 只移除该session，同一地址上新建的session不受影响
+        if (sessions.remove(session.getRemoteSocketAddress(), session)) {
+            session.setRemoved();
+            DatagramChannel channel = session.getChannel();
+            if (channel instanceof NioDatagramChannel) {
+                ((NioDatagramChannel) channel).getSelectorLoop().evictSession(session);
+            }
+        }
     }
 
     @Override
@@ -108,6 +115,10 @@ public class DatagramSessionManager extends AbstractSessionManager {
         return sessions.get(sessionId);
     }
 
+    /**
+     * session以远程地址为key，绑定首次收到该地址报文的socket，
+     * SO_REUSEPORT时内核对同一远程地址总是选择同一socket
+     */
     public DatagramSession getSession(java.nio.channels.DatagramChannel nioChannel,
             InetSocketAddress remote, DatagramSelectorEventLoop selectorLoop) throws IOException {
 
@@ -15,6 +15,8 @@
  */
 package com.generallycloud.baseio.component;
 
+import java.util.List;
+
 import com.generallycloud.baseio.concurrent.ExecutorEventLoop;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 
@@ -40,4 +42,20 @@ public class EventLoopFutureAcceptor extends AbstractFutureAcceptor {
         });
     }
 
+    @Override
+    protected void accept(final IoEventHandle eventHandle, final SocketSession session,
+            final List<ChannelFuture> futures) {
+
+        ExecutorEventLoop eventLoop = session.getExecutorEventLoop();
+
+        eventLoop.dispatch(new Runnable() {
+
+            @Override
+            public void run() {
+                acceptAll(eventHandle, session, futures);
+            }
+
+        });
+    }
+
 }
@@ -15,7 +15,17 @@
  */
 package com.generallycloud.baseio.component;
 
+import java.util.List;
+
+import com.generallycloud.baseio.protocol.ChannelFuture;
+
 public interface ForeFutureAcceptor extends FutureAcceptor {
 
     void initialize(SocketChannelContext channelContext) throws Exception;
+
+    /**
+     * 处理同一次读取中解码出的多个future，按顺序处理，
+     * 处理过程中产生的响应合并为一次flush
+     */
+    void accept(SocketSession session, List<ChannelFuture> futures) throws Exception;
 }
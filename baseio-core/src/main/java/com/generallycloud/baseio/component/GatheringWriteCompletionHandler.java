@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.component;
+
+import java.nio.channels.CompletionHandler;
+
+import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
+
+public class GatheringWriteCompletionHandler implements CompletionHandler<Long, AioSocketChannel> {
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Override
+    public void completed(Long result, AioSocketChannel channel) {
+
+        channel.gatheringWriteCallback(result);
+    }
+
+    @Override
+    public void failed(Throwable exc, AioSocketChannel channel) {
+
+        logger.error(exc.getMessage() + " channel:" + channel, exc);
+
+        CloseUtil.close(channel);
+    }
+
+}
@@ -15,6 +15,8 @@
  */
 package com.generallycloud.baseio.component;
 
+import java.util.List;
+
 import com.generallycloud.baseio.protocol.ChannelFuture;
 
 public class IoProcessFutureAcceptor extends AbstractFutureAcceptor {
@@ -28,4 +30,10 @@ public class IoProcessFutureAcceptor extends AbstractFutureAcceptor {
         }
     }
 
+    @Override
+    protected void accept(IoEventHandle eventHandle, SocketSession session,
+            List<ChannelFuture> futures) {
+        acceptAll(eventHandle, session, futures);
+    }
+
 }
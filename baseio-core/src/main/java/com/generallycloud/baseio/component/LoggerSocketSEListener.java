@@ -18,7 +18,8 @@ package com.generallycloud.baseio.component;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
 
-public class LoggerSocketSEListener implements SocketSessionEventListener {
+public class LoggerSocketSEListener
+        implements SocketSessionEventListener, SocketSessionWritabilityListener {
 
     private Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -32,4 +33,9 @@ public class LoggerSocketSEListener implements SocketSessionEventListener {
         logger.info("session closed:{}", session);
     }
 
+    @Override
+    public void channelWritabilityChanged(SocketSession session) {
+        logger.info("session writable:{},{}", session.isWritable(), session);
+    }
+
 }
@@ -48,13 +48,18 @@ public class NioDatagramChannel extends AbstractChannel
         ReentrantLock lock = getCloseLock();
         lock.lock();
         try {
-            if (!isOpened()) {
-                return;
+            if (isOpened()) {
+                physicalClose();
             }
-            physicalClose();
         } finally {
             lock.unlock();
         }
+        // 已关闭的session不再由manager管理，同时从selector线程的缓存中淘汰
+        context.getSessionManager().removeSession(session);
+    }
+
+    DatagramSelectorEventLoop getSelectorLoop() {
+        return selectorLoop;
     }
 
     @Override
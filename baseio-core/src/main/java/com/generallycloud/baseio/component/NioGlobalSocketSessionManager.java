@@ -22,7 +22,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.generallycloud.baseio.buffer.ByteBufAllocator;
-import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.common.ReleaseUtil;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.Future;
 import com.generallycloud.baseio.protocol.ProtocolEncoder;
@@ -39,6 +39,8 @@ public class NioGlobalSocketSessionManager implements SocketSessionManager {
 
     private SocketSessionManager[]      socketSessionManagers;
 
+    private SocketSelectorEventLoop[]   selectorLoops;
+
     private int                         managerLen;
 
     private NioSocketChannelContext     context;
@@ -49,6 +51,7 @@ public class NioGlobalSocketSessionManager implements SocketSessionManager {
         SocketSelectorEventLoopGroup group = service.getSelectorEventLoopGroup();
         SocketSelectorEventLoop[] loops = group.getSelectorEventLoops();
         socketSessionManagers = new SocketSessionManager[loops.length];
+        selectorLoops = loops;
         managerLen = loops.length;
         for (int i = 0; i < managerLen; i++) {
             socketSessionManagers[i] = loops[i].getSocketSessionManager();
@@ -101,18 +104,30 @@ public class NioGlobalSocketSessionManager implements SocketSessionManager {
         }
         ChannelFuture f = (ChannelFuture) future;
         ProtocolEncoder encoder = context.getProtocolEncoder();
-        ByteBufAllocator allocator = UnpooledByteBufAllocator.getHeapInstance();
-        encoder.encode(allocator, f);
-        broadcastChannelFuture(f);
+        // 只encode一次，各session写出的是共享内存池buf的duplicate，全部写出后归还
+        ByteBufAllocator allocator = context.getByteBufAllocatorManager().getNextBufAllocator();
+        encoder.encode(allocator, f.flush());
+        try {
+            broadcastChannelFuture(f);
+        } finally {
+            ReleaseUtil.release(f);
+        }
     }
 
+    /**
+     * 每个selector线程派发一个事件，由该线程写给自己管理的session
+     */
     @Override
     public void broadcastChannelFuture(ChannelFuture future) {
         if (getManagedSessionSize() == 0) {
             return;
         }
-        for (SocketSession s : sessions.values()) {
-            s.doFlush(future.duplicate());
+        SocketSelectorEventLoop[] loops = selectorLoops;
+        for (int i = 0; i < managerLen; i++) {
+            if (socketSessionManagers[i].getManagedSessionSize() == 0) {
+                continue;
+            }
+            loops[i].dispatch(new BroadcastSelectorLoopEvent(future.duplicate()));
         }
     }
 
@@ -21,12 +21,19 @@ import java.net.SocketOption;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.concurrent.locks.ReentrantLock;
 
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+
 import com.generallycloud.baseio.ClosedChannelException;
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.ssl.SslHandler;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
 import com.generallycloud.baseio.protocol.ChannelFuture;
+import com.generallycloud.baseio.protocol.FileRegion;
+import com.generallycloud.baseio.protocol.SslBatchChannelFuture;
 
 public class NioSocketChannel extends AbstractSocketChannel implements SelectorLoopEvent {
 
@@ -36,6 +43,15 @@ public class NioSocketChannel extends AbstractSocketChannel implements SelectorL
     private NioSocketChannelContext context;
     private SocketSelectorEventLoop selectorEventLoop;
     private boolean                 flushing;
+    private boolean                 gatheringWrite;
+    private int                     gatheringWriteMaxBytes;
+    // 聚集写时未写完的future(第一个为writeFuture)，仅在出现半包时创建
+    private ChannelFuture[]         remainFutures;
+    private int                     remainSize;
+    // ssl模式下开启聚集写时，将连续的小future合并后再wrap
+    private boolean                 sslBatchWrap;
+    // 合并时取出的不能合并的future，下次优先写出
+    private ChannelFuture           sslNextFuture;
 
     private static final int        OPS_RW = SelectionKey.OP_READ | SelectionKey.OP_WRITE;
 
@@ -48,6 +64,13 @@ public class NioSocketChannel extends AbstractSocketChannel implements SelectorL
         this.context = selectorLoop.getChannelContext();
         this.selectionKey = selectionKey;
         this.channel = (SocketChannel) selectionKey.channel();
+        ServerConfiguration configuration = context.getServerConfiguration();
+        // ssl模式下future在write时才wrap，不能直接聚集写，改为合并明文后一次wrap
+        this.gatheringWrite = configuration.isSERVER_ENABLE_GATHERING_WRITE()
+                && !context.isEnableSSL();
+        this.sslBatchWrap = configuration.isSERVER_ENABLE_GATHERING_WRITE()
+                && context.isEnableSSL();
+        this.gatheringWriteMaxBytes = configuration.getSERVER_GATHERING_WRITE_MAX_BYTES();
     }
 
     @Override
@@ -105,9 +128,17 @@ public class NioSocketChannel extends AbstractSocketChannel implements SelectorL
     }
 
     protected void flush(SocketSelectorEventLoop selectorLoop) throws IOException {
+        if (sslTaskPending) {
+            // 握手task执行期间engine无法wrap，task完成后会再次触发flush
+            return;
+        }
+        if (gatheringWrite) {
+            gatheringFlush(selectorLoop);
+            return;
+        }
         ChannelFuture f = writeFuture;
         if (f == null) {
-            f = writeFutures.poll();
+            f = pollWriteFuture(selectorLoop);
         }
         if (f == null) {
             return;
@@ -126,9 +157,9 @@ public class NioSocketChannel extends AbstractSocketChannel implements SelectorL
                 interestWrite(selectionKey);
                 return;
             }
-            writeFutureLength(-f.getByteBufLimit());
+            writeFutureLength(-f.getWriteLength());
             f.onSuccess(session);
-            f = writeFutures.poll();
+            f = pollWriteFuture(selectorLoop);
             if (f == null) {
                 break;
             }
@@ -138,6 +169,194 @@ public class NioSocketChannel extends AbstractSocketChannel implements SelectorL
         flushing = false;
     }
 
+    private ChannelFuture pollWriteFuture(SocketSelectorEventLoop selectorLoop)
+            throws IOException {
+        ChannelFuture f = sslNextFuture;
+        if (f == null) {
+            f = writeFutures.poll();
+        } else {
+            sslNextFuture = null;
+        }
+        if (f == null || !sslBatchWrap || !isSslBatchable(f)) {
+            return f;
+        }
+        // 握手期间的future需要按顺序单独wrap
+        if (getSSLEngine().getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING) {
+            return f;
+        }
+        ChannelFuture[] fs = selectorLoop.getWriteFutureArray();
+        int count = 1;
+        int bytes = f.getByteBuf().remaining();
+        fs[0] = f;
+        for (; count < fs.length && bytes < SslHandler.MAX_PLAINTEXT_LENGTH;) {
+            ChannelFuture next = writeFutures.poll();
+            if (next == null) {
+                break;
+            }
+            if (!isSslBatchable(next)) {
+                sslNextFuture = next;
+                break;
+            }
+            fs[count++] = next;
+            bytes += next.getByteBuf().remaining();
+        }
+        if (count == 1) {
+            fs[0] = null;
+            return f;
+        }
+        ChannelFuture[] futures = Arrays.copyOf(fs, count);
+        Arrays.fill(fs, 0, count, null);
+        ByteBuf buf = null;
+        try {
+            buf = getByteBufAllocator().allocate(bytes);
+            for (ChannelFuture future : futures) {
+                buf.read(future.getByteBuf());
+            }
+            return new SslBatchChannelFuture(context, buf.flip(), futures);
+        } catch (Throwable e) {
+            ReleaseUtil.release(buf);
+            for (ChannelFuture future : futures) {
+                ReleaseUtil.release(future);
+            }
+            throw e;
+        }
+    }
+
+    private boolean isSslBatchable(ChannelFuture f) {
+        if (f.getFileRegion() != null) {
+            return false;
+        }
+        int remaining = f.getByteBuf().remaining();
+        // 空的future用于触发握手或close_notify
+        return remaining > 0 && remaining < SslHandler.MAX_PLAINTEXT_LENGTH;
+    }
+
+    private void gatheringFlush(SocketSelectorEventLoop selectorLoop) throws IOException {
+        ChannelFuture[] fs = selectorLoop.getWriteFutureArray();
+        ByteBuffer[] bs = selectorLoop.getWriteBuffers();
+        int maxBytes = gatheringWriteMaxBytes;
+        for (;;) {
+            int count = 0;
+            int iov = 0;
+            long bytes = 0;
+            boolean region = false;
+            for (; count < remainSize; count++) {
+                ChannelFuture f = remainFutures[count];
+                remainFutures[count] = null;
+                fs[count] = f;
+                if (f.getFileRegion() != null) {
+                    // 带文件的future总是一批中的最后一个，单独写出
+                    region = true;
+                    continue;
+                }
+                ByteBuffer b = f.getByteBuf().getNioBuffer();
+                bs[count] = b;
+                bytes += b.remaining();
+                iov = count + 1;
+            }
+            remainSize = 0;
+            for (; !region && count < fs.length && bytes < maxBytes; count++) {
+                ChannelFuture f = writeFutures.poll();
+                if (f == null) {
+                    break;
+                }
+                fs[count] = f;
+                if (f.getFileRegion() != null) {
+                    region = true;
+                    continue;
+                }
+                ByteBuffer b = f.getByteBuf().getNioBuffer();
+                bs[count] = b;
+                bytes += b.remaining();
+                iov = count + 1;
+            }
+            if (count == 0) {
+                break;
+            }
+            try {
+                if (iov > 0) {
+                    channel.write(bs, 0, iov);
+                }
+            } catch (Throwable e) {
+                writeFuture = null;
+                for (int i = 0; i < count; i++) {
+                    ReleaseUtil.release(fs[i]);
+                }
+                clearWriteArray(fs, bs, count);
+                throw e;
+            }
+            int i = 0;
+            try {
+                for (; i < count; i++) {
+                    ChannelFuture f = fs[i];
+                    if (i < iov) {
+                        f.getByteBuf().reverse();
+                    } else {
+                        f.write(this);
+                    }
+                    if (!f.isWriteCompleted()) {
+                        break;
+                    }
+                    writeFutureLength(-f.getWriteLength());
+                    f.onSuccess(session);
+                }
+            } catch (Throwable e) {
+                writeFuture = null;
+                for (; i < count; i++) {
+                    ReleaseUtil.release(fs[i]);
+                }
+                clearWriteArray(fs, bs, count);
+                throw e;
+            }
+            if (i < count) {
+                if (remainFutures == null) {
+                    remainFutures = new ChannelFuture[fs.length];
+                }
+                remainSize = count - i;
+                System.arraycopy(fs, i, remainFutures, 0, remainSize);
+                clearWriteArray(fs, bs, count);
+                writeFuture = remainFutures[0];
+                flushing = true;
+                interestWrite(selectionKey);
+                return;
+            }
+            clearWriteArray(fs, bs, count);
+        }
+        interestRead(selectionKey);
+        writeFuture = null;
+        flushing = false;
+    }
+
+    private void clearWriteArray(ChannelFuture[] fs, ByteBuffer[] bs, int count) {
+        Arrays.fill(fs, 0, count, null);
+        Arrays.fill(bs, 0, count, null);
+    }
+
+    @Override
+    protected void releaseFutures() {
+        // remainFutures[0]即writeFuture，由super处理
+        if (remainSize > 0) {
+            remainFutures[0] = null;
+        }
+        if (remainSize > 1) {
+            ClosedChannelException e = new ClosedChannelException(session.toString());
+            for (int i = 1; i < remainSize; i++) {
+                ChannelFuture f = remainFutures[i];
+                remainFutures[i] = null;
+                f.onException(session, e);
+                ReleaseUtil.release(f);
+            }
+        }
+        remainSize = 0;
+        if (sslNextFuture != null) {
+            ChannelFuture f = sslNextFuture;
+            sslNextFuture = null;
+            f.onException(session, new ClosedChannelException(session.toString()));
+            ReleaseUtil.release(f);
+        }
+        super.releaseFutures();
+    }
+
     @Override
     public void close() throws IOException {
         if (!isOpened()) {
@@ -211,6 +430,16 @@ public class NioSocketChannel extends AbstractSocketChannel implements SelectorL
         buf.reverse();
     }
 
+    @Override
+    public boolean isZeroCopySupported() {
+        return !isEnableSSL();
+    }
+
+    @Override
+    public long write(FileRegion region) throws IOException {
+        return region.transferTo(channel);
+    }
+
     protected void dispatchEvent(SelectorLoopEvent event) {
         this.selectorEventLoop.dispatch(event);
     }
@@ -15,14 +15,22 @@
  */
 package com.generallycloud.baseio.component;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import com.generallycloud.baseio.concurrent.ExecutorEventLoopGroup;
 import com.generallycloud.baseio.concurrent.LineEventLoopGroup;
+import com.generallycloud.baseio.concurrent.NamedThreadFactory;
 import com.generallycloud.baseio.concurrent.ThreadEventLoopGroup;
 import com.generallycloud.baseio.configuration.ServerConfiguration;
 
 public class NioSocketChannelContext extends AbstractSocketChannelContext {
 
     protected NioGlobalSocketSessionManager sessionManager;
+    // ssl握手delegated task线程池，未配置时为null
+    private ThreadPoolExecutor              sslTaskExecutor;
 
     public NioSocketChannelContext(ServerConfiguration configuration) {
         super(configuration);
@@ -34,6 +42,31 @@ public class NioSocketChannelContext extends AbstractSocketChannelContext {
         return sessionManager;
     }
 
+    public Executor getSslTaskExecutor() {
+        return sslTaskExecutor;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        int sslTaskThreads = serverConfiguration.getSERVER_SSL_TASK_THREADS();
+        if (isEnableSSL() && sslTaskThreads > 0) {
+            int queueSize = serverConfiguration.getSERVER_SSL_TASK_QUEUE_SIZE();
+            this.sslTaskExecutor = new ThreadPoolExecutor(sslTaskThreads, sslTaskThreads, 0,
+                    TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                    new NamedThreadFactory("ssl-task"));
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        if (sslTaskExecutor != null) {
+            sslTaskExecutor.shutdown();
+            sslTaskExecutor = null;
+        }
+    }
+
     @Override
     protected ExecutorEventLoopGroup createExecutorEventLoopGroup() {
         int eventLoopSize = serverConfiguration.getSERVER_CORE_SIZE();
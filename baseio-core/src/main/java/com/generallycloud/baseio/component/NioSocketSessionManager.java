@@ -101,9 +101,21 @@ public class NioSocketSessionManager extends AbstractSessionManager
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * 只能在当前selector线程中调用，写队列超过高水位的session不再写入
+     */
     @Override
     public void broadcastChannelFuture(ChannelFuture future) {
-        throw new UnsupportedOperationException();
+        IntObjectHashMap<SocketSession> sessions = this.sessions;
+        if (sessions.size() == 0) {
+            return;
+        }
+        for (SocketSession session : sessions.values()) {
+            if (!session.isWritable()) {
+                continue;
+            }
+            session.doFlush(future.duplicate());
+        }
     }
 
     @Override
@@ -25,9 +25,10 @@ public class ReadCompletionHandler implements CompletionHandler<Integer, AioSock
 
             if (result < 1) {
                 if (result == 0) {
-                    channel.read(channel.getReadCache());
+                    channel.read();
                     return;
                 }
+                channel.releaseReadCache();
                 CloseUtil.close(channel);
                 return;
             }
@@ -42,17 +43,24 @@ public class ReadCompletionHandler implements CompletionHandler<Integer, AioSock
 
             byteBufReader.accept(channel, buf);
 
+            channel.readCompleted(result);
+
         } catch (Exception e) {
 
             failed(e, channel);
+
+            return;
         }
 
-        channel.read(channel.getReadCache());
+        channel.read();
     }
 
     @Override
     public void failed(Throwable exc, AioSocketChannel channel) {
 
+        // 没有未完成的read了，readCache不再需要
+        channel.releaseReadCache();
+
         if (exc instanceof AsynchronousCloseException) {
             //FIXME 产生该异常的原因是shutdownOutput后对方收到 read(-1)然后调用shutdownOutput,本地在收到read(-1)之前关闭了连接
             return;
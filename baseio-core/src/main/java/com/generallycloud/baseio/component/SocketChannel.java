@@ -24,6 +24,7 @@ import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.component.ssl.SslHandler;
 import com.generallycloud.baseio.concurrent.ExecutorEventLoop;
 import com.generallycloud.baseio.protocol.ChannelFuture;
+import com.generallycloud.baseio.protocol.FileRegion;
 import com.generallycloud.baseio.protocol.ProtocolDecoder;
 import com.generallycloud.baseio.protocol.ProtocolEncoder;
 import com.generallycloud.baseio.protocol.ProtocolFactory;
@@ -31,8 +32,15 @@ import com.generallycloud.baseio.protocol.SslFuture;
 
 public interface SocketChannel extends DuplexChannel {
 
+    /**
+     * 开始批量flush，直到endFlushBatch之前flush的future只入队不写出
+     */
+    void beginFlushBatch();
+
     void doFlush(ChannelFuture future);
 
+    void endFlushBatch();
+
     void finishHandshake(Exception e);
 
     void fireOpend();
@@ -63,6 +71,16 @@ public interface SocketChannel extends DuplexChannel {
 
     SslFuture getSslReadFuture();
 
+    /**
+     * @return ssl握手的delegated task交给线程池执行时暂存的密文
+     */
+    ByteBuf getSslPendingBuf();
+
+    /**
+     * @return 解密时engine要求先wrap而提前wrap出的握手消息，下次wrap时先于新的record写出
+     */
+    ByteBuf getSslWrapPendingBuf();
+
     int getWriteFutureLength();
 
     int getWriteFutureSize();
@@ -71,6 +89,16 @@ public interface SocketChannel extends DuplexChannel {
 
     boolean isEnableSSL();
 
+    /**
+     * @return ssl握手的delegated task是否正在线程池中执行，执行期间暂停解密和flush
+     */
+    boolean isSslTaskPending();
+
+    /**
+     * @return 写队列中待发送的字节数是否低于高水位，越过高水位后需回落到低水位以下才恢复可写
+     */
+    boolean isWritable();
+
     <T> void setOption(SocketOption<T> name, T value) throws IOException;
 
     void setProtocolDecoder(ProtocolDecoder protocolDecoder);
@@ -83,6 +111,30 @@ public interface SocketChannel extends DuplexChannel {
 
     void setSslReadFuture(SslFuture future);
 
+    void setSslPendingBuf(ByteBuf buf);
+
+    void setSslWrapPendingBuf(ByteBuf buf);
+
+    void setSslTaskPending(boolean pending);
+
+    /**
+     * @param low 回落到该值以下时恢复可写
+     * @param high 超过该值时变为不可写，0表示不检测
+     */
+    void setWriteBufferWaterMark(int low, int high);
+
+    /**
+     * @param limit 写队列中待发送的字节数上限，0表示不限制
+     */
+    void setWriteBufferLimit(int limit);
+
     void write(ByteBuf buf) throws IOException;
 
+    /**
+     * @return 是否可以使用FileChannel.transferTo直接写出文件
+     */
+    boolean isZeroCopySupported();
+
+    long write(FileRegion region) throws IOException;
+
 }
@@ -70,6 +70,11 @@ public abstract class SocketChannelSessionImpl extends AbstractSession implement
         getChannel().doFlush(future);
     }
 
+    @Override
+    public boolean isWritable() {
+        return getChannel().isWritable();
+    }
+
     @Override
     public ProtocolDecoder getProtocolDecoder() {
         return getChannel().getProtocolDecoder();
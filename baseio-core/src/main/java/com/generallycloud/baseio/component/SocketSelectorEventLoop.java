@@ -16,6 +16,7 @@
 package com.generallycloud.baseio.component;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.util.List;
 import java.util.Set;
@@ -31,8 +32,10 @@ import com.generallycloud.baseio.component.ssl.SslHandler;
 import com.generallycloud.baseio.concurrent.BufferedArrayList;
 import com.generallycloud.baseio.concurrent.ExecutorEventLoop;
 import com.generallycloud.baseio.concurrent.LineEventLoop;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
+import com.generallycloud.baseio.protocol.ChannelFuture;
 
 /**
  * @author wangkai
@@ -56,6 +59,9 @@ public class SocketSelectorEventLoop extends AbstractSelectorLoop
     private AtomicBoolean                        selecting                = new AtomicBoolean();
     private UnpooledByteBufAllocator             unpooledByteBufAllocator = null;
     private BufferedArrayList<SelectorLoopEvent> selectorLoopEvents       = new BufferedArrayList<>();
+    // 聚集写时使用的临时数组，只在selector线程中使用
+    private ByteBuffer[]                         writeBuffers             = null;
+    private ChannelFuture[]                      writeFutureArray         = null;
 
     public SocketSelectorEventLoop(SocketSelectorEventLoopGroup group, int coreIndex) {
         super(group.getChannelContext(), coreIndex);
@@ -71,6 +77,7 @@ public class SocketSelectorEventLoop extends AbstractSelectorLoop
         this.unpooledByteBufAllocator = new UnpooledByteBufAllocator(true);
         if (context.isEnableSSL()) {
             sslHandler = context.getSslContext().newSslHandler(context);
+            sslHandler.setDelegatedTaskExecutor(context.getSslTaskExecutor(), this);
         }
     }
 
@@ -108,8 +115,14 @@ public class SocketSelectorEventLoop extends AbstractSelectorLoop
             ((LineEventLoop) executorEventLoop).setMonitor(this);
         }
         LifeCycleUtil.start(unpooledByteBufAllocator);
-        int readBuffer = context.getServerConfiguration().getSERVER_CHANNEL_READ_BUFFER();
+        ServerConfiguration configuration = context.getServerConfiguration();
+        int readBuffer = configuration.getSERVER_CHANNEL_READ_BUFFER();
         this.buf = unpooledByteBufAllocator.allocate(readBuffer);
+        if (configuration.isSERVER_ENABLE_GATHERING_WRITE()) {
+            int maxIov = configuration.getSERVER_GATHERING_WRITE_MAX_IOV();
+            this.writeBuffers = new ByteBuffer[maxIov];
+            this.writeFutureArray = new ChannelFuture[maxIov];
+        }
         super.doStartup();
     }
 
@@ -326,6 +339,14 @@ public class SocketSelectorEventLoop extends AbstractSelectorLoop
         }
     }
 
+    protected ByteBuffer[] getWriteBuffers() {
+        return writeBuffers;
+    }
+
+    protected ChannelFuture[] getWriteFutureArray() {
+        return writeFutureArray;
+    }
+
     @Override
     public SslHandler getSslHandler() {
         return sslHandler;
@@ -58,6 +58,11 @@ public interface SocketSession extends Session {
      */
     public abstract void doFlush(ChannelFuture future);
 
+    /**
+     * @return 写队列中待发送的字节数是否低于高水位
+     */
+    public abstract boolean isWritable();
+
     public abstract <T> T getOption(SocketOption<T> name) throws IOException;
 
     public abstract <T> void setOption(SocketOption<T> name, T value) throws IOException;
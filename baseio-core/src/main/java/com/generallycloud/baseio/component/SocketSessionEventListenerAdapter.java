@@ -15,7 +15,8 @@
  */
 package com.generallycloud.baseio.component;
 
-public class SocketSessionEventListenerAdapter implements SocketSessionEventListener {
+public class SocketSessionEventListenerAdapter
+        implements SocketSessionEventListener, SocketSessionWritabilityListener {
 
     @Override
     public void sessionOpened(SocketSession session) throws Exception {
@@ -27,4 +28,9 @@ public class SocketSessionEventListenerAdapter implements SocketSessionEventList
 
     }
 
+    @Override
+    public void channelWritabilityChanged(SocketSession session) {
+
+    }
+
 }
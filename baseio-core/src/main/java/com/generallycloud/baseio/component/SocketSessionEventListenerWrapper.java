@@ -20,7 +20,7 @@ import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
 
 public class SocketSessionEventListenerWrapper extends AbstractLinkable
-        implements SocketSessionEventListener {
+        implements SocketSessionEventListener, SocketSessionWritabilityListener {
 
     private SocketSessionEventListenerWrapper next;
 
@@ -33,6 +33,10 @@ public class SocketSessionEventListenerWrapper extends AbstractLinkable
         this.logger = LoggerFactory.getLogger(value.getClass());
     }
 
+    public SocketSessionEventListener getValue() {
+        return value;
+    }
+
     @Override
     public void sessionOpened(SocketSession session) {
 
@@ -69,6 +73,26 @@ public class SocketSessionEventListenerWrapper extends AbstractLinkable
         listener.sessionClosed(session);
     }
 
+    @Override
+    public void channelWritabilityChanged(SocketSession session) {
+
+        if (value instanceof SocketSessionWritabilityListener) {
+            try {
+                ((SocketSessionWritabilityListener) value).channelWritabilityChanged(session);
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+
+        SocketSessionEventListenerWrapper listener = getNext();
+
+        if (listener == null) {
+            return;
+        }
+
+        listener.channelWritabilityChanged(session);
+    }
+
     @Override
     public SocketSessionEventListenerWrapper getNext() {
         return next;
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.component;
+
+import java.util.EventListener;
+
+/**
+ * 写队列中待发送的字节数越过高水位或回落到低水位以下时通知，
+ * 通过session.isWritable()获取当前状态。与{@link SocketSessionEventListener}
+ * 一起实现并通过addSessionEventListener注册
+ */
+public interface SocketSessionWritabilityListener extends EventListener {
+
+    public abstract void channelWritabilityChanged(SocketSession session);
+
+}
@@ -17,8 +17,11 @@ package com.generallycloud.baseio.component;
 
 import java.io.IOException;
 
+import javax.net.ssl.SSLException;
+
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.ssl.SslHandler;
 import com.generallycloud.baseio.protocol.SslFuture;
 import com.generallycloud.baseio.protocol.SslFutureImpl;
 
@@ -33,44 +36,48 @@ public class SslChannelByteBufReader extends LinkableChannelByteBufReader {
                 return;
             }
 
+            if (channel.isSslTaskPending()) {
+                // 握手task执行完之前不能继续解密，先暂存
+                stash(channel, buffer);
+                return;
+            }
+
             SslFuture future = channel.getSslReadFuture();
 
-            if (future == null) {
+            if (future != null) {
+                // 上次读取剩余的半包，先补齐这一个record
+                acceptFuture(channel, future, buffer);
+                continue;
+            }
+
+            int length = getCompleteRecordsLength(buffer);
+
+            if (length == 0) {
 
                 ByteBuf buf = allocate(channel, SslFuture.SSL_RECORD_HEADER_LENGTH);
 
                 future = new SslFutureImpl(channel, buf, 1024 * 64);//FIXME param
 
                 channel.setSslReadFuture(future);
-            }
 
-            try {
-
-                if (!future.read(channel, buffer)) {
+                continue;
+            }
 
-                    return;
-                }
+            // buffer中完整的record直接一次解密，不再逐个拷贝到SslFuture中
+            int limit = buffer.limit();
 
-            } catch (Throwable e) {
+            ByteBuf produce;
 
-                ReleaseUtil.release(future);
+            buffer.limit(buffer.position() + length);
 
-                channel.setSslReadFuture(null);
+            try {
 
-                if (e instanceof IOException) {
-                    throw (IOException) e;
-                }
+                produce = channel.getSslHandler().unwrap(channel, buffer);
 
-                throw new IOException(
-                        "exception occurred when read from channel,the nested exception is,"
-                                + e.getMessage(),
-                        e);
+            } finally {
+                buffer.limit(limit);
             }
 
-            channel.setSslReadFuture(null);
-
-            ByteBuf produce = future.getProduce();
-
             if (produce == null) {
                 continue;
             }
@@ -81,9 +88,100 @@ public class SslChannelByteBufReader extends LinkableChannelByteBufReader {
 
             } finally {
 
-                ReleaseUtil.release(future);
+                ReleaseUtil.release(produce);
+            }
+        }
+    }
+
+    private void acceptFuture(SocketChannel channel, SslFuture future, ByteBuf buffer)
+            throws Exception {
+
+        try {
+
+            if (!future.read(channel, buffer)) {
+
+                return;
+            }
+
+        } catch (Throwable e) {
+
+            ReleaseUtil.release(future);
+
+            channel.setSslReadFuture(null);
+
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+
+            throw new IOException(
+                    "exception occurred when read from channel,the nested exception is,"
+                            + e.getMessage(),
+                    e);
+        }
+
+        channel.setSslReadFuture(null);
+
+        ByteBuf produce = future.getProduce();
+
+        if (produce == null) {
+            return;
+        }
+
+        try {
+
+            nextAccept(channel, produce);
+
+        } finally {
+
+            ReleaseUtil.release(future);
+        }
+    }
+
+    private void stash(SocketChannel channel, ByteBuf buffer) {
+
+        ByteBuf pending = channel.getSslPendingBuf();
+
+        if (pending == null) {
+
+            pending = allocate(channel, buffer.remaining());
+
+        } else if (pending.remaining() < buffer.remaining()) {
+
+            pending = pending.reallocate(pending.position() + buffer.remaining(), true);
+        }
+
+        pending.read(buffer);
+
+        channel.setSslPendingBuf(pending);
+    }
+
+    /**
+     * @return buffer开头连续的完整record的总长度
+     */
+    private int getCompleteRecordsLength(ByteBuf buffer) throws IOException {
+
+        int position = buffer.position();
+
+        int limit = buffer.limit();
+
+        int offset = position;
+
+        for (; limit - offset >= SslFuture.SSL_RECORD_HEADER_LENGTH;) {
+
+            int packetLength = SslHandler.getEncryptedPacketLength(buffer, offset);
+
+            if (packetLength == -1) {
+                throw new SSLException("not an ssl/tls record");
             }
+
+            if (limit - offset < packetLength) {
+                break;
+            }
+
+            offset += packetLength;
         }
+
+        return offset - position;
     }
 
 }
@@ -16,11 +16,14 @@
 package com.generallycloud.baseio.component;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.common.CloseUtil;
 import com.generallycloud.baseio.common.ReleaseUtil;
 import com.generallycloud.baseio.protocol.ChannelFuture;
+import com.generallycloud.baseio.protocol.PipelinedProtocolDecoder;
 import com.generallycloud.baseio.protocol.ProtocolDecoder;
 
 public class TransparentByteBufReader extends LinkableChannelByteBufReader {
@@ -34,53 +37,125 @@ public class TransparentByteBufReader extends LinkableChannelByteBufReader {
     @Override
     public void accept(SocketChannel channel, ByteBuf buf) throws Exception {
 
-        for (;;) {
+        if (!isPipelining(channel)) {
+            acceptEach(channel, buf);
+            return;
+        }
 
-            if (!buf.hasRemaining()) {
-                return;
-            }
+        ChannelFuture first = null;
 
-            ChannelFuture future = channel.getReadFuture();
+        List<ChannelFuture> futures = null;
 
-            if (future == null) {
+        try {
 
-                ProtocolDecoder decoder = channel.getProtocolDecoder();
+            for (;;) {
 
-                future = decoder.decode(channel, buf);
+                ChannelFuture future = read(channel, buf);
 
                 if (future == null) {
-                    CloseUtil.close(channel);
-                    return;
+                    break;
+                }
+
+                if (first == null) {
+                    first = future;
+                    continue;
+                }
+
+                if (futures == null) {
+                    futures = new ArrayList<>();
+                    futures.add(first);
                 }
 
-                channel.setReadFuture(future);
+                futures.add(future);
             }
 
-            try {
+        } catch (Throwable e) {
+            // 与逐个提交时一样，出错之前已解码完整的请求先交给应用，再抛出异常关闭连接
+            accept(channel, first, futures);
+            throw e;
+        }
 
-                if (!future.read(channel, buf)) {
-                    return;
-                }
+        accept(channel, first, futures);
+    }
 
-                ReleaseUtil.release(future);
+    private void accept(SocketChannel channel, ChannelFuture first, List<ChannelFuture> futures)
+            throws Exception {
+        if (futures != null) {
+            foreReadFutureAcceptor.accept(channel.getSession(), futures);
+        } else if (first != null) {
+            foreReadFutureAcceptor.accept(channel.getSession(), first);
+        }
+    }
 
-            } catch (Throwable e) {
+    private void acceptEach(SocketChannel channel, ByteBuf buf) throws Exception {
 
-                ReleaseUtil.release(future);
+        for (;;) {
 
-                if (e instanceof IOException) {
-                    throw (IOException) e;
-                }
+            ChannelFuture future = read(channel, buf);
 
-                throw new IOException(
-                        "exception occurred when read from channel,the nested exception is,"
-                                + e.getMessage(),
-                        e);
+            if (future == null) {
+                return;
             }
 
-            channel.setReadFuture(null);
-
             foreReadFutureAcceptor.accept(channel.getSession(), future);
         }
     }
+
+    private boolean isPipelining(SocketChannel channel) {
+        ProtocolDecoder decoder = channel.getProtocolDecoder();
+        return decoder instanceof PipelinedProtocolDecoder
+                && ((PipelinedProtocolDecoder) decoder).isEnablePipelining();
+    }
+
+    /**
+     * @return 读取完整的future，buf中没有完整的future时返回null
+     */
+    private ChannelFuture read(SocketChannel channel, ByteBuf buf) throws IOException {
+
+        if (!buf.hasRemaining()) {
+            return null;
+        }
+
+        ChannelFuture future = channel.getReadFuture();
+
+        if (future == null) {
+
+            ProtocolDecoder decoder = channel.getProtocolDecoder();
+
+            future = decoder.decode(channel, buf);
+
+            if (future == null) {
+                CloseUtil.close(channel);
+                return null;
+            }
+
+            channel.setReadFuture(future);
+        }
+
+        try {
+
+            if (!future.read(channel, buf)) {
+                return null;
+            }
+
+            ReleaseUtil.release(future);
+
+        } catch (Throwable e) {
+
+            ReleaseUtil.release(future);
+
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+
+            throw new IOException(
+                    "exception occurred when read from channel,the nested exception is,"
+                            + e.getMessage(),
+                    e);
+        }
+
+        channel.setReadFuture(null);
+
+        return future;
+    }
 }
@@ -61,7 +61,8 @@ public class JdkSslContext extends SslContext {
             supportedProtocolsSet.add(supportedProtocols[i]);
         }
         List<String> protocols = new ArrayList<>();
-        addIfSupported(supportedProtocolsSet, protocols, "TLSv1.2", "TLSv1.1", "TLSv1");
+        addIfSupported(supportedProtocolsSet, protocols, "TLSv1.3", "TLSv1.2", "TLSv1.1",
+                "TLSv1");
 
         if (!protocols.isEmpty()) {
             PROTOCOLS = protocols.toArray(new String[protocols.size()]);
@@ -79,6 +80,8 @@ public class JdkSslContext extends SslContext {
         addIfSupported(SUPPORTED_CIPHERS, ciphers,
                 // XXX: Make sure to sync this list with
                 // OpenSslEngineFactory.
+                // TLSv1.3 requires JDK 11 (or 8u261).
+                "TLS_AES_128_GCM_SHA256", "TLS_AES_256_GCM_SHA384",
                 // GCM (Galois/Counter Mode) requires JDK 8.
                 "TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384",
                 "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256", "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
@@ -29,7 +29,7 @@ class JdkSslEngine extends SSLEngine {
 
     JdkSslEngine(SSLEngine engine) {
         this.engine = engine;
-        this.session = new JdkSslSession(engine.getSession());
+        this.session = new JdkSslSession(engine);
     }
 
     @Override
@@ -19,6 +19,7 @@ package com.generallycloud.baseio.component.ssl;
 import java.security.Principal;
 import java.security.cert.Certificate;
 
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSessionContext;
@@ -28,15 +29,16 @@ final class JdkSslSession implements SSLSession {
 
     private int        packetBufferSize;
     private String     applicationProtocol;
-    private SSLSession sslSession;
+    private SSLEngine  engine;
 
-    JdkSslSession(SSLSession sslSession) {
-        this.sslSession = sslSession;
-        this.packetBufferSize = sslSession.getPacketBufferSize();
+    JdkSslSession(SSLEngine engine) {
+        this.engine = engine;
+        this.packetBufferSize = engine.getSession().getPacketBufferSize();
     }
 
+    // 握手完成(或复用session)后engine的session会被替换，每次都从engine获取
     private SSLSession unwrap() {
-        return sslSession;
+        return engine.getSession();
     }
 
     @Override
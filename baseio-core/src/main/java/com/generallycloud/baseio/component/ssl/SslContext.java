@@ -259,6 +259,12 @@ public abstract class SslContext {
         }
     }
 
+    private SslHandshakeMetric handshakeMetric = new SslHandshakeMetric();
+
+    public SslHandshakeMetric getHandshakeMetric() {
+        return handshakeMetric;
+    }
+
     public SslHandler newSslHandler(SocketChannelContext context) {
         return new SslHandler(context);
     }
@@ -16,103 +16,125 @@
 package com.generallycloud.baseio.component.ssl;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
 import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
 
+import com.generallycloud.baseio.ClosedChannelException;
 import com.generallycloud.baseio.buffer.ByteBuf;
-import com.generallycloud.baseio.buffer.ByteBufAllocator;
 import com.generallycloud.baseio.buffer.EmptyByteBuf;
-import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.common.CloseUtil;
 import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.SelectorLoopEventAdapter;
 import com.generallycloud.baseio.component.SocketChannel;
 import com.generallycloud.baseio.component.SocketChannelContext;
+import com.generallycloud.baseio.component.SocketSelectorEventLoop;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
 import com.generallycloud.baseio.protocol.ChannelFuture;
 import com.generallycloud.baseio.protocol.DefaultChannelFuture;
+import com.generallycloud.baseio.protocol.SslFuture;
 
 public class SslHandler {
 
-    private ChannelFuture forgeFuture;
+    // 单个TLS record最多承载的明文长度
+    public static final int MAX_PLAINTEXT_LENGTH = 1024 * 16;
 
-    private ByteBuf       tempDst;
+    private ChannelFuture           forgeFuture;
+
+    // 握手的delegated task交给该线程池执行，为null时在当前线程执行
+    private Executor                delegatedTaskExecutor;
+
+    // task执行完成后回到该selector线程继续读写
+    private SocketSelectorEventLoop selectorLoop;
+
+    private Logger                  logger = LoggerFactory.getLogger(SslHandler.class);
 
     public SslHandler(SocketChannelContext context) {
         this.forgeFuture = new DefaultChannelFuture(context, EmptyByteBuf.getInstance());
     }
 
-    private ByteBuf getTempDst(SSLEngine engine) {
-        if (tempDst == null) {
-            synchronized (this) {
-                if (tempDst != null) {
-                    return tempDst;
-                }
-                ByteBufAllocator allocator = UnpooledByteBufAllocator.getHeapInstance();
-                int packetBufferSize = engine.getSession().getPacketBufferSize();
-                tempDst = allocator.allocate(packetBufferSize);
-            }
-        }
-        return tempDst;
+    public void setDelegatedTaskExecutor(Executor executor, SocketSelectorEventLoop selectorLoop) {
+        this.delegatedTaskExecutor = executor;
+        this.selectorLoop = selectorLoop;
     }
 
     private ByteBuf allocate(SocketChannel channel, int capacity) {
         return channel.getByteBufAllocator().allocate(capacity);
     }
 
+    /**
+     * 密文直接写入从channel的allocator申请的buf中，不再使用handler共享的临时buf，
+     * 同一个handler可以被多个线程同时使用
+     */
     public ByteBuf wrap(SocketChannel channel, ByteBuf src) throws IOException {
         SSLEngine engine = channel.getSSLEngine();
-        ByteBuf dst = getTempDst(engine);
-        ByteBuf out = null;
+        // 与unwrap时提前wrap握手消息互斥，保证先wrap出的record先写出
+        synchronized (engine) {
+            ByteBuf pending = channel.getSslWrapPendingBuf();
+            if (pending == null) {
+                return wrap0(channel, engine, src, null);
+            }
+            channel.setSslWrapPendingBuf(null);
+            try {
+                return wrap0(channel, engine, src, pending);
+            } finally {
+                ReleaseUtil.release(pending);
+            }
+        }
+    }
+
+    /**
+     * @param head 写在新的record之前的密文，可以为null
+     */
+    private ByteBuf wrap0(SocketChannel channel, SSLEngine engine, ByteBuf src, ByteBuf head)
+            throws IOException {
+        // engine要求dst至少剩余packetBufferSize才会写入一个record
+        int packetBufferSize = engine.getSession().getPacketBufferSize();
+        int headSize = head == null ? 0 : head.remaining();
+        ByteBuf dst = allocate(channel, headSize + packetBufferSize + src.remaining());
         try {
+            if (head != null) {
+                dst.read(head);
+            }
             for (;;) {
-                dst.clear();
                 SSLEngineResult result = engine.wrap(src.nioBuffer(), dst.nioBuffer());
                 Status status = result.getStatus();
                 HandshakeStatus handshakeStatus = result.getHandshakeStatus();
                 synchByteBuf(result, src, dst);
+                if (status == Status.BUFFER_OVERFLOW) {
+                    dst = dst.reallocate(dst.position() + packetBufferSize, true);
+                    continue;
+                }
                 if (status == Status.CLOSED) {
-                    return gc(channel, dst.flip());
+                    return dst.flip();
                 }
                 if (handshakeStatus != HandshakeStatus.NOT_HANDSHAKING) {
                     if (handshakeStatus == HandshakeStatus.NEED_UNWRAP) {
-                        if (out != null) {
-                            out.read(dst.flip());
-                            return out.flip();
-                        }
-                        return gc(channel, dst.flip());
+                        return dst.flip();
                     } else if (handshakeStatus == HandshakeStatus.NEED_WRAP) {
-                        if (out == null) {
-                            out = allocate(channel, 256);
-                        }
-                        out.read(dst.flip());
                         continue;
                     } else if (handshakeStatus == HandshakeStatus.FINISHED) {
                         channel.finishHandshake(null);
-                        out.read(dst.flip());
-                        return out.flip();
+                        return dst.flip();
                     } else if (handshakeStatus == HandshakeStatus.NEED_TASK) {
+                        // wrap阶段的task很少出现，直接执行
                         runDelegatedTasks(engine);
                         continue;
                     }
                 }
                 if (src.hasRemaining()) {
-                    if (out == null) {
-                        int outLength = ((src.limit() / src.position()) + 1)
-                                * (dst.position() - src.position()) + src.limit();
-                        out = allocate(channel, outLength);
-                    }
-                    out.read(dst.flip());
                     continue;
                 }
-                if (out != null) {
-                    out.read(dst.flip());
-                    return out.flip();
-                }
-                return gc(channel, dst.flip());
+                return dst.flip();
             }
         } catch (Throwable e) {
-            ReleaseUtil.release(out);
+            ReleaseUtil.release(dst);
             if (e instanceof IOException) {
                 throw (IOException) e;
             }
@@ -120,42 +142,164 @@ public class SslHandler {
         }
     }
 
-    //FIXME 部分buf不需要gc
-    private ByteBuf gc(SocketChannel channel, ByteBuf buf) throws IOException {
-        ByteBuf out = allocate(channel, buf.limit());
-        try {
-            out.read(buf);
-        } catch (Exception e) {
-            ReleaseUtil.release(out);
-            throw e;
-        }
-        return out.flip();
-    }
-
+    /**
+     * 将src中所有完整的record解密到同一个ByteBuf中，src中必须只包含完整的record
+     * @return 解密出的明文，握手等没有产生明文时返回null
+     */
     public ByteBuf unwrap(SocketChannel channel, ByteBuf src) throws IOException {
         SSLEngine sslEngine = channel.getSSLEngine();
-        ByteBuf dst = getTempDst(sslEngine);
-        for (;;) {
-            dst.clear();
-            SSLEngineResult result = sslEngine.unwrap(src.nioBuffer(), dst.nioBuffer());
-            HandshakeStatus handshakeStatus = result.getHandshakeStatus();
-            synchByteBuf(result, src, dst);
-            if (handshakeStatus != HandshakeStatus.NOT_HANDSHAKING) {
-                if (handshakeStatus == HandshakeStatus.NEED_WRAP) {
-                    channel.doFlush(forgeFuture.duplicate());
-                    return null;
-                } else if (handshakeStatus == HandshakeStatus.NEED_TASK) {
-                    runDelegatedTasks(sslEngine);
+        // 明文总是比密文短，按密文长度申请通常不会BUFFER_OVERFLOW
+        ByteBuf dst = allocate(channel, src.remaining());
+        boolean needWrap = false;
+        try {
+            for (;;) {
+                SSLEngineResult result = sslEngine.unwrap(src.nioBuffer(), dst.nioBuffer());
+                Status status = result.getStatus();
+                HandshakeStatus handshakeStatus = result.getHandshakeStatus();
+                synchByteBuf(result, src, dst);
+                if (status == Status.BUFFER_OVERFLOW) {
+                    int size = sslEngine.getSession().getApplicationBufferSize();
+                    dst = dst.reallocate(dst.position() + size, true);
                     continue;
+                }
+                if (status == Status.OK && result.bytesConsumed() == 0
+                        && result.bytesProduced() == 0
+                        && handshakeStatus != HandshakeStatus.NEED_TASK) {
+                    if (handshakeStatus != HandshakeStatus.NEED_WRAP) {
+                        throw new SSLException("ssl engine made no progress, handshake status: "
+                                + handshakeStatus);
+                    }
+                    // TLS1.3下engine要求先wrap出握手消息才会继续unwrap剩余的record，
+                    // 这里先wrap并暂存，由下面flush的future(或更早排队的future)在wrap时带出
+                    wrapHandshake(channel, sslEngine);
+                    needWrap = true;
+                    continue;
+                }
+                if (handshakeStatus == HandshakeStatus.NEED_TASK) {
+                    if (executeDelegatedTasks(channel)) {
+                        // 剩余的密文由SslChannelByteBufReader暂存，task完成后继续解密
+                        needWrap = false;
+                        break;
+                    }
+                    runDelegatedTasks(sslEngine);
+                    handshakeStatus = sslEngine.getHandshakeStatus();
+                }
+                if (handshakeStatus == HandshakeStatus.NEED_WRAP) {
+                    needWrap = true;
                 } else if (handshakeStatus == HandshakeStatus.FINISHED) {
                     channel.finishHandshake(null);
-                    return null;
-                } else if (handshakeStatus == HandshakeStatus.NEED_UNWRAP) {
-                    return null;
                 }
+                if (status == Status.CLOSED) {
+                    // inbound已关闭，之后的数据全部丢弃
+                    src.position(src.limit());
+                    break;
+                }
+                if (status == Status.BUFFER_UNDERFLOW) {
+                    throw new SSLException("incomplete ssl record");
+                }
+                if (!src.hasRemaining()) {
+                    break;
+                }
+            }
+            if (needWrap) {
+                // 同一批record中多次NEED_WRAP只需要触发一次wrap
+                channel.doFlush(forgeFuture.duplicate());
+            }
+        } catch (Throwable e) {
+            ReleaseUtil.release(dst);
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException(e);
+        }
+        if (dst.position() == 0) {
+            ReleaseUtil.release(dst);
+            return null;
+        }
+        return dst.flip();
+    }
+
+    private void wrapHandshake(SocketChannel channel, SSLEngine engine) throws IOException {
+        synchronized (engine) {
+            if (!channel.isOpened()) {
+                throw new ClosedChannelException(channel.toString());
+            }
+            ByteBuf pending = channel.getSslWrapPendingBuf();
+            channel.setSslWrapPendingBuf(null);
+            int pendingSize = pending == null ? 0 : pending.remaining();
+            ByteBuf buf;
+            try {
+                buf = wrap0(channel, engine, EmptyByteBuf.getInstance(), pending);
+            } finally {
+                ReleaseUtil.release(pending);
+            }
+            if (buf.remaining() == pendingSize) {
+                // 没有产生握手消息却仍然NEED_WRAP，继续unwrap会一直没有进展
+                ReleaseUtil.release(buf);
+                throw new SSLException("ssl engine need wrap but nothing produced");
+            }
+            channel.setSslWrapPendingBuf(buf);
+        }
+    }
+
+    /**
+     * 根据record头部计算record的长度(含头部)，调用前需保证offset之后至少有
+     * SSL_RECORD_HEADER_LENGTH个字节
+     * @return record的长度，不是SSL/TLS数据时返回-1
+     */
+    public static int getEncryptedPacketLength(ByteBuf buffer, int offset) {
+        int packetLength = 0;
+
+        // SSLv3 or TLS - Check ContentType
+        boolean tls;
+        switch (buffer.getUnsignedByte(offset)) {
+            case SslFuture.SSL_CONTENT_TYPE_CHANGE_CIPHER_SPEC:
+            case SslFuture.SSL_CONTENT_TYPE_ALERT:
+            case SslFuture.SSL_CONTENT_TYPE_HANDSHAKE:
+            case SslFuture.SSL_CONTENT_TYPE_APPLICATION_DATA:
+                tls = true;
+                break;
+            default:
+                // SSLv2 or bad data
+                tls = false;
+        }
+
+        if (tls) {
+            // SSLv3 or TLS - Check ProtocolVersion
+            int majorVersion = buffer.getUnsignedByte(offset + 1);
+            if (majorVersion == 3) {
+                // SSLv3 or TLS
+                packetLength = buffer.getUnsignedShort(offset + 3)
+                        + SslFuture.SSL_RECORD_HEADER_LENGTH;
+                if (packetLength <= SslFuture.SSL_RECORD_HEADER_LENGTH) {
+                    // Neither SSLv3 or TLSv1 (i.e. SSLv2 or bad data)
+                    tls = false;
+                }
+            } else {
+                // Neither SSLv3 or TLSv1 (i.e. SSLv2 or bad data)
+                tls = false;
+            }
+        }
+
+        if (!tls) {
+            // SSLv2 or bad data - Check the version
+            int headerLength = (buffer.getUnsignedByte(offset) & 0x80) != 0 ? 2 : 3;
+            int majorVersion = buffer.getUnsignedByte(offset + headerLength + 1);
+            if (majorVersion == 2 || majorVersion == 3) {
+                // SSLv2
+                if (headerLength == 2) {
+                    packetLength = (buffer.getShort(offset) & 0x7FFF) + 2;
+                } else {
+                    packetLength = (buffer.getShort(offset) & 0x3FFF) + 3;
+                }
+                if (packetLength <= headerLength) {
+                    return -1;
+                }
+            } else {
+                return -1;
             }
-            return gc(channel, dst.flip());
         }
+        return packetLength;
     }
 
     private void synchByteBuf(SSLEngineResult result, ByteBuf src, ByteBuf dst) {
@@ -174,6 +318,68 @@ public class SslHandler {
         //		}
     }
 
+    private boolean executeDelegatedTasks(SocketChannel channel) {
+        if (delegatedTaskExecutor == null) {
+            return false;
+        }
+        channel.setSslTaskPending(true);
+        try {
+            delegatedTaskExecutor.execute(new DelegatedTask(channel));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // 队列已满，退化为在当前线程执行
+            channel.setSslTaskPending(false);
+            return false;
+        }
+    }
+
+    private void resume(SocketChannel channel) {
+        channel.setSslTaskPending(false);
+        if (!channel.isOpened()) {
+            return;
+        }
+        ByteBuf pending = channel.getSslPendingBuf();
+        channel.setSslPendingBuf(null);
+        try {
+            // task执行期间暂停了flush，这里统一触发一次，需要时wrap出握手消息
+            channel.doFlush(forgeFuture.duplicate());
+            if (pending != null) {
+                channel.getContext().getChannelByteBufReader().accept(channel, pending.flip());
+            }
+        } catch (Throwable e) {
+            logger.error(e.getMessage(), e);
+            CloseUtil.close(channel);
+        } finally {
+            ReleaseUtil.release(pending);
+        }
+    }
+
+    class DelegatedTask implements Runnable {
+
+        private SocketChannel channel;
+
+        DelegatedTask(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                runDelegatedTasks(channel.getSSLEngine());
+            } catch (Throwable e) {
+                // 失败后engine在下次unwrap时抛出异常
+                logger.error(e.getMessage(), e);
+            }
+            selectorLoop.dispatch(new SelectorLoopEventAdapter() {
+
+                @Override
+                public void fireEvent(SocketSelectorEventLoop selectorLoop) throws IOException {
+                    resume(channel);
+                }
+            });
+        }
+    }
+
     private void runDelegatedTasks(SSLEngine engine) {
         for (;;) {
             Runnable task = engine.getDelegatedTask();
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.component.ssl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个SslContext的握手统计信息，耗时从channel打开开始计算，单位为纳秒
+ */
+public class SslHandshakeMetric {
+
+    private AtomicLong fullHandshakes    = new AtomicLong();
+    private AtomicLong resumedHandshakes = new AtomicLong();
+    private AtomicLong failedHandshakes  = new AtomicLong();
+    private AtomicLong fullTime          = new AtomicLong();
+    private AtomicLong resumedTime       = new AtomicLong();
+    private AtomicLong maxTime           = new AtomicLong();
+
+    public void onHandshake(long time, boolean resumed) {
+        if (resumed) {
+            resumedHandshakes.incrementAndGet();
+            resumedTime.addAndGet(time);
+        } else {
+            fullHandshakes.incrementAndGet();
+            fullTime.addAndGet(time);
+        }
+        AtomicLong maxTime = this.maxTime;
+        for (;;) {
+            long max = maxTime.get();
+            if (time <= max || maxTime.compareAndSet(max, time)) {
+                return;
+            }
+        }
+    }
+
+    public void onFailure() {
+        failedHandshakes.incrementAndGet();
+    }
+
+    public long getFullHandshakes() {
+        return fullHandshakes.get();
+    }
+
+    public long getResumedHandshakes() {
+        return resumedHandshakes.get();
+    }
+
+    public long getFailedHandshakes() {
+        return failedHandshakes.get();
+    }
+
+    public long getFullHandshakeTime() {
+        return fullTime.get();
+    }
+
+    public long getResumedHandshakeTime() {
+        return resumedTime.get();
+    }
+
+    public long getMaxHandshakeTime() {
+        return maxTime.get();
+    }
+
+    private static double averageMillis(long time, long count) {
+        if (count == 0) {
+            return 0;
+        }
+        return time / count / 1000 / 1000d;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("[full=");
+        b.append(getFullHandshakes());
+        b.append(",resumed=");
+        b.append(getResumedHandshakes());
+        b.append(",failed=");
+        b.append(getFailedHandshakes());
+        b.append(",fullAvg=");
+        b.append(averageMillis(getFullHandshakeTime(), getFullHandshakes()));
+        b.append("ms,resumedAvg=");
+        b.append(averageMillis(getResumedHandshakeTime(), getResumedHandshakes()));
+        b.append("ms,max=");
+        b.append(getMaxHandshakeTime() / 1000 / 1000d);
+        b.append("ms]");
+        return b.toString();
+    }
+
+}
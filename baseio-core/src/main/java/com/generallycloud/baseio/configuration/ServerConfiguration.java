@@ -18,6 +18,7 @@ package com.generallycloud.baseio.configuration;
 import java.nio.charset.Charset;
 
 import com.generallycloud.baseio.common.Encoding;
+import com.generallycloud.baseio.common.StringUtil;
 import com.generallycloud.baseio.component.ChannelContext;
 
 //FIXME 校验参数
@@ -43,6 +44,41 @@ public class ServerConfiguration {
     private int     SERVER_CHANNEL_READ_BUFFER       = 1024 * 512;
     //内存池内存单元数量百分比（单核），该配置影响"SERVER_MEMORY_POOL_CAPACITY"属性
     private double  SERVER_MEMORY_POOL_CAPACITY_RATE = 1d;
+    //内存池实现，simple(默认)或buddy
+    private String  SERVER_MEMORY_POOL_ALLOCATOR     = "simple";
+    //内存泄漏检测采样间隔，平均每N次申请记录一次申请堆栈，0表示不检测
+    private int     SERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL;
+    //是否将内存池统计信息注册到JMX
+    private boolean SERVER_ENABLE_MEMORY_POOL_JMX;
+    //是否启用聚集写(writev)，启用后一次flush将多个future合并写入，
+    //ssl模式下改为将多个小future的明文合并为一个record再wrap
+    private boolean SERVER_ENABLE_GATHERING_WRITE;
+    //聚集写单次最多合并的字节数
+    private int     SERVER_GATHERING_WRITE_MAX_BYTES = 1024 * 256;
+    //聚集写单次最多合并的future数量
+    private int     SERVER_GATHERING_WRITE_MAX_IOV   = 64;
+    //是否启用http pipelining，同一次读取中的请求依次处理，响应合并为一次flush
+    private boolean SERVER_ENABLE_HTTP_PIPELINING;
+    //执行ssl握手delegated task(证书校验、密钥计算等)的线程数，0表示在selector线程中执行(仅nio)
+    private int     SERVER_SSL_TASK_THREADS;
+    //ssl握手delegated task的最大排队数量，超出后在selector线程中执行
+    private int     SERVER_SSL_TASK_QUEUE_SIZE       = 1024 * 8;
+    //ssl session缓存数量，0表示使用SslContext的配置
+    private int     SERVER_SSL_SESSION_CACHE_SIZE;
+    //ssl session缓存时间(秒)，0表示使用SslContext的配置
+    private int     SERVER_SSL_SESSION_TIMEOUT;
+    //udp每次select后连续接收的最大报文数量
+    private int     SERVER_DATAGRAM_READ_BATCH       = 64;
+    //udp为每个selector线程绑定一个SO_REUSEPORT的socket，由内核按连接分配(需jdk9+及系统支持)
+    private boolean SERVER_DATAGRAM_REUSE_PORT;
+    //写队列中待发送的字节数超过该值时channel变为不可写，0表示不检测
+    private int     SERVER_WRITE_BUFFER_HIGH_WATER_MARK = 1024 * 1024 * 8;
+    //不可写的channel待发送的字节数回落到该值以下时重新变为可写
+    private int     SERVER_WRITE_BUFFER_LOW_WATER_MARK = 1024 * 1024 * 2;
+    //写队列中待发送的字节数上限，超出后按SERVER_WRITE_BUFFER_LIMIT_POLICY处理，0表示不限制
+    private int     SERVER_WRITE_BUFFER_LIMIT;
+    //超出写队列上限时的处理方式，reject(默认，丢弃本次写入)或close(关闭连接)
+    private String  SERVER_WRITE_BUFFER_LIMIT_POLICY = "reject";
 
     private String  SERVER_CERT_CRT                  = "localhost";
     private String  SERVER_CERT_KEY                  = "localhost";
@@ -220,6 +256,164 @@ public class ServerConfiguration {
         this.SERVER_WORK_EVENT_QUEUE_SIZE = SERVER_WORK_EVENT_QUEUE_SIZE;
     }
 
+    public String getSERVER_MEMORY_POOL_ALLOCATOR() {
+        return SERVER_MEMORY_POOL_ALLOCATOR;
+    }
+
+    public void setSERVER_MEMORY_POOL_ALLOCATOR(String SERVER_MEMORY_POOL_ALLOCATOR) {
+        if (StringUtil.isNullOrBlank(SERVER_MEMORY_POOL_ALLOCATOR)) {
+            return;
+        }
+        this.SERVER_MEMORY_POOL_ALLOCATOR = SERVER_MEMORY_POOL_ALLOCATOR;
+    }
+
+    public int getSERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL() {
+        return SERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL;
+    }
+
+    public void setSERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL(
+            int SERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL) {
+        if (SERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL == 0) {
+            return;
+        }
+        this.SERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL = SERVER_MEMORY_POOL_LEAK_DETECT_INTERVAL;
+    }
+
+    public boolean isSERVER_ENABLE_MEMORY_POOL_JMX() {
+        return SERVER_ENABLE_MEMORY_POOL_JMX;
+    }
+
+    public void setSERVER_ENABLE_MEMORY_POOL_JMX(boolean SERVER_ENABLE_MEMORY_POOL_JMX) {
+        this.SERVER_ENABLE_MEMORY_POOL_JMX = SERVER_ENABLE_MEMORY_POOL_JMX;
+    }
+
+    public boolean isSERVER_ENABLE_GATHERING_WRITE() {
+        return SERVER_ENABLE_GATHERING_WRITE;
+    }
+
+    public void setSERVER_ENABLE_GATHERING_WRITE(boolean SERVER_ENABLE_GATHERING_WRITE) {
+        this.SERVER_ENABLE_GATHERING_WRITE = SERVER_ENABLE_GATHERING_WRITE;
+    }
+
+    public int getSERVER_GATHERING_WRITE_MAX_BYTES() {
+        return SERVER_GATHERING_WRITE_MAX_BYTES;
+    }
+
+    public void setSERVER_GATHERING_WRITE_MAX_BYTES(int SERVER_GATHERING_WRITE_MAX_BYTES) {
+        if (SERVER_GATHERING_WRITE_MAX_BYTES == 0) {
+            return;
+        }
+        this.SERVER_GATHERING_WRITE_MAX_BYTES = SERVER_GATHERING_WRITE_MAX_BYTES;
+    }
+
+    public int getSERVER_GATHERING_WRITE_MAX_IOV() {
+        return SERVER_GATHERING_WRITE_MAX_IOV;
+    }
+
+    public void setSERVER_GATHERING_WRITE_MAX_IOV(int SERVER_GATHERING_WRITE_MAX_IOV) {
+        if (SERVER_GATHERING_WRITE_MAX_IOV == 0) {
+            return;
+        }
+        this.SERVER_GATHERING_WRITE_MAX_IOV = SERVER_GATHERING_WRITE_MAX_IOV;
+    }
+
+    public boolean isSERVER_ENABLE_HTTP_PIPELINING() {
+        return SERVER_ENABLE_HTTP_PIPELINING;
+    }
+
+    public void setSERVER_ENABLE_HTTP_PIPELINING(boolean SERVER_ENABLE_HTTP_PIPELINING) {
+        this.SERVER_ENABLE_HTTP_PIPELINING = SERVER_ENABLE_HTTP_PIPELINING;
+    }
+
+    public int getSERVER_SSL_TASK_THREADS() {
+        return SERVER_SSL_TASK_THREADS;
+    }
+
+    public void setSERVER_SSL_TASK_THREADS(int SERVER_SSL_TASK_THREADS) {
+        this.SERVER_SSL_TASK_THREADS = SERVER_SSL_TASK_THREADS;
+    }
+
+    public int getSERVER_SSL_TASK_QUEUE_SIZE() {
+        return SERVER_SSL_TASK_QUEUE_SIZE;
+    }
+
+    public void setSERVER_SSL_TASK_QUEUE_SIZE(int SERVER_SSL_TASK_QUEUE_SIZE) {
+        if (SERVER_SSL_TASK_QUEUE_SIZE == 0) {
+            return;
+        }
+        this.SERVER_SSL_TASK_QUEUE_SIZE = SERVER_SSL_TASK_QUEUE_SIZE;
+    }
+
+    public int getSERVER_DATAGRAM_READ_BATCH() {
+        return SERVER_DATAGRAM_READ_BATCH;
+    }
+
+    public void setSERVER_DATAGRAM_READ_BATCH(int SERVER_DATAGRAM_READ_BATCH) {
+        if (SERVER_DATAGRAM_READ_BATCH == 0) {
+            return;
+        }
+        this.SERVER_DATAGRAM_READ_BATCH = SERVER_DATAGRAM_READ_BATCH;
+    }
+
+    public boolean isSERVER_DATAGRAM_REUSE_PORT() {
+        return SERVER_DATAGRAM_REUSE_PORT;
+    }
+
+    public void setSERVER_DATAGRAM_REUSE_PORT(boolean SERVER_DATAGRAM_REUSE_PORT) {
+        this.SERVER_DATAGRAM_REUSE_PORT = SERVER_DATAGRAM_REUSE_PORT;
+    }
+
+    public int getSERVER_WRITE_BUFFER_HIGH_WATER_MARK() {
+        return SERVER_WRITE_BUFFER_HIGH_WATER_MARK;
+    }
+
+    public void setSERVER_WRITE_BUFFER_HIGH_WATER_MARK(int SERVER_WRITE_BUFFER_HIGH_WATER_MARK) {
+        this.SERVER_WRITE_BUFFER_HIGH_WATER_MARK = SERVER_WRITE_BUFFER_HIGH_WATER_MARK;
+    }
+
+    public int getSERVER_WRITE_BUFFER_LOW_WATER_MARK() {
+        return SERVER_WRITE_BUFFER_LOW_WATER_MARK;
+    }
+
+    public void setSERVER_WRITE_BUFFER_LOW_WATER_MARK(int SERVER_WRITE_BUFFER_LOW_WATER_MARK) {
+        this.SERVER_WRITE_BUFFER_LOW_WATER_MARK = SERVER_WRITE_BUFFER_LOW_WATER_MARK;
+    }
+
+    public int getSERVER_WRITE_BUFFER_LIMIT() {
+        return SERVER_WRITE_BUFFER_LIMIT;
+    }
+
+    public void setSERVER_WRITE_BUFFER_LIMIT(int SERVER_WRITE_BUFFER_LIMIT) {
+        this.SERVER_WRITE_BUFFER_LIMIT = SERVER_WRITE_BUFFER_LIMIT;
+    }
+
+    public String getSERVER_WRITE_BUFFER_LIMIT_POLICY() {
+        return SERVER_WRITE_BUFFER_LIMIT_POLICY;
+    }
+
+    public void setSERVER_WRITE_BUFFER_LIMIT_POLICY(String SERVER_WRITE_BUFFER_LIMIT_POLICY) {
+        if (StringUtil.isNullOrBlank(SERVER_WRITE_BUFFER_LIMIT_POLICY)) {
+            return;
+        }
+        this.SERVER_WRITE_BUFFER_LIMIT_POLICY = SERVER_WRITE_BUFFER_LIMIT_POLICY;
+    }
+
+    public int getSERVER_SSL_SESSION_CACHE_SIZE() {
+        return SERVER_SSL_SESSION_CACHE_SIZE;
+    }
+
+    public void setSERVER_SSL_SESSION_CACHE_SIZE(int SERVER_SSL_SESSION_CACHE_SIZE) {
+        this.SERVER_SSL_SESSION_CACHE_SIZE = SERVER_SSL_SESSION_CACHE_SIZE;
+    }
+
+    public int getSERVER_SSL_SESSION_TIMEOUT() {
+        return SERVER_SSL_SESSION_TIMEOUT;
+    }
+
+    public void setSERVER_SSL_SESSION_TIMEOUT(int SERVER_SSL_SESSION_TIMEOUT) {
+        this.SERVER_SSL_SESSION_TIMEOUT = SERVER_SSL_SESSION_TIMEOUT;
+    }
+
     public String getSERVER_CERT_CRT() {
         return SERVER_CERT_CRT;
     }
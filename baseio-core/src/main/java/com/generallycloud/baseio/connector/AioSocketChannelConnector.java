@@ -60,7 +60,7 @@ public class AioSocketChannelConnector extends AbstractSocketChannelConnector {
 
                         connector.finishConnect(channel.getSession(), null);
 
-                        aioThread.getReadCompletionHandler().completed(0, channel);
+                        channel.read();
                     }
 
                     @Override
@@ -33,13 +33,16 @@ public abstract class AbstractChannelFuture extends AbstractFuture implements Ch
     private static final Logger logger = LoggerFactory.getLogger(AbstractChannelFuture.class);
 
     //FIXME isX 使用 byte & x ?
-    protected ByteBuf  buf        = EmptyByteBuf.getInstance();
-    protected boolean  isHeartbeat;
-    protected boolean  isPING;
-    protected boolean  isSilent;
-    protected boolean  isValidate = true;
-    protected boolean  needSSL;
-    protected Linkable next;
+    protected ByteBuf    buf        = EmptyByteBuf.getInstance();
+    protected FileRegion fileRegion;
+    protected int        headerLimit;
+    protected boolean    isHeartbeat;
+    protected boolean    isPING;
+    protected boolean    isSilent;
+    protected boolean    isValidate = true;
+    protected boolean    needSSL;
+    protected Linkable   next;
+    protected int        writeLength;
 
     protected AbstractChannelFuture(SocketChannelContext context) {
         super(context);
@@ -72,7 +75,20 @@ public abstract class AbstractChannelFuture extends AbstractFuture implements Ch
 
     @Override
     public int getByteBufLimit() {
-        return buf.limit();
+        if (fileRegion == null) {
+            return buf.limit();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, headerLimit + fileRegion.getCount());
+    }
+
+    @Override
+    public int getWriteLength() {
+        return writeLength;
+    }
+
+    @Override
+    public FileRegion getFileRegion() {
+        return fileRegion;
     }
 
     @Override
@@ -97,7 +113,10 @@ public abstract class AbstractChannelFuture extends AbstractFuture implements Ch
 
     @Override
     public boolean isReleased() {
-        return buf.isReleased();
+        if (fileRegion == null) {
+            return buf.isReleased();
+        }
+        return buf.isReleased() && fileRegion.isReleased();
     }
 
     @Override
@@ -112,7 +131,10 @@ public abstract class AbstractChannelFuture extends AbstractFuture implements Ch
 
     @Override
     public boolean isWriteCompleted() {
-        return !buf.hasRemaining();
+        if (buf.hasRemaining()) {
+            return false;
+        }
+        return fileRegion == null || fileRegion.isCompleted();
     }
 
     @Override
@@ -138,12 +160,24 @@ public abstract class AbstractChannelFuture extends AbstractFuture implements Ch
     @Override
     public void release() {
         ReleaseUtil.release(buf);
+        ReleaseUtil.release(fileRegion);
     }
 
     @Override
     public void setByteBuf(ByteBuf buf) {
         buf.nioBuffer();
         this.buf = buf;
+        this.headerLimit = buf.limit();
+    }
+
+    @Override
+    public void setWriteLength(int length) {
+        this.writeLength = length;
+    }
+
+    @Override
+    public void setFileRegion(FileRegion fileRegion) {
+        this.fileRegion = fileRegion;
     }
 
     @Override
@@ -176,7 +210,7 @@ public abstract class AbstractChannelFuture extends AbstractFuture implements Ch
     }
 
     private void wrapSSL(SocketChannel channel) throws IOException {
-        // FIXME 部分情况下可以不在业务线程做wrapssl
+        // nio在selector线程flush时wrap，aio在flush的线程中持有closeLock时wrap
         ByteBuf old = this.buf;
         SslHandler handler = channel.getSslHandler();
         try {
@@ -197,6 +231,46 @@ public abstract class AbstractChannelFuture extends AbstractFuture implements Ch
             needSSL = false;
             wrapSSL(channel);
         }
+        if (fileRegion == null) {
+            channel.write(buf);
+            return;
+        }
+        if (buf.hasRemaining()) {
+            channel.write(buf);
+            // AIO的写是异步的，需等待回调后再写文件
+            if (!channel.isZeroCopySupported() || buf.hasRemaining()) {
+                return;
+            }
+        }
+        writeFileRegion(channel);
+    }
+
+    private void writeFileRegion(SocketChannel channel) throws IOException {
+        if (fileRegion.isCompleted()) {
+            return;
+        }
+        if (channel.isZeroCopySupported()) {
+            channel.write(fileRegion);
+            return;
+        }
+        // 不支持transferTo(SSL或AIO)时，每次读取一段文件到池化的buf后按普通ByteBuf写出，
+        // 该buf在读取下一段或future释放时归还
+        ByteBuf old = this.buf;
+        ByteBuf chunk = channel.getByteBufAllocator().allocate(FileRegion.CHUNK_SIZE);
+        try {
+            fileRegion.readNextChunk(chunk);
+        } catch (IOException e) {
+            ReleaseUtil.release(chunk);
+            throw e;
+        }
+        chunk.flip();
+        ReleaseUtil.release(old);
+        this.buf = chunk;
+        if (channel.isEnableSSL()) {
+            wrapSSL(channel);
+        } else {
+            this.buf.nioBuffer();
+        }
         channel.write(buf);
     }
 
@@ -56,6 +56,20 @@ public interface ChannelFuture extends Future, Linkable {
 
     int getByteBufLimit();
 
+    /**
+     * @return flush时计入channel待写长度的字节数，写出完成后按该值扣减
+     */
+    int getWriteLength();
+
+    void setWriteLength(int length);
+
     void setByteBuf(ByteBuf buf);
 
+    FileRegion getFileRegion();
+
+    /**
+     * 在ByteBuf之后写出的文件区域，encoder只需编码头部到ByteBuf中
+     */
+    void setFileRegion(FileRegion fileRegion);
+
 }
@@ -15,6 +15,7 @@
  */
 package com.generallycloud.baseio.protocol;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import com.generallycloud.baseio.buffer.ByteBuf;
@@ -122,7 +123,19 @@ public class DatagramPacket {
     }
 
     public static DatagramPacket createPacket(ByteBuf buf) {
-        byte[] data = buf.getBytes();
+        return createPacket(buf.getBytes());
+    }
+
+    /**
+     * 从buffer的position到limit复制出报文，buffer可在返回后重复使用
+     */
+    public static DatagramPacket createPacket(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return createPacket(data);
+    }
+
+    private static DatagramPacket createPacket(byte[] data) {
         DatagramPacket p = new DatagramPacket();
         p.type = data[0];
         p.timestamp = MathUtil.byte2Long(data, 1);
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.protocol;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.common.Releasable;
+
+/**
+ * 文件中的一段区域[position, position + count)，随ChannelFuture一起写出，
+ * 可直接写出时使用FileChannel.transferTo，否则按CHUNK_SIZE分段读入池化的ByteBuf后写出
+ */
+public class FileRegion implements Releasable {
+
+    public static final int CHUNK_SIZE = 1024 * 64;
+
+    private FileChannel     channel;
+    private long            position;
+    private long            count;
+    private long            transferred;
+    private boolean         released;
+
+    public FileRegion(FileChannel channel, long position, long count) {
+        this.channel = channel;
+        this.position = position;
+        this.count = count;
+    }
+
+    @SuppressWarnings("resource")
+    public static FileRegion open(File file, long position, long count) throws IOException {
+        return new FileRegion(new RandomAccessFile(file, "r").getChannel(), position, count);
+    }
+
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long length = channel.transferTo(position + transferred, count - transferred, target);
+        if (length > 0) {
+            transferred += length;
+            return length;
+        }
+        // 文件被截断后transferTo一直返回0，OP_WRITE会不停触发，已到文件末尾时视为失败
+        if (position + transferred >= channel.size()) {
+            throw new EOFException("file truncated at: " + (position + transferred));
+        }
+        return length;
+    }
+
+    /**
+     * 读取下一段未写出的数据到buf，最多读满buf的剩余空间，读取的内容视为已写出
+     */
+    public void readNextChunk(ByteBuf buf) throws IOException {
+        int length = (int) Math.min(buf.remaining(), count - transferred);
+        buf.limit(buf.position() + length);
+        ByteBuffer dst = buf.nioBuffer();
+        while (dst.hasRemaining()) {
+            int read = channel.read(dst, position + transferred);
+            if (read == -1) {
+                throw new EOFException("file truncated at: " + (position + transferred));
+            }
+            transferred += read;
+        }
+        buf.reverse();
+    }
+
+    public boolean isCompleted() {
+        return transferred >= count;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTransferred() {
+        return transferred;
+    }
+
+    @Override
+    public void release() {
+        released = true;
+        CloseUtil.close(channel);
+    }
+
+    @Override
+    public boolean isReleased() {
+        return released;
+    }
+
+}
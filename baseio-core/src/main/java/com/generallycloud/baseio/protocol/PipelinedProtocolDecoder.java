@@ -0,0 +1,26 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.protocol;
+
+/**
+ * 支持pipelining的协议，同一次读取中解码出的多个future会交给同一个线程依次处理，
+ * 处理过程中产生的响应按顺序合并为一次flush
+ */
+public interface PipelinedProtocolDecoder extends ProtocolDecoder {
+
+    public abstract boolean isEnablePipelining();
+
+}
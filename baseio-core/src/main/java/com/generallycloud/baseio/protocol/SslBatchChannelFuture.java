@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.protocol;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.SocketChannelContext;
+import com.generallycloud.baseio.component.SocketSession;
+
+/**
+ * 多个小的future的明文合并到buf中，只做一次wrap，写出完成后逐个回调
+ */
+public class SslBatchChannelFuture extends DefaultChannelFuture {
+
+    private ChannelFuture[] futures;
+
+    public SslBatchChannelFuture(SocketChannelContext context, ByteBuf buf,
+            ChannelFuture[] futures) {
+        super(context, buf);
+        this.futures = futures;
+        // 与各future flush时累计的长度一致
+        int length = 0;
+        for (ChannelFuture f : futures) {
+            length += f.getWriteLength();
+        }
+        this.writeLength = length;
+    }
+
+    @Override
+    public void onException(SocketSession session, Exception e) {
+        ReleaseUtil.release(buf);
+        for (ChannelFuture f : futures) {
+            f.onException(session, e);
+        }
+    }
+
+    @Override
+    public void onSuccess(SocketSession session) {
+        ReleaseUtil.release(buf);
+        for (ChannelFuture f : futures) {
+            f.onSuccess(session);
+        }
+    }
+
+    @Override
+    public void release() {
+        super.release();
+        for (ChannelFuture f : futures) {
+            ReleaseUtil.release(f);
+        }
+    }
+
+}
@@ -17,6 +17,8 @@ package com.generallycloud.baseio.protocol;
 
 import java.io.IOException;
 
+import javax.net.ssl.SSLException;
+
 import com.generallycloud.baseio.buffer.ByteBuf;
 import com.generallycloud.baseio.common.ReleaseUtil;
 import com.generallycloud.baseio.component.SocketChannel;
@@ -60,65 +62,13 @@ public class SslFutureImpl extends AbstractChannelFuture implements SslFuture {
 
         header_complete = true;
 
-        int packetLength = getEncryptedPacketLength(buf);
-
-        buf.reallocate(packetLength, limit, true);
-    }
-
-    private int getEncryptedPacketLength(ByteBuf buffer) {
-        int packetLength = 0;
-        int offset = 0;
-        // FIXME offset
-
-        // SSLv3 or TLS - Check ContentType
-        boolean tls;
-        switch (buffer.getUnsignedByte(offset)) {
-            case SSL_CONTENT_TYPE_CHANGE_CIPHER_SPEC:
-            case SSL_CONTENT_TYPE_ALERT:
-            case SSL_CONTENT_TYPE_HANDSHAKE:
-            case SSL_CONTENT_TYPE_APPLICATION_DATA:
-                tls = true;
-                break;
-            default:
-                // SSLv2 or bad data
-                tls = false;
-        }
+        int packetLength = SslHandler.getEncryptedPacketLength(buf, 0);
 
-        if (tls) {
-            // SSLv3 or TLS - Check ProtocolVersion
-            int majorVersion = buffer.getUnsignedByte(offset + 1);
-            if (majorVersion == 3) {
-                // SSLv3 or TLS
-                packetLength = buffer.getUnsignedShort(offset + 3) + SSL_RECORD_HEADER_LENGTH;
-                if (packetLength <= SSL_RECORD_HEADER_LENGTH) {
-                    // Neither SSLv3 or TLSv1 (i.e. SSLv2 or bad data)
-                    tls = false;
-                }
-            } else {
-                // Neither SSLv3 or TLSv1 (i.e. SSLv2 or bad data)
-                tls = false;
-            }
+        if (packetLength == -1) {
+            throw new SSLException("not an ssl/tls record");
         }
 
-        if (!tls) {
-            // SSLv2 or bad data - Check the version
-            int headerLength = (buffer.getUnsignedByte(offset) & 0x80) != 0 ? 2 : 3;
-            int majorVersion = buffer.getUnsignedByte(offset + headerLength + 1);
-            if (majorVersion == 2 || majorVersion == 3) {
-                // SSLv2
-                if (headerLength == 2) {
-                    packetLength = (buffer.getShort(offset) & 0x7FFF) + 2;
-                } else {
-                    packetLength = (buffer.getShort(offset) & 0x3FFF) + 3;
-                }
-                if (packetLength <= headerLength) {
-                    return -1;
-                }
-            } else {
-                return -1;
-            }
-        }
-        return packetLength;
+        buf.reallocate(packetLength, limit, true);
     }
 
     @Override
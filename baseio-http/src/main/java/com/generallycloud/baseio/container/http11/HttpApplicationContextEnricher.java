@@ -55,7 +55,12 @@ public class HttpApplicationContextEnricher implements ApplicationContextEnriche
 
         channelContext.addSessionIdleEventListener(new SocketSessionAliveSEListener());
 
-        channelContext.setProtocolFactory(new ServerHTTPProtocolFactory());
+        ServerHTTPProtocolFactory protocolFactory = new ServerHTTPProtocolFactory();
+
+        protocolFactory.setEnablePipelining(
+                channelContext.getServerConfiguration().isSERVER_ENABLE_HTTP_PIPELINING());
+
+        channelContext.setProtocolFactory(protocolFactory);
 
     }
 
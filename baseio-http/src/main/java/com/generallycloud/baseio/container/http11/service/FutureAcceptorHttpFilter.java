@@ -17,8 +17,10 @@ package com.generallycloud.baseio.container.http11.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.generallycloud.baseio.codec.http11.HttpHeaderDateFormat;
 import com.generallycloud.baseio.codec.http11.future.HttpFuture;
@@ -36,76 +38,209 @@ import com.generallycloud.baseio.container.http11.HtmlUtil;
 import com.generallycloud.baseio.container.service.FutureAcceptorServiceFilter;
 import com.generallycloud.baseio.log.Logger;
 import com.generallycloud.baseio.log.LoggerFactory;
+import com.generallycloud.baseio.protocol.FileRegion;
 import com.generallycloud.baseio.protocol.NamedFuture;
 
 //FIXME limit too large file
 public class FutureAcceptorHttpFilter extends FutureAcceptorServiceFilter {
 
-    private Logger                  logger     = LoggerFactory.getLogger(getClass());
+    private Logger                                   logger              = LoggerFactory
+            .getLogger(getClass());
 
-    private Map<String, HttpEntity> html_cache = new HashMap<>();
+    // 超过该大小的文件不缓存到内存，直接从文件写出
+    private static final long                        ZERO_COPY_THRESHOLD = 1024 * 16;
+
+    private static final long[]                      UNSATISFIABLE_RANGE = new long[0];
+
+    // 初始化后只读，文件变化时替换引用中的HttpEntity，请求线程总是拿到完整的一个版本
+    private Map<String, AtomicReference<HttpEntity>> html_cache          = new HashMap<>();
 
     @Override
     protected void accept404(SocketSession session, NamedFuture future, String serviceName)
             throws IOException {
 
-        HttpEntity entity = html_cache.get(serviceName);
-
-        HttpStatus status = HttpStatus.C200;
+        AtomicReference<HttpEntity> ref = html_cache.get(serviceName);
 
         ServerHttpFuture f = (ServerHttpFuture) future;
 
+        HttpEntity entity = ref == null ? null : getEntity(ref);
+
         if (entity == null) {
             f.setStatus(HttpStatus.C404);
-            entity = html_cache.get("/404.html");
+            ref = html_cache.get("/404.html");
+            entity = ref == null ? null : getEntity(ref);
             if (entity == null) {
                 super.accept404(session, f, serviceName);
                 return;
             }
+            flush(session, f, entity, 0, getLength(entity));
+            return;
         }
 
-        File file = entity.getFile();
+        if (isNotModified(f, entity)) {
+            f.setStatus(HttpStatus.C304);
+            if (entity.getEtag() != null) {
+                f.setResponseHeader(HttpHeader.ETAG, entity.getEtag());
+            }
+            session.flush(f);
+            return;
+        }
 
-        if (file != null && file.lastModified() > entity.getLastModify()) {
+        long length = getLength(entity);
 
-            synchronized (entity) {
+        String range = f.getRequestHeader(HttpHeader.RANGE);
 
-                reloadEntity(entity, session.getContext(), status);
-            }
+        if (entity.getEtag() == null || StringUtil.isNullOrBlank(range)) {
+            flush(session, f, entity, 0, length);
+            return;
+        }
 
-            flush(session, f, entity);
+        long[] r = parseRange(range, length);
 
+        if (r == null) {
+            flush(session, f, entity, 0, length);
             return;
         }
 
-        String ims = f.getRequestHeader(HttpHeader.IF_MODIFIED_SINCE);
-        long imsTime = -1;
-        if (!StringUtil.isNullOrBlank(ims)) {
-            imsTime = HttpHeaderDateFormat.getFormat().parse(ims).getTime();
+        if (r == UNSATISFIABLE_RANGE) {
+            f.setStatus(HttpStatus.C416);
+            f.setResponseHeader(HttpHeader.CONTENT_RANGE, "bytes */" + length);
+            session.flush(f);
+            return;
         }
 
-        if (imsTime < entity.getLastModifyGTMTime()) {
-            flush(session, f, entity);
-            return;
+        f.setStatus(HttpStatus.C206);
+        f.setResponseHeader(HttpHeader.CONTENT_RANGE,
+                "bytes " + r[0] + "-" + r[1] + "/" + length);
+        flush(session, f, entity, r[0], r[1] - r[0] + 1);
+    }
+
+    /**
+     * @return 文件已被删除时返回null
+     */
+    private HttpEntity getEntity(AtomicReference<HttpEntity> ref) throws IOException {
+        HttpEntity entity = ref.get();
+        File file = entity.getFile();
+        if (file == null) {
+            return entity;
+        }
+        if (!file.exists()) {
+            // 在打开文件之前检查，避免写出响应头之后才发现文件不存在
+            return null;
+        }
+        if (!file.isFile() || file.lastModified() == entity.getLastModify()) {
+            return entity;
+        }
+        synchronized (ref) {
+            entity = ref.get();
+            if (file.lastModified() != entity.getLastModify()) {
+                entity = loadEntity(entity);
+                ref.set(entity);
+            }
+            return entity;
+        }
+    }
+
+    private long getLength(HttpEntity entity) {
+        byte[] binary = entity.getBinary();
+        if (binary != null) {
+            return binary.length;
         }
+        return entity.getLength();
+    }
 
-        f.setStatus(HttpStatus.C304);
+    private boolean isNotModified(ServerHttpFuture f, HttpEntity entity) {
+        // If-None-Match优先于If-Modified-Since
+        String inm = f.getRequestHeader(HttpHeader.IF_NONE_MATCH);
+        if (!StringUtil.isNullOrBlank(inm)) {
+            String etag = entity.getEtag();
+            return etag != null && ("*".equals(inm) || inm.contains(etag));
+        }
+        String ims = f.getRequestHeader(HttpHeader.IF_MODIFIED_SINCE);
+        if (StringUtil.isNullOrBlank(ims)) {
+            return false;
+        }
+        return HttpHeaderDateFormat.getFormat().parse(ims).getTime() >= entity
+                .getLastModifyGTMTime();
+    }
 
-        session.flush(f);
+    /**
+     * 只支持单个区间，多区间或格式错误时返回null(忽略Range，返回完整内容)
+     */
+    private long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') != -1) {
+            return null;
+        }
+        String spec = range.substring(6);
+        int index = spec.indexOf('-');
+        if (index == -1) {
+            return null;
+        }
+        String startStr = spec.substring(0, index).trim();
+        String endStr = spec.substring(index + 1).trim();
+        long start;
+        long end;
+        try {
+            if (startStr.length() == 0) {
+                // bytes=-n，最后n个字节
+                if (endStr.length() == 0) {
+                    return null;
+                }
+                long suffix = Long.parseLong(endStr);
+                if (suffix <= 0) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(startStr);
+                end = length - 1;
+                if (endStr.length() > 0) {
+                    end = Math.min(end, Long.parseLong(endStr));
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (start < 0 || start >= length) {
+            return UNSATISFIABLE_RANGE;
+        }
+        if (start > end) {
+            return null;
+        }
+        return new long[] { start, end };
     }
 
-    private void flush(SocketSession session, ServerHttpFuture future, HttpEntity entity) {
+    private void flush(SocketSession session, ServerHttpFuture future, HttpEntity entity,
+            long offset, long count) throws IOException {
         future.setResponseHeader(HttpHeader.CONTENT_TYPE, entity.getContentType());
         future.setResponseHeader(HttpHeader.LAST_MODIFIED, entity.getLastModifyGTM());
-        future.write(entity.getBinary());
+        if (entity.getEtag() != null) {
+            future.setResponseHeader(HttpHeader.ETAG, entity.getEtag());
+            future.setResponseHeader(HttpHeader.ACCEPT_RANGES, "bytes");
+        }
+        byte[] binary = entity.getBinary();
+        if (binary == null) {
+            future.setFileRegion(FileRegion.open(entity.getFile(), offset, count));
+        } else if (offset == 0 && count == binary.length) {
+            future.write(binary);
+        } else {
+            future.write(Arrays.copyOfRange(binary, (int) offset, (int) (offset + count)));
+        }
         session.flush(future);
     }
 
-    private void reloadEntity(HttpEntity entity, SocketChannelContext context, HttpStatus status)
-            throws IOException {
-        File file = entity.getFile();
-        entity.setBinary(FileUtil.readBytesByFile(file));
-        entity.setLastModify(file.lastModified());
+    private HttpEntity loadEntity(HttpEntity old) throws IOException {
+        File file = old.getFile();
+        long lastModify = file.lastModified();
+        long length = file.length();
+        byte[] binary = null;
+        if (length <= ZERO_COPY_THRESHOLD) {
+            binary = FileUtil.readBytesByFile(file);
+            length = binary.length;
+        }
+        String etag = "\"" + Long.toHexString(lastModify) + "-" + Long.toHexString(length) + "\"";
+        return new HttpEntity(old.getContentType(), file, lastModify, binary, length, etag);
     }
 
     @Override
@@ -144,12 +279,10 @@ public class FutureAcceptorHttpFilter extends FutureAcceptorServiceFilter {
 
             String fileName = file.getCanonicalPath().replace("\\", "/");
 
-            HttpEntity entity = new HttpEntity();
-
-            entity.setContentType(contentType);
-            entity.setFile(file);
+            // 首次访问时读取文件
+            HttpEntity entity = new HttpEntity(contentType, file, 0, null, 0, null);
 
-            html_cache.put(path, entity);
+            html_cache.put(path, new AtomicReference<>(entity));
 
             LoggerUtil.prettyLog(logger, "mapping static :{}@{}", path, fileName);
 
@@ -219,14 +352,12 @@ public class FutureAcceptorHttpFilter extends FutureAcceptorServiceFilter {
             b.append("		<hr>\n");
             b.append(HtmlUtil.HTML_BOTTOM);
 
-            HttpEntity entity = new HttpEntity();
+            byte[] binary = b.toString().getBytes(context.getEncoding());
 
-            entity.setContentType(HttpFuture.CONTENT_TYPE_TEXT_HTML);
-            entity.setFile(file);
-            entity.setLastModify(System.currentTimeMillis());
-            entity.setBinary(b.toString().getBytes(context.getEncoding()));
+            HttpEntity entity = new HttpEntity(HttpFuture.CONTENT_TYPE_TEXT_HTML, file,
+                    System.currentTimeMillis(), binary, binary.length, null);
 
-            html_cache.put(staticName, entity);
+            html_cache.put(staticName, new AtomicReference<>(entity));
         }
 
     }
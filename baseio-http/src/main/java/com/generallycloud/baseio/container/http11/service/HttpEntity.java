@@ -20,53 +20,51 @@ import java.io.File;
 import com.generallycloud.baseio.codec.http11.HttpHeaderDateFormat;
 
 /**
+ * 静态资源的一个版本，创建后不再修改，文件变化时由filter创建新的实例替换
+ * 
  * @author wangkai
  *
  */
 public class HttpEntity {
 
-    private String contentType;
-    private File   file;
-    private long   lastModify;
-    private long   lastModifyGTMTime;
-    private byte[] binary;
-    private String lastModifyGTM;
+    private final String contentType;
+    private final File   file;
+    private final long   lastModify;
+    private final long   lastModifyGTMTime;
+    private final byte[] binary;
+    private final String lastModifyGTM;
+    private final long   length;
+    private final String etag;
 
-    public String getContentType() {
-        return contentType;
+    public HttpEntity(String contentType, File file, long lastModify, byte[] binary, long length,
+            String etag) {
+        HttpHeaderDateFormat format = HttpHeaderDateFormat.getFormat();
+        this.contentType = contentType;
+        this.file = file;
+        this.lastModify = lastModify;
+        this.lastModifyGTM = format.format(lastModify);
+        this.lastModifyGTMTime = format.parse(lastModifyGTM).getTime();
+        this.binary = binary;
+        this.length = length;
+        this.etag = etag;
     }
 
-    public void setContentType(String contentType) {
-        this.contentType = contentType;
+    public String getContentType() {
+        return contentType;
     }
 
     public File getFile() {
         return file;
     }
 
-    public void setFile(File file) {
-        this.file = file;
-    }
-
     public long getLastModify() {
         return lastModify;
     }
 
-    public void setLastModify(long lastModify) {
-        HttpHeaderDateFormat format = HttpHeaderDateFormat.getFormat();
-        this.lastModify = lastModify;
-        this.lastModifyGTM = format.format(lastModify);
-        this.lastModifyGTMTime = format.parse(lastModifyGTM).getTime();
-    }
-
     public byte[] getBinary() {
         return binary;
     }
 
-    public void setBinary(byte[] binary) {
-        this.binary = binary;
-    }
-
     public String getLastModifyGTM() {
         return lastModifyGTM;
     }
@@ -74,4 +72,15 @@ public class HttpEntity {
     public long getLastModifyGTMTime() {
         return lastModifyGTMTime;
     }
+
+    /**
+     * @return 文件长度，binary为null时从文件读取内容
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
 }
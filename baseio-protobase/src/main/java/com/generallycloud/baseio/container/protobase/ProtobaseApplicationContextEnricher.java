@@ -24,6 +24,7 @@ import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.container.ApplicationContext;
 import com.generallycloud.baseio.container.ApplicationContextEnricher;
 import com.generallycloud.baseio.container.BlackIPFilter;
+import com.generallycloud.baseio.container.FileSendSEListener;
 import com.generallycloud.baseio.container.service.FutureAcceptorServiceFilter;
 
 /**
@@ -48,6 +49,8 @@ public class ProtobaseApplicationContextEnricher implements ApplicationContextEn
 
         channelContext.addSessionEventListener(new LoggerSocketSEListener());
 
+        channelContext.addSessionEventListener(new FileSendSEListener());
+
         channelContext.setProtocolFactory(new ProtobaseProtocolFactory());
 
         channelContext.setBeatFutureFactory(new ProtobaseBeatFutureFactory());
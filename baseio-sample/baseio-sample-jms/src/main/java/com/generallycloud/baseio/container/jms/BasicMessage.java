@@ -41,6 +41,10 @@ public abstract class BasicMessage implements Message {
         return timestamp;
     }
 
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     @Override
     public abstract String toString();
 
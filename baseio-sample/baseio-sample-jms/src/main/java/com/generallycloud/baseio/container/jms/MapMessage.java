@@ -66,6 +66,10 @@ public class MapMessage extends BasicMessage implements MappedMessage {
         this.put("eventName", eventName);
     }
 
+    public JSONObject getMap() {
+        return map;
+    }
+
     public JSONArray getJSONArray(String key) {
         return map.getJSONArray(key);
     }
@@ -15,10 +15,14 @@
  */
 package com.generallycloud.baseio.container.jms.server;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.generallycloud.baseio.codec.protobase.future.ProtobaseFuture;
+import com.generallycloud.baseio.common.ThreadUtil;
 import com.generallycloud.baseio.component.SocketSession;
 import com.generallycloud.baseio.concurrent.AbstractEventLoop;
 import com.generallycloud.baseio.container.ApplicationContextUtil;
@@ -33,7 +37,11 @@ public abstract class AbstractProductLine extends AbstractEventLoop implements M
     protected MessageStorage             storage;
     protected long                       dueTime;
     protected Map<String, ConsumerQueue> consumerMap;
-    private Logger                       logger = LoggerFactory.getLogger(getClass());
+    protected int                        batchSize;
+    private List<Message>                batch          = new ArrayList<>();
+    // 本批次中推送过消息的consumer，批次结束后统一写出
+    private List<Consumer>               batchConsumers = new ArrayList<>();
+    private Logger                       logger         = LoggerFactory.getLogger(getClass());
 
     public AbstractProductLine(MQContext context) {
 
@@ -44,12 +52,64 @@ public abstract class AbstractProductLine extends AbstractEventLoop implements M
         this.consumerMap = new HashMap<>();
 
         this.dueTime = context.getMessageDueTime();
+
+        this.batchSize = context.getProductLineBatch();
     }
 
     // TODO 处理剩下的message 和 receiver
     @Override
     protected void doStop() {}
 
+    @Override
+    protected void doLoop() {
+
+        List<Message> batch = this.batch;
+
+        int max = drainLimit();
+
+        if (max > 0) {
+            // 有积压的消息时不能长时间阻塞在poll上
+            storage.drainTo(batch, max, hasBacklog() ? 1 : 16);
+        } else {
+            // 积压已满，消息留在storage中，等待consumer归还credit
+            ThreadUtil.sleep(1);
+        }
+
+        if (batch.isEmpty() && !hasBacklog()) {
+            return;
+        }
+
+        try {
+            deliver(batch);
+        } finally {
+            batch.clear();
+            List<Consumer> consumers = this.batchConsumers;
+            for (Consumer consumer : consumers) {
+                consumer.endBatch();
+            }
+            consumers.clear();
+        }
+    }
+
+    protected abstract void deliver(List<Message> batch);
+
+    protected boolean hasBacklog() {
+        return false;
+    }
+
+    // 本轮最多从storage中取出的消息数量
+    protected int drainLimit() {
+        return batchSize;
+    }
+
+    protected void push(Consumer consumer, Message message) throws IOException {
+        if (!consumer.isBatching()) {
+            consumer.beginBatch();
+            batchConsumers.add(consumer);
+        }
+        consumer.push(message);
+    }
+
     public MQContext getContext() {
         return context;
     }
@@ -58,20 +118,25 @@ public abstract class AbstractProductLine extends AbstractEventLoop implements M
     public void pollMessage(SocketSession session, ProtobaseFuture future,
             MQSessionAttachment attachment) {
 
+        Authority authority = ApplicationContextUtil.getAuthority(session);
+
+        pollMessage(session, future, attachment, authority.getUuid());
+    }
+
+    public void pollMessage(SocketSession session, ProtobaseFuture future,
+            MQSessionAttachment attachment, String queueName) {
+
         if (attachment.getConsumer() != null) {
             return;
         }
 
-        Authority authority = ApplicationContextUtil.getAuthority(session);
-
-        String queueName = authority.getUuid();
-
         // 来自终端类型
         context.addReceiver(queueName);
 
         ConsumerQueue consumerQueue = getConsumerQueue(queueName);
 
-        Consumer consumer = new Consumer(consumerQueue, attachment, session, future, queueName);
+        Consumer consumer = new Consumer(consumerQueue, attachment, session, future, queueName,
+                context.getConsumerCredits());
 
         attachment.setConsumer(consumer);
 
@@ -102,21 +167,32 @@ public abstract class AbstractProductLine extends AbstractEventLoop implements M
     @Override
     public void offerMessage(Message message) {
 
-        storage.offer(message);
+        if (!storage.offer(message)) {
+            context.discardMessage(message);
+        }
     }
 
-    protected void filterUseless(Message message) {
-        long now = System.currentTimeMillis();
-        long dueTime = this.dueTime;
-
-        if (now - message.getTimestamp() > dueTime) {
+    protected boolean isExpired(Message message) {
+        if (System.currentTimeMillis() - message.getTimestamp() > dueTime) {
             // 消息过期了
             logger.debug(">>>> message invalidate : {}", message);
+            context.consumerMessage(message);
+            return true;
+        }
+        return false;
+    }
+
+    protected void filterUseless(Message message) {
+        if (isExpired(message)) {
             return;
         }
         this.offerMessage(message);
     }
 
+    public int messageSize() {
+        return storage.size();
+    }
+
     public void setDueTime(long dueTime) {
         this.dueTime = dueTime;
     }
@@ -19,7 +19,9 @@ import java.io.IOException;
 
 import com.generallycloud.baseio.codec.protobase.future.ProtobaseFuture;
 import com.generallycloud.baseio.codec.protobase.future.ProtobaseFutureImpl;
+import com.generallycloud.baseio.component.SocketChannel;
 import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.component.UnsafeSocketSession;
 import com.generallycloud.baseio.container.jms.BytedMessage;
 import com.generallycloud.baseio.container.jms.Message;
 
@@ -31,14 +33,42 @@ public class Consumer {
     private SocketSession       session;
     private ProtobaseFuture     future;
     private Message             message;
+    private SocketChannel       channel;
+    private int                 credits;
+    private boolean             batching;
 
+    /**
+     * @param credits 该consumer的连接上最多允许积压的待写出future数量
+     */
     public Consumer(ConsumerQueue consumerQueue, MQSessionAttachment attachment,
-            SocketSession session, ProtobaseFuture future, String queueName) {
+            SocketSession session, ProtobaseFuture future, String queueName, int credits) {
         this.consumerQueue = consumerQueue;
         this.queueName = queueName;
         this.attachment = attachment;
         this.session = session;
         this.future = future;
+        this.credits = credits;
+        this.channel = ((UnsafeSocketSession) session).getSocketChannel();
+    }
+
+    // 写队列中的future即为已用掉的credit，写出后归还
+    public boolean hasCredit() {
+        return channel.getWriteFutureSize() < credits;
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    // 批次内push的消息只入队，endBatch时一次写出
+    public void beginBatch() {
+        batching = true;
+        channel.beginFlushBatch();
+    }
+
+    public void endBatch() {
+        batching = false;
+        channel.endFlushBatch();
     }
 
     public String getQueueName() {
@@ -95,6 +125,6 @@ public class Consumer {
     public Consumer clone() {
         ProtobaseFuture f = new ProtobaseFutureImpl(session.getContext(), future.getFutureId(),
                 future.getFutureName());
-        return new Consumer(consumerQueue, attachment, session, f, queueName);
+        return new Consumer(consumerQueue, attachment, session, f, queueName, credits);
     }
 }
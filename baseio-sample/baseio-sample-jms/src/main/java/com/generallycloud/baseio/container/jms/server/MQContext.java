@@ -15,12 +15,12 @@
  */
 package com.generallycloud.baseio.container.jms.server;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-import com.generallycloud.baseio.LifeCycleUtil;
 import com.generallycloud.baseio.codec.protobase.future.ProtobaseFuture;
+import com.generallycloud.baseio.common.FileUtil;
 import com.generallycloud.baseio.component.SocketSession;
 import com.generallycloud.baseio.concurrent.ConcurrentSet;
 import com.generallycloud.baseio.container.AbstractPluginContext;
@@ -31,23 +31,28 @@ import com.generallycloud.baseio.container.jms.Message;
 import com.generallycloud.baseio.container.jms.decode.DefaultMessageDecoder;
 import com.generallycloud.baseio.container.jms.decode.MessageDecoder;
 import com.generallycloud.baseio.container.service.FutureAcceptorService;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
 
 public class MQContext extends AbstractPluginContext implements MessageQueue {
 
-    private long                           dueTime;
-    private ConcurrentMap<String, Message> messageIds     = new ConcurrentHashMap<>();
-    private P2PProductLine                 p2pProductLine = new P2PProductLine(this);
-    private SubscribeProductLine           subProductLine = new SubscribeProductLine(this);
-    private ConcurrentSet<String>          receivers      = new ConcurrentSet<>();
-    private MessageDecoder                 messageDecoder = new DefaultMessageDecoder();
-    private static MQContext               instance;
+    private long                  dueTime;
+    private MessageLog            messageLog;
+    private ProductLineGroup      p2pProductLines;
+    private ProductLineGroup      subProductLines;
+    private int                   productLineBatch;
+    private int                   consumerCredits;
+    private ConcurrentSet<String> receivers      = new ConcurrentSet<>();
+    private MessageDecoder        messageDecoder = new DefaultMessageDecoder();
+    private Logger                logger         = LoggerFactory.getLogger(getClass());
+    private static MQContext      instance;
 
     public static MQContext getInstance() {
         return instance;
     }
 
-    public Message browser(String messageId) {
-        return messageIds.get(messageId);
+    public Message browser(String messageId) throws IOException {
+        return messageLog.read(messageId);
     }
 
     public MQSessionAttachment getSessionAttachment(SocketSession session) {
@@ -61,10 +66,36 @@ public class MQContext extends AbstractPluginContext implements MessageQueue {
 
         long dueTime = config.getLongParameter("due-time");
 
+        int productLines = config.getIntegerParameter("product-lines",
+                Runtime.getRuntime().availableProcessors());
+        // 每次从队列中取出并推送的最大消息数量
+        productLineBatch = config.getIntegerParameter("product-line-batch", 64);
+        // 每个consumer连接上最多积压的待写出消息数量
+        consumerCredits = config.getIntegerParameter("consumer-credits", 256);
+
+        P2PProductLine[] p2pLines = new P2PProductLine[productLines];
+        SubscribeProductLine[] subLines = new SubscribeProductLine[productLines];
+        for (int i = 0; i < productLines; i++) {
+            p2pLines[i] = new P2PProductLine(this);
+            subLines[i] = new SubscribeProductLine(this);
+        }
+        p2pProductLines = new ProductLineGroup(p2pLines);
+        subProductLines = new ProductLineGroup(subLines);
+
         setMessageDueTime(dueTime == 0 ? 1000 * 60 * 60 * 24 * 7 : dueTime);
 
-        p2pProductLine.startup("MQ-P2P-ProductLine");
-        subProductLine.startup("MQ-SUB-ProductLine");
+        String storePath = config.getParameter("store-path",
+                FileUtil.getPrettyPath(context.getRootLocalAddress() + "mq-store"));
+        int segmentSize = config.getIntegerParameter("segment-size", 1024 * 1024 * 64);
+        long flushInterval = config.getLongParameter("flush-interval", 10);
+        // 默认在force到磁盘后才响应producer，同一时间的写入合并为一次force
+        boolean syncFlush = !"false".equals(config.getParameter("sync-flush"));
+
+        messageLog = new MessageLog(new File(storePath), segmentSize, flushInterval, syncFlush);
+        messageLog.open(p2pProductLines, subProductLines);
+
+        p2pProductLines.startup("MQ-P2P-ProductLine");
+        subProductLines.startup("MQ-SUB-ProductLine");
 
         context.addSessionEventListener(new MQSessionEventListener());
 
@@ -73,36 +104,73 @@ public class MQContext extends AbstractPluginContext implements MessageQueue {
 
     @Override
     public void destroy(ApplicationContext context, Configuration config) throws Exception {
-        LifeCycleUtil.stop(p2pProductLine);
-        LifeCycleUtil.stop(subProductLine);
+        p2pProductLines.stop();
+        subProductLines.stop();
+        if (messageLog != null) {
+            messageLog.close();
+        }
         instance = null;
         super.destroy(context, config);
     }
 
+    public int getProductLineBatch() {
+        return productLineBatch;
+    }
+
+    public int getConsumerCredits() {
+        return consumerCredits;
+    }
+
     public long getMessageDueTime() {
         return this.dueTime;
     }
 
     public int messageSize() {
-        return this.p2pProductLine.messageSize();
+        return this.p2pProductLines.messageSize();
     }
 
+    /**
+     * 写入消息日志后再投递，写入失败时抛出异常由producer感知
+     */
+    public void produceMessage(Message message) throws IOException {
+
+        messageLog.append(message, MessageLog.LINE_P2P);
+
+        p2pProductLines.offerMessage(message);
+    }
+
+    // 回炉的消息(事务回滚、推送失败)
     @Override
     public void offerMessage(Message message) {
 
-        messageIds.put(message.getMsgId(), message);
+        try {
+            messageLog.append(message, MessageLog.LINE_P2P);
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
 
-        p2pProductLine.offerMessage(message);
+        p2pProductLines.offerMessage(message);
     }
 
-    public void publishMessage(Message message) {
+    public void publishMessage(Message message) throws IOException {
 
-        subProductLine.offerMessage(message);
+        messageLog.append(message, MessageLog.LINE_SUB);
+
+        subProductLines.offerMessage(message);
     }
 
     public void consumerMessage(Message message) {
 
-        messageIds.remove(message.getMsgId());
+        try {
+            messageLog.ack(message);
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    // 投递队列已满，消息不再等待消费
+    public void discardMessage(Message message) {
+        messageLog.discard(message);
     }
 
     public Message parse(ProtobaseFuture future) throws MQException {
@@ -112,19 +180,19 @@ public class MQContext extends AbstractPluginContext implements MessageQueue {
     @Override
     public void pollMessage(SocketSession session, ProtobaseFuture future,
             MQSessionAttachment attachment) {
-        p2pProductLine.pollMessage(session, future, attachment);
+        p2pProductLines.pollMessage(session, future, attachment);
     }
 
     public void subscribeMessage(SocketSession session, ProtobaseFuture future,
             MQSessionAttachment attachment) {
 
-        subProductLine.pollMessage(session, future, attachment);
+        subProductLines.pollMessage(session, future, attachment);
     }
 
     public void setMessageDueTime(long dueTime) {
         this.dueTime = dueTime;
-        this.p2pProductLine.setDueTime(dueTime);
-        this.subProductLine.setDueTime(dueTime);
+        this.p2pProductLines.setDueTime(dueTime);
+        this.subProductLines.setDueTime(dueTime);
     }
 
     public void addReceiver(String queueName) {
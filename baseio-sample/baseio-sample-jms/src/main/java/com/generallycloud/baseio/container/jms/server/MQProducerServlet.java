@@ -31,7 +31,7 @@ public class MQProducerServlet extends MQServlet {
 
         Message message = context.parse(future);
 
-        context.offerMessage(message);
+        context.produceMessage(message);
 
         future.write("1");
 
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.container.jms.server;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.generallycloud.baseio.common.Encoding;
+import com.generallycloud.baseio.common.FileUtil;
+import com.generallycloud.baseio.common.LoggerUtil;
+import com.generallycloud.baseio.container.jms.BasicMessage;
+import com.generallycloud.baseio.container.jms.BytedMessage;
+import com.generallycloud.baseio.container.jms.MQException;
+import com.generallycloud.baseio.container.jms.MapByteMessage;
+import com.generallycloud.baseio.container.jms.MapMessage;
+import com.generallycloud.baseio.container.jms.Message;
+import com.generallycloud.baseio.container.jms.TextByteMessage;
+import com.generallycloud.baseio.container.jms.TextMessage;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
+
+/**
+ * 追加写的消息日志，按segmentSize切分为多个内存映射文件
+ * 
+ * <pre>
+ * record  = [size 4][crc32 4][kind 1][body size]
+ * message = [line 1][msgType 1][timestamp 8][msgId][queueName][text][binary]
+ * ack     = [queueName][msgId]
+ * </pre>
+ * 
+ * 字符串及二进制为4字节长度加内容，长度-1表示null。每个队列维护未消费消息的偏移量索引，
+ * 启动时扫描所有分段重建索引并将未消费的消息重新投递，最早的分段中消息全部消费后删除该分段。
+ */
+public class MessageLog implements Closeable {
+
+    public static final byte                         LINE_P2P      = 0;
+    public static final byte                         LINE_SUB      = 1;
+
+    private static final byte                        KIND_MESSAGE  = 1;
+    private static final byte                        KIND_ACK      = 2;
+    private static final int                         RECORD_HEADER = 4 + 4 + 1;
+    private static final int                         SEGMENT_END   = -1;
+
+    private MessageLogSegment                        active;
+    private boolean                                  closed;
+    private File                                     directory;
+    private Condition                                flushDone;
+    private MessageLogFlusher                        flusher;
+    private long                                     flushOffset;
+    private Condition                                flushRequest;
+    private ReentrantLock                            lock          = new ReentrantLock();
+    // queueName -> (msgId -> offset)，按写入顺序
+    private Map<String, LinkedHashMap<String, Long>> queueIndexes  = new HashMap<>();
+    private TreeMap<Long, MessageLogSegment>         segments      = new TreeMap<>();
+    private int                                      segmentSize;
+    private boolean                                  syncFlush;
+    private long                                     writeOffset;
+    private Logger                                   logger        = LoggerFactory
+            .getLogger(getClass());
+
+    /**
+     * @param syncFlush 为true时append在数据force到磁盘后返回，并发的写入共用一次force
+     */
+    public MessageLog(File directory, int segmentSize, long flushInterval, boolean syncFlush) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncFlush = syncFlush;
+        this.flushDone = lock.newCondition();
+        this.flushRequest = lock.newCondition();
+        this.flusher = new MessageLogFlusher(this, Math.max(1, flushInterval));
+    }
+
+    /**
+     * 扫描已有分段重建索引，并将未消费的消息按写入顺序交给p2p或sub
+     */
+    public void open(MessageQueue p2p, MessageQueue sub) throws Exception {
+        FileUtil.createDirectory(directory);
+        File[] files = directory.listFiles(new FileFilter() {
+
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(".log");
+            }
+        });
+        Arrays.sort(files);
+        Map<String, Message> p2pMessages = new LinkedHashMap<>();
+        Map<String, Message> subMessages = new LinkedHashMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            long baseOffset = Long.parseLong(name.substring(0, name.length() - 4));
+            MessageLogSegment segment = new MessageLogSegment(file, baseOffset, segmentSize);
+            segments.put(baseOffset, segment);
+            int position = recover(segment, p2pMessages, subMessages);
+            segment.getBuffer().position(position);
+            active = segment;
+        }
+        if (active == null) {
+            roll(0);
+        }
+        writeOffset = flushOffset = active.getBaseOffset() + active.getBuffer().position();
+        trim();
+        flusher.startup("MQ-Log-Flusher");
+        for (Message message : p2pMessages.values()) {
+            p2p.offerMessage(message);
+        }
+        for (Message message : subMessages.values()) {
+            sub.offerMessage(message);
+        }
+        LoggerUtil.prettyLog(logger, "mq log segments:{ {} }, recovered:{ {} }",
+                segments.size(), p2pMessages.size() + subMessages.size());
+    }
+
+    // 返回分段中最后一条完整记录的结束位置，后续记录从这里开始写
+    private int recover(MessageLogSegment segment, Map<String, Message> p2pMessages,
+            Map<String, Message> subMessages) throws MQException {
+        ByteBuffer buffer = segment.getBuffer().duplicate();
+        CRC32 crc32 = new CRC32();
+        int capacity = buffer.capacity();
+        int position = 0;
+        for (;;) {
+            if (capacity - position < RECORD_HEADER) {
+                break;
+            }
+            int size = buffer.getInt(position);
+            // 0: 尚未写入，SEGMENT_END: 分段结束
+            if (size <= 0 || size > capacity - position - RECORD_HEADER) {
+                break;
+            }
+            byte[] data = new byte[size + 1];
+            buffer.position(position + 8);
+            buffer.get(data);
+            crc32.reset();
+            crc32.update(data, 0, data.length);
+            if ((int) crc32.getValue() != buffer.getInt(position + 4)) {
+                logger.info("mq log {} truncated at {}", segment, position);
+                break;
+            }
+            long offset = segment.getBaseOffset() + position;
+            ByteBuffer body = ByteBuffer.wrap(data, 1, size);
+            if (data[0] == KIND_MESSAGE) {
+                byte line = body.get();
+                Message message = decodeMessage(body);
+                putIndex(message.getQueueName(), message.getMsgId(), offset, segment);
+                if (line == LINE_SUB) {
+                    subMessages.put(message.getMsgId(), message);
+                } else {
+                    p2pMessages.put(message.getMsgId(), message);
+                }
+            } else if (data[0] == KIND_ACK) {
+                String queueName = readString(body);
+                String msgId = readString(body);
+                removeIndex(queueName, msgId);
+                p2pMessages.remove(msgId);
+                subMessages.remove(msgId);
+            }
+            position += 8 + data.length;
+        }
+        return position;
+    }
+
+    public void append(Message message, byte line) throws IOException {
+        byte[] record = encodeMessage(message, line);
+        long end;
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new MQException("message log closed");
+            }
+            long offset = write(record);
+            putIndex(message.getQueueName(), message.getMsgId(), offset, active);
+            end = writeOffset;
+        } finally {
+            lock.unlock();
+        }
+        if (syncFlush) {
+            waitFlushed(end);
+        }
+    }
+
+    /**
+     * 消息已消费，写入ack记录，不等待刷盘(丢失时重启后重复投递)
+     */
+    public void ack(Message message) throws IOException {
+        String queueName = message.getQueueName();
+        String msgId = message.getMsgId();
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (closed || !removeIndex(queueName, msgId)) {
+                return;
+            }
+            write(encodeAck(queueName, msgId));
+            trim();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 消息被丢弃(投递队列已满)，不再计入所在分段，使分段可以被删除。
+     * 不写入ack记录，所在分段删除前重启仍会恢复投递
+     */
+    public void discard(Message message) {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (closed || !removeIndex(message.getQueueName(), message.getMsgId())) {
+                return;
+            }
+            trim();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Message read(String msgId) throws IOException {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (LinkedHashMap<String, Long> index : queueIndexes.values()) {
+                Long offset = index.get(msgId);
+                if (offset == null) {
+                    continue;
+                }
+                MessageLogSegment segment = segments.floorEntry(offset).getValue();
+                ByteBuffer buffer = segment.getBuffer().duplicate();
+                int position = (int) (offset - segment.getBaseOffset());
+                byte[] data = new byte[buffer.getInt(position)];
+                buffer.position(position + RECORD_HEADER);
+                buffer.get(data);
+                ByteBuffer body = ByteBuffer.wrap(data);
+                body.get(); // line
+                return decodeMessage(body);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingSize() {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int size = 0;
+            for (LinkedHashMap<String, Long> index : queueIndexes.values()) {
+                size += index.size();
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putIndex(String queueName, String msgId, long offset,
+            MessageLogSegment segment) {
+        LinkedHashMap<String, Long> index = queueIndexes.get(queueName);
+        if (index == null) {
+            index = new LinkedHashMap<>();
+            queueIndexes.put(queueName, index);
+        }
+        // 回炉的消息会再次写入，旧记录不再计入所在分段
+        Long old = index.put(msgId, offset);
+        if (old != null) {
+            segments.floorEntry(old).getValue().decrementPending();
+        }
+        segment.incrementPending();
+    }
+
+    private boolean removeIndex(String queueName, String msgId) {
+        LinkedHashMap<String, Long> index = queueIndexes.get(queueName);
+        if (index == null) {
+            return false;
+        }
+        Long offset = index.remove(msgId);
+        if (offset == null) {
+            return false;
+        }
+        if (index.isEmpty()) {
+            queueIndexes.remove(queueName);
+        }
+        segments.floorEntry(offset).getValue().decrementPending();
+        return true;
+    }
+
+    // 只删除最早的分段，保证被删除的ack记录对应的消息也已被删除
+    private void trim() {
+        while (segments.size() > 1) {
+            MessageLogSegment first = segments.firstEntry().getValue();
+            if (first == active || first.getPending() > 0) {
+                return;
+            }
+            segments.pollFirstEntry();
+            first.delete();
+        }
+    }
+
+    private long write(byte[] record) throws IOException {
+        if (record.length > segmentSize - 4) {
+            throw new MQException("message too large: " + record.length);
+        }
+        ByteBuffer buffer = active.getBuffer();
+        if (buffer.remaining() < record.length + 4) {
+            if (buffer.remaining() >= 4) {
+                buffer.putInt(SEGMENT_END);
+            }
+            roll(active.getEndOffset());
+            buffer = active.getBuffer();
+        }
+        long offset = active.getBaseOffset() + buffer.position();
+        buffer.put(record);
+        // 标记记录结束，避免恢复时读到上次残留的数据
+        buffer.putInt(buffer.position(), 0);
+        writeOffset = active.getBaseOffset() + buffer.position();
+        return offset;
+    }
+
+    private void roll(long baseOffset) throws IOException {
+        File file = new File(directory, MessageLogSegment.fileName(baseOffset));
+        MessageLogSegment segment = new MessageLogSegment(file, baseOffset, segmentSize);
+        segments.put(baseOffset, segment);
+        active = segment;
+    }
+
+    void requestFlush() {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            flushRequest.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void flush(long waitMillis) throws InterruptedException {
+        long target;
+        List<MessageLogSegment> dirty;
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (writeOffset == flushOffset) {
+                flushRequest.await(waitMillis, TimeUnit.MILLISECONDS);
+                if (writeOffset == flushOffset) {
+                    return;
+                }
+            }
+            target = writeOffset;
+            Long from = segments.floorKey(flushOffset);
+            Collection<MessageLogSegment> values = from == null ? segments.values()
+                    : segments.tailMap(from, true).values();
+            dirty = new ArrayList<>(values);
+        } finally {
+            lock.unlock();
+        }
+        for (MessageLogSegment segment : dirty) {
+            segment.force();
+        }
+        lock.lock();
+        try {
+            flushOffset = target;
+            flushDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void waitFlushed(long end) throws MQException {
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            flushRequest.signal();
+            while (flushOffset < end && !closed) {
+                flushDone.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MQException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.stop();
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            closed = true;
+            flushDone.signalAll();
+            for (MessageLogSegment segment : segments.values()) {
+                segment.force();
+                segment.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] encodeMessage(Message message, byte line) throws MQException {
+        int msgType = message.getMsgType();
+        String text;
+        if (msgType == Message.TYPE_TEXT || msgType == Message.TYPE_TEXT_BYTE) {
+            text = ((TextMessage) message).getReadText();
+        } else if (msgType == Message.TYPE_MAP || msgType == Message.TYPE_MAP_BYTE) {
+            JSONObject map = ((MapMessage) message).getMap();
+            text = map == null ? null : map.toJSONString();
+        } else {
+            throw new MQException("unsupported msgType: " + msgType);
+        }
+        byte[] binary = null;
+        if (message instanceof BytedMessage) {
+            binary = ((BytedMessage) message).getByteArray();
+        }
+        byte[] msgId = toBytes(message.getMsgId());
+        byte[] queueName = toBytes(message.getQueueName());
+        byte[] textBytes = toBytes(text);
+        int size = 1 + 1 + 8 + length(msgId) + length(queueName) + length(textBytes)
+                + length(binary);
+        ByteBuffer buffer = allocateRecord(KIND_MESSAGE, size);
+        buffer.put(line);
+        buffer.put((byte) msgType);
+        buffer.putLong(message.getTimestamp());
+        putBytes(buffer, msgId);
+        putBytes(buffer, queueName);
+        putBytes(buffer, textBytes);
+        putBytes(buffer, binary);
+        return completeRecord(buffer);
+    }
+
+    private static byte[] encodeAck(String queueName, String msgId) {
+        byte[] queueNameBytes = toBytes(queueName);
+        byte[] msgIdBytes = toBytes(msgId);
+        ByteBuffer buffer = allocateRecord(KIND_ACK, length(queueNameBytes) + length(msgIdBytes));
+        putBytes(buffer, queueNameBytes);
+        putBytes(buffer, msgIdBytes);
+        return completeRecord(buffer);
+    }
+
+    private static Message decodeMessage(ByteBuffer body) throws MQException {
+        int msgType = body.get();
+        long timestamp = body.getLong();
+        String msgId = readString(body);
+        String queueName = readString(body);
+        String text = readString(body);
+        byte[] binary = readBytes(body);
+        BasicMessage message;
+        if (msgType == Message.TYPE_TEXT) {
+            message = new TextMessage(msgId, queueName, text);
+        } else if (msgType == Message.TYPE_TEXT_BYTE) {
+            message = new TextByteMessage(msgId, queueName, text, binary);
+        } else if (msgType == Message.TYPE_MAP) {
+            message = new MapMessage(msgId, queueName, JSON.parseObject(text));
+        } else if (msgType == Message.TYPE_MAP_BYTE) {
+            message = new MapByteMessage(msgId, queueName, JSON.parseObject(text), binary);
+        } else {
+            throw new MQException("unsupported msgType: " + msgType);
+        }
+        message.setTimestamp(timestamp);
+        return message;
+    }
+
+    private static ByteBuffer allocateRecord(byte kind, int size) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + size);
+        buffer.putInt(size);
+        buffer.putInt(0);
+        buffer.put(kind);
+        return buffer;
+    }
+
+    private static byte[] completeRecord(ByteBuffer buffer) {
+        byte[] record = buffer.array();
+        CRC32 crc32 = new CRC32();
+        crc32.update(record, 8, record.length - 8);
+        buffer.putInt(4, (int) crc32.getValue());
+        return record;
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(Encoding.UTF8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 4 : 4 + bytes.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = readBytes(buffer);
+        return bytes == null ? null : new String(bytes, Encoding.UTF8);
+    }
+
+}
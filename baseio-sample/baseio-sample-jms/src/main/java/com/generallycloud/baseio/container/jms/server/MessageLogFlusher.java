@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.container.jms.server;
+
+import com.generallycloud.baseio.concurrent.AbstractEventLoop;
+
+/**
+ * 组提交刷盘线程，合并同一时间段内的所有写入一次force
+ */
+public class MessageLogFlusher extends AbstractEventLoop {
+
+    private long       flushInterval;
+    private MessageLog messageLog;
+
+    public MessageLogFlusher(MessageLog messageLog, long flushInterval) {
+        this.messageLog = messageLog;
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    protected void doLoop() throws Exception {
+        messageLog.flush(flushInterval);
+    }
+
+    @Override
+    public void wakeup() {
+        messageLog.requestFlush();
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.container.jms.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.generallycloud.baseio.common.ByteBufferUtil;
+import com.generallycloud.baseio.common.CloseUtil;
+
+/**
+ * 消息日志中的一个分段，文件名为该分段的起始偏移量，整个文件映射到内存
+ */
+public class MessageLogSegment {
+
+    private long             baseOffset;
+    private MappedByteBuffer buffer;
+    private FileChannel      channel;
+    private File             file;
+    private int              pending;   // 该分段中尚未被消费的消息数量
+    private boolean          deleted;
+
+    public MessageLogSegment(File file, long baseOffset, int size) throws IOException {
+        this.file = file;
+        this.baseOffset = baseOffset;
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            this.channel = raf.getChannel();
+            this.buffer = channel.map(MapMode.READ_WRITE, 0, Math.max(size, raf.length()));
+        } catch (IOException e) {
+            CloseUtil.close(raf);
+            throw e;
+        }
+    }
+
+    public static String fileName(long baseOffset) {
+        return String.format("%020d.log", baseOffset);
+    }
+
+    public long getBaseOffset() {
+        return baseOffset;
+    }
+
+    public long getEndOffset() {
+        return baseOffset + buffer.capacity();
+    }
+
+    public MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void incrementPending() {
+        pending++;
+    }
+
+    public void decrementPending() {
+        pending--;
+    }
+
+    // 刷盘线程在日志锁外force，与delete互斥，避免访问已释放的映射
+    public synchronized void force() {
+        if (deleted) {
+            return;
+        }
+        buffer.force();
+    }
+
+    public void close() {
+        CloseUtil.close(channel);
+    }
+
+    /**
+     * 关闭并释放内存映射后删除文件，映射不释放时文件在部分平台上无法删除，
+     * 且占用的虚拟内存要等到GC时才能回收
+     */
+    public synchronized void delete() {
+        deleted = true;
+        close();
+        ByteBufferUtil.release(buffer);
+        file.delete();
+    }
+
+    @Override
+    public String toString() {
+        return file.getName();
+    }
+
+}
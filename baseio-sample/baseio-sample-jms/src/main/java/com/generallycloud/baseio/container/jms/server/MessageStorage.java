@@ -15,15 +15,19 @@
  */
 package com.generallycloud.baseio.container.jms.server;
 
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import com.generallycloud.baseio.container.jms.Message;
+import com.generallycloud.baseio.log.Logger;
+import com.generallycloud.baseio.log.LoggerFactory;
 
 public class MessageStorage {
 
     private BlockingQueue<Message> messages = new ArrayBlockingQueue<>(1024 * 8 * 10);
+    private Logger                 logger   = LoggerFactory.getLogger(getClass());
 
     public Message poll(long timeout) {
         try {
@@ -33,10 +37,26 @@ public class MessageStorage {
         }
     }
 
-    //FIXME offer failed
+    /**
+     * 最多取出max条消息放入list，队列为空时最多等待timeout毫秒
+     */
+    public int drainTo(List<Message> list, int max, long timeout) {
+        Message message = poll(timeout);
+        if (message == null) {
+            return 0;
+        }
+        list.add(message);
+        return 1 + messages.drainTo(list, max - 1);
+    }
+
+    // 队列满时返回false，由调用方释放该消息在消息日志中的索引
     public boolean offer(Message message) {
 
-        return messages.offer(message);
+        if (!messages.offer(message)) {
+            logger.error("message storage full, msgId: " + message.getMsgId());
+            return false;
+        }
+        return true;
     }
 
     public int size() {
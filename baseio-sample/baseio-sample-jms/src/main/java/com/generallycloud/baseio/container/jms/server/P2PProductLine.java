@@ -16,7 +16,10 @@
 package com.generallycloud.baseio.container.jms.server;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.generallycloud.baseio.container.jms.Message;
 import com.generallycloud.baseio.log.Logger;
@@ -24,10 +27,15 @@ import com.generallycloud.baseio.log.LoggerFactory;
 
 public class P2PProductLine extends AbstractProductLine {
 
-    private Logger logger = LoggerFactory.getLogger(getClass());
+    // consumer都没有credit时消息在这里等待，保持同一队列内的顺序
+    private ArrayDeque<Message> backlog       = new ArrayDeque<>();
+    private Set<String>         blockedQueues = new HashSet<>();
+    private int                 maxBacklog;
+    private Logger              logger        = LoggerFactory.getLogger(getClass());
 
     public P2PProductLine(MQContext context) {
         super(context);
+        this.maxBacklog = batchSize * 16;
     }
 
     @Override
@@ -35,18 +43,48 @@ public class P2PProductLine extends AbstractProductLine {
         return new P2PConsumerQueue();
     }
 
-    // FIXME 完善消息匹配机制
     @Override
-    public void doLoop() {
+    protected boolean hasBacklog() {
+        return !backlog.isEmpty();
+    }
+
+    // 积压达到上限后不再从storage中取出消息，storage满时由offer丢弃
+    @Override
+    protected int drainLimit() {
+        return Math.min(batchSize, maxBacklog - backlog.size());
+    }
+
+    @Override
+    protected void deliver(List<Message> batch) {
 
-        Message message = storage.poll(16);
+        blockedQueues.clear();
 
-        if (message == null) {
-            return;
+        for (int i = backlog.size(); i > 0; i--) {
+
+            Message message = backlog.poll();
+
+            if (isExpired(message)) {
+                continue;
+            }
+
+            deliver(message);
         }
 
+        for (Message message : batch) {
+            deliver(message);
+        }
+    }
+
+    // FIXME 完善消息匹配机制
+    private void deliver(Message message) {
+
         String queueName = message.getQueueName();
 
+        if (blockedQueues.contains(queueName)) {
+            backlog.offer(message);
+            return;
+        }
+
         ConsumerQueue consumerQueue = getConsumerQueue(queueName);
 
         List<Consumer> consumers = consumerQueue.getSnapshot();
@@ -58,19 +96,37 @@ public class P2PProductLine extends AbstractProductLine {
             return;
         }
 
+        boolean hasCredit = false;
+
+        // 交给第一个接收成功的consumer，推送失败时尝试下一个
         for (Consumer consumer : consumers) {
+
+            if (!consumer.hasCredit()) {
+                continue;
+            }
+
+            hasCredit = true;
+
             try {
-                consumer.push(message);
+                push(consumer, message);
             } catch (IOException e) {
                 logger.error(e.getMessage(), e);
-                this.offerMessage(message);
+                continue;
             }
+
+            context.consumerMessage(message);
+
+            return;
         }
 
-        context.consumerMessage(message);
-    }
+        if (!hasCredit) {
+            blockedQueues.add(queueName);
+            backlog.offer(message);
+            return;
+        }
 
-    public int messageSize() {
-        return storage.size();
+        // 全部推送失败，消息未被消费，不写ack，重新排队
+        this.offerMessage(message);
     }
+
 }
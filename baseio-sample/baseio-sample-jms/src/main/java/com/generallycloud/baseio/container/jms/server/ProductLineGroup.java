@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.container.jms.server;
+
+import com.generallycloud.baseio.LifeCycleUtil;
+import com.generallycloud.baseio.codec.protobase.future.ProtobaseFuture;
+import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.container.ApplicationContextUtil;
+import com.generallycloud.baseio.container.jms.Message;
+
+/**
+ * 按queueName的hash将消息和consumer分配到多个product line，同一队列总在同一线程中处理
+ */
+public class ProductLineGroup implements MessageQueue {
+
+    private AbstractProductLine[] productLines;
+
+    public ProductLineGroup(AbstractProductLine[] productLines) {
+        this.productLines = productLines;
+    }
+
+    public AbstractProductLine getProductLine(String queueName) {
+        return productLines[(queueName.hashCode() & 0x7fffffff) % productLines.length];
+    }
+
+    @Override
+    public void offerMessage(Message message) {
+        getProductLine(message.getQueueName()).offerMessage(message);
+    }
+
+    @Override
+    public void pollMessage(SocketSession session, ProtobaseFuture future,
+            MQSessionAttachment attachment) {
+        String queueName = ApplicationContextUtil.getAuthority(session).getUuid();
+        getProductLine(queueName).pollMessage(session, future, attachment, queueName);
+    }
+
+    public int messageSize() {
+        int size = 0;
+        for (AbstractProductLine productLine : productLines) {
+            size += productLine.messageSize();
+        }
+        return size;
+    }
+
+    public void setDueTime(long dueTime) {
+        for (AbstractProductLine productLine : productLines) {
+            productLine.setDueTime(dueTime);
+        }
+    }
+
+    public void startup(String threadName) throws Exception {
+        for (int i = 0; i < productLines.length; i++) {
+            productLines[i].startup(threadName + "-" + i);
+        }
+    }
+
+    public void stop() {
+        for (AbstractProductLine productLine : productLines) {
+            LifeCycleUtil.stop(productLine);
+        }
+    }
+
+}
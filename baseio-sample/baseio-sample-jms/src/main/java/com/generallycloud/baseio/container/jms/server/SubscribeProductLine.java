@@ -36,15 +36,15 @@ public class SubscribeProductLine extends AbstractProductLine {
         return new SUBConsumerQueue();
     }
 
-    // FIXME 完善消息匹配机制
     @Override
-    public void doLoop() {
-
-        Message message = storage.poll(16);
-
-        if (message == null) {
-            return;
+    protected void deliver(List<Message> batch) {
+        for (Message message : batch) {
+            deliver(message);
         }
+    }
+
+    // FIXME 完善消息匹配机制
+    private void deliver(Message message) {
 
         String queueName = message.getQueueName();
 
@@ -54,12 +54,21 @@ public class SubscribeProductLine extends AbstractProductLine {
 
         if (consumers.size() == 0) {
 
+            context.consumerMessage(message);
+
             return;
         }
 
         for (Consumer consumer : consumers) {
+
+            // 订阅者消费过慢时跳过，不让其写队列无限增长
+            if (!consumer.hasCredit()) {
+                logger.debug(">>>> skip slow subscriber : {}", consumer.getQueueName());
+                continue;
+            }
+
             try {
-                consumer.push(message);
+                push(consumer, message);
             } catch (IOException e) {
                 logger.error(e.getMessage(), e);
             }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.baseio.codec.http2.hpack;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.codec.http2.future.Http2Header;
+
+/**
+ * DynamicTable与Decoder的测试入口为包内可见，故放在同名包下
+ */
+public class TestDynamicTable {
+
+    public static void main(String[] args) throws Exception {
+
+        testEviction();
+
+        testOctetSize();
+
+        testDecodeResponses();
+
+        System.out.println("TestDynamicTable passed");
+    }
+
+    static void testEviction() {
+
+        DynamicTable table = new DynamicTable(128);
+
+        // 每项 1 + 1 + 32 = 34字节，128字节最多容纳3项
+        for (int i = 0; i < 10; i++) {
+            table.add(new Http2Header("k", String.valueOf(i)));
+            assertTrue(table.size() <= table.capacity(), "size over capacity");
+        }
+
+        assertEquals(3, table.length(), "length");
+        assertEquals(102, table.size(), "size");
+        assertEquals("9", table.getEntry(1).getValue(), "newest entry");
+        assertEquals("7", table.getEntry(3).getValue(), "oldest entry");
+
+        // 缩小容量时从最旧的开始淘汰
+        table.setCapacity(70);
+        assertEquals(2, table.length(), "length after shrink");
+        assertEquals("8", table.getEntry(2).getValue(), "oldest after shrink");
+
+        // 大于容量的表项清空整个表
+        table.add(new Http2Header("k", new String(new char[64])));
+        assertEquals(0, table.length(), "length after oversize");
+        assertEquals(0, table.size(), "size after oversize");
+    }
+
+    static void testOctetSize() {
+
+        // 非ASCII字符按UTF-8字节数计算: 6 + 6 + 32
+        assertEquals(44, Http2Header.sizeOf("x-name", "中文"), "utf-8 size");
+
+        DynamicTable table = new DynamicTable(100);
+        table.add(new Http2Header("x-name", "中文"));
+        table.add(new Http2Header("x-name", "中文"));
+        table.add(new Http2Header("x-name", "中文"));
+        assertEquals(2, table.length(), "utf-8 eviction");
+        assertEquals(88, table.size(), "utf-8 table size");
+    }
+
+    // RFC 7541 C.5，表大小256，第二、三个响应会淘汰旧表项
+    static void testDecodeResponses() throws Exception {
+
+        Decoder decoder = new Decoder(32, 256);
+
+        Http2Headers headers = decode(decoder, "4803333032580770726976617465611d"
+                + "4d6f6e2c203231204f637420323031332032303a31333a323120474d546e17"
+                + "68747470733a2f2f7777772e6578616d706c652e636f6d");
+        assertEquals("302", headers.get(":status"), "C.5.1 :status");
+        assertEquals(4, decoder.length(), "C.5.1 length");
+        assertEquals(222, decoder.size(), "C.5.1 size");
+
+        headers = decode(decoder, "4803333037c1c0bf");
+        assertEquals("307", headers.get(":status"), "C.5.2 :status");
+        assertEquals("private", headers.get("cache-control"), "C.5.2 cache-control");
+        assertEquals(4, decoder.length(), "C.5.2 length");
+        assertEquals(222, decoder.size(), "C.5.2 size");
+
+        headers = decode(decoder, "88c1611d4d6f6e2c203231204f637420323031332032303a31333a32"
+                + "3220474d54c05a04677a69707738666f6f3d4153444a4b48514b425a"
+                + "584f5157454f50495541585157454f49553b206d61782d6167653d33"
+                + "3630303b2076657273696f6e3d31");
+        assertEquals("200", headers.get(":status"), "C.5.3 :status");
+        assertEquals("gzip", headers.get("content-encoding"), "C.5.3 content-encoding");
+        assertEquals("https://www.example.com", headers.get("location"), "C.5.3 location");
+        assertEquals("foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1",
+                headers.get("set-cookie"), "C.5.3 set-cookie");
+        assertEquals(3, decoder.length(), "C.5.3 length");
+        assertEquals(215, decoder.size(), "C.5.3 size");
+    }
+
+    static Http2Headers decode(Decoder decoder, String hex) throws Exception {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        ByteBuf buf = UnpooledByteBufAllocator.getHeapInstance().wrap(bytes);
+        Http2Headers headers = new Http2HeadersImpl();
+        decoder.decode(0, buf, headers);
+        return headers;
+    }
+
+    static void assertEquals(Object expect, Object actual, String message) {
+        if (!expect.equals(actual)) {
+            throw new IllegalStateException(message + ", expect: " + expect + ", actual: " + actual);
+        }
+    }
+
+    static void assertEquals(long expect, long actual, String message) {
+        assertEquals(Long.valueOf(expect), Long.valueOf(actual), message);
+    }
+
+    static void assertTrue(boolean value, String message) {
+        if (!value) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.test.io.buffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.generallycloud.baseio.LifeCycleUtil;
+import com.generallycloud.baseio.buffer.BuddyByteBufAllocator;
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.ByteBufAllocator;
+import com.generallycloud.baseio.buffer.PooledByteBuf;
+import com.generallycloud.baseio.buffer.PooledByteBufAllocatorManager;
+import com.generallycloud.baseio.common.ReleaseUtil;
+import com.generallycloud.baseio.component.NioSocketChannelContext;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
+
+/**
+ * BuddyByteBufAllocator的各级块大小、释放后合并、耗尽后的回退以及跨线程释放，
+ * 分配器只有一个chunk，能申请到整个chunk即说明所有内存块都已归还并合并
+ */
+public class TestBuddyByteBufAllocator {
+
+    static final int UNITS = 256;
+
+    static final int UNIT  = 16;
+
+    public static void main(String[] args) throws Exception {
+
+        testSizeClasses();
+
+        testCoalescing();
+
+        testExhaustionFallback();
+
+        testCrossThreadRelease();
+
+        testConcurrentRelease();
+
+        System.out.println("all passed");
+    }
+
+    static void testSizeClasses() throws Exception {
+        BuddyByteBufAllocator allocator = newAllocator();
+        try {
+            for (int order = 0; (1 << order) <= UNITS; order++) {
+                int size = (1 << order) * UNIT;
+                // 刚好等于块大小以及刚好超过下一级块大小
+                int[] limits = order == 0 ? new int[] { 1, size }
+                        : new int[] { size / 2 + 1, size };
+                for (int limit : limits) {
+                    ByteBuf buf = allocator.allocate(limit);
+                    check(buf != null, "size: allocate " + limit);
+                    check(buf.capacity() == size, "size: capacity " + buf.capacity());
+                    check(buf.limit() == limit, "size: limit " + buf.limit());
+                    for (int i = 0; i < limit; i++) {
+                        buf.putByte((byte) i);
+                    }
+                    buf.flip();
+                    for (int i = 0; i < limit; i++) {
+                        check(buf.getByte() == (byte) i, "size: content " + limit);
+                    }
+                    ReleaseUtil.release(buf);
+                }
+            }
+            check(allocator.allocate(UNITS * UNIT + 1) == null, "size: larger than chunk");
+            check(allocator.getMetric().getBytesInUse() == 0, "size: bytes in use");
+            checkWholeChunk(allocator, "size");
+        } finally {
+            LifeCycleUtil.stop(allocator);
+        }
+    }
+
+    static void testCoalescing() throws Exception {
+        BuddyByteBufAllocator allocator = newAllocator();
+        try {
+            Random random = new Random(1);
+            for (int round = 0; round < 20; round++) {
+                // 按随机大小申请直到耗尽，再按随机顺序释放
+                List<ByteBuf> bufs = new ArrayList<>();
+                for (;;) {
+                    int order = round == 0 ? 0 : random.nextInt(5);
+                    ByteBuf buf = allocator.allocate((1 << order) * UNIT);
+                    if (buf == null) {
+                        break;
+                    }
+                    bufs.add(buf);
+                }
+                if (round == 0) {
+                    check(bufs.size() == UNITS, "coalesce: units " + bufs.size());
+                }
+                while (!bufs.isEmpty()) {
+                    ReleaseUtil.release(bufs.remove(random.nextInt(bufs.size())));
+                }
+                checkWholeChunk(allocator, "coalesce " + round);
+            }
+            check(allocator.getMetric().getBytesInUse() == 0, "coalesce: bytes in use");
+        } finally {
+            LifeCycleUtil.stop(allocator);
+        }
+    }
+
+    static void testExhaustionFallback() throws Exception {
+        ServerConfiguration configuration = new ServerConfiguration();
+        configuration.setSERVER_CORE_SIZE(1);
+        configuration.setSERVER_MEMORY_POOL_CAPACITY(UNITS);
+        configuration.setSERVER_MEMORY_POOL_UNIT(UNIT);
+        configuration.setSERVER_MEMORY_POOL_ALLOCATOR("buddy");
+        PooledByteBufAllocatorManager manager = new PooledByteBufAllocatorManager(
+                new NioSocketChannelContext(configuration));
+        manager.start();
+        try {
+            ByteBufAllocator allocator = manager.getNextBufAllocator();
+            ByteBuf whole = allocator.allocate(UNITS * UNIT);
+            check(whole instanceof PooledByteBuf, "fallback: whole chunk");
+            // 内存池耗尽以及超过chunk大小时从堆内存申请
+            ByteBuf fallback = allocator.allocate(UNIT);
+            check(fallback != null && !(fallback instanceof PooledByteBuf), "fallback: exhausted");
+            ByteBuf large = allocator.allocate(UNITS * UNIT + 1);
+            check(large != null && !(large instanceof PooledByteBuf), "fallback: large");
+            check(allocator.getMetric().getHeapFallbacks() == 2, "fallback: heap fallbacks");
+            check(allocator.getMetric().getAllocateFailures() >= 1, "fallback: failures");
+            ReleaseUtil.release(fallback);
+            ReleaseUtil.release(large);
+            ReleaseUtil.release(whole);
+            ByteBuf buf = allocator.allocate(UNIT);
+            check(buf instanceof PooledByteBuf, "fallback: pooled after release");
+            ReleaseUtil.release(buf);
+        } finally {
+            LifeCycleUtil.stop(manager);
+        }
+    }
+
+    /**
+     * 其它线程释放的小内存块放回申请线程的缓存，申请线程结束后释放的内存块直接归还
+     */
+    static void testCrossThreadRelease() throws Exception {
+        final BuddyByteBufAllocator allocator = newAllocator();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final List<ByteBuf> remains = new ArrayList<>();
+        try {
+            Thread owner = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        final List<ByteBuf> bufs = new ArrayList<>();
+                        Set<Integer> begins = new HashSet<>();
+                        for (int i = 0; i < 16; i++) {
+                            PooledByteBuf buf = (PooledByteBuf) allocator.allocate(UNIT);
+                            begins.add(buf.getBeginUnit());
+                            bufs.add(buf);
+                        }
+                        Thread releaser = new Thread(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                for (ByteBuf buf : bufs) {
+                                    ReleaseUtil.release(buf);
+                                }
+                            }
+                        });
+                        releaser.start();
+                        releaser.join();
+                        // 从申请线程的缓存中取回刚才释放的内存块
+                        Set<Integer> begins2 = new HashSet<>();
+                        for (int i = 0; i < 16; i++) {
+                            PooledByteBuf buf = (PooledByteBuf) allocator.allocate(UNIT);
+                            begins2.add(buf.getBeginUnit());
+                            remains.add(buf);
+                        }
+                        check(begins.equals(begins2), "cross: not from owner cache");
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+            owner.start();
+            owner.join();
+            rethrow(error);
+            // 申请线程已结束，其缓存只能在内存不足时回收
+            for (ByteBuf buf : remains) {
+                ReleaseUtil.release(buf);
+            }
+            check(allocator.getMetric().getBytesInUse() == 0, "cross: bytes in use");
+            checkWholeChunk(allocator, "cross");
+        } finally {
+            LifeCycleUtil.stop(allocator);
+        }
+    }
+
+    /**
+     * 多个线程申请的内存块由任意线程释放，内存块不会被重复分配，结束后全部可以回收
+     */
+    static void testConcurrentRelease() throws Exception {
+        final BuddyByteBufAllocator allocator = newAllocator();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final ConcurrentLinkedQueue<ByteBuf> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger stamp = new AtomicInteger();
+        try {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                final Random random = new Random(t);
+                threads[t] = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = 0; i < 50000; i++) {
+                                int order = random.nextInt(5);
+                                ByteBuf buf = allocator.allocate((1 << order) * UNIT);
+                                if (buf != null) {
+                                    buf.putInt(stamp.incrementAndGet());
+                                    buf.position(0);
+                                    queue.offer(buf);
+                                }
+                                if (queue.size() > 8 || buf == null) {
+                                    release(queue.poll());
+                                }
+                            }
+                        } catch (Throwable e) {
+                            error.set(e);
+                        }
+                    }
+                });
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            rethrow(error);
+            for (ByteBuf buf = queue.poll(); buf != null; buf = queue.poll()) {
+                release(buf);
+            }
+            check(allocator.getMetric().getBytesInUse() == 0, "concurrent: bytes in use");
+            checkWholeChunk(allocator, "concurrent");
+        } finally {
+            LifeCycleUtil.stop(allocator);
+        }
+    }
+
+    // 释放前检查写入的标记，内存块被重复分配时标记会被覆盖
+    static void release(ByteBuf buf) {
+        if (buf == null) {
+            return;
+        }
+        int stamp = buf.getInt();
+        buf.position(0);
+        buf.putInt(0);
+        check(stamp != 0, "concurrent: block allocated twice");
+        ReleaseUtil.release(buf);
+    }
+
+    static BuddyByteBufAllocator newAllocator() throws Exception {
+        BuddyByteBufAllocator allocator = new BuddyByteBufAllocator(UNITS, UNIT, false);
+        allocator.start();
+        return allocator;
+    }
+
+    // 能申请到整个chunk时所有内存块都已归还(包括线程缓存中的)并合并
+    static void checkWholeChunk(ByteBufAllocator allocator, String message) {
+        ByteBuf buf = allocator.allocate(UNITS * UNIT);
+        check(buf != null, message + ": whole chunk not available");
+        ReleaseUtil.release(buf);
+    }
+
+    static void rethrow(AtomicReference<Throwable> error) throws Exception {
+        Throwable e = error.get();
+        if (e instanceof Exception) {
+            throw (Exception) e;
+        }
+        if (e != null) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
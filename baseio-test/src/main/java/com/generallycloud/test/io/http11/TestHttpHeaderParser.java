@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.test.io.http11;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.generallycloud.baseio.buffer.ByteBuf;
+import com.generallycloud.baseio.buffer.UnpooledByteBufAllocator;
+import com.generallycloud.baseio.codec.http11.future.HttpHeader;
+import com.generallycloud.baseio.codec.http11.future.HttpHeaderParser;
+
+/**
+ * HttpHeaderParser的分段读取、长度限制、重复header、大小写以及reset/copy
+ */
+public class TestHttpHeaderParser {
+
+    static final String REQUEST = "\r\nGET /test?a=1 HTTP/1.1\r\n" 
+            + "Host: localhost:8080\r\n"
+            + "content-length: 12\r\n" 
+            + "X-Dup: first\r\n" 
+            + "X-Custom:   padded value  \r\n"
+            + "X-Dup: second\r\n" 
+            + "X-Empty:\r\n" 
+            + "NoColon\r\n" 
+            + "\r\n" 
+            + "hello world!";
+
+    public static void main(String[] args) throws Exception {
+
+        testSplitRead();
+
+        testHeaderLimit();
+
+        testDuplicateAndCase();
+
+        testResetAndCopy();
+
+        System.out.println("all passed");
+    }
+
+    static void testSplitRead() throws Exception {
+        byte[] data = REQUEST.getBytes("ISO-8859-1");
+        int bodyLength = "hello world!".length();
+        // 每次只给出n个字节，完成时多读的body需要退回
+        for (int n = 1; n <= data.length; n++) {
+            HttpHeaderParser parser = new HttpHeaderParser(1024);
+            boolean complete = false;
+            int offset = 0;
+            ByteBuf buf = null;
+            for (; offset < data.length && !complete;) {
+                int length = Math.min(n, data.length - offset);
+                buf = wrap(data, offset, length);
+                complete = parser.parse(buf);
+                offset += length;
+            }
+            check(complete, "split " + n + ": not complete");
+            check(data.length - offset + buf.remaining() == bodyLength,
+                    "split " + n + ": body bytes not returned");
+            check("GET /test?a=1 HTTP/1.1".equals(parser.getFirstLine()),
+                    "split " + n + ": first line " + parser.getFirstLine());
+            check(parser.getHeaderSize() == 7, "split " + n + ": header size");
+            check(parser.parse(wrap(data, 0, 1)), "split " + n + ": complete parser");
+        }
+    }
+
+    static void testHeaderLimit() throws Exception {
+        byte[] data = REQUEST.getBytes("ISO-8859-1");
+        int headerLength = REQUEST.indexOf("hello world!");
+        // 刚好等于限制时可以完成
+        HttpHeaderParser parser = new HttpHeaderParser(headerLength);
+        check(parser.parse(wrap(data, 0, data.length)), "limit: exact length");
+        // 超过限制时抛出异常，分段读取也一样
+        for (int n : new int[] { 1, 7, data.length }) {
+            parser = new HttpHeaderParser(headerLength - 1);
+            boolean failed = false;
+            try {
+                for (int offset = 0; offset < data.length; offset += n) {
+                    if (parser.parse(wrap(data, offset, Math.min(n, data.length - offset)))) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                failed = true;
+            }
+            check(failed, "limit: exceeded with split " + n);
+        }
+    }
+
+    static void testDuplicateAndCase() throws Exception {
+        HttpHeaderParser parser = parse(new HttpHeaderParser(1024), REQUEST);
+        // 同名header以最后一个为准，getValue与copyTo一致
+        check("second".equals(parser.getValue("X-Dup")), "dup: " + parser.getValue("X-Dup"));
+        Map<String, String> headers = new HashMap<>();
+        parser.copyTo(headers);
+        check("second".equals(headers.get("X-Dup")), "dup map: " + headers.get("X-Dup"));
+        // 查找忽略大小写，已知的name使用HttpHeader中的常量
+        check(parser.getIntValue(HttpHeader.CONTENT_LENGTH) == 12, "case: content-length");
+        check("12".equals(parser.getValue("CONTENT-LENGTH")), "case: CONTENT-LENGTH");
+        check(headers.containsKey(HttpHeader.CONTENT_LENGTH), "case: known name");
+        check("localhost:8080".equals(parser.getValue("host")), "case: host");
+        check("padded value".equals(parser.getValue("x-custom")), "trim: x-custom");
+        check("".equals(parser.getValue("X-Empty")), "empty value");
+        check(parser.getIntValue("X-Empty") == -1, "empty int value");
+        check(parser.indexOf("NoColon") != -1 && parser.getValue("NoColon") == null, "no colon");
+        check(parser.getValue("X-Missing") == null, "missing");
+    }
+
+    static void testResetAndCopy() throws Exception {
+        HttpHeaderParser parser = new HttpHeaderParser(1024);
+        parse(parser, REQUEST);
+        HttpHeaderParser copy = parser.copy();
+        parser.reset();
+        check(!parser.isComplete() && parser.getHeaderSize() == 0, "reset: state");
+        parse(parser, "POST /next HTTP/1.1\r\nX-Dup: other\r\n\r\n");
+        check("POST /next HTTP/1.1".equals(parser.getFirstLine()), "reset: first line");
+        check("other".equals(parser.getValue("X-Dup")), "reset: value");
+        check(parser.getValue("Host") == null, "reset: old header");
+        // 副本不受reset之后的解析影响
+        check("GET /test?a=1 HTTP/1.1".equals(copy.getFirstLine()), "copy: first line");
+        check("second".equals(copy.getValue("X-Dup")), "copy: value");
+        check(copy.getHeaderSize() == 7 && copy.isComplete(), "copy: state");
+    }
+
+    static HttpHeaderParser parse(HttpHeaderParser parser, String request) throws IOException {
+        byte[] data = request.getBytes("ISO-8859-1");
+        check(parser.parse(wrap(data, 0, data.length)), "not complete: " + request);
+        return parser;
+    }
+
+    static ByteBuf wrap(byte[] data, int offset, int length) {
+        return UnpooledByteBufAllocator.getHeapInstance().wrap(data, offset, length);
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.test.io.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.generallycloud.baseio.acceptor.SocketChannelAcceptor;
+import com.generallycloud.baseio.codec.http2.Http2ProtocolFactory;
+import com.generallycloud.baseio.codec.http2.Http2SessionFactory;
+import com.generallycloud.baseio.codec.http2.Http2SocketSession;
+import com.generallycloud.baseio.codec.http2.Http2Stream;
+import com.generallycloud.baseio.codec.http2.future.Http2Frame;
+import com.generallycloud.baseio.codec.http2.future.Http2FrameHeader;
+import com.generallycloud.baseio.codec.http2.future.Http2StreamFrame;
+import com.generallycloud.baseio.codec.http2.hpack.Http2Headers;
+import com.generallycloud.baseio.codec.http2.hpack.Http2HeadersImpl;
+import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.component.IoEventHandleAdaptor;
+import com.generallycloud.baseio.component.NioSocketChannelContext;
+import com.generallycloud.baseio.component.SocketChannelContext;
+import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
+import com.generallycloud.baseio.protocol.Future;
+
+/**
+ * 使用原始的socket验证HTTP/2服务端的流控、RST_STREAM、GOAWAY以及多个流的DATA帧轮流写出，
+ * 请求的path为响应体的长度，每个检查点之前发送PING，收到PING的ack时服务端已处理完之前的帧
+ */
+public class TestHttp2FlowControl {
+
+    static final int    PORT          = 18302;
+
+    static final int    WINDOW        = 65535;
+
+    static final int    DATA          = 0x0;
+    static final int    HEADERS       = 0x1;
+    static final int    RST_STREAM    = 0x3;
+    static final int    SETTINGS      = 0x4;
+    static final int    PING          = 0x6;
+    static final int    GOAWAY        = 0x7;
+    static final int    WINDOW_UPDATE = 0x8;
+
+    static final int    END_STREAM    = 0x1;
+    static final int    END_HEADERS   = 0x4;
+    static final int    ACK           = 0x1;
+
+    static final byte[] PREFACE       = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes();
+
+    public static void main(String[] args) throws Exception {
+
+        SocketChannelContext context = new NioSocketChannelContext(new ServerConfiguration(PORT));
+        context.setProtocolFactory(new Http2ProtocolFactory());
+        context.setSocketSessionFactory(new Http2SessionFactory());
+        context.setIoEventHandleAdaptor(new IoEventHandleAdaptor() {
+
+            @Override
+            public void accept(SocketSession session, Future future) throws Exception {
+                Http2Frame frame = ((Http2FrameHeader) future).getFrame();
+                if (!(frame instanceof Http2StreamFrame)) {
+                    return;
+                }
+                Http2Stream stream = ((Http2StreamFrame) frame).getStream();
+                if (stream == null) {
+                    return;
+                }
+                Http2SocketSession http2Session = (Http2SocketSession) session;
+                int size = Integer.parseInt(stream.getHeaders().path().substring(1));
+                Http2Headers headers = new Http2HeadersImpl();
+                headers.status("200");
+                http2Session.writeHeaders(stream, headers, false);
+                http2Session.writeData(stream, new byte[size], true);
+            }
+        });
+
+        SocketChannelAcceptor acceptor = new SocketChannelAcceptor(context);
+
+        acceptor.bind();
+
+        Client client = null;
+
+        try {
+
+            client = new Client();
+
+            testWindowUpdate(client);
+
+            testInterleaving(client);
+
+            testRstStream(client);
+
+            testGoAway(client);
+
+            testGoAwayIdle();
+
+        } finally {
+            CloseUtil.close(client);
+            CloseUtil.unbind(acceptor);
+        }
+
+        System.out.println("all passed");
+    }
+
+    /**
+     * 流和连接的窗口都耗尽后暂停写出，分别收到WINDOW_UPDATE后继续写出剩余的数据
+     */
+    static void testWindowUpdate(Client client) throws IOException {
+        client.request(1, 100000);
+        List<Frame> frames = client.fence();
+        check(count(frames, HEADERS, 1) == 1, "window: headers");
+        check(dataLength(frames, 1) == WINDOW, "window: " + dataLength(frames, 1));
+        check(!ended(frames, 1), "window: ended before update");
+
+        // 只更新流的窗口时连接的窗口仍为0
+        client.windowUpdate(1, 50000);
+        frames = client.fence();
+        check(dataLength(frames, 1) == 0, "window: sent without connection window");
+
+        client.windowUpdate(0, 50000);
+        frames = client.fence();
+        check(dataLength(frames, 1) == 100000 - WINDOW, "window: " + dataLength(frames, 1));
+        check(ended(frames, 1), "window: not ended");
+    }
+
+    /**
+     * 连接的窗口耗尽时两个流都在等待，连接的窗口恢复后两个流轮流写出DATA帧
+     */
+    static void testInterleaving(Client client) throws IOException {
+        // 连接的窗口剩余65535+50000-100000
+        int connectionWindow = WINDOW + 50000 - 100000;
+        client.request(3, 40000);
+        client.request(5, 40000);
+        List<Frame> frames = client.fence();
+        check(dataLength(frames, 3) == connectionWindow, "interleave: " + dataLength(frames, 3));
+        check(dataLength(frames, 5) == 0, "interleave: " + dataLength(frames, 5));
+
+        client.windowUpdate(0, 1000000);
+        frames = client.fence();
+        List<Integer> order = new ArrayList<>();
+        for (Frame frame : frames) {
+            if (frame.type == DATA) {
+                order.add(frame.stream);
+            }
+        }
+        check(order.size() >= 4 && order.get(0) == 3 && order.get(1) == 5 && order.get(2) == 3
+                && order.get(3) == 5, "interleave: order " + order);
+        check(dataLength(frames, 3) == 40000 - connectionWindow, "interleave: stream 3");
+        check(dataLength(frames, 5) == 40000, "interleave: stream 5");
+        check(ended(frames, 3) && ended(frames, 5), "interleave: not ended");
+    }
+
+    /**
+     * 对端重置的流不再写出，向已关闭的流写入DATA时服务端重置该流
+     */
+    static void testRstStream(Client client) throws IOException {
+        client.request(7, 100000);
+        List<Frame> frames = client.fence();
+        check(dataLength(frames, 7) == WINDOW, "rst: " + dataLength(frames, 7));
+
+        client.rstStream(7, 0x8);
+        client.windowUpdate(7, 100000);
+        frames = client.fence();
+        check(frames.isEmpty(), "rst: frames after reset " + frames);
+
+        client.data(1, new byte[10], true);
+        frames = client.fence();
+        check(frames.size() == 1 && frames.get(0).type == RST_STREAM
+                && frames.get(0).stream == 1, "rst: closed stream " + frames);
+        check(frames.get(0).payloadInt() == 0x5, "rst: error code");
+    }
+
+    /**
+     * 收到GOAWAY后不再接受新的流，已打开的流继续写出
+     */
+    static void testGoAway(Client client) throws IOException {
+        client.request(9, 70000);
+        List<Frame> frames = client.fence();
+        check(dataLength(frames, 9) == WINDOW, "goaway: " + dataLength(frames, 9));
+
+        client.goAway(0);
+        client.request(11, 10);
+        client.windowUpdate(9, 10000);
+        frames = client.fence();
+        check(dataLength(frames, 9) == 70000 - WINDOW, "goaway: " + dataLength(frames, 9));
+        check(ended(frames, 9), "goaway: not ended");
+        for (Frame frame : frames) {
+            check(frame.stream != 11, "goaway: new stream accepted");
+        }
+    }
+
+    /**
+     * 没有打开的流时收到GOAWAY，服务端关闭连接
+     */
+    static void testGoAwayIdle() throws IOException {
+        Client client = new Client();
+        try {
+            client.goAway(0);
+            try {
+                for (;;) {
+                    client.readFrame();
+                }
+            } catch (EOFException e) {
+                // 连接已关闭
+            }
+        } finally {
+            CloseUtil.close(client);
+        }
+    }
+
+    static int count(List<Frame> frames, int type, int stream) {
+        int count = 0;
+        for (Frame frame : frames) {
+            if (frame.type == type && frame.stream == stream) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static int dataLength(List<Frame> frames, int stream) {
+        int length = 0;
+        for (Frame frame : frames) {
+            if (frame.type == DATA && frame.stream == stream) {
+                length += frame.payload.length;
+            }
+        }
+        return length;
+    }
+
+    static boolean ended(List<Frame> frames, int stream) {
+        for (Frame frame : frames) {
+            if (frame.type == DATA && frame.stream == stream && (frame.flags & END_STREAM) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    static class Frame {
+
+        int    type;
+        int    flags;
+        int    stream;
+        byte[] payload;
+
+        int payloadInt() {
+            return ((payload[0] & 0xff) << 24) | ((payload[1] & 0xff) << 16)
+                    | ((payload[2] & 0xff) << 8) | (payload[3] & 0xff);
+        }
+
+        @Override
+        public String toString() {
+            return "[type=" + type + ",flags=" + flags + ",stream=" + stream + ",length="
+                    + payload.length + "]";
+        }
+    }
+
+    static class Client implements Closeable {
+
+        private Socket          socket;
+
+        private DataInputStream in;
+
+        private OutputStream    out;
+
+        private long            ping;
+
+        Client() throws IOException {
+            socket = new Socket("localhost", PORT);
+            socket.setSoTimeout(5000);
+            in = new DataInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+            out.write(PREFACE);
+            writeFrame(SETTINGS, 0, 0, new byte[0]);
+            // 服务端的SETTINGS以及对本端SETTINGS的ack
+            Frame frame = readFrame();
+            check(frame.type == SETTINGS && frame.flags == 0, "settings: " + frame);
+            writeFrame(SETTINGS, ACK, 0, new byte[0]);
+            frame = readFrame();
+            check(frame.type == SETTINGS && frame.flags == ACK, "settings ack: " + frame);
+        }
+
+        /**
+         * 使用不加入动态表的字面量编码header，不需要HPACK编码器
+         */
+        void request(int stream, int size) throws IOException {
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            literal(block, ":method", "GET");
+            literal(block, ":scheme", "http");
+            literal(block, ":authority", "localhost");
+            literal(block, ":path", "/" + size);
+            writeFrame(HEADERS, END_STREAM | END_HEADERS, stream, block.toByteArray());
+        }
+
+        private void literal(ByteArrayOutputStream block, String name, String value) {
+            block.write(0);
+            block.write(name.length());
+            block.write(name.getBytes(), 0, name.length());
+            block.write(value.length());
+            block.write(value.getBytes(), 0, value.length());
+        }
+
+        void data(int stream, byte[] data, boolean endStream) throws IOException {
+            writeFrame(DATA, endStream ? END_STREAM : 0, stream, data);
+        }
+
+        void windowUpdate(int stream, int increment) throws IOException {
+            writeFrame(WINDOW_UPDATE, 0, stream, int32(increment));
+        }
+
+        void rstStream(int stream, int errorCode) throws IOException {
+            writeFrame(RST_STREAM, 0, stream, int32(errorCode));
+        }
+
+        void goAway(int lastStream) throws IOException {
+            byte[] payload = new byte[8];
+            System.arraycopy(int32(lastStream), 0, payload, 0, 4);
+            writeFrame(GOAWAY, 0, 0, payload);
+        }
+
+        /**
+         * 发送PING并读取ack之前服务端写出的帧，服务端的WINDOW_UPDATE不计入
+         */
+        List<Frame> fence() throws IOException {
+            long data = ++ping;
+            byte[] payload = new byte[8];
+            System.arraycopy(int32((int) (data >>> 32)), 0, payload, 0, 4);
+            System.arraycopy(int32((int) data), 0, payload, 4, 4);
+            writeFrame(PING, 0, 0, payload);
+            List<Frame> frames = new ArrayList<>();
+            for (;;) {
+                Frame frame = readFrame();
+                if (frame.type == PING && (frame.flags & ACK) != 0) {
+                    return frames;
+                }
+                if (frame.type != WINDOW_UPDATE) {
+                    frames.add(frame);
+                }
+            }
+        }
+
+        Frame readFrame() throws IOException {
+            int length = (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8)
+                    | in.readUnsignedByte();
+            Frame frame = new Frame();
+            frame.type = in.readUnsignedByte();
+            frame.flags = in.readUnsignedByte();
+            frame.stream = in.readInt() & 0x7fffffff;
+            frame.payload = new byte[length];
+            in.readFully(frame.payload);
+            return frame;
+        }
+
+        private void writeFrame(int type, int flags, int stream, byte[] payload)
+                throws IOException {
+            int length = payload.length;
+            byte[] header = new byte[9];
+            header[0] = (byte) (length >>> 16);
+            header[1] = (byte) (length >>> 8);
+            header[2] = (byte) length;
+            header[3] = (byte) type;
+            header[4] = (byte) flags;
+            System.arraycopy(int32(stream), 0, header, 5, 4);
+            out.write(header);
+            out.write(payload);
+            out.flush();
+        }
+
+        private byte[] int32(int value) {
+            return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16),
+                    (byte) (value >>> 8), (byte) value };
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.generallycloud.baseio.component.SocketChannelContext;
 import com.generallycloud.baseio.component.SocketSession;
 import com.generallycloud.baseio.configuration.ServerConfiguration;
 import com.generallycloud.baseio.connector.SocketChannelConnector;
+import com.generallycloud.baseio.container.FileSendSEListener;
 import com.generallycloud.baseio.container.FileSendUtil;
 import com.generallycloud.baseio.log.LoggerFactory;
 import com.generallycloud.baseio.protocol.Future;
@@ -72,6 +73,7 @@ public class TestUpload {
         context.setProtocolFactory(new ProtobaseProtocolFactory());
 
         context.addSessionEventListener(new LoggerSocketSEListener());
+        context.addSessionEventListener(new FileSendSEListener());
         SocketSession session = connector.connect();
 
         String fileName = "lantern-installer-beta.exe";
@@ -15,17 +15,16 @@
  */
 package com.generallycloud.test.io.redis;
 
-import com.generallycloud.baseio.codec.redis.RedisProtocolFactory;
 import com.generallycloud.baseio.codec.redis.future.RedisClient;
-import com.generallycloud.baseio.codec.redis.future.RedisIOEventHandle;
+import com.generallycloud.baseio.codec.redis.future.RedisFuture.RedisCommand;
+import com.generallycloud.baseio.codec.redis.future.RedisPipeline;
+import com.generallycloud.baseio.codec.redis.future.RedisResponse;
 import com.generallycloud.baseio.common.CloseUtil;
 import com.generallycloud.baseio.common.ThreadUtil;
 import com.generallycloud.baseio.component.LoggerSocketSEListener;
 import com.generallycloud.baseio.component.NioSocketChannelContext;
 import com.generallycloud.baseio.component.SocketChannelContext;
-import com.generallycloud.baseio.component.SocketSession;
 import com.generallycloud.baseio.configuration.ServerConfiguration;
-import com.generallycloud.baseio.connector.SocketChannelConnector;
 
 public class TestRedisClient {
 
@@ -33,17 +32,9 @@ public class TestRedisClient {
 
         SocketChannelContext context = new NioSocketChannelContext(new ServerConfiguration(6379));
 
-        SocketChannelConnector connector = new SocketChannelConnector(context);
-
-        context.setIoEventHandleAdaptor(new RedisIOEventHandle());
-
         context.addSessionEventListener(new LoggerSocketSEListener());
 
-        context.setProtocolFactory(new RedisProtocolFactory());
-
-        SocketSession session = connector.connect();
-
-        RedisClient client = new RedisClient(session);
+        RedisClient client = new RedisClient(context);
 
         String value = client.set("name222", "hello redis!");
 
@@ -65,9 +56,29 @@ public class TestRedisClient {
 
         System.out.println("__________________res______" + value);
 
+        RedisPipeline pipeline = client.pipeline();
+
+        pipeline.sendCommand(RedisCommand.SET, "k1".getBytes(), "v1".getBytes());
+
+        RedisResponse k1 = pipeline.sendCommand(RedisCommand.GET, "k1".getBytes());
+
+        pipeline.execute();
+
+        System.out.println("__________________res______" + k1.get(3000));
+
+        RedisPipeline multi = client.multi();
+
+        multi.sendCommand(RedisCommand.INCR, "counter".getBytes());
+
+        RedisResponse counter = multi.sendCommand(RedisCommand.GET, "counter".getBytes());
+
+        multi.execute();
+
+        System.out.println("__________________res______" + counter.get(3000));
+
         ThreadUtil.sleep(100);
 
-        CloseUtil.close(connector);
+        CloseUtil.close(client);
 
     }
 }
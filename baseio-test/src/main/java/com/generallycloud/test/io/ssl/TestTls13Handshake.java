@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.test.io.ssl;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.generallycloud.baseio.acceptor.SocketChannelAcceptor;
+import com.generallycloud.baseio.codec.fixedlength.FixedLengthProtocolFactory;
+import com.generallycloud.baseio.codec.fixedlength.future.FixedLengthFuture;
+import com.generallycloud.baseio.codec.fixedlength.future.FixedLengthFutureImpl;
+import com.generallycloud.baseio.common.CloseUtil;
+import com.generallycloud.baseio.common.FileUtil;
+import com.generallycloud.baseio.component.IoEventHandleAdaptor;
+import com.generallycloud.baseio.component.NioSocketChannelContext;
+import com.generallycloud.baseio.component.SocketChannelContext;
+import com.generallycloud.baseio.component.SocketSession;
+import com.generallycloud.baseio.component.ssl.SslContext;
+import com.generallycloud.baseio.component.ssl.SslContextBuilder;
+import com.generallycloud.baseio.configuration.ServerConfiguration;
+import com.generallycloud.baseio.connector.SocketChannelConnector;
+import com.generallycloud.baseio.protocol.Future;
+
+/**
+ * TLSv1.3握手后engine会在unwrap时要求先wrap(如NewSessionTicket之后的record)，
+ * 验证握手能完成且之后的数据能正常收发
+ */
+public class TestTls13Handshake {
+
+    static final int PORT  = 18301;
+
+    static final int COUNT = 1000;
+
+    public static void main(String[] args) throws Exception {
+
+        File certificate = FileUtil.readFileByCls("generallycloud.com.crt");
+        File privateKey = FileUtil.readFileByCls("generallycloud.com.key");
+
+        SslContext serverSslContext = SslContextBuilder.forServer(certificate, privateKey).build();
+        SslContext clientSslContext = SslContextBuilder.forClient().build();
+
+        SocketChannelContext serverContext = new NioSocketChannelContext(
+                new ServerConfiguration(PORT));
+        serverContext.setProtocolFactory(new FixedLengthProtocolFactory());
+        serverContext.setSslContext(serverSslContext);
+        serverContext.setIoEventHandleAdaptor(new IoEventHandleAdaptor() {
+
+            @Override
+            public void accept(SocketSession session, Future future) throws Exception {
+                future.write(future.getReadText());
+                session.flush(future);
+            }
+        });
+
+        final CountDownLatch latch = new CountDownLatch(COUNT);
+
+        SocketChannelContext clientContext = new NioSocketChannelContext(
+                new ServerConfiguration("localhost", PORT));
+        clientContext.setProtocolFactory(new FixedLengthProtocolFactory());
+        clientContext.setSslContext(clientSslContext);
+        clientContext.setIoEventHandleAdaptor(new IoEventHandleAdaptor() {
+
+            @Override
+            public void accept(SocketSession session, Future future) throws Exception {
+                latch.countDown();
+            }
+        });
+
+        SocketChannelAcceptor acceptor = new SocketChannelAcceptor(serverContext);
+        SocketChannelConnector connector = new SocketChannelConnector(clientContext);
+
+        boolean success = false;
+
+        try {
+
+            acceptor.bind();
+
+            SocketSession session = connector.connect();
+
+            String protocol = session.getSSLEngine().getSession().getProtocol();
+
+            System.out.println("protocol: " + protocol);
+
+            for (int i = 0; i < COUNT; i++) {
+                FixedLengthFuture future = new FixedLengthFutureImpl(clientContext);
+                future.write("hello server! " + i);
+                session.flush(future);
+            }
+
+            success = "TLSv1.3".equals(protocol) && latch.await(10, TimeUnit.SECONDS);
+
+            System.out.println("received: " + (COUNT - latch.getCount()) + "/" + COUNT);
+
+        } finally {
+            CloseUtil.close(connector);
+            CloseUtil.unbind(acceptor);
+        }
+
+        System.out.println(success ? "TLSv1.3 handshake ok" : "TLSv1.3 handshake failed");
+
+        if (!success) {
+            System.exit(1);
+        }
+    }
+}
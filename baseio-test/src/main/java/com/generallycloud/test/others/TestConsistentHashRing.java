@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015-2017 GenerallyCloud.com
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.generallycloud.test.others;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.generallycloud.baseio.balance.router.ConsistentHashRing;
+import com.generallycloud.baseio.balance.router.VirtualMachine;
+
+/**
+ * @author wangkai
+ *
+ */
+public class TestConsistentHashRing {
+
+    static final int KEYS = 100000;
+
+    public static void main(String[] args) {
+
+        int time = 10;
+
+        ConsistentHashRing<VirtualMachine> ring = new ConsistentHashRing<>(160);
+
+        List<StringMachine> machines = new ArrayList<>(time);
+
+        int[] keys = new int[KEYS];
+
+        Random random = new Random();
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt();
+        }
+
+        VirtualMachine[] lastOwners = null;
+
+        for (int i = 0; i < time; i++) {
+            StringMachine m = new StringMachine(String.valueOf(i));
+            machines.add(m);
+            ring.addMachine(m);
+            lastOwners = count(ring, machines, keys, lastOwners);
+        }
+
+        for (int i = 0; i < time - 1; i++) {
+            int index = random.nextInt(machines.size());
+            ring.removeMachine(machines.remove(index));
+            lastOwners = count(ring, machines, keys, lastOwners);
+        }
+
+        System.out.println();
+    }
+
+    // 打印每个节点分到的key数量，以及与上一次相比迁移的key的比例
+    private static VirtualMachine[] count(ConsistentHashRing<VirtualMachine> ring,
+            List<StringMachine> machines, int[] keys, VirtualMachine[] lastOwners) {
+        int max = -1;
+        int min = Integer.MAX_VALUE;
+        Map<VirtualMachine, AtomicInteger> map = new LinkedHashMap<>();
+        for (VirtualMachine machine : machines) {
+            map.put(machine, new AtomicInteger());
+        }
+        VirtualMachine[] owners = new VirtualMachine[keys.length];
+        int moved = 0;
+        for (int i = 0; i < keys.length; i++) {
+            owners[i] = ring.getMachine(keys[i]);
+            map.get(owners[i]).incrementAndGet();
+            if (lastOwners != null && lastOwners[i] != owners[i]) {
+                moved++;
+            }
+        }
+        for (AtomicInteger a : map.values()) {
+            if (a.get() > max) {
+                max = a.get();
+            }
+            if (a.get() < min) {
+                min = a.get();
+            }
+        }
+        System.out.print(map);
+        String str = (max - min) + "====" + (moved * 1f / keys.length);
+        System.err.println(str);
+        return owners;
+    }
+
+    static class StringMachine implements VirtualMachine {
+
+        private String value;
+
+        public StringMachine(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getMachineKey() {
+            return value;
+        }
+
+        @Override
+        public int getWeight() {
+            return 1;
+        }
+
+        @Override
+        public int getInFlight() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+}